@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads the image, information and metadata of a synthetic image in every
+ * format there is a parser for.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageParserBenchmark {
+    @Param({ "BMP", "DCX", "GIF", "ICNS", "ICO", "JPEG", "PAM", "PBM", "PCX",
+            "PGM", "PNG", "PPM", "PSD", "RGBE", "TIFF", "WBMP", "XBM", "XPM" })
+    public String format;
+
+    @Param({ "512" })
+    public int size;
+
+    private ImageParser parser;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws ImageWriteException, IOException {
+        final ImageFormat imageFormat = ImageFormats.valueOf(format);
+        final int imageSize = SyntheticImages.getSize(imageFormat, size);
+        bytes = SyntheticImages.encode(
+                SyntheticImages.createImage(imageSize, imageSize, false), imageFormat);
+        for (final ImageParser imageParser : ImageParser.getAllImageParsers()) {
+            if (imageParser.canAcceptType(imageFormat)) {
+                parser = imageParser;
+            }
+        }
+    }
+
+    @Benchmark
+    public BufferedImage getBufferedImage() throws ImageReadException, IOException {
+        return parser.getBufferedImage(new ByteSourceArray(bytes),
+                new HashMap<String, Object>());
+    }
+
+    @Benchmark
+    public ImageInfo getImageInfo() throws ImageReadException, IOException {
+        return parser.getImageInfo(new ByteSourceArray(bytes),
+                new HashMap<String, Object>());
+    }
+
+    @Benchmark
+    public ImageMetadata getMetadata() throws ImageReadException, IOException {
+        return parser.getMetadata(new ByteSourceArray(bytes),
+                new HashMap<String, Object>());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes a synthetic image in every format there is a writer for.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageWriterBenchmark {
+    @Param({ "BMP", "DCX", "GIF", "ICNS", "ICO", "PAM", "PBM", "PCX", "PGM",
+            "PNG", "PPM", "TIFF", "WBMP", "XBM", "XPM" })
+    public String format;
+
+    @Param({ "512" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean hasAlpha;
+
+    private ImageFormat imageFormat;
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        imageFormat = ImageFormats.valueOf(format);
+        final int imageSize = SyntheticImages.getSize(imageFormat, size);
+        image = SyntheticImages.createImage(imageSize, imageSize, hasAlpha);
+    }
+
+    @Benchmark
+    public byte[] writeImage() throws ImageWriteException, IOException {
+        return Imaging.writeImageToBytes(image, imageFormat,
+                new HashMap<String, Object>());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.PackBits;
+
+/**
+ * Generates the images the benchmarks work on, so they don't depend on
+ * test images being present.
+ * <p>
+ * The images are smooth gradients with some flat areas and a little noise,
+ * which compress roughly like photographs and drawings do. They are
+ * generated from a fixed seed, so every run works on the same data.
+ */
+public final class SyntheticImages {
+    private SyntheticImages() {
+    }
+
+    public static BufferedImage createImage(final int width, final int height,
+            final boolean hasAlpha) {
+        final BufferedImage image = new BufferedImage(width, height,
+                hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        final Random random = new Random(width * 31 + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = 255 * x / width;
+                int green = 255 * y / height;
+                int blue = 255 * (x + y) / (width + height);
+                if (((x / 32) + (y / 32)) % 5 == 0) {
+                    // flat blocks, as in drawings and screenshots
+                    red = 0x40;
+                    green = 0x80;
+                    blue = 0xc0;
+                } else {
+                    red = clamp(red + random.nextInt(9) - 4);
+                    green = clamp(green + random.nextInt(9) - 4);
+                    blue = clamp(blue + random.nextInt(9) - 4);
+                }
+                final int alpha = hasAlpha && x < width / 8 ? 0x80 : 0xff;
+                image.setRGB(x, y, (alpha << 24) | (red << 16) | (green << 8) | blue);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns rows of 1 bit per pixel, 1 being black, with the line-art
+     * structure fax and scanned documents have.
+     */
+    public static byte[] createBilevelRows(final int width, final int height) {
+        final int bytesPerRow = (width + 7) / 8;
+        final byte[] rows = new byte[bytesPerRow * height];
+        final Random random = new Random(width * 31 + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final boolean text = (y % 24) < 12 && ((x / 6) % 9) != 0
+                        && random.nextInt(3) == 0;
+                final boolean line = x == width / 3 || y == height / 2;
+                if (text || line) {
+                    rows[y * bytesPerRow + x / 8] |= 0x80 >> (x & 7);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Encodes an image in the given format. JPEG images are written with
+     * ImageIO, and PSD and RGBE images, for which there are no writers, are
+     * written here.
+     */
+    public static byte[] encode(final BufferedImage image, final ImageFormat format)
+            throws ImageWriteException, IOException {
+        if (format == ImageFormats.JPEG) {
+            final BufferedImage rgb = new BufferedImage(image.getWidth(),
+                    image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            rgb.getGraphics().drawImage(image, 0, 0, null);
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ImageIO.write(rgb, "jpeg", baos);
+            return baos.toByteArray();
+        } else if (format == ImageFormats.PSD) {
+            return encodePsd(image);
+        } else if (format == ImageFormats.RGBE) {
+            return encodeRgbe(image);
+        }
+        final Map<String, Object> params = new HashMap<String, Object>();
+        return Imaging.writeImageToBytes(image, format, params);
+    }
+
+    /**
+     * Returns the largest image size the format can hold, up to the given
+     * size.
+     */
+    public static int getSize(final ImageFormat format, final int size) {
+        if (format == ImageFormats.ICO) {
+            return Math.min(size, 256);
+        } else if (format == ImageFormats.ICNS) {
+            return Math.min(size, 128);
+        }
+        return size;
+    }
+
+    /**
+     * Writes an RGB PSD file with PackBits compressed channels, as Photoshop
+     * does.
+     */
+    private static byte[] encodePsd(final BufferedImage image) throws IOException {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final BinaryOutputStream bos = new BinaryOutputStream(baos);
+        bos.write(new byte[] { '8', 'B', 'P', 'S' });
+        bos.write2Bytes(1); // version
+        bos.write(new byte[6]);
+        bos.write2Bytes(3); // channels
+        bos.write4Bytes(height);
+        bos.write4Bytes(width);
+        bos.write2Bytes(8); // depth
+        bos.write2Bytes(3); // RGB
+        bos.write4Bytes(0); // color mode data
+        bos.write4Bytes(0); // image resources
+        bos.write4Bytes(0); // layer and mask information
+        bos.write2Bytes(1); // PackBits
+
+        final PackBits packBits = new PackBits();
+        final byte[][] rows = new byte[3 * height][];
+        final byte[] row = new byte[width];
+        for (int channel = 0; channel < 3; channel++) {
+            final int shift = 16 - 8 * channel;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = (byte) (image.getRGB(x, y) >> shift);
+                }
+                rows[channel * height + y] = packBits.compress(row);
+            }
+        }
+        for (final byte[] compressed : rows) {
+            bos.write2Bytes(compressed.length);
+        }
+        for (final byte[] compressed : rows) {
+            bos.write(compressed);
+        }
+        bos.close();
+        return baos.toByteArray();
+    }
+
+    /**
+     * Writes a Radiance RGBE file, with its scan lines in the run length
+     * encoded format, but without runs.
+     */
+    private static byte[] encodeRgbe(final BufferedImage image) throws IOException {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final String header = "#?RADIANCE\nFORMAT=32-bit_rle_rgbe\n\n-Y "
+                + height + " +X " + width + "\n";
+        baos.write(header.getBytes("US-ASCII"));
+
+        final byte[] components = new byte[4 * width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int rgb = image.getRGB(x, y);
+                components[x] = (byte) (rgb >> 16);
+                components[width + x] = (byte) (rgb >> 8);
+                components[2 * width + x] = (byte) rgb;
+                // the exponent for values between 0 and 1
+                components[3 * width + x] = (byte) 128;
+            }
+            baos.write(2);
+            baos.write(2);
+            baos.write(width >> 8);
+            baos.write(width);
+            for (int component = 0; component < 4; component++) {
+                for (int x = 0; x < width; x += 128) {
+                    final int count = Math.min(128, width - x);
+                    baos.write(count);
+                    baos.write(components, component * width + x, count);
+                }
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static int clamp(final int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
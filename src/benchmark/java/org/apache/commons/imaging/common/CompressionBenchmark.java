@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.SyntheticImages;
+import org.apache.commons.imaging.common.mylzw.MyLzwCompressor;
+import org.apache.commons.imaging.common.mylzw.MyLzwDecompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compresses and decompresses the interleaved RGB samples of a synthetic
+ * image with LZW, as TIFF does, and with PackBits, and reads them back with
+ * the binary reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    private static final int LZW_CODE_SIZE = 8;
+
+    @Param({ "512" })
+    public int size;
+
+    private byte[] samples;
+    private byte[] lzwCompressed;
+    private byte[] packBitsCompressed;
+
+    @Setup
+    public void setUp() throws IOException {
+        final BufferedImage image = SyntheticImages.createImage(size, size, false);
+        samples = new byte[3 * size * size];
+        int i = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final int rgb = image.getRGB(x, y);
+                samples[i++] = (byte) (rgb >> 16);
+                samples[i++] = (byte) (rgb >> 8);
+                samples[i++] = (byte) rgb;
+            }
+        }
+        lzwCompressed = compressLzw();
+        packBitsCompressed = compressPackBits();
+    }
+
+    @Benchmark
+    public byte[] compressLzw() throws IOException {
+        return new MyLzwCompressor(LZW_CODE_SIZE, ByteOrder.BIG_ENDIAN, true)
+                .compress(samples);
+    }
+
+    @Benchmark
+    public byte[] decompressLzw() throws IOException {
+        final MyLzwDecompressor decompressor = new MyLzwDecompressor(
+                LZW_CODE_SIZE, ByteOrder.BIG_ENDIAN);
+        decompressor.setTiffLZWMode();
+        return decompressor.decompress(new ByteArrayInputStream(lzwCompressed),
+                samples.length);
+    }
+
+    @Benchmark
+    public byte[] compressPackBits() throws IOException {
+        return new PackBits().compress(samples);
+    }
+
+    @Benchmark
+    public byte[] decompressPackBits() throws ImageReadException, IOException {
+        return new PackBits().decompress(packBitsCompressed, samples.length);
+    }
+
+    @Benchmark
+    public long readBinary() throws IOException {
+        final BinaryReader reader = new BinaryReader(
+                new ByteArrayInputStream(samples), ByteOrder.LITTLE_ENDIAN);
+        long sum = 0;
+        final int count = samples.length / 4;
+        for (int i = 0; i < count; i++) {
+            sum += reader.getU16("Not a short");
+            sum += reader.getU8("Not a byte");
+            sum += reader.getU8("Not a byte");
+        }
+        reader.close();
+        return sum;
+    }
+}
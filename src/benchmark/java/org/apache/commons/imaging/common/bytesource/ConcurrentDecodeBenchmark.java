@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.bytesource;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageFormat;
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageParser;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.SyntheticImages;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decodes a corpus of image files from many tasks at once, each on a
+ * thread of its own or on a pool of as many threads as there are
+ * processors, and through a {@link ByteSourceFile} per read or a
+ * {@link ByteSourceFileChannel} shared by all the reads of a file.
+ * <p>
+ * The benchmarks are compiled for Java 7, so the virtual threads are
+ * created by reflection, and those benchmarks fail on Java versions before
+ * 21.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentDecodeBenchmark {
+    private static final ImageFormat[] FORMATS = { ImageFormats.BMP,
+            ImageFormats.GIF, ImageFormats.PCX, ImageFormats.PNG,
+            ImageFormats.PPM, ImageFormats.TIFF };
+
+    @Param({ "platform", "virtual" })
+    public String threads;
+
+    @Param({ "file", "channel" })
+    public String byteSource;
+
+    @Param({ "2000" })
+    public int tasks;
+
+    @Param({ "128" })
+    public int size;
+
+    private ExecutorService executor;
+    private File directory;
+    private File[] files;
+    private ImageParser[] parsers;
+    private RandomAccessFile[] openFiles;
+    private ByteSource[] channelSources;
+
+    @Setup
+    public void setUp() throws ImageWriteException, IOException {
+        directory = File.createTempFile("corpus", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Could not create " + directory);
+        }
+        files = new File[FORMATS.length];
+        parsers = new ImageParser[FORMATS.length];
+        openFiles = new RandomAccessFile[FORMATS.length];
+        channelSources = new ByteSource[FORMATS.length];
+        for (int i = 0; i < FORMATS.length; i++) {
+            final ImageFormat format = FORMATS[i];
+            files[i] = new File(directory, "image" + i + "." + format.getExtension());
+            final FileOutputStream fos = new FileOutputStream(files[i]);
+            try {
+                fos.write(SyntheticImages.encode(
+                        SyntheticImages.createImage(size, size, false), format));
+            } finally {
+                fos.close();
+            }
+            for (final ImageParser parser : ImageParser.getAllImageParsers()) {
+                if (parser.canAcceptType(format)) {
+                    parsers[i] = parser;
+                }
+            }
+            openFiles[i] = new RandomAccessFile(files[i], "r");
+            channelSources[i] = new ByteSourceFileChannel(openFiles[i].getChannel(),
+                    files[i].getName());
+        }
+
+        if ("virtual".equals(threads)) {
+            executor = newVirtualThreadPerTaskExecutor();
+        } else {
+            executor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        for (int i = 0; i < files.length; i++) {
+            openFiles[i].close();
+            files[i].delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long decode() throws InterruptedException, ExecutionException {
+        final boolean channel = "channel".equals(byteSource);
+        final List<Future<BufferedImage>> futures = new ArrayList<Future<BufferedImage>>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            final int index = i % files.length;
+            futures.add(executor.submit(new Callable<BufferedImage>() {
+                public BufferedImage call() throws Exception {
+                    final ByteSource source = channel ? channelSources[index]
+                            : new ByteSourceFile(files[index]);
+                    return parsers[index].getBufferedImage(source,
+                            new HashMap<String, Object>());
+                }
+            }));
+        }
+        long pixels = 0;
+        for (final Future<BufferedImage> future : futures) {
+            final BufferedImage image = future.get();
+            pixels += image.getWidth() * image.getHeight();
+        }
+        return pixels;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final NoSuchMethodException e) {
+            throw new UnsupportedOperationException(
+                    "Virtual threads need Java 21 or later", e);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (final InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
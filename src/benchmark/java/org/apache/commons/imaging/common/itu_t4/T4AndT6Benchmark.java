@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.itu_t4;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.SyntheticImages;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compresses and decompresses a synthetic fax page with each of the CCITT
+ * codings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class T4AndT6Benchmark {
+    @Param({ "1728" })
+    public int width;
+
+    @Param({ "1024" })
+    public int height;
+
+    private byte[] rows;
+    private byte[] modifiedHuffman;
+    private byte[] t4OneDimensional;
+    private byte[] t4TwoDimensional;
+    private byte[] t6;
+
+    @Setup
+    public void setUp() throws ImageWriteException {
+        rows = SyntheticImages.createBilevelRows(width, height);
+        modifiedHuffman = T4AndT6Compression.compressModifiedHuffman(rows, width, height);
+        t4OneDimensional = T4AndT6Compression.compressT4_1D(rows, width, height, false);
+        t4TwoDimensional = T4AndT6Compression.compressT4_2D(rows, width, height, false, 4);
+        t6 = T4AndT6Compression.compressT6(rows, width, height);
+    }
+
+    @Benchmark
+    public byte[] compressT6() throws ImageWriteException {
+        return T4AndT6Compression.compressT6(rows, width, height);
+    }
+
+    @Benchmark
+    public byte[] decompressModifiedHuffman() throws ImageReadException {
+        return T4AndT6Compression.decompressModifiedHuffman(modifiedHuffman, width, height);
+    }
+
+    @Benchmark
+    public byte[] decompressT4_1D() throws ImageReadException {
+        return T4AndT6Compression.decompressT4_1D(t4OneDimensional, width, height, false);
+    }
+
+    @Benchmark
+    public byte[] decompressT4_2D() throws ImageReadException {
+        return T4AndT6Compression.decompressT4_2D(t4TwoDimensional, width, height, false);
+    }
+
+    @Benchmark
+    public byte[] decompressT6() throws ImageReadException {
+        return T4AndT6Compression.decompressT6(t6, width, height);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transforms 8x8 blocks with the forward and inverse DCT, one block being
+ * the unit of work of the JPEG decoder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DctBenchmark {
+    private final float[] samples = new float[64];
+    private final float[] block = new float[64];
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(64);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(256) - 128;
+        }
+    }
+
+    @Benchmark
+    public float[] forwardDCT8x8() {
+        System.arraycopy(samples, 0, block, 0, block.length);
+        Dct.forwardDCT8x8(block);
+        return block;
+    }
+
+    @Benchmark
+    public float[] inverseDCT8x8() {
+        System.arraycopy(samples, 0, block, 0, block.length);
+        Dct.inverseDCT8x8(block);
+        return block;
+    }
+}
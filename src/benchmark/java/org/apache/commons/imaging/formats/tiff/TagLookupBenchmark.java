@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.SyntheticImages;
+import org.apache.commons.imaging.common.RationalNumber;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.formats.jpeg.JpegImageParser;
+import org.apache.commons.imaging.formats.jpeg.exif.ExifRewriter;
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.GpsTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extracts the tags a photo library typically indexes from a JPEG with
+ * the EXIF of a camera, once by reading the whole metadata and looking the
+ * tags up, and once by reading only those tags.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TagLookupBenchmark {
+    private static final List<TagInfo> TAGS = Arrays.<TagInfo> asList(
+            TiffTagConstants.TIFF_TAG_MAKE,
+            TiffTagConstants.TIFF_TAG_MODEL,
+            TiffTagConstants.TIFF_TAG_ORIENTATION,
+            ExifTagConstants.EXIF_TAG_DATE_TIME_ORIGINAL,
+            ExifTagConstants.EXIF_TAG_EXPOSURE_TIME,
+            ExifTagConstants.EXIF_TAG_FNUMBER,
+            ExifTagConstants.EXIF_TAG_ISO,
+            ExifTagConstants.EXIF_TAG_FOCAL_LENGTH,
+            GpsTagConstants.GPS_TAG_GPS_LATITUDE,
+            GpsTagConstants.GPS_TAG_GPS_LONGITUDE);
+
+    private final JpegImageParser parser = new JpegImageParser();
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws ImageReadException, ImageWriteException, IOException {
+        final byte[] jpeg = SyntheticImages.encode(
+                SyntheticImages.createImage(256, 256, false), ImageFormats.JPEG);
+
+        final TiffOutputSet outputSet = new TiffOutputSet();
+        final TiffOutputDirectory root = outputSet.getOrCreateRootDirectory();
+        root.add(TiffTagConstants.TIFF_TAG_MAKE, "Camera Maker");
+        root.add(TiffTagConstants.TIFF_TAG_MODEL, "Camera Model 1");
+        root.add(TiffTagConstants.TIFF_TAG_ORIENTATION, (short) 1);
+        root.add(TiffTagConstants.TIFF_TAG_SOFTWARE, "Firmware 1.0");
+        root.add(TiffTagConstants.TIFF_TAG_ARTIST, "Photographer");
+        final TiffOutputDirectory exif = outputSet.getOrCreateExifDirectory();
+        exif.add(ExifTagConstants.EXIF_TAG_DATE_TIME_ORIGINAL, "2016:01:01 12:00:00");
+        exif.add(ExifTagConstants.EXIF_TAG_EXPOSURE_TIME, new RationalNumber(1, 125));
+        exif.add(ExifTagConstants.EXIF_TAG_FNUMBER, new RationalNumber(28, 10));
+        exif.add(ExifTagConstants.EXIF_TAG_ISO, (short) 200);
+        exif.add(ExifTagConstants.EXIF_TAG_FOCAL_LENGTH, new RationalNumber(50, 1));
+        outputSet.setGPSInDegrees(-122.4, 37.8);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new ExifRewriter().updateExifMetadataLossless(jpeg, baos, outputSet);
+        bytes = baos.toByteArray();
+    }
+
+    @Benchmark
+    public Map<TagInfo, TiffField> findFields() throws ImageReadException, IOException {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.PARAM_KEY_READ_THUMBNAILS, Boolean.FALSE);
+        final TiffImageMetadata metadata = parser.getExifMetadata(
+                new ByteSourceArray(bytes), params);
+        final Map<TagInfo, TiffField> fields = new HashMap<TagInfo, TiffField>();
+        for (final TagInfo tagInfo : TAGS) {
+            fields.put(tagInfo, metadata.findField(tagInfo, true));
+        }
+        return fields;
+    }
+
+    @Benchmark
+    public Map<TagInfo, TiffField> getExifFields() throws ImageReadException, IOException {
+        return parser.getExifFields(new ByteSourceArray(bytes), TAGS, null);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts the samples of every row of an image to RGB, with each of the
+ * photometric interpretations TIFF readers meet most.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhotometricInterpreterBenchmark {
+    @Param({ "RGB", "YCbCr", "CMYK", "Palette", "BiLevel" })
+    public String interpretation;
+
+    @Param({ "512" })
+    public int size;
+
+    private PhotometricInterpreter interpreter;
+    private ImageBuilder imageBuilder;
+    private int[] samples;
+
+    @Setup
+    public void setUp() {
+        final int samplesPerPixel;
+        if ("RGB".equals(interpretation)) {
+            samplesPerPixel = 3;
+            interpreter = new PhotometricInterpreterRgb(samplesPerPixel,
+                    bitsPerSample(samplesPerPixel), -1, size, size);
+        } else if ("YCbCr".equals(interpretation)) {
+            samplesPerPixel = 3;
+            interpreter = new PhotometricInterpreterYCbCr(samplesPerPixel,
+                    bitsPerSample(samplesPerPixel), -1, size, size, 1, 1,
+                    TiffTagConstants.YCB_CR_POSITIONING_VALUE_CENTERED);
+        } else if ("CMYK".equals(interpretation)) {
+            samplesPerPixel = 4;
+            interpreter = new PhotometricInterpreterCmyk(samplesPerPixel,
+                    bitsPerSample(samplesPerPixel), -1, size, size);
+        } else if ("Palette".equals(interpretation)) {
+            samplesPerPixel = 1;
+            final int[] colorMap = new int[3 * 256];
+            for (int i = 0; i < colorMap.length; i++) {
+                colorMap[i] = (i * 257) & 0xffff;
+            }
+            interpreter = new PhotometricInterpreterPalette(samplesPerPixel,
+                    bitsPerSample(samplesPerPixel), -1, size, size, colorMap);
+        } else if ("BiLevel".equals(interpretation)) {
+            samplesPerPixel = 1;
+            interpreter = new PhotometricInterpreterBiLevel(samplesPerPixel,
+                    bitsPerSample(samplesPerPixel), -1, size, size, false);
+        } else {
+            throw new IllegalArgumentException(interpretation);
+        }
+        imageBuilder = new ImageBuilder(size, size, false);
+        samples = new int[samplesPerPixel * size];
+        final Random random = new Random(size);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(256);
+        }
+    }
+
+    @Benchmark
+    public ImageBuilder interpretRows() throws ImageReadException, IOException {
+        for (int y = 0; y < size; y++) {
+            interpreter.interpretRow(imageBuilder, samples, 0, y, size);
+        }
+        return imageBuilder;
+    }
+
+    private static int[] bitsPerSample(final int samplesPerPixel) {
+        final int[] bitsPerSample = new int[samplesPerPixel];
+        for (int i = 0; i < samplesPerPixel; i++) {
+            bitsPerSample[i] = 8;
+        }
+        return bitsPerSample;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.palette;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.SyntheticImages;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds exact and quantized palettes of a synthetic image, as the GIF, PCX
+ * and XPM writers do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaletteFactoryBenchmark {
+    @Param({ "256", "1024" })
+    public int size;
+
+    private final PaletteFactory paletteFactory = new PaletteFactory();
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        image = SyntheticImages.createImage(size, size, true);
+    }
+
+    @Benchmark
+    public Palette makeExactRgbPaletteSimple() {
+        return paletteFactory.makeExactRgbPaletteSimple(image, 256);
+    }
+
+    @Benchmark
+    public Palette makeQuantizedRgbPalette() {
+        return paletteFactory.makeQuantizedRgbPalette(image, 256);
+    }
+
+    @Benchmark
+    public Palette makeQuantizedRgbaPalette() throws ImageWriteException {
+        return paletteFactory.makeQuantizedRgbaPalette(image, true, 256);
+    }
+
+    @Benchmark
+    public boolean hasTransparency() {
+        return paletteFactory.hasTransparency(image);
+    }
+}
@@ -23,15 +23,21 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.common.BinaryFileParser;
 import org.apache.commons.imaging.common.BufferedImageFactory;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.ParserListener;
+import org.apache.commons.imaging.common.PhaseRecorder;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.common.SimpleBufferedImageFactory;
+import org.apache.commons.imaging.common.SimpleRasterBufferProvider;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
@@ -94,9 +100,34 @@ import org.apache.commons.imaging.formats.xpm.XpmImageParser;
  * 
  * <p>Additionally, developers creating or enhancing classes derived
  * from ImageParser are encouraged to include such checks in their code.
+ * 
+ * <h4>Thread safety</h4>
+ * 
+ * An ImageParser keeps no state between calls: everything a read
+ * depends on is either fixed at construction or created for that one
+ * call, so a single instance may be shared by any number of threads.
+ * Implementations must keep it that way, passing per-read state
+ * (such as a {@link org.apache.commons.imaging.common.ReadContext})
+ * along the read path rather than storing it in fields.
  */
 public abstract class ImageParser extends BinaryFileParser {
 
+    /**
+     * Constructs a parser with the default, big-endian, byte order.
+     */
+    protected ImageParser() {
+        super();
+    }
+
+    /**
+     * Constructs a parser that reads multi-byte values in the given order.
+     *
+     * @param byteOrder the byte order of the format.
+     */
+    protected ImageParser(final ByteOrder byteOrder) {
+        super(byteOrder);
+    }
+
     /**
      * Gets an array of new instances of all image parsers.
      *
@@ -969,6 +1000,59 @@ public abstract class ImageParser extends BinaryFileParser {
         return new SimpleBufferedImageFactory();
     }
 
+    /**
+     * Get the RasterBufferProvider specified by
+     * ImagingConstants&#46;RASTER_BUFFER_PROVIDER within the supplied params.
+     *
+     * @param params A valid Map object, or a null.
+     * @return A valid RasterBufferProvider; if none is specified, one which
+     *         allocates new arrays.
+     */
+    protected RasterBufferProvider getRasterBufferProvider(final Map<String, Object> params) {
+        if (params != null) {
+            final RasterBufferProvider result = (RasterBufferProvider) params
+                    .get(ImagingConstants.RASTER_BUFFER_PROVIDER);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return new SimpleRasterBufferProvider();
+    }
+
+    /**
+     * Get the Executor specified by ImagingConstants&#46;EXECUTOR within the
+     * supplied params.
+     *
+     * @param params A valid Map object, or a null.
+     * @return The Executor, or null if none is specified.
+     */
+    protected Executor getExecutor(final Map<String, Object> params) {
+        if (params == null) {
+            return null;
+        }
+        return (Executor) params.get(ImagingConstants.EXECUTOR);
+    }
+
+    /**
+     * Get a recorder for the phases of a read, reporting to the ParserListener
+     * specified by ImagingConstants&#46;PARSER_LISTENER within the supplied
+     * params.
+     *
+     * @param format The format of the image being read.
+     * @param params A valid Map object, or a null.
+     * @return A valid PhaseRecorder; if no listener is specified, one which
+     *         does nothing.
+     */
+    protected PhaseRecorder getPhaseRecorder(final ImageFormat format,
+            final Map<String, Object> params) {
+        if (params == null) {
+            return PhaseRecorder.NONE;
+        }
+        return PhaseRecorder.create(
+                (ParserListener) params.get(ImagingConstants.PARSER_LISTENER), format);
+    }
+
     /**
      * A utility method to search a params specification and determine
      * whether it contains the ImagingConstants&#46;PARAM_KEY_STRICT
@@ -23,6 +23,7 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -32,6 +33,9 @@ import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.ParserListener;
+import org.apache.commons.imaging.common.ParserPhase;
+import org.apache.commons.imaging.common.PhaseRecorder;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
@@ -733,7 +737,7 @@ public final class Imaging {
         return imageParser.getImageInfo(byteSource, params);
     }
 
-    private static ImageParser getImageParser(final ByteSource byteSource)
+    static ImageParser getImageParser(final ByteSource byteSource)
             throws ImageReadException, IOException {
         final ImageFormat format = guessFormat(byteSource);
         if (!format.equals(ImageFormats.UNKNOWN)) {
@@ -1514,6 +1518,13 @@ public final class Imaging {
             params = new HashMap<String, Object>();
         }
 
+        ParserListener listener = null;
+        if (params.containsKey(PARSER_LISTENER)) {
+            // the writers don't know the key; leave the caller's map as it is
+            params = new HashMap<String, Object>(params);
+            listener = (ParserListener) params.remove(PARSER_LISTENER);
+        }
+
         params.put(PARAM_KEY_FORMAT, format);
 
         ImageParser imageParser = null;
@@ -1523,11 +1534,48 @@ public final class Imaging {
                 break;
             }
         }
-        if (imageParser != null) {
-            imageParser.writeImage(src, os, params);
-        } else {
+        if (imageParser == null) {
             throw new ImageWriteException("Unknown Format: " + format);
         }
+        if (listener == null) {
+            imageParser.writeImage(src, os, params);
+            return;
+        }
+
+        final PhaseRecorder recorder = PhaseRecorder.create(listener, format);
+        final CountingOutputStream cos = new CountingOutputStream(os);
+        final long start = recorder.start();
+        ParserPhase phase = ParserPhase.ENCODE;
+        try {
+            imageParser.writeImage(src, cos, params);
+            recorder.end(phase, start, cos.count, 0);
+            phase = null;
+        } finally {
+            recorder.failed(phase, start);
+        }
+    }
+
+    /**
+     * Counts the bytes written through it.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(final OutputStream os) {
+            super(os);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
     }
 
 }
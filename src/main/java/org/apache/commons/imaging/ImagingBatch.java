@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+
+/**
+ * Reads the information, metadata or pixels of many images, several at a
+ * time.
+ * <p>
+ * The images are read by tasks run on an executor given by the caller, and
+ * their results are delivered, in the order they complete, by a
+ * {@link Results} object:
+ * 
+ * <pre>
+ * ImagingBatch batch = new ImagingBatch(executor, 8, 256 * 1024 * 1024);
+ * ImagingBatch.Results&lt;BufferedImage&gt; results = batch.getBufferedImages(sources, null);
+ * ImagingBatch.Result&lt;BufferedImage&gt; result;
+ * while ((result = results.take()) != null) {
+ *     if (result.isSuccess()) {
+ *         process(result.getByteSource(), result.getValue());
+ *     } else {
+ *         log(result.getByteSource(), result.getException());
+ *     }
+ * }
+ * </pre>
+ * 
+ * Two limits keep a batch from taking more memory than asked for, however
+ * many images it is given:
+ * <ul>
+ * <li>At most {@code maxTasks} images are in progress at a time. An image
+ * is in progress from when it is taken from the sources until its result is
+ * delivered, so a slow consumer holds back the reading too.</li>
+ * <li>Images are only decoded while the pixels of the images being decoded,
+ * and of the last one delivered, fit in {@code maxDecodedBytes}. The size of
+ * the pixels is estimated from the image information before decoding,
+ * at four bytes a pixel. An image that alone is larger than the budget is
+ * decoded on its own.</li>
+ * </ul>
+ * The sources are read lazily, as room becomes free, so they may be
+ * generated on the fly. A caller that stops taking results before the end
+ * simply stops new work from being started.
+ * <p>
+ * A failure to read one image is delivered as the result of that image,
+ * and does not affect the others.
+ */
+public final class ImagingBatch {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final Executor executor;
+    private final int maxTasks;
+    private final long maxDecodedBytes;
+
+    /**
+     * Constructs a batch reader.
+     * 
+     * @param executor
+     *            runs the reads.
+     * @param maxTasks
+     *            the largest number of images in progress at a time.
+     * @param maxDecodedBytes
+     *            the estimated number of bytes of decoded pixels to stay
+     *            within.
+     */
+    public ImagingBatch(final Executor executor, final int maxTasks,
+            final long maxDecodedBytes) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        if (maxTasks < 1) {
+            throw new IllegalArgumentException("maxTasks must be positive: " + maxTasks);
+        }
+        if (maxDecodedBytes < 1) {
+            throw new IllegalArgumentException("maxDecodedBytes must be positive: "
+                    + maxDecodedBytes);
+        }
+        this.executor = executor;
+        this.maxTasks = maxTasks;
+        this.maxDecodedBytes = maxDecodedBytes;
+    }
+
+    /**
+     * Reads the information of images.
+     * 
+     * @param sources
+     *            the images.
+     * @param params
+     *            the parameters to read every image with, or null.
+     * @return the results, in the order the images are read.
+     * @see Imaging#getImageInfo(java.io.File, Map)
+     */
+    public Results<ImageInfo> getImageInfo(final Iterable<? extends ByteSource> sources,
+            final Map<String, Object> params) {
+        return new Results<ImageInfo>(IMAGE_INFO, sources.iterator(), params);
+    }
+
+    /**
+     * Reads the metadata of images.
+     * 
+     * @param sources
+     *            the images.
+     * @param params
+     *            the parameters to read every image with, or null.
+     * @return the results, in the order the images are read. The value of
+     *         the result of an image without metadata is null.
+     * @see Imaging#getMetadata(java.io.File, Map)
+     */
+    public Results<ImageMetadata> getMetadata(final Iterable<? extends ByteSource> sources,
+            final Map<String, Object> params) {
+        return new Results<ImageMetadata>(METADATA, sources.iterator(), params);
+    }
+
+    /**
+     * Decodes images, within the decoded bytes budget of this batch reader.
+     * 
+     * @param sources
+     *            the images.
+     * @param params
+     *            the parameters to read every image with, or null.
+     * @return the results, in the order the images are decoded.
+     * @see Imaging#getBufferedImage(java.io.File, Map)
+     */
+    public Results<BufferedImage> getBufferedImages(
+            final Iterable<? extends ByteSource> sources, final Map<String, Object> params) {
+        return new Results<BufferedImage>(BUFFERED_IMAGE, sources.iterator(), params);
+    }
+
+    /**
+     * The outcome of reading one image.
+     */
+    public static final class Result<T> {
+        private final int index;
+        private final ByteSource byteSource;
+        private final T value;
+        private final Exception exception;
+
+        private Result(final int index, final ByteSource byteSource, final T value,
+                final Exception exception) {
+            this.index = index;
+            this.byteSource = byteSource;
+            this.value = value;
+            this.exception = exception;
+        }
+
+        /**
+         * Returns the position of the image in the sources, counting from 0.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public ByteSource getByteSource() {
+            return byteSource;
+        }
+
+        /**
+         * Returns what was read, or null if the image couldn't be read.
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * Returns why the image couldn't be read, or null if it was read.
+         * This is usually an {@link ImageReadException} or an
+         * {@link IOException}.
+         */
+        public Exception getException() {
+            return exception;
+        }
+
+        public boolean isSuccess() {
+            return exception == null;
+        }
+    }
+
+    /**
+     * Starts the reads of a batch and delivers their results.
+     * <p>
+     * Reads are started as results are taken, so this object is meant to be
+     * used by one thread only.
+     */
+    public final class Results<T> {
+        private final Operation<T> operation;
+        private final Iterator<? extends ByteSource> sources;
+        private final Map<String, Object> params;
+        private final BlockingQueue<Item<T>> completed = new LinkedBlockingQueue<Item<T>>();
+        // images whose size is known, waiting for room to be decoded in
+        private final LinkedList<Item<T>> waiting = new LinkedList<Item<T>>();
+        private int nextIndex;
+        // tasks started whose item hasn't been taken from the completed queue
+        private int running;
+        private long decodedBytes;
+        private Item<T> delivered;
+
+        private Results(final Operation<T> operation,
+                final Iterator<? extends ByteSource> sources,
+                final Map<String, Object> params) {
+            this.operation = operation;
+            this.sources = sources;
+            this.params = params;
+        }
+
+        /**
+         * Waits for the next image to be read.
+         * 
+         * @return the result of the next image to be read, or null if all the
+         *         images have been read.
+         * @throws InterruptedException
+         *             if the thread is interrupted while waiting.
+         */
+        public Result<T> take() throws InterruptedException {
+            if (delivered != null) {
+                // the caller is done with it
+                decodedBytes -= delivered.reservedBytes;
+                delivered = null;
+            }
+            while (true) {
+                start();
+                if (running == 0) {
+                    return null;
+                }
+                final Item<T> item = completed.take();
+                running--;
+                if (item.error != null) {
+                    // let go of its budget, which nothing else will
+                    if (item.reservedBytes > 0) {
+                        decodedBytes -= item.reservedBytes;
+                    }
+                    throw item.error;
+                }
+                if (item.exception == null && operation.isDecode() && item.reservedBytes < 0) {
+                    waiting.add(item);
+                    continue;
+                }
+                delivered = item;
+                if (item.reservedBytes < 0) {
+                    item.reservedBytes = 0;
+                }
+                return new Result<T>(item.index, item.byteSource, item.value, item.exception);
+            }
+        }
+
+        private void start() {
+            while (!waiting.isEmpty()) {
+                final Item<T> item = waiting.getFirst();
+                if (decodedBytes > 0 && decodedBytes + item.estimatedBytes > maxDecodedBytes) {
+                    break;
+                }
+                waiting.removeFirst();
+                item.reservedBytes = item.estimatedBytes;
+                decodedBytes += item.reservedBytes;
+                execute(item);
+            }
+            while (running + waiting.size() < maxTasks && sources.hasNext()) {
+                execute(new Item<T>(nextIndex++, sources.next()));
+            }
+        }
+
+        private void execute(final Item<T> item) {
+            final Map<String, Object> itemParams = params == null ? null
+                    : new HashMap<String, Object>(params);
+            // some parsers reject the keys they don't use, such as those
+            // only meant for decoding, so the size is read with none of them
+            final Map<String, Object> infoParams = new HashMap<String, Object>();
+            if (params != null && params.containsKey(ImagingConstants.PARAM_KEY_VERBOSE)) {
+                infoParams.put(ImagingConstants.PARAM_KEY_VERBOSE,
+                        params.get(ImagingConstants.PARAM_KEY_VERBOSE));
+            }
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (item.parser == null) {
+                            item.parser = Imaging.getImageParser(item.byteSource);
+                        }
+                        if (operation.isDecode() && item.reservedBytes < 0) {
+                            final ImageInfo info = item.parser.getImageInfo(
+                                    item.byteSource, infoParams);
+                            item.estimatedBytes = (long) info.getWidth()
+                                    * info.getHeight() * BYTES_PER_PIXEL;
+                        } else {
+                            item.value = operation.read(item.parser,
+                                    item.byteSource, itemParams);
+                        }
+                    } catch (final Exception e) {
+                        item.exception = e;
+                    } catch (final Error e) {
+                        item.error = e;
+                    } finally {
+                        completed.add(item);
+                    }
+                }
+            });
+            running++;
+        }
+    }
+
+    /**
+     * An image in progress. It is only used by one thread at a time, and
+     * passed between them through the queue of completed items.
+     */
+    private static final class Item<T> {
+        final int index;
+        final ByteSource byteSource;
+        ImageParser parser;
+        // estimated decoded size, and the part of the budget held
+        long estimatedBytes;
+        long reservedBytes = -1;
+        T value;
+        Exception exception;
+        Error error;
+
+        Item(final int index, final ByteSource byteSource) {
+            this.index = index;
+            this.byteSource = byteSource;
+        }
+    }
+
+    private abstract static class Operation<T> {
+        private final boolean decode;
+
+        Operation(final boolean decode) {
+            this.decode = decode;
+        }
+
+        /**
+         * Returns whether the operation decodes the pixels, and so must
+         * keep to the decoded bytes budget.
+         */
+        boolean isDecode() {
+            return decode;
+        }
+
+        abstract T read(ImageParser parser, ByteSource byteSource,
+                Map<String, Object> params) throws ImageReadException, IOException;
+    }
+
+    private static final Operation<ImageInfo> IMAGE_INFO = new Operation<ImageInfo>(false) {
+        @Override
+        ImageInfo read(final ImageParser parser, final ByteSource byteSource,
+                final Map<String, Object> params) throws ImageReadException, IOException {
+            return parser.getImageInfo(byteSource, params);
+        }
+    };
+
+    private static final Operation<ImageMetadata> METADATA = new Operation<ImageMetadata>(false) {
+        @Override
+        ImageMetadata read(final ImageParser parser, final ByteSource byteSource,
+                final Map<String, Object> params) throws ImageReadException, IOException {
+            return parser.getMetadata(byteSource, params);
+        }
+    };
+
+    private static final Operation<BufferedImage> BUFFERED_IMAGE = new Operation<BufferedImage>(true) {
+        @Override
+        BufferedImage read(final ImageParser parser, final ByteSource byteSource,
+                final Map<String, Object> params) throws ImageReadException, IOException {
+            return parser.getBufferedImage(byteSource,
+                    params == null ? new HashMap<String, Object>() : params);
+        }
+    };
+}
@@ -75,6 +75,48 @@ public final class ImagingConstants {
 
     public final static String BUFFERED_IMAGE_FACTORY = "BUFFERED_IMAGE_FACTORY";
 
+    /**
+     * Parameter key. Supplies the arrays that pixels are decoded into.
+     * <p>
+     * Applies to reading BMP, PCX, DCX, PNG, PSD and RGBE images.
+     * <p>
+     * Valid values: any
+     * org.apache.commons.imaging.common.RasterBufferProvider, for example a
+     * PooledRasterBufferProvider shared by all the reads of an application.
+     * 
+     * @see org.apache.commons.imaging.common.RasterBufferProvider
+     */
+    public final static String RASTER_BUFFER_PROVIDER = "RASTER_BUFFER_PROVIDER";
+
+    /**
+     * Parameter key. Runs the parts of reading or writing one image that can
+     * be done in parallel. Without it, everything is done on the calling
+     * thread.
+     * <p>
+     * Applies to reading RGBE images and writing animated GIF images.
+     * <p>
+     * Valid values: any java.util.concurrent.Executor, which may be the one
+     * the read or write itself runs on.
+     * 
+     * @see org.apache.commons.imaging.common.ParallelTasks
+     */
+    public final static String EXECUTOR = "EXECUTOR";
+
+    /**
+     * Parameter key. Reports how long each phase of reading or writing an
+     * image takes.
+     * <p>
+     * Applies to reading BMP, GIF, JPEG, PNG and TIFF images, and to writing
+     * images of any format through Imaging&#46;writeImage.
+     * <p>
+     * Valid values: any org.apache.commons.imaging.common.ParserListener, for
+     * example a PhaseHistogramListener shared by all the reads of an
+     * application.
+     * 
+     * @see org.apache.commons.imaging.common.ParserListener
+     */
+    public final static String PARSER_LISTENER = "PARSER_LISTENER";
+
     /**
      * Parameter key. Indicates whether to read embedded thumbnails.
      * <p>
@@ -132,6 +174,33 @@ public final class ImagingConstants {
      */
     public final static String PARAM_KEY_PIXEL_DENSITY = "PIXEL_DENSITY";
 
+    /**
+     * Parameter key. Used when reading icon files (ICO, CUR and ICNS), which
+     * hold the same icon at several sizes, to choose which of them is read
+     * by getBufferedImage(). The icon closest to the size is read, preferring
+     * a larger one, which can be scaled down, to a smaller one. Only the
+     * chosen icon is read and decoded.
+     * <p>
+     * Valid values: Integer, the width and height in pixels. By default the
+     * first icon in the file is read.
+     * <p>
+     * 
+     * @see #PARAM_KEY_ICON_BITS_PER_PIXEL
+     */
+    public final static String PARAM_KEY_ICON_SIZE = "ICON_SIZE";
+
+    /**
+     * Parameter key. Used with PARAM_KEY_ICON_SIZE to choose between icons
+     * of the same size but different bit depths.
+     * <p>
+     * Valid values: Integer, the bits per pixel. By default the icon with
+     * the most bits per pixel is read.
+     * <p>
+     * 
+     * @see #PARAM_KEY_ICON_SIZE
+     */
+    public final static String PARAM_KEY_ICON_BITS_PER_PIXEL = "ICON_BITS_PER_PIXEL";
+
     private ImagingConstants() {
     }
 }
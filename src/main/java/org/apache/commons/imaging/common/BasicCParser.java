@@ -103,6 +103,19 @@ public class BasicCParser {
     public static ByteArrayOutputStream preprocess(final InputStream is,
             final StringBuilder firstComment, final Map<String, String> defines)
             throws IOException, ImageReadException {
+        return preprocess(is, firstComment, defines, -1);
+    }
+
+    /**
+     * Preprocesses the stream up to and including the first
+     * <code>stopAt</code> character outside comments, strings and
+     * directives, so the declarations at the start of a file can be read
+     * without reading the rest of it. A <code>stopAt</code> of -1 reads the
+     * whole stream.
+     */
+    public static ByteArrayOutputStream preprocess(final InputStream is,
+            final StringBuilder firstComment, final Map<String, String> defines,
+            final int stopAt) throws IOException, ImageReadException {
         boolean inSingleQuotes = false;
         boolean inString = false;
         boolean inComment = false;
@@ -250,6 +263,9 @@ public class BasicCParser {
                     if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
                         seenFirstComment = true;
                     }
+                    if (c == stopAt) {
+                        break;
+                    }
                 }
             }
         }
@@ -16,35 +16,48 @@
  */
 package org.apache.commons.imaging.common;
 
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
+/**
+ * Base class for the format parsers.
+ * <p>
+ * The byte order is fixed when the parser is constructed and the debug flag
+ * is meant to be set before the parser is put into use, so a parser holds no
+ * state that changes while reading. Formats whose byte order is only known
+ * once the data has been read (such as TIFF) carry it in a
+ * {@link ReadContext} instead.
+ */
 public class BinaryFileParser {
-    // default byte order for Java, many file formats.
-    private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
-    private boolean debug;
+    private final ByteOrder byteOrder;
+    private volatile boolean debug;
 
     public BinaryFileParser(final ByteOrder byteOrder) {
         this.byteOrder = byteOrder;
     }
 
     /**
-     * Constructs a BinaryFileParser with the default, big-endian, byte order.
+     * Constructs a BinaryFileParser with the default, big-endian, byte order
+     * of Java and many file formats.
      */
     public BinaryFileParser() {
-        // as above
-    }
-
-    protected void setByteOrder(final ByteOrder byteOrder) {
-        this.byteOrder = byteOrder;
+        this(ByteOrder.BIG_ENDIAN);
     }
 
     public ByteOrder getByteOrder() {
         return byteOrder;
     }
 
+    /**
+     * Creates a reader for the given stream in the byte order of this parser.
+     */
+    protected BinaryReader getBinaryReader(final InputStream is) {
+        return new BinaryReader(is, byteOrder);
+    }
+
     public boolean getDebug() {
         return debug;
     }
@@ -85,6 +85,16 @@ public final class BinaryFunctions {
     public static byte[] readBytes(final String name, final InputStream is, final int length,
             final String exception) throws IOException {
         final byte[] result = new byte[length];
+        readBytes(is, result, exception);
+        return result;
+    }
+
+    /**
+     * Reads from the stream until the array is full.
+     */
+    public static void readBytes(final InputStream is, final byte[] result,
+            final String exception) throws IOException {
+        final int length = result.length;
         int read = 0;
         while (read < length) {
             final int count = is.read(result, read, length - read);
@@ -95,8 +105,6 @@ public final class BinaryFunctions {
 
             read += count;
         }
-
-        return result;
     }
 
     public static byte[] readBytes(final InputStream is, final int count) throws IOException {
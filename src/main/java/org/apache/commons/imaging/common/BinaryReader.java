@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.commons.imaging.ImageReadException;
+
+/**
+ * Reads the integers and byte arrays binary file formats are made of from
+ * a stream.
+ * <p>
+ * Unlike the read methods of {@link BinaryFunctions}, which call
+ * InputStream.read() once per byte, values are decoded from a window onto
+ * the stream kept in a ByteBuffer, in the byte order of the reader.
+ * <p>
+ * The message passed to each method is only used if the read fails, and
+ * the reader then adds the offset at which it failed. Callers can
+ * therefore pass constant messages instead of building a description of
+ * every value they read.
+ * <p>
+ * The reader reads ahead of the values asked for, so once a reader has
+ * been created for a stream, the stream should only be read through it.
+ * How far it reads ahead doubles with each refill of its buffer, and drops
+ * back to nothing after a skip past the buffer, so that parsers that read a
+ * few header bytes and skip the data in between don't read the data anyway.
+ */
+public class BinaryReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MIN_READ_AHEAD = 32;
+
+    private final InputStream is;
+    private final byte[] buffer;
+    private final ByteBuffer window;
+    // the offset in the stream of the start of the buffer
+    private long bufferOffset;
+    // how many bytes the next refill reads at least
+    private int readAhead;
+
+    public BinaryReader(final InputStream is, final ByteOrder byteOrder) {
+        this.is = is;
+        buffer = new byte[BUFFER_SIZE];
+        window = ByteBuffer.wrap(buffer);
+        window.limit(0);
+        window.order(byteOrder);
+    }
+
+    public ByteOrder getByteOrder() {
+        return window.order();
+    }
+
+    public void setByteOrder(final ByteOrder byteOrder) {
+        window.order(byteOrder);
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     */
+    public long getPosition() {
+        return bufferOffset + window.position();
+    }
+
+    /**
+     * Reads one byte like InputStream.read(), returning -1 at the end of the
+     * stream instead of failing.
+     */
+    public int read() throws IOException {
+        while (!window.hasRemaining()) {
+            bufferOffset += window.position();
+            window.clear();
+            final int count = is.read(buffer, 0, Math.max(1, readAhead));
+            if (count < 0) {
+                window.limit(0);
+                return -1;
+            }
+            window.limit(count);
+            growReadAhead();
+        }
+        return 0xff & window.get();
+    }
+
+    public byte getByte(final String message) throws IOException {
+        require(1, message);
+        return window.get();
+    }
+
+    public int getU8(final String message) throws IOException {
+        require(1, message);
+        return 0xff & window.get();
+    }
+
+    public int getU16(final String message) throws IOException {
+        require(2, message);
+        return 0xffff & window.getShort();
+    }
+
+    public int getU24(final String message) throws IOException {
+        require(3, message);
+        final int byte0 = 0xff & window.get();
+        final int byte1 = 0xff & window.get();
+        final int byte2 = 0xff & window.get();
+        if (window.order() == ByteOrder.BIG_ENDIAN) {
+            return (byte0 << 16) | (byte1 << 8) | byte2;
+        }
+        return (byte2 << 16) | (byte1 << 8) | byte0;
+    }
+
+    /**
+     * Reads 4 bytes as a signed int, which is how most formats' 32 bit
+     * fields are handled.
+     */
+    public int getS32(final String message) throws IOException {
+        require(4, message);
+        return window.getInt();
+    }
+
+    public long getU32(final String message) throws IOException {
+        return 0xffffffffL & getS32(message);
+    }
+
+    public byte[] getBytes(final int length, final String message) throws IOException {
+        final byte[] bytes = new byte[length];
+        getBytes(bytes, 0, length, message);
+        return bytes;
+    }
+
+    /**
+     * Reads exactly length bytes into the given array.
+     */
+    public void getBytes(final byte[] bytes, int offset, int length,
+            final String message) throws IOException {
+        final int buffered = Math.min(length, window.remaining());
+        window.get(bytes, offset, buffered);
+        offset += buffered;
+        length -= buffered;
+        if (length == 0) {
+            return;
+        }
+
+        if (length < BUFFER_SIZE / 2) {
+            require(length, message);
+            window.get(bytes, offset, length);
+            return;
+        }
+
+        // large reads go straight into the array
+        bufferOffset += window.position();
+        window.clear();
+        window.limit(0);
+        while (length > 0) {
+            final int count = is.read(bytes, offset, length);
+            if (count < 0) {
+                throw new IOException(describe(message));
+            }
+            offset += count;
+            length -= count;
+            bufferOffset += count;
+        }
+    }
+
+    /**
+     * Reads the rest of the stream.
+     */
+    public byte[] getRemainingBytes() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write(buffer, window.position(), window.remaining());
+        bufferOffset += window.limit();
+        window.clear();
+        window.limit(0);
+        int count;
+        while ((count = is.read(buffer)) >= 0) {
+            os.write(buffer, 0, count);
+            bufferOffset += count;
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * Reads as many bytes as expected has, and fails with an
+     * ImageReadException with the given message unless they match.
+     */
+    public void verifyBytes(final byte[] expected, final String message)
+            throws ImageReadException, IOException {
+        require(expected.length, message);
+        for (final byte element : expected) {
+            if (window.get() != element) {
+                throw new ImageReadException(message);
+            }
+        }
+    }
+
+    public void verifyBytes(final BinaryConstant expected, final String message)
+            throws ImageReadException, IOException {
+        verifyBytes(expected.toByteArray(), message);
+    }
+
+    public void skip(long length, final String message) throws IOException {
+        if (length < 0) {
+            throw new IOException(describe(message));
+        }
+        if (length <= window.remaining()) {
+            window.position(window.position() + (int) length);
+            return;
+        }
+        length -= window.remaining();
+
+        bufferOffset += window.limit();
+        window.clear();
+        window.limit(0);
+        readAhead = 0;
+        while (length > 0) {
+            long skipped = is.skip(length);
+            if (skipped < 1) {
+                // some streams only skip what they have buffered
+                if (is.read() < 0) {
+                    throw new IOException(describe(message));
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+            bufferOffset += skipped;
+        }
+    }
+
+    public void close() throws IOException {
+        is.close();
+    }
+
+    private void require(final int count, final String message) throws IOException {
+        if (window.remaining() >= count) {
+            return;
+        }
+        bufferOffset += window.position();
+        window.compact();
+        final int target = Math.min(buffer.length, Math.max(count, window.position() + readAhead));
+        while (window.position() < count) {
+            final int read = is.read(buffer, window.position(), target - window.position());
+            if (read < 0) {
+                window.flip();
+                throw new IOException(describe(message));
+            }
+            window.position(window.position() + read);
+        }
+        window.flip();
+        growReadAhead();
+    }
+
+    private void growReadAhead() {
+        readAhead = Math.min(BUFFER_SIZE, Math.max(2 * readAhead, MIN_READ_AHEAD));
+    }
+
+    private String describe(final String message) {
+        return message + " (at offset " + getPosition() + ")";
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImagingConstants;
+
+/**
+ * Chooses the icon that best fits a size and bit depth among the icons of
+ * an icon file, from their headers, so only that icon has to be decoded.
+ * <p>
+ * The icon closest to the size is chosen, preferring one at least as large
+ * as the size, which can be scaled down without losing detail. Among icons
+ * of that size, the one closest to the bit depth is chosen the same way, or
+ * the one with the most bits per pixel if there's no bit depth.
+ */
+public final class IconChooser {
+    private final int size;
+    private final int bitsPerPixel;
+    private int choice = -1;
+    private int choiceSize;
+    private int choiceBitsPerPixel;
+
+    /**
+     * @param size
+     *            the width and height in pixels
+     * @param bitsPerPixel
+     *            the bits per pixel, or 0 for the most
+     */
+    public IconChooser(final int size, final int bitsPerPixel) {
+        this.size = size;
+        this.bitsPerPixel = bitsPerPixel > 0 ? bitsPerPixel : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns a chooser for the PARAM_KEY_ICON_SIZE and
+     * PARAM_KEY_ICON_BITS_PER_PIXEL parameters, or null if there's no
+     * PARAM_KEY_ICON_SIZE parameter.
+     */
+    public static IconChooser fromParams(final Map<String, Object> params)
+            throws ImageReadException {
+        if (params == null || !params.containsKey(ImagingConstants.PARAM_KEY_ICON_SIZE)) {
+            return null;
+        }
+        final int size = getInt(params, ImagingConstants.PARAM_KEY_ICON_SIZE);
+        int bitsPerPixel = 0;
+        if (params.containsKey(ImagingConstants.PARAM_KEY_ICON_BITS_PER_PIXEL)) {
+            bitsPerPixel = getInt(params, ImagingConstants.PARAM_KEY_ICON_BITS_PER_PIXEL);
+        }
+        return new IconChooser(size, bitsPerPixel);
+    }
+
+    private static int getInt(final Map<String, Object> params, final String key)
+            throws ImageReadException {
+        final Object value = params.get(key);
+        if (!(value instanceof Integer)) {
+            throw new ImageReadException("Invalid " + key + " parameter: " + value);
+        }
+        return ((Integer) value).intValue();
+    }
+
+    /**
+     * Considers an icon.
+     * 
+     * @param index
+     *            the index getChoice() returns if the icon is chosen
+     */
+    public void add(final int index, final int width, final int height,
+            final int iconBitsPerPixel) {
+        final int iconSize = Math.max(width, height);
+        if (choice >= 0) {
+            final int bySize = compare(iconSize, choiceSize, size);
+            if (bySize < 0 || (bySize == 0
+                    && compare(iconBitsPerPixel, choiceBitsPerPixel, bitsPerPixel) <= 0)) {
+                return;
+            }
+        }
+        choice = index;
+        choiceSize = iconSize;
+        choiceBitsPerPixel = iconBitsPerPixel;
+    }
+
+    /**
+     * Returns the index of the chosen icon, or -1 if no icon was added.
+     */
+    public int getChoice() {
+        return choice;
+    }
+
+    /**
+     * Returns a positive number if a is a better fit for the target than b,
+     * a negative one if b is, and 0 if they're the same.
+     */
+    private static int compare(final int a, final int b, final int target) {
+        if (a == b) {
+            return 0;
+        }
+        if (a >= target && b >= target) {
+            return a < b ? 1 : -1;
+        }
+        if (a >= target) {
+            return 1;
+        }
+        if (b >= target) {
+            return -1;
+        }
+        return a > b ? 1 : -1;
+    }
+}
@@ -58,6 +58,7 @@ public class ImageBuilder {
     private final int width;
     private final int height;
     private final boolean hasAlpha;
+    private final RasterBufferProvider rasterBufferProvider;
 
     /**
      * Construct an ImageBuilder instance
@@ -68,6 +69,19 @@ public class ImageBuilder {
      * requirements for the ImageBuilder or resulting BufferedImage.
      */
     public ImageBuilder(final int width, final int height, final boolean hasAlpha) {
+        this(width, height, hasAlpha, new SimpleRasterBufferProvider());
+    }
+
+    /**
+     * Construct an ImageBuilder instance whose pixel field, and the pixel
+     * fields of its subimages, come from the given provider.
+     * @param width the width of the image to be built
+     * @param height the height of the image to be built
+     * @param hasAlpha indicates whether the image has an alpha channel
+     * @param rasterBufferProvider supplies the pixel field
+     */
+    public ImageBuilder(final int width, final int height, final boolean hasAlpha,
+            final RasterBufferProvider rasterBufferProvider) {
         if (width <= 0) {
             throw new RasterFormatException("zero or negative width value");
         }
@@ -75,10 +89,11 @@ public class ImageBuilder {
             throw new RasterFormatException("zero or negative height value");
         }
             
-        data = new int[width * height];
+        data = rasterBufferProvider.getIntBuffer(width * height);
         this.width = width;
         this.height = height;
         this.hasAlpha = hasAlpha;
+        this.rasterBufferProvider = rasterBufferProvider;
     }
 
     /**
@@ -123,6 +138,17 @@ public class ImageBuilder {
         data[rowOffset + x] = argb;
     }
 
+    /**
+     * Set the RGB or ARGB values of the pixels of row y, which are copied
+     * from the start of the given array. For performance reasons, no bounds
+     * checking is applied.
+     * @param y the Y coordinate of the row to be set
+     * @param argb the RGB or ARGB values, at least as many as the width
+     */
+    public void setRGBRow(final int y, final int[] argb) {
+        System.arraycopy(argb, 0, data, y * width, width);
+    }
+
     /**
      * Create a BufferedImage using the data stored in the ImageBuilder.
      * @return a valid BufferedImage.
@@ -173,7 +199,7 @@ public class ImageBuilder {
 
 
         // Transcribe the data to an output image array  
-        final int[] argb = new int[w * h];
+        final int[] argb = rasterBufferProvider.getIntBuffer(w * h);
         int k = 0;
         for (int iRow = 0; iRow < h; iRow++) {
             final int dIndex = (iRow + y) * width + x;
@@ -18,6 +18,7 @@ package org.apache.commons.imaging.common;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.util.IoUtils;
@@ -72,6 +73,65 @@ public class PackBits {
 
     }
 
+    /**
+     * Decompresses PackBits data into an array, without the intermediate
+     * buffers of {@link #decompress(byte[], int)}. A run reaching past the
+     * expected number of bytes is cut short.
+     * 
+     * @param src
+     *            the compressed data
+     * @param srcOffset
+     *            the offset of the compressed data in src
+     * @param srcLength
+     *            the number of compressed bytes
+     * @param dst
+     *            receives the decompressed data
+     * @param dstOffset
+     *            the offset in dst to decompress to
+     * @param expected
+     *            the number of bytes to decompress
+     * @throws ImageReadException
+     *             if the compressed data ends early or is invalid
+     */
+    public void decompress(final byte[] src, final int srcOffset, final int srcLength,
+            final byte[] dst, final int dstOffset, final int expected)
+            throws ImageReadException {
+        final int srcEnd = srcOffset + srcLength;
+        final int dstEnd = dstOffset + expected;
+        int i = srcOffset;
+        int total = dstOffset;
+        while (total < dstEnd) {
+            if (i >= srcEnd) {
+                throw new ImageReadException("Packbits: source exhausted: "
+                        + (i - srcOffset) + ", done " + (total - dstOffset)
+                        + ", expected " + expected);
+            }
+
+            final int n = src[i++];
+            if (n >= 0) {
+                // copy the next n+1 bytes literally.
+                if (i + n + 1 > srcEnd) {
+                    throw new ImageReadException("Packbits: literal run past end of source");
+                }
+                final int count = Math.min(n + 1, dstEnd - total);
+                System.arraycopy(src, i, dst, total, count);
+                i += n + 1;
+                total += count;
+            } else if (n != -128) {
+                // copy the next byte -n+1 times.
+                if (i >= srcEnd) {
+                    throw new ImageReadException("Packbits: repeat run past end of source");
+                }
+                final byte b = src[i++];
+                final int count = Math.min(-n + 1, dstEnd - total);
+                Arrays.fill(dst, total, total + count, b);
+                total += count;
+            } else {
+                throw new ImageReadException("Packbits: " + n);
+            }
+        }
+    }
+
     private int findNextDuplicate(final byte[] bytes, final int start) {
         // int last = -1;
         if (start >= bytes.length) {
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the independent parts of one read or write on an executor supplied
+ * by the caller, with the parameter
+ * {@link org.apache.commons.imaging.ImagingConstants#EXECUTOR}.
+ * <p>
+ * The library never starts threads of its own: without an executor, the
+ * tasks are run one after the other on the calling thread.
+ */
+public final class ParallelTasks {
+    private ParallelTasks() {
+    }
+
+    /**
+     * Runs the given tasks, whose results can then be taken from them.
+     * <p>
+     * The tasks are handed to the executor, and the calling thread then runs
+     * each one the executor hasn't started yet itself. So it never waits for
+     * a task that is queued behind others, which could otherwise deadlock
+     * when the calling thread belongs to the executor, as with
+     * ImagingBatch.
+     * 
+     * @param executor
+     *            the executor, or null to run the tasks on the calling thread.
+     * @param tasks
+     *            the tasks to run.
+     */
+    public static void run(final Executor executor,
+            final List<? extends FutureTask<?>> tasks) {
+        if (executor != null && tasks.size() > 1) {
+            try {
+                for (final FutureTask<?> task : tasks) {
+                    executor.execute(task);
+                }
+            } catch (final RejectedExecutionException e) {
+                // the rest are run below.
+            }
+        }
+        for (final FutureTask<?> task : tasks) {
+            // does nothing if the task has been started already.
+            task.run();
+        }
+    }
+}
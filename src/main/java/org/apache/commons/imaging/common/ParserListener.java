@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import org.apache.commons.imaging.ImageFormat;
+
+/**
+ * Is told how long each phase of reading or writing an image took, to find
+ * out where the time goes.
+ * <p>
+ * A listener is passed to the parsers under the
+ * {@link org.apache.commons.imaging.ImagingConstants#PARSER_LISTENER} key.
+ * It is called on the thread doing the reading, right after each phase, so
+ * it should be quick, and as parsers may be used from several threads,
+ * implementations must be thread safe. When no listener is given, the
+ * phases are neither timed nor reported.
+ * <p>
+ * Only some formats report their phases: reading BMP, GIF, JPEG, PNG and
+ * TIFF images, and the metadata of JPEG, PNG and TIFF images. Writing an
+ * image of any format through Imaging.writeImage is reported as
+ * {@link ParserPhase#ENCODE}. Reading the other formats, such as ICO, PCX,
+ * PNM and PSD, reports nothing.
+ * <p>
+ * A phase that throws is reported to {@link #phaseFailed} instead of
+ * {@link #phaseCompleted}, and the phases after it aren't reported.
+ * 
+ * @see PhaseHistogramListener
+ */
+public interface ParserListener {
+    /**
+     * Reports a phase that has just finished.
+     * 
+     * @param format
+     *            the format of the image.
+     * @param phase
+     *            the phase.
+     * @param nanos
+     *            the time it took, in nanoseconds.
+     * @param bytesRead
+     *            the number of bytes of the file it read, or for
+     *            {@link ParserPhase#ENCODE} wrote, or -1 if the parser
+     *            doesn't know.
+     * @param bytesAllocated
+     *            the number of bytes it allocated for image data, such as
+     *            rasters and decompressed samples.
+     */
+    void phaseCompleted(ImageFormat format, ParserPhase phase, long nanos,
+            long bytesRead, long bytesAllocated);
+
+    /**
+     * Reports a phase that has just ended by throwing an exception, which is
+     * then passed on to the caller of the parser.
+     * 
+     * @param format
+     *            the format of the image.
+     * @param phase
+     *            the phase.
+     * @param nanos
+     *            the time it took until it failed, in nanoseconds.
+     */
+    void phaseFailed(ImageFormat format, ParserPhase phase, long nanos);
+}
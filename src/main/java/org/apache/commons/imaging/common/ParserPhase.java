@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+/**
+ * The stages of reading or writing an image that are reported to a
+ * {@link ParserListener}.
+ * <p>
+ * Not every format goes through every phase, and formats that do two of
+ * them in one pass over the data report them as the first of the two.
+ */
+public enum ParserPhase {
+    /**
+     * Reading what is needed to decode the image: its size, format, palette
+     * and the like.
+     */
+    HEADER,
+    /**
+     * Reading metadata, for example EXIF directories or text chunks.
+     */
+    METADATA,
+    /**
+     * Undoing the compression of the image data, which for some formats
+     * includes interpreting the pixels too.
+     */
+    DECOMPRESSION,
+    /**
+     * Turning samples, palette indices or bits into the pixels of the
+     * image.
+     */
+    PIXEL_INTERPRETATION,
+    /**
+     * Converting the pixels to the sRGB color space, for example according
+     * to an embedded ICC profile.
+     */
+    COLOR_CONVERSION,
+    /**
+     * Writing an image.
+     */
+    ENCODE
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.imaging.ImageFormat;
+
+/**
+ * Collects the times of the phases reported by the parsers into a histogram
+ * for each format and phase, along with the bytes read and allocated.
+ * <p>
+ * Bucket {@code i} of a histogram counts the phases that took from
+ * 2<sup>i</sup> up to 2<sup>i+1</sup> nanoseconds (bucket 0 also counts
+ * those under a nanosecond, the last bucket everything longer), which keeps
+ * recording a phase down to a few atomic additions whatever the spread of
+ * the times. One listener can be shared by all the reads of an application.
+ * <p>
+ * Phases that fail are only counted, along with the time until they
+ * failed, and left out of the histogram and the other totals.
+ * <p>
+ * A histogram taken while phases are being recorded may not include all of
+ * the last ones in every one of its totals.
+ */
+public class PhaseHistogramListener implements ParserListener {
+    /**
+     * The number of buckets, enough for phases of up to about 18 minutes.
+     */
+    public static final int BUCKETS = 40;
+
+    private final ConcurrentMap<ImageFormat, PhaseRecord[]> records = new ConcurrentHashMap<ImageFormat, PhaseRecord[]>();
+
+    public void phaseCompleted(final ImageFormat format, final ParserPhase phase,
+            final long nanos, final long bytesRead, final long bytesAllocated) {
+        getRecord(format, phase).add(nanos, bytesRead, bytesAllocated);
+    }
+
+    public void phaseFailed(final ImageFormat format, final ParserPhase phase,
+            final long nanos) {
+        getRecord(format, phase).addFailure(nanos);
+    }
+
+    private PhaseRecord getRecord(final ImageFormat format, final ParserPhase phase) {
+        PhaseRecord[] formatRecords = records.get(format);
+        if (formatRecords == null) {
+            final PhaseRecord[] created = new PhaseRecord[ParserPhase.values().length];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new PhaseRecord();
+            }
+            formatRecords = records.putIfAbsent(format, created);
+            if (formatRecords == null) {
+                formatRecords = created;
+            }
+        }
+        return formatRecords[phase.ordinal()];
+    }
+
+    /**
+     * Returns the formats that phases have been reported for.
+     */
+    public Set<ImageFormat> getFormats() {
+        return Collections.unmodifiableSet(new HashSet<ImageFormat>(records.keySet()));
+    }
+
+    /**
+     * Returns what has been recorded for a phase of a format, which is empty
+     * if nothing has.
+     */
+    public Histogram getHistogram(final ImageFormat format, final ParserPhase phase) {
+        final PhaseRecord[] formatRecords = records.get(format);
+        if (formatRecords == null) {
+            return new PhaseRecord().snapshot();
+        }
+        return formatRecords[phase.ordinal()].snapshot();
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        records.clear();
+    }
+
+    /**
+     * Returns the bucket that counts the given time.
+     */
+    static int getBucket(final long nanos) {
+        if (nanos <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private static final class PhaseRecord {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong maxNanos = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong bytesAllocated = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong failedNanos = new AtomicLong();
+
+        void add(final long nanos, final long read, final long allocated) {
+            buckets.incrementAndGet(getBucket(nanos));
+            totalNanos.addAndGet(nanos);
+            long min;
+            while (nanos < (min = minNanos.get()) && !minNanos.compareAndSet(min, nanos)) {
+                // retry
+            }
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+            if (read > 0) {
+                bytesRead.addAndGet(read);
+            }
+            bytesAllocated.addAndGet(allocated);
+            count.incrementAndGet();
+        }
+
+        void addFailure(final long nanos) {
+            failedNanos.addAndGet(nanos);
+            failures.incrementAndGet();
+        }
+
+        Histogram snapshot() {
+            final long[] counts = new long[BUCKETS];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            final long n = count.get();
+            return new Histogram(counts, n, totalNanos.get(),
+                    n == 0 ? 0 : minNanos.get(), n == 0 ? 0 : maxNanos.get(),
+                    bytesRead.get(), bytesAllocated.get(), failures.get(),
+                    failedNanos.get());
+        }
+    }
+
+    /**
+     * What has been recorded for one phase of one format.
+     */
+    public static final class Histogram {
+        private final long[] bucketCounts;
+        private final long count;
+        private final long totalNanos;
+        private final long minNanos;
+        private final long maxNanos;
+        private final long bytesRead;
+        private final long bytesAllocated;
+        private final long failureCount;
+        private final long failedNanos;
+
+        Histogram(final long[] bucketCounts, final long count, final long totalNanos,
+                final long minNanos, final long maxNanos, final long bytesRead,
+                final long bytesAllocated, final long failureCount,
+                final long failedNanos) {
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.minNanos = minNanos;
+            this.maxNanos = maxNanos;
+            this.bytesRead = bytesRead;
+            this.bytesAllocated = bytesAllocated;
+            this.failureCount = failureCount;
+            this.failedNanos = failedNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMinNanos() {
+            return minNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * Returns the total of the bytes read, leaving out the phases that
+         * didn't know how many they read.
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getBytesAllocated() {
+            return bytesAllocated;
+        }
+
+        /**
+         * Returns the number of times the phase failed, which
+         * {@link #getCount()} doesn't include.
+         */
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        /**
+         * Returns the total time the failed phases took until they failed.
+         */
+        public long getFailedNanos() {
+            return failedNanos;
+        }
+
+        /**
+         * Returns the counts of the buckets, as described in the
+         * {@link PhaseHistogramListener class documentation}.
+         */
+        public long[] getBucketCounts() {
+            return bucketCounts.clone();
+        }
+
+        /**
+         * Returns a time that at least the given fraction of the phases took
+         * no longer than: the upper bound of the bucket the percentile falls
+         * in, but no more than the longest time recorded.
+         * 
+         * @param fraction
+         *            from 0 to 1, for example 0.99 for the 99th percentile.
+         * @return the time in nanoseconds, or 0 if nothing has been recorded.
+         */
+        public long getPercentileNanos(final double fraction) {
+            if (fraction < 0 || fraction > 1) {
+                throw new IllegalArgumentException("Invalid fraction: " + fraction);
+            }
+            long total = 0;
+            for (final long bucketCount : bucketCounts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= rank) {
+                    final long upperBound = i == BUCKETS - 1 ? Long.MAX_VALUE
+                            : (2L << i) - 1;
+                    return Math.min(upperBound, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "count: " + count + ", mean: " + getMeanNanos() + " ns, min: "
+                    + minNanos + " ns, max: " + maxNanos + " ns, p50: "
+                    + getPercentileNanos(0.5) + " ns, p99: "
+                    + getPercentileNanos(0.99) + " ns, read: " + bytesRead
+                    + " bytes, allocated: " + bytesAllocated + " bytes";
+        }
+    }
+}
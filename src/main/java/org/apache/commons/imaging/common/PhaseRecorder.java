@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+
+import org.apache.commons.imaging.ImageFormat;
+
+/**
+ * Times the phases of one read or write for a {@link ParserListener}.
+ * <p>
+ * Parsers bracket each phase with {@link #start()} and one of the
+ * {@code end} methods, and call {@link #failed(ParserPhase, long)} from a
+ * {@code finally} block for the phase an exception leaves unfinished.
+ * Without a listener these return at once without reading the clock, so the
+ * phases cost nothing to mark. The recorder itself holds no state that
+ * changes, so the start time is kept by the caller.
+ */
+public final class PhaseRecorder {
+    /**
+     * A recorder that reports to nobody.
+     */
+    public static final PhaseRecorder NONE = new PhaseRecorder(null, null);
+
+    private final ParserListener listener;
+    private final ImageFormat format;
+
+    private PhaseRecorder(final ParserListener listener, final ImageFormat format) {
+        this.listener = listener;
+        this.format = format;
+    }
+
+    /**
+     * Returns a recorder that reports the phases of an image in the given
+     * format to the given listener, or {@link #NONE} if the listener is null.
+     */
+    public static PhaseRecorder create(final ParserListener listener,
+            final ImageFormat format) {
+        if (listener == null) {
+            return NONE;
+        }
+        return new PhaseRecorder(listener, format);
+    }
+
+    public boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * Returns the time a phase starts at, to be passed to the {@code end}
+     * method for the phase.
+     */
+    public long start() {
+        if (listener == null) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Reports a phase that started at the given time.
+     * 
+     * @param phase
+     *            the phase.
+     * @param start
+     *            what {@link #start()} returned when the phase began.
+     * @param bytesRead
+     *            the number of bytes read, or -1 if not known.
+     * @param bytesAllocated
+     *            the number of bytes allocated for image data.
+     */
+    public void end(final ParserPhase phase, final long start, final long bytesRead,
+            final long bytesAllocated) {
+        if (listener == null) {
+            return;
+        }
+        listener.phaseCompleted(format, phase, System.nanoTime() - start,
+                bytesRead, bytesAllocated);
+    }
+
+    /**
+     * Reports a phase that started at the given time and allocated the
+     * raster of an image.
+     * 
+     * @param phase
+     *            the phase.
+     * @param start
+     *            what {@link #start()} returned when the phase began.
+     * @param bytesRead
+     *            the number of bytes read, or -1 if not known.
+     * @param image
+     *            the image whose raster was allocated in the phase.
+     */
+    public void end(final ParserPhase phase, final long start, final long bytesRead,
+            final BufferedImage image) {
+        if (listener == null) {
+            return;
+        }
+        final long nanos = System.nanoTime() - start;
+        listener.phaseCompleted(format, phase, nanos, bytesRead, getRasterBytes(image));
+    }
+
+    /**
+     * Reports a phase that started at the given time and ended with an
+     * exception. Parsers keep the phase they are in, set it to null once the
+     * last one has ended, and pass it here from a {@code finally} block, so
+     * nothing is reported when all went well.
+     * 
+     * @param phase
+     *            the phase, or null if no phase was left unfinished.
+     * @param start
+     *            what {@link #start()} returned when the phase began.
+     */
+    public void failed(final ParserPhase phase, final long start) {
+        if (listener == null || phase == null) {
+            return;
+        }
+        listener.phaseFailed(format, phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the size in bytes of the arrays holding the pixels of an
+     * image.
+     */
+    static long getRasterBytes(final BufferedImage image) {
+        if (image == null) {
+            return 0;
+        }
+        final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return (long) dataBuffer.getSize() * dataBuffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Reads the pixels of an image as ARGB values, a row or several rows at a
+ * time.
+ * <p>
+ * BufferedImage.getRGB(x, y) converts every pixel through the image's color
+ * model. For the image types most images are, the values are instead read
+ * straight from the arrays of the image's raster; other images are read with
+ * BufferedImage.getRGB() a batch of rows at a time. Either way the values are
+ * the same as those BufferedImage.getRGB() returns.
+ * <p>
+ * A reader reads the current contents of the image, but isn't safe to use
+ * while the image is written to on another thread.
+ */
+public class PixelReader {
+    // how the pixels are read
+    private static final int GET_RGB = 0;
+    private static final int INT_PACKED = 1;
+    private static final int BYTE_INTERLEAVED = 2;
+    private static final int BYTE_LOOKUP = 3;
+
+    private final BufferedImage image;
+    private final int width;
+    private final int height;
+    private int layout = GET_RGB;
+    private int[] intData;
+    private byte[] byteData;
+    // the index in the data array of the top left pixel
+    private int offset;
+    private int scanlineStride;
+    private int pixelStride;
+    // of the red, green, blue and, if the image has it, alpha samples
+    private int[] bandOffsets;
+    // the bits set in every pixel read from ints
+    private int opaqueBits;
+    // the ARGB values of the samples of images with one 8 bit band
+    private int[] colors;
+
+    public PixelReader(final BufferedImage image) {
+        this.image = image;
+        width = image.getWidth();
+        height = image.getHeight();
+
+        final WritableRaster raster = image.getRaster();
+        final DataBuffer dataBuffer = raster.getDataBuffer();
+        final SampleModel sampleModel = raster.getSampleModel();
+        if (dataBuffer.getNumBanks() != 1) {
+            return;
+        }
+        // where the raster starts in its sample model, which it only doesn't
+        // for subimages
+        final int x0 = -raster.getSampleModelTranslateX();
+        final int y0 = -raster.getSampleModelTranslateY();
+
+        switch (image.getType()) {
+        case BufferedImage.TYPE_INT_ARGB:
+        case BufferedImage.TYPE_INT_RGB:
+            if (sampleModel instanceof SinglePixelPackedSampleModel
+                    && dataBuffer instanceof DataBufferInt) {
+                final SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) sampleModel;
+                intData = ((DataBufferInt) dataBuffer).getData();
+                offset = dataBuffer.getOffset() + packed.getOffset(x0, y0);
+                scanlineStride = packed.getScanlineStride();
+                opaqueBits = image.getType() == BufferedImage.TYPE_INT_RGB ? 0xff000000 : 0;
+                layout = INT_PACKED;
+            }
+            break;
+        case BufferedImage.TYPE_3BYTE_BGR:
+        case BufferedImage.TYPE_4BYTE_ABGR:
+        case BufferedImage.TYPE_BYTE_GRAY:
+        case BufferedImage.TYPE_BYTE_INDEXED:
+            if (sampleModel instanceof PixelInterleavedSampleModel
+                    && dataBuffer instanceof DataBufferByte) {
+                final PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sampleModel;
+                byteData = ((DataBufferByte) dataBuffer).getData();
+                scanlineStride = interleaved.getScanlineStride();
+                pixelStride = interleaved.getPixelStride();
+                // getOffset() would include the offset of the first band
+                offset = dataBuffer.getOffset() + y0 * scanlineStride
+                        + x0 * pixelStride;
+                bandOffsets = interleaved.getBandOffsets();
+                if (bandOffsets.length == 1) {
+                    // gray levels are converted from linear to sRGB, so
+                    // the color model is asked for every level once, in the
+                    // same way BufferedImage.getRGB() asks it
+                    final ColorModel colorModel = image.getColorModel();
+                    colors = new int[256];
+                    final byte[] sample = new byte[1];
+                    for (int i = 0; i < colors.length; i++) {
+                        sample[0] = (byte) i;
+                        colors[i] = colorModel.getRGB(sample);
+                    }
+                    layout = BYTE_LOOKUP;
+                } else {
+                    layout = BYTE_INTERLEAVED;
+                }
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Reads a row of pixels.
+     * 
+     * @param y the row to read
+     * @param argb the array to read into, which is allocated if it's null or
+     *            shorter than the image's width
+     * @return the array read into
+     */
+    public int[] getRow(final int y, final int[] argb) {
+        return getRows(y, 1, argb);
+    }
+
+    /**
+     * Reads consecutive rows of pixels, one row after the other.
+     * 
+     * @param y the first row to read
+     * @param rows the number of rows to read
+     * @param argb the array to read into, which is allocated if it's null or
+     *            shorter than rows times the image's width
+     * @return the array read into
+     */
+    public int[] getRows(final int y, final int rows, int[] argb) {
+        if (y < 0 || rows < 0 || y + rows > height) {
+            throw new ArrayIndexOutOfBoundsException("Rows " + y + " to "
+                    + (y + rows) + " outside image of height " + height);
+        }
+        if (argb == null || argb.length < rows * width) {
+            argb = new int[rows * width];
+        }
+
+        switch (layout) {
+        case INT_PACKED:
+            for (int row = 0; row < rows; row++) {
+                final int start = row * width;
+                System.arraycopy(intData, offset + (y + row) * scanlineStride,
+                        argb, start, width);
+                if (opaqueBits != 0) {
+                    for (int i = start; i < start + width; i++) {
+                        argb[i] = opaqueBits | (0xffffff & argb[i]);
+                    }
+                }
+            }
+            break;
+        case BYTE_INTERLEAVED:
+            final int red = bandOffsets[0];
+            final int green = bandOffsets[1];
+            final int blue = bandOffsets[2];
+            final boolean hasAlpha = bandOffsets.length > 3;
+            final int alpha = hasAlpha ? bandOffsets[3] : 0;
+            int i = 0;
+            for (int row = 0; row < rows; row++) {
+                int p = offset + (y + row) * scanlineStride;
+                for (int x = 0; x < width; x++) {
+                    final int a = hasAlpha ? 0xff & byteData[p + alpha] : 0xff;
+                    argb[i++] = (a << 24) | ((0xff & byteData[p + red]) << 16)
+                            | ((0xff & byteData[p + green]) << 8)
+                            | (0xff & byteData[p + blue]);
+                    p += pixelStride;
+                }
+            }
+            break;
+        case BYTE_LOOKUP:
+            int j = 0;
+            for (int row = 0; row < rows; row++) {
+                int p = offset + (y + row) * scanlineStride + bandOffsets[0];
+                for (int x = 0; x < width; x++) {
+                    argb[j++] = colors[0xff & byteData[p]];
+                    p += pixelStride;
+                }
+            }
+            break;
+        default:
+            image.getRGB(0, y, width, rows, argb, 0, width);
+            break;
+        }
+        return argb;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps released arrays, grouped by type and length, and hands them out
+ * again when arrays of the same type and length are asked for.
+ * <p>
+ * This pays off when the same few image sizes recur, as with thumbnails
+ * or the frames of a camera. The pool holds on to at most a given number
+ * of bytes; arrays released once it is full are left to the garbage
+ * collector.
+ */
+public class PooledRasterBufferProvider implements RasterBufferProvider {
+    private static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+    private final long maxPooledBytes;
+    private final Map<Integer, List<int[]>> intBuffers = new HashMap<Integer, List<int[]>>();
+    private final Map<Integer, List<byte[]>> byteBuffers = new HashMap<Integer, List<byte[]>>();
+    private final Map<Integer, List<float[]>> floatBuffers = new HashMap<Integer, List<float[]>>();
+    private long pooledBytes;
+
+    /**
+     * Creates a pool holding up to 64 MB.
+     */
+    public PooledRasterBufferProvider() {
+        this(DEFAULT_MAX_POOLED_BYTES);
+    }
+
+    /**
+     * Creates a pool.
+     * 
+     * @param maxPooledBytes
+     *            the most bytes the pooled arrays may take together
+     */
+    public PooledRasterBufferProvider(final long maxPooledBytes) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException("negative pool size");
+        }
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * Returns the number of bytes taken by the arrays currently held in the
+     * pool.
+     * 
+     * @return the pooled bytes
+     */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * Drops all pooled arrays.
+     */
+    public synchronized void clear() {
+        intBuffers.clear();
+        byteBuffers.clear();
+        floatBuffers.clear();
+        pooledBytes = 0;
+    }
+
+    public int[] getIntBuffer(final int length) {
+        final int[] buffer = take(intBuffers, length, 4L * length);
+        if (buffer == null) {
+            return new int[length];
+        }
+        Arrays.fill(buffer, 0);
+        return buffer;
+    }
+
+    public byte[] getByteBuffer(final int length) {
+        final byte[] buffer = take(byteBuffers, length, length);
+        if (buffer == null) {
+            return new byte[length];
+        }
+        Arrays.fill(buffer, (byte) 0);
+        return buffer;
+    }
+
+    public float[] getFloatBuffer(final int length) {
+        final float[] buffer = take(floatBuffers, length, 4L * length);
+        if (buffer == null) {
+            return new float[length];
+        }
+        Arrays.fill(buffer, 0);
+        return buffer;
+    }
+
+    public void release(final int[] buffer) {
+        if (buffer != null) {
+            give(intBuffers, buffer, buffer.length, 4L * buffer.length);
+        }
+    }
+
+    public void release(final byte[] buffer) {
+        if (buffer != null) {
+            give(byteBuffers, buffer, buffer.length, buffer.length);
+        }
+    }
+
+    public void release(final float[] buffer) {
+        if (buffer != null) {
+            give(floatBuffers, buffer, buffer.length, 4L * buffer.length);
+        }
+    }
+
+    public void release(final BufferedImage image) {
+        final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        if (dataBuffer instanceof DataBufferInt) {
+            for (final int[] bank : ((DataBufferInt) dataBuffer).getBankData()) {
+                release(bank);
+            }
+        } else if (dataBuffer instanceof DataBufferByte) {
+            for (final byte[] bank : ((DataBufferByte) dataBuffer).getBankData()) {
+                release(bank);
+            }
+        } else if (dataBuffer instanceof DataBufferFloat) {
+            for (final float[] bank : ((DataBufferFloat) dataBuffer).getBankData()) {
+                release(bank);
+            }
+        }
+    }
+
+    private synchronized <T> T take(final Map<Integer, List<T>> buffers,
+            final int length, final long bytes) {
+        final List<T> bucket = buffers.get(length);
+        if (bucket == null || bucket.isEmpty()) {
+            return null;
+        }
+        pooledBytes -= bytes;
+        return bucket.remove(bucket.size() - 1);
+    }
+
+    private synchronized <T> void give(final Map<Integer, List<T>> buffers,
+            final T buffer, final int length, final long bytes) {
+        if (pooledBytes + bytes > maxPooledBytes) {
+            return;
+        }
+        List<T> bucket = buffers.get(length);
+        if (bucket == null) {
+            bucket = new ArrayList<T>();
+            buffers.put(length, bucket);
+        }
+        for (final T pooled : bucket) {
+            if (pooled == buffer) {
+                // released twice; pooling it again would hand it out twice
+                return;
+            }
+        }
+        bucket.add(buffer);
+        pooledBytes += bytes;
+    }
+}
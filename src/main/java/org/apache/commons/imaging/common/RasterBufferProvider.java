@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Supplies the arrays that parsers decode pixels into, so that applications
+ * reading many images of the same sizes can reuse them.
+ * <p>
+ * The arrays returned have exactly the requested length and all their
+ * elements are zero, as if they had just been allocated. Some of them end up
+ * backing the raster of the image that is returned; the others are released
+ * by the parser once it is done with them. An application which discards an
+ * image can hand its arrays back with {@link #release(BufferedImage)}, after
+ * which the image must no longer be used.
+ * <p>
+ * A provider is passed to the parsers under the
+ * {@link org.apache.commons.imaging.ImagingConstants#RASTER_BUFFER_PROVIDER}
+ * key. Parsers may be used from several threads, so implementations must be
+ * thread safe.
+ */
+public interface RasterBufferProvider {
+    int[] getIntBuffer(int length);
+
+    byte[] getByteBuffer(int length);
+
+    float[] getFloatBuffer(int length);
+
+    void release(int[] buffer);
+
+    void release(byte[] buffer);
+
+    void release(float[] buffer);
+
+    /**
+     * Releases the arrays backing the raster of an image that won't be used
+     * anymore.
+     * 
+     * @param image
+     *            the discarded image
+     */
+    void release(BufferedImage image);
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.nio.ByteOrder;
+
+import org.apache.commons.imaging.FormatCompliance;
+
+/**
+ * The state of a single read operation.
+ * <p>
+ * Anything that is only known, or may only change, while reading one
+ * image (the byte order found in the header, where compliance problems are
+ * reported, whether to print debug output) is kept here and passed along
+ * the read path, instead of being kept in the parser, so that one parser
+ * instance can serve any number of reads at the same time. Instances are
+ * immutable.
+ */
+public final class ReadContext {
+    private final ByteOrder byteOrder;
+    private final FormatCompliance formatCompliance;
+    private final boolean debug;
+
+    /**
+     * Constructs a context.
+     * 
+     * @param byteOrder
+     *            the byte order of the data being read.
+     * @param formatCompliance
+     *            where to report compliance problems, or null to not report
+     *            them.
+     * @param debug
+     *            whether to print debug output.
+     */
+    public ReadContext(final ByteOrder byteOrder,
+            final FormatCompliance formatCompliance, final boolean debug) {
+        if (byteOrder == null) {
+            throw new IllegalArgumentException("byteOrder is null");
+        }
+        this.byteOrder = byteOrder;
+        this.formatCompliance = formatCompliance;
+        this.debug = debug;
+    }
+
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    public FormatCompliance getFormatCompliance() {
+        return formatCompliance;
+    }
+
+    public boolean getDebug() {
+        return debug;
+    }
+}
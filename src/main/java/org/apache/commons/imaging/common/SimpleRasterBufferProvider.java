@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Allocates a new array each time one is asked for, and leaves released
+ * arrays to the garbage collector.
+ */
+public class SimpleRasterBufferProvider implements RasterBufferProvider {
+    public int[] getIntBuffer(final int length) {
+        return new int[length];
+    }
+
+    public byte[] getByteBuffer(final int length) {
+        return new byte[length];
+    }
+
+    public float[] getFloatBuffer(final int length) {
+        return new float[length];
+    }
+
+    public void release(final int[] buffer) {
+        // nothing to do
+    }
+
+    public void release(final byte[] buffer) {
+        // nothing to do
+    }
+
+    public void release(final float[] buffer) {
+        // nothing to do
+    }
+
+    public void release(final BufferedImage image) {
+        // nothing to do
+    }
+}
@@ -18,8 +18,10 @@ package org.apache.commons.imaging.common.bytesource;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.imaging.common.BinaryFunctions;
+import org.apache.commons.imaging.util.IoUtils;
 
 public abstract class ByteSource {
     protected final String filename;
@@ -53,6 +55,34 @@ public abstract class ByteSource {
 
     public abstract byte[] getAll() throws IOException;
 
+    /**
+     * Copies the bytes from the given offset up to the end of the source to
+     * an output stream, without holding them all in memory at once.
+     * The output stream is not closed.
+     * 
+     * @param os
+     *            the stream to write to
+     * @param start
+     *            the offset of the first byte to copy
+     * @throws IOException
+     *             in the event of an unrecoverable I/O error
+     */
+    public void writeTo(final OutputStream os, final long start) throws IOException {
+        InputStream is = null;
+        boolean canThrow = false;
+        try {
+            is = getInputStream(start);
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                os.write(buffer, 0, read);
+            }
+            canThrow = true;
+        } finally {
+            IoUtils.closeQuietly(canThrow, is);
+        }
+    }
+
     /*
      * This operation can be VERY expensive; for inputstream byte sources, the
      * entire stream must be drained to determine its length.
@@ -19,6 +19,7 @@ package org.apache.commons.imaging.common.bytesource;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public class ByteSourceArray extends ByteSource {
     private final byte[] bytes;
@@ -64,6 +65,15 @@ public class ByteSourceArray extends ByteSource {
         return bytes;
     }
 
+    @Override
+    public void writeTo(final OutputStream os, final long start) throws IOException {
+        if (start < 0 || start > bytes.length) {
+            throw new IOException("Could not write from offset " + start
+                    + " (data length: " + bytes.length + ").");
+        }
+        os.write(bytes, (int) start, bytes.length - (int) start);
+    }
+
     @Override
     public String getDescription() {
         return bytes.length + " byte array";
@@ -20,9 +20,15 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.commons.imaging.common.BinaryFunctions;
 import org.apache.commons.imaging.util.IoUtils;
@@ -35,6 +41,10 @@ public class ByteSourceFile extends ByteSource {
         this.file = file;
     }
 
+    public File getFile() {
+        return file;
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
         return new BufferedInputStream(new FileInputStream(file));
@@ -65,6 +75,31 @@ public class ByteSourceFile extends ByteSource {
         }
     }
 
+    /**
+     * Maps part of the file into memory, read-only. The operating system
+     * pages the file in as it is read, without copying it through a stream's
+     * buffers, which makes reading large files faster. The mapping stays
+     * valid until the buffer is garbage collected.
+     */
+    public MappedByteBuffer map(final long start, final long length) throws IOException {
+        RandomAccessFile raf = null;
+        boolean canThrow = false;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            if ((start < 0) || (length < 0) || (start + length > raf.length())) {
+                throw new IOException("Could not map block (block start: "
+                        + start + ", block length: " + length
+                        + ", data length: " + raf.length() + ").");
+            }
+            final MappedByteBuffer ret = raf.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY, start, length);
+            canThrow = true;
+            return ret;
+        } finally {
+            IoUtils.closeQuietly(canThrow, raf);
+        }
+    }
+
     @Override
     public long getLength() {
         return file.length();
@@ -92,6 +127,42 @@ public class ByteSourceFile extends ByteSource {
         }
     }
 
+    /**
+     * Copies the remainder of the file with FileChannel.transferTo, which
+     * lets the operating system move the bytes directly when the
+     * destination is itself a file.
+     */
+    @Override
+    public void writeTo(final OutputStream os, final long start) throws IOException {
+        FileInputStream fis = null;
+        boolean canThrow = false;
+        try {
+            fis = new FileInputStream(file);
+            final FileChannel channel = fis.getChannel();
+            final long length = channel.size();
+            if (start < 0 || start > length) {
+                throw new IOException("Could not write from offset " + start
+                        + " (data length: " + length + ").");
+            }
+            // the channel of a FileOutputStream shares its position, so the
+            // bytes land where the next write to the stream would have
+            final WritableByteChannel target = (os instanceof FileOutputStream)
+                    ? ((FileOutputStream) os).getChannel()
+                    : Channels.newChannel(os);
+            long position = start;
+            while (position < length) {
+                final long transferred = channel.transferTo(position, length - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("Could not copy file contents");
+                }
+                position += transferred;
+            }
+            canThrow = true;
+        } finally {
+            IoUtils.closeQuietly(canThrow, fis);
+        }
+    }
+
     @Override
     public String getDescription() {
         return "File: '" + file.getAbsolutePath() + "'";
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.bytesource;
+
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Reads a file through a FileChannel, with positional reads only.
+ * <p>
+ * Positional reads don't use or move the position of the channel, so one
+ * instance, and any number of streams from it, can be read by many threads
+ * at once, without locks and without opening the file again for every
+ * block, as {@link ByteSourceFile} does. The streams buffer their reads
+ * themselves and are not synchronized, which suits virtual threads.
+ * <p>
+ * The channel belongs to the caller, who closes it when done. Note that a
+ * thread interrupted while reading from a FileChannel closes it, for all
+ * of its users.
+ */
+public class ByteSourceFileChannel extends ByteSource {
+    private static final int BUFFER_SIZE = 8192;
+    private final FileChannel channel;
+
+    /**
+     * Constructs a byte source for the whole of a channel.
+     * 
+     * @param channel
+     *            a channel open for reading.
+     * @param filename
+     *            the name of the file, used to recognize its format, or null.
+     */
+    public ByteSourceFileChannel(final FileChannel channel, final String filename) {
+        super(filename);
+        if (channel == null) {
+            throw new IllegalArgumentException("channel is null");
+        }
+        this.channel = channel;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new ChannelInputStream();
+    }
+
+    @Override
+    public byte[] getBlock(final long start, final int length) throws IOException {
+        final long size = channel.size();
+        // We include a separate check for int overflow.
+        if ((start < 0) || (length < 0) || (start + length < 0)
+                || (start + length > size)) {
+            throw new IOException("Could not read block (block start: "
+                    + start + ", block length: " + length
+                    + ", data length: " + size + ").");
+        }
+        final byte[] bytes = new byte[length];
+        readFully(ByteBuffer.wrap(bytes), start);
+        return bytes;
+    }
+
+    @Override
+    public byte[] getAll() throws IOException {
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File too large to read at once: " + size);
+        }
+        return getBlock(0, (int) size);
+    }
+
+    /**
+     * Copies with FileChannel.transferTo, which, being positional too, can
+     * run alongside other reads.
+     */
+    @Override
+    public void writeTo(final OutputStream os, final long start) throws IOException {
+        final long length = channel.size();
+        if (start < 0 || start > length) {
+            throw new IOException("Could not write from offset " + start
+                    + " (data length: " + length + ").");
+        }
+        final WritableByteChannel target = (os instanceof FileOutputStream)
+                ? ((FileOutputStream) os).getChannel()
+                : Channels.newChannel(os);
+        long position = start;
+        while (position < length) {
+            final long transferred = channel.transferTo(position, length - position, target);
+            if (transferred <= 0) {
+                throw new IOException("Could not copy file contents");
+            }
+            position += transferred;
+        }
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public String getDescription() {
+        return "FileChannel: '" + filename + "'";
+    }
+
+    private void readFully(final ByteBuffer buffer, final long start) throws IOException {
+        long position = start;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Could not read block at " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Reads from its own position in the channel, through its own buffer.
+     */
+    private class ChannelInputStream extends InputStream {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        // the position in the file of the end of the buffered bytes
+        private long position;
+        private int index;
+        private int limit;
+
+        @Override
+        public int read() throws IOException {
+            if (index >= limit && !fill()) {
+                return -1;
+            }
+            return 0xff & buffer[index++];
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if ((off < 0) || (len < 0) || (off + len < 0) || (off + len > b.length)) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return 0;
+            }
+            if (index >= limit) {
+                if (len >= BUFFER_SIZE) {
+                    // no use copying through the buffer
+                    final int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+                    if (read > 0) {
+                        position += read;
+                    }
+                    return read;
+                }
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            final int count = Math.min(len, limit - index);
+            System.arraycopy(buffer, index, b, off, count);
+            index += count;
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            final int buffered = limit - index;
+            if (n <= buffered) {
+                index += (int) n;
+                return n;
+            }
+            index = limit;
+            final long skipped = Math.min(n - buffered,
+                    Math.max(0, channel.size() - position));
+            position += skipped;
+            return buffered + skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(Integer.MAX_VALUE,
+                    limit - index + Math.max(0, channel.size() - position));
+        }
+
+        private boolean fill() throws IOException {
+            byteBuffer.clear();
+            final int read = channel.read(byteBuffer, position);
+            if (read <= 0) {
+                index = 0;
+                limit = 0;
+                return false;
+            }
+            position += read;
+            index = 0;
+            limit = read;
+            return true;
+        }
+    }
+}
@@ -20,15 +20,28 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.imaging.common.BinaryFunctions;
 
+/**
+ * Reads an input stream once, keeping what has been read in a chain of
+ * blocks, so that it can be read again from the start as often as needed.
+ * <p>
+ * Any number of threads can read an instance at once. The stream is only
+ * read while holding a lock, while the blocks already read are shared
+ * without locking. The lock is not a monitor, so a virtual thread waiting
+ * for a block to be read doesn't hold on to its carrier thread.
+ */
 public class ByteSourceInputStream extends ByteSource {
     private final InputStream is;
-    private CacheBlock cacheHead;
+    private final Lock lock = new ReentrantLock();
+    private volatile CacheBlock cacheHead;
     private static final int BLOCK_SIZE = 1024;
+    // guarded by lock
     private byte[] readBuffer;
-    private long streamLength = -1;
+    private volatile long streamLength = -1;
 
     public ByteSourceInputStream(final InputStream is, final String filename) {
         super(filename);
@@ -37,7 +50,8 @@ public class ByteSourceInputStream extends ByteSource {
 
     private class CacheBlock {
         public final byte[] bytes;
-        private CacheBlock next;
+        private volatile CacheBlock next;
+        // guarded by lock
         private boolean triedNext;
 
         public CacheBlock(final byte[] bytes) {
@@ -45,19 +59,25 @@ public class ByteSourceInputStream extends ByteSource {
         }
 
         public CacheBlock getNext() throws IOException {
-            if (null != next) {
-                return next;
+            final CacheBlock cached = next;
+            if (null != cached) {
+                return cached;
             }
-            if (triedNext) {
-                return null;
+            lock.lock();
+            try {
+                if (null == next && !triedNext) {
+                    next = readBlock();
+                    triedNext = true;
+                }
+                return next;
+            } finally {
+                lock.unlock();
             }
-            triedNext = true;
-            next = readBlock();
-            return next;
         }
 
     }
 
+    // only called while holding the lock
     private CacheBlock readBlock() throws IOException {
         if (null == readBuffer) {
             readBuffer = new byte[BLOCK_SIZE];
@@ -80,10 +100,19 @@ public class ByteSourceInputStream extends ByteSource {
     }
 
     private CacheBlock getFirstBlock() throws IOException {
-        if (null == cacheHead) {
-            cacheHead = readBlock();
+        final CacheBlock cached = cacheHead;
+        if (null != cached) {
+            return cached;
+        }
+        lock.lock();
+        try {
+            if (null == cacheHead) {
+                cacheHead = readBlock();
+            }
+            return cacheHead;
+        } finally {
+            lock.unlock();
         }
-        return cacheHead;
     }
 
     private class CacheReadingInputStream extends InputStream {
@@ -209,13 +238,13 @@ public class ByteSourceInputStream extends ByteSource {
 
     @Override
     public byte[] getBlock(final long blockStart, final int blockLength) throws IOException {
-        // We include a separate check for int overflow.
+        // We include a separate check for int overflow. The stream's length
+        // isn't checked, as finding it would read the whole stream; a block
+        // beyond its end fails below.
         if ((blockStart < 0) || (blockLength < 0)
-                || (blockStart + blockLength < 0)
-                || (blockStart + blockLength > streamLength)) {
+                || (blockStart + blockLength < 0)) {
             throw new IOException("Could not read block (block start: "
-                    + blockStart + ", block length: " + blockLength
-                    + ", data length: " + streamLength + ").");
+                    + blockStart + ", block length: " + blockLength + ").");
         }
 
         final InputStream cis = getInputStream();
@@ -223,16 +252,14 @@ public class ByteSourceInputStream extends ByteSource {
 
         final byte[] bytes = new byte[blockLength];
         int total = 0;
-        while (true) {
+        while (total < blockLength) {
             final int read = cis.read(bytes, total, bytes.length - total);
             if (read < 1) {
                 throw new IOException("Could not read block.");
             }
             total += read;
-            if (total >= blockLength) {
-                return bytes;
-            }
         }
+        return bytes;
     }
 
     @Override
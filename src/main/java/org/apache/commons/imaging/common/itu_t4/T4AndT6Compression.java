@@ -21,57 +21,12 @@ import java.io.IOException;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
-import org.apache.commons.imaging.common.itu_t4.T4_T6_Tables.Entry;
 import org.apache.commons.imaging.util.IoUtils;
 
 public final class T4AndT6Compression {
-    private static final HuffmanTree<Integer> WHITE_RUN_LENGTHS = new HuffmanTree<Integer>();
-    private static final HuffmanTree<Integer> BLACK_RUN_LENGTHS = new HuffmanTree<Integer>();
-    private static final HuffmanTree<Entry> CONTROL_CODES = new HuffmanTree<Entry>();
-
     public static final int WHITE = 0;
     public static final int BLACK = 1;
 
-    static {
-        try {
-            for (final Entry entry : T4_T6_Tables.WHITE_TERMINATING_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.WHITE_MAKE_UP_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.BLACK_TERMINATING_CODES) {
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.BLACK_MAKE_UP_CODES) {
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            CONTROL_CODES.insert(T4_T6_Tables.EOL.bitString, T4_T6_Tables.EOL);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL13.bitString, T4_T6_Tables.EOL13);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL14.bitString, T4_T6_Tables.EOL14);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL15.bitString, T4_T6_Tables.EOL15);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL16.bitString, T4_T6_Tables.EOL16);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL17.bitString, T4_T6_Tables.EOL17);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL18.bitString, T4_T6_Tables.EOL18);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL19.bitString, T4_T6_Tables.EOL19);
-            CONTROL_CODES.insert(T4_T6_Tables.P.bitString, T4_T6_Tables.P);
-            CONTROL_CODES.insert(T4_T6_Tables.H.bitString, T4_T6_Tables.H);
-            CONTROL_CODES.insert(T4_T6_Tables.V0.bitString, T4_T6_Tables.V0);
-            CONTROL_CODES.insert(T4_T6_Tables.VL1.bitString, T4_T6_Tables.VL1);
-            CONTROL_CODES.insert(T4_T6_Tables.VL2.bitString, T4_T6_Tables.VL2);
-            CONTROL_CODES.insert(T4_T6_Tables.VL3.bitString, T4_T6_Tables.VL3);
-            CONTROL_CODES.insert(T4_T6_Tables.VR1.bitString, T4_T6_Tables.VR1);
-            CONTROL_CODES.insert(T4_T6_Tables.VR2.bitString, T4_T6_Tables.VR2);
-            CONTROL_CODES.insert(T4_T6_Tables.VR3.bitString, T4_T6_Tables.VR3);
-        } catch (final HuffmanTreeException cannotHappen) {
-            throw new Error(cannotHappen);
-        }
-    }
-
     private T4AndT6Compression() {
     }
 
@@ -138,41 +93,27 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressModifiedHuffman(final byte[] compressed,
             final int width, final int height) throws ImageReadException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(
-                new ByteArrayInputStream(compressed));
-        BitArrayOutputStream outputStream = null;
-        boolean canThrow = false;
-        try {
-            outputStream = new BitArrayOutputStream();
-            for (int y = 0; y < height; y++) {
-                int color = WHITE;
-                int rowLength;
-                for (rowLength = 0; rowLength < width;) {
-                    final int runLength = readTotalRunLength(inputStream, color);
-                    for (int i = 0; i < runLength; i++) {
-                        outputStream.writeBit(color);
-                    }
-                    color = 1 - color;
-                    rowLength += runLength;
-                }
-    
-                if (rowLength == width) {
-                    inputStream.flushCache();
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImageReadException("Unrecoverable row length error in image row " + y);
-                }
-            }
-            final byte[] ret = outputStream.toByteArray();
-            canThrow = true;
-            return ret;
-        } finally {
-            try {
-                IoUtils.closeQuietly(canThrow, outputStream);
-            } catch (final IOException ioException) {
-                throw new ImageReadException("I/O error", ioException);
-            }
-        }
+        final byte[] rows = new byte[height * ((width + 7) / 8)];
+        decompressModifiedHuffman(compressed, width, height, rows, 0);
+        return rows;
+    }
+
+    /**
+     * Decompresses "Modified Huffman" encoded data straight into an array of
+     * packed rows, as returned by
+     * {@link #decompressModifiedHuffman(byte[], int, int)}.
+     * 
+     * @param compressed
+     * @param width
+     * @param height
+     * @param rows the array to write (width + 7) / 8 bytes per row to
+     * @param offset where the first row starts in the array
+     * @throws ImageReadException
+     */
+    public static void decompressModifiedHuffman(final byte[] compressed,
+            final int width, final int height, final byte[] rows, final int offset)
+            throws ImageReadException {
+        new T4AndT6Decoder(compressed, width, rows, offset).decodeModifiedHuffman(height);
     }
 
     public static byte[] compressT4_1D(final byte[] uncompressed, final int width,
@@ -217,47 +158,28 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressT4_1D(final byte[] compressed, final int width,
             final int height, final boolean hasFill) throws ImageReadException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        BitArrayOutputStream outputStream = null;
-        boolean canThrow = false;
-        try {
-            outputStream = new BitArrayOutputStream();
-            for (int y = 0; y < height; y++) {
-                int rowLength;
-                try {
-                    T4_T6_Tables.Entry entry = CONTROL_CODES.decode(inputStream);
-                    if (!isEOL(entry, hasFill)) {
-                        throw new ImageReadException("Expected EOL not found");
-                    }
-                    int color = WHITE;
-                    for (rowLength = 0; rowLength < width;) {
-                        final int runLength = readTotalRunLength(inputStream, color);
-                        for (int i = 0; i < runLength; i++) {
-                            outputStream.writeBit(color);
-                        }
-                        color = 1 - color;
-                        rowLength += runLength;
-                    }
-                } catch (final HuffmanTreeException huffmanException) {
-                    throw new ImageReadException("Decompression error", huffmanException);
-                }
-    
-                if (rowLength == width) {
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImageReadException("Unrecoverable row length error in image row " + y);
-                }
-            }
-            final byte[] ret = outputStream.toByteArray();
-            canThrow = true;
-            return ret;
-        } finally {
-            try {
-                IoUtils.closeQuietly(canThrow, outputStream);
-            } catch (final IOException ioException) {
-                throw new ImageReadException("I/O error", ioException);
-            }
-        }
+        final byte[] rows = new byte[height * ((width + 7) / 8)];
+        decompressT4_1D(compressed, width, height, hasFill, rows, 0);
+        return rows;
+    }
+
+    /**
+     * Decompresses T.4 1D encoded data straight into an array of packed
+     * rows, as returned by
+     * {@link #decompressT4_1D(byte[], int, int, boolean)}.
+     * 
+     * @param compressed
+     * @param width
+     * @param height
+     * @param hasFill
+     * @param rows the array to write (width + 7) / 8 bytes per row to
+     * @param offset where the first row starts in the array
+     * @throws ImageReadException
+     */
+    public static void decompressT4_1D(final byte[] compressed, final int width,
+            final int height, final boolean hasFill, final byte[] rows,
+            final int offset) throws ImageReadException {
+        new T4AndT6Decoder(compressed, width, rows, offset).decodeT4_1D(height, hasFill);
     }
 
     public static byte[] compressT4_2D(final byte[] uncompressed, final int width,
@@ -380,99 +302,28 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressT4_2D(final byte[] compressed, final int width,
             final int height, final boolean hasFill) throws ImageReadException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        final BitArrayOutputStream outputStream = new BitArrayOutputStream();
-        final int[] referenceLine = new int[width];
-        for (int y = 0; y < height; y++) {
-            int rowLength = 0;
-            try {
-                T4_T6_Tables.Entry entry = CONTROL_CODES.decode(inputStream);
-                if (!isEOL(entry, hasFill)) {
-                    throw new ImageReadException("Expected EOL not found");
-                }
-                final int tagBit = inputStream.readBits(1);
-                if (tagBit == 0) {
-                    // 2D
-                    int codingA0Color = WHITE;
-                    int referenceA0Color = WHITE;
-                    int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                    int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    for (int a0 = 0; a0 < width;) {
-                        int a1;
-                        int a2;
-                        entry = CONTROL_CODES.decode(inputStream);
-                        if (entry == T4_T6_Tables.P) {
-                            fillRange(outputStream, referenceLine, a0, b2, codingA0Color);
-                            a0 = b2;
-                        } else if (entry == T4_T6_Tables.H) {
-                            final int a0a1 = readTotalRunLength(inputStream, codingA0Color);
-                            a1 = a0 + a0a1;
-                            fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                            final int a1a2 = readTotalRunLength(inputStream, 1 - codingA0Color);
-                            a2 = a1 + a1a2;
-                            fillRange(outputStream, referenceLine, a1, a2, 1 - codingA0Color);
-                            a0 = a2;
-                        } else {
-                            int a1b1;
-                            if (entry == T4_T6_Tables.V0) {
-                                a1b1 = 0;
-                            } else if (entry == T4_T6_Tables.VL1) {
-                                a1b1 = -1;
-                            } else if (entry == T4_T6_Tables.VL2) {
-                                a1b1 = -2;
-                            } else if (entry == T4_T6_Tables.VL3) {
-                                a1b1 = -3;
-                            } else if (entry == T4_T6_Tables.VR1) {
-                                a1b1 = 1;
-                            } else if (entry == T4_T6_Tables.VR2) {
-                                a1b1 = 2;
-                            } else if (entry == T4_T6_Tables.VR3) {
-                                a1b1 = 3;
-                            } else {
-                                throw new ImageReadException("Invalid/unknown T.4 control code " + entry.bitString);
-                            }
-                            a1 = b1 + a1b1;
-                            fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                            a0 = a1;
-                            codingA0Color = 1 - codingA0Color;
-                        }
-                        referenceA0Color = changingElementAt(referenceLine, a0);
-                        if (codingA0Color == referenceA0Color) {
-                            b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        } else {
-                            b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                            b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                        }
-                        b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                        rowLength = a0;
-                    }
-                } else {
-                    // 1D
-                    int color = WHITE;
-                    for (rowLength = 0; rowLength < width;) {
-                        final int runLength = readTotalRunLength(inputStream, color);
-                        for (int i = 0; i < runLength; i++) {
-                            outputStream.writeBit(color);
-                            referenceLine[rowLength + i] = color;
-                        }
-                        color = 1 - color;
-                        rowLength += runLength;
-                    }
-                }
-            } catch (final IOException ioException) {
-                throw new ImageReadException("Decompression error", ioException);
-            } catch (final HuffmanTreeException huffmanException) {
-                throw new ImageReadException("Decompression error", huffmanException);
-            }
+        final byte[] rows = new byte[height * ((width + 7) / 8)];
+        decompressT4_2D(compressed, width, height, hasFill, rows, 0);
+        return rows;
+    }
 
-            if (rowLength == width) {
-                outputStream.flush();
-            } else if (rowLength > width) {
-                throw new ImageReadException("Unrecoverable row length error in image row " + y);
-            }
-        }
-        
-        return outputStream.toByteArray();
+    /**
+     * Decompresses T.4 2D encoded data straight into an array of packed
+     * rows, as returned by
+     * {@link #decompressT4_2D(byte[], int, int, boolean)}.
+     * 
+     * @param compressed
+     * @param width
+     * @param height
+     * @param hasFill
+     * @param rows the array to write (width + 7) / 8 bytes per row to
+     * @param offset where the first row starts in the array
+     * @throws ImageReadException
+     */
+    public static void decompressT4_2D(final byte[] compressed, final int width,
+            final int height, final boolean hasFill, final byte[] rows,
+            final int offset) throws ImageReadException {
+        new T4AndT6Decoder(compressed, width, rows, offset).decodeT4_2D(height, hasFill);
     }
 
     public static byte[] compressT6(final byte[] uncompressed, final int width, final int height)
@@ -576,92 +427,26 @@ public final class T4AndT6Compression {
      */
     public static byte[] decompressT6(final byte[] compressed, final int width, final int height)
             throws ImageReadException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        final BitArrayOutputStream outputStream = new BitArrayOutputStream();
-        final int[] referenceLine = new int[width];
-        for (int y = 0; y < height; y++) {
-            int rowLength = 0;
-            try {
-                int codingA0Color = WHITE;
-                int referenceA0Color = WHITE;
-                int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                for (int a0 = 0; a0 < width;) {
-                    int a1;
-                    int a2;
-                    T4_T6_Tables.Entry  entry = CONTROL_CODES.decode(inputStream);
-                    if (entry == T4_T6_Tables.P) {
-                        fillRange(outputStream, referenceLine, a0, b2, codingA0Color);
-                        a0 = b2;
-                    } else if (entry == T4_T6_Tables.H) {
-                        final int a0a1 = readTotalRunLength(inputStream, codingA0Color);
-                        a1 = a0 + a0a1;
-                        fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                        final int a1a2 = readTotalRunLength(inputStream, 1 - codingA0Color);
-                        a2 = a1 + a1a2;
-                        fillRange(outputStream, referenceLine, a1, a2, 1 - codingA0Color);
-                        a0 = a2;
-                    } else {
-                        int a1b1;
-                        if (entry == T4_T6_Tables.V0) {
-                            a1b1 = 0;
-                        } else if (entry == T4_T6_Tables.VL1) {
-                            a1b1 = -1;
-                        } else if (entry == T4_T6_Tables.VL2) {
-                            a1b1 = -2;
-                        } else if (entry == T4_T6_Tables.VL3) {
-                            a1b1 = -3;
-                        } else if (entry == T4_T6_Tables.VR1) {
-                            a1b1 = 1;
-                        } else if (entry == T4_T6_Tables.VR2) {
-                            a1b1 = 2;
-                        } else if (entry == T4_T6_Tables.VR3) {
-                            a1b1 = 3;
-                        } else {
-                            throw new ImageReadException("Invalid/unknown T.6 control code " + entry.bitString);
-                        }
-                        a1 = b1 + a1b1;
-                        fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                        a0 = a1;
-                        codingA0Color = 1 - codingA0Color;
-                    }
-                    referenceA0Color = changingElementAt(referenceLine, a0);
-                    if (codingA0Color == referenceA0Color) {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                    } else {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    }
-                    b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                    rowLength = a0;
-                }
-            } catch (final HuffmanTreeException huffmanException) {
-                throw new ImageReadException("Decompression error", huffmanException);
-            }
-
-            if (rowLength == width) {
-                outputStream.flush();
-            } else if (rowLength > width) {
-                throw new ImageReadException("Unrecoverable row length error in image row " + y);
-            }
-        }
-        
-        return outputStream.toByteArray();
+        final byte[] rows = new byte[height * ((width + 7) / 8)];
+        decompressT6(compressed, width, height, rows, 0);
+        return rows;
     }
 
-    private static boolean isEOL(final T4_T6_Tables.Entry entry, final boolean hasFill) {
-        if (entry == T4_T6_Tables.EOL) {
-            return true;
-        }
-        if (hasFill) {
-            return entry == T4_T6_Tables.EOL13 || entry == T4_T6_Tables.EOL14
-                    || entry == T4_T6_Tables.EOL15
-                    || entry == T4_T6_Tables.EOL16
-                    || entry == T4_T6_Tables.EOL17
-                    || entry == T4_T6_Tables.EOL18
-                    || entry == T4_T6_Tables.EOL19;
-        }
-        return false;
+    /**
+     * Decompresses T.6 encoded data straight into an array of packed rows,
+     * as returned by {@link #decompressT6(byte[], int, int)}.
+     * 
+     * @param compressed
+     * @param width
+     * @param height
+     * @param rows the array to write (width + 7) / 8 bytes per row to
+     * @param offset where the first row starts in the array
+     * @throws ImageReadException
+     */
+    public static void decompressT6(final byte[] compressed, final int width,
+            final int height, final byte[] rows, final int offset)
+            throws ImageReadException {
+        new T4AndT6Decoder(compressed, width, rows, offset).decodeT6(height);
     }
 
     private static void writeRunLength(final BitArrayOutputStream bitStream,
@@ -708,25 +493,6 @@ public final class T4AndT6Compression {
         return entries[first];
     }
 
-    private static int readTotalRunLength(final BitInputStreamFlexible bitStream, 
-            final int color) throws ImageReadException {
-        try {
-            int totalLength = 0;
-            Integer runLength;
-            do {
-                if (color == WHITE) {
-                    runLength = WHITE_RUN_LENGTHS.decode(bitStream);
-                } else {
-                    runLength = BLACK_RUN_LENGTHS.decode(bitStream);
-                }
-                totalLength += runLength;
-            } while (runLength > 63);
-            return totalLength;
-        } catch (final HuffmanTreeException huffmanException) {
-            throw new ImageReadException("Decompression error", huffmanException);
-        }
-    }
-
     private static int changingElementAt(final int[] line, final int position) {
         if (position < 0 || position >= line.length) {
             return WHITE;
@@ -743,12 +509,4 @@ public final class T4AndT6Compression {
         
         return position < line.length ? position : line.length;
     }
-
-    private static void fillRange(final BitArrayOutputStream outputStream,
-            final int[] referenceRow, final int a0, final int end, final int color) {
-        for (int i = a0; i < end; i++) {
-            referenceRow[i] = color;
-            outputStream.writeBit(color);
-        }
-    }
 }
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common.itu_t4;
+
+import java.util.Arrays;
+
+import org.apache.commons.imaging.ImageReadException;
+
+/**
+ * Decodes T.4 and T.6 data into packed rows of 1 bit per pixel: 1 is black,
+ * the leftmost pixel is in the most significant bit, and every row starts
+ * on a byte boundary.
+ * <p>
+ * Codes are decoded by looking up the next 13 bits (the length of the
+ * longest run length code) in a table instead of walking a Huffman tree
+ * one bit at a time. Rows are kept as the positions of their changing
+ * elements, which is what 2D coding works with, and are only expanded
+ * into pixels when written out, a byte at a time wherever possible.
+ */
+final class T4AndT6Decoder {
+    private static final int RUN_LENGTH_BITS = 13;
+    private static final int MODE_BITS = 7;
+
+    // table entries are (code length << 16) | value, or 0 for invalid codes
+    private static final int[] WHITE_RUN_LENGTHS = new int[1 << RUN_LENGTH_BITS];
+    private static final int[] BLACK_RUN_LENGTHS = new int[1 << RUN_LENGTH_BITS];
+    private static final int[] MODES = new int[1 << MODE_BITS];
+
+    // vertical modes are 0 to 6, for a1 - b1 = -3 to 3
+    private static final int VERTICAL_0 = 3;
+    private static final int PASS = 7;
+    private static final int HORIZONTAL = 8;
+
+    static {
+        addCodes(WHITE_RUN_LENGTHS, T4_T6_Tables.WHITE_TERMINATING_CODES);
+        addCodes(WHITE_RUN_LENGTHS, T4_T6_Tables.WHITE_MAKE_UP_CODES);
+        addCodes(WHITE_RUN_LENGTHS, T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES);
+        addCodes(BLACK_RUN_LENGTHS, T4_T6_Tables.BLACK_TERMINATING_CODES);
+        addCodes(BLACK_RUN_LENGTHS, T4_T6_Tables.BLACK_MAKE_UP_CODES);
+        addCodes(BLACK_RUN_LENGTHS, T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.P, PASS);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.H, HORIZONTAL);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.VL3, VERTICAL_0 - 3);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.VL2, VERTICAL_0 - 2);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.VL1, VERTICAL_0 - 1);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.V0, VERTICAL_0);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.VR1, VERTICAL_0 + 1);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.VR2, VERTICAL_0 + 2);
+        addCode(MODES, MODE_BITS, T4_T6_Tables.VR3, VERTICAL_0 + 3);
+    }
+
+    private final byte[] compressed;
+    private final int limit;
+    private final int width;
+    private final byte[] rows;
+    private final int offset;
+    private final int bytesPerRow;
+    private int position;
+
+    // changing elements: black starts at even indices, white at odd ones
+    private int[] referenceLine;
+    private int referenceCount;
+    private int[] codingLine;
+    private int codingCount;
+
+    T4AndT6Decoder(final byte[] compressed, final int width, final byte[] rows,
+            final int offset) {
+        this.compressed = compressed;
+        this.limit = 8 * compressed.length;
+        this.width = width;
+        this.rows = rows;
+        this.offset = offset;
+        this.bytesPerRow = (width + 7) / 8;
+        // changes strictly increase and end at the first one past width
+        referenceLine = new int[width + 4];
+        codingLine = new int[width + 4];
+    }
+
+    private static void addCodes(final int[] table, final T4_T6_Tables.Entry[] entries) {
+        for (final T4_T6_Tables.Entry entry : entries) {
+            addCode(table, RUN_LENGTH_BITS, entry, entry.value);
+        }
+    }
+
+    private static void addCode(final int[] table, final int tableBits,
+            final T4_T6_Tables.Entry entry, final int value) {
+        final int length = entry.bitString.length();
+        final int shift = tableBits - length;
+        final int first = Integer.parseInt(entry.bitString, 2) << shift;
+        Arrays.fill(table, first, first + (1 << shift), (length << 16) | value);
+    }
+
+    void decodeModifiedHuffman(final int height) throws ImageReadException {
+        for (int y = 0; y < height; y++) {
+            decode1DRow(y);
+            position = (position + 7) & ~7;
+            writeRow(y);
+        }
+    }
+
+    void decodeT4_1D(final int height, final boolean hasFill) throws ImageReadException {
+        for (int y = 0; y < height; y++) {
+            readEOL(hasFill);
+            decode1DRow(y);
+            writeRow(y);
+        }
+    }
+
+    void decodeT4_2D(final int height, final boolean hasFill) throws ImageReadException {
+        for (int y = 0; y < height; y++) {
+            readEOL(hasFill);
+            if (readBit() == 0) {
+                decode2DRow(y);
+            } else {
+                decode1DRow(y);
+            }
+            writeRow(y);
+        }
+    }
+
+    void decodeT6(final int height) throws ImageReadException {
+        for (int y = 0; y < height; y++) {
+            decode2DRow(y);
+            writeRow(y);
+        }
+    }
+
+    private void decode1DRow(final int y) throws ImageReadException {
+        codingCount = 0;
+        int color = T4AndT6Compression.WHITE;
+        int a0 = 0;
+        while (a0 < width) {
+            a0 += readRunLength(color);
+            addChange(a0);
+            color = 1 - color;
+        }
+        checkRowLength(a0, y);
+    }
+
+    private void decode2DRow(final int y) throws ImageReadException {
+        codingCount = 0;
+        int color = T4AndT6Compression.WHITE;
+        // a0 starts on an imaginary white element before the row
+        int a0 = -1;
+        int index = 0;
+        while (a0 < width) {
+            // b1 is the first changing element on the reference line to the
+            // right of a0 and of the opposite color, b2 the one after it.
+            while (index > 0 && referenceLine[index - 1] > a0) {
+                index--;
+            }
+            while (index < referenceCount
+                    && (referenceLine[index] <= a0 || (index & 1) != color)) {
+                index++;
+            }
+            final int b1 = index < referenceCount ? referenceLine[index] : width;
+            final int b2 = index + 1 < referenceCount ? referenceLine[index + 1] : width;
+
+            final int code = MODES[peek(MODE_BITS)];
+            if (code == 0) {
+                throw new ImageReadException("Invalid/unknown 2D mode code in image row " + y);
+            }
+            skip(code >>> 16);
+            final int mode = code & 0xffff;
+            if (mode == PASS) {
+                a0 = b2;
+            } else if (mode == HORIZONTAL) {
+                if (a0 < 0) {
+                    a0 = 0;
+                }
+                final int a1 = a0 + readRunLength(color);
+                final int a2 = a1 + readRunLength(1 - color);
+                addChange(a1);
+                addChange(a2);
+                a0 = a2;
+            } else {
+                // damaged data can move a1 back past a0, which is read
+                // as a run of length zero rather than failing the image.
+                final int a1 = Math.max(Math.max(b1 + mode - VERTICAL_0, a0), 0);
+                addChange(a1);
+                a0 = a1;
+                color = 1 - color;
+            }
+        }
+        checkRowLength(a0, y);
+    }
+
+    private void addChange(final int a) {
+        // a run of length zero cancels the previous change
+        if (codingCount > 0 && codingLine[codingCount - 1] == a) {
+            codingCount--;
+        } else {
+            codingLine[codingCount++] = a;
+        }
+    }
+
+    private void checkRowLength(final int rowLength, final int y) throws ImageReadException {
+        if (rowLength > width) {
+            throw new ImageReadException("Unrecoverable row length error in image row " + y);
+        }
+    }
+
+    private void writeRow(final int y) {
+        final int rowOffset = offset + y * bytesPerRow;
+        Arrays.fill(rows, rowOffset, rowOffset + bytesPerRow, (byte) 0);
+        for (int i = 0; i < codingCount; i += 2) {
+            final int start = codingLine[i];
+            final int end = i + 1 < codingCount ? codingLine[i + 1] : width;
+            if (start >= width) {
+                break;
+            }
+            fillBlack(rowOffset, start, Math.min(end, width));
+        }
+
+        final int[] line = referenceLine;
+        referenceLine = codingLine;
+        referenceCount = codingCount;
+        codingLine = line;
+    }
+
+    private void fillBlack(final int rowOffset, final int start, final int end) {
+        if (start >= end) {
+            return;
+        }
+        final int first = rowOffset + (start >> 3);
+        final int last = rowOffset + ((end - 1) >> 3);
+        final int firstMask = 0xff >>> (start & 7);
+        final int lastMask = 0xff << (7 - ((end - 1) & 7));
+        if (first == last) {
+            rows[first] |= firstMask & lastMask;
+        } else {
+            rows[first] |= firstMask;
+            Arrays.fill(rows, first + 1, last, (byte) 0xff);
+            rows[last] |= lastMask;
+        }
+    }
+
+    private int readRunLength(final int color) throws ImageReadException {
+        final int[] table = color == T4AndT6Compression.WHITE ? WHITE_RUN_LENGTHS
+                : BLACK_RUN_LENGTHS;
+        int total = 0;
+        int runLength;
+        do {
+            final int code = table[peek(RUN_LENGTH_BITS)];
+            if (code == 0) {
+                throw new ImageReadException("Invalid run length code");
+            }
+            skip(code >>> 16);
+            runLength = code & 0xffff;
+            total += runLength;
+        } while (runLength > 63);
+        return total;
+    }
+
+    private void readEOL(final boolean hasFill) throws ImageReadException {
+        // 11 zeros and a one, or up to 7 more zeros if the EOL has fill bits
+        int zeros = 0;
+        while (readBit() == 0) {
+            zeros++;
+            if (zeros > 18) {
+                break;
+            }
+        }
+        if (zeros != 11 && !(hasFill && zeros > 11 && zeros <= 18)) {
+            throw new ImageReadException("Expected EOL not found");
+        }
+    }
+
+    private int readBit() throws ImageReadException {
+        final int bit = peek(1);
+        skip(1);
+        return bit;
+    }
+
+    /**
+     * Returns the next bits without consuming them, padded with zeros past
+     * the end of the data.
+     */
+    private int peek(final int bits) {
+        final int index = position >>> 3;
+        final int window = (byteAt(index) << 16) | (byteAt(index + 1) << 8)
+                | byteAt(index + 2);
+        return (window >>> (24 - bits - (position & 7))) & ((1 << bits) - 1);
+    }
+
+    private int byteAt(final int index) {
+        return index < compressed.length ? 0xff & compressed[index] : 0;
+    }
+
+    private void skip(final int bits) throws ImageReadException {
+        position += bits;
+        if (position > limit) {
+            throw new ImageReadException("Premature end of compressed data");
+        }
+    }
+}
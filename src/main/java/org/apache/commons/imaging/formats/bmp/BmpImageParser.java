@@ -38,15 +38,17 @@ import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ImageMetadata;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.ParserPhase;
+import org.apache.commons.imaging.common.PhaseRecorder;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.palette.PaletteFactory;
 import org.apache.commons.imaging.palette.SimplePalette;
 import org.apache.commons.imaging.util.IoUtils;
 
 import static org.apache.commons.imaging.ImagingConstants.*;
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
 public class BmpImageParser extends ImageParser {
     private static final String DEFAULT_EXTENSION = ".bmp";
@@ -60,7 +62,7 @@ public class BmpImageParser extends ImageParser {
     private static final int BITMAP_INFO_HEADER_SIZE = 40;
 
     public BmpImageParser() {
-        super.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        super(ByteOrder.LITTLE_ENDIAN);
     }
 
     @Override
@@ -84,22 +86,22 @@ public class BmpImageParser extends ImageParser {
         };
     }
 
-    private BmpHeaderInfo readBmpHeaderInfo(final InputStream is,
+    private BmpHeaderInfo readBmpHeaderInfo(final BinaryReader reader,
             final FormatCompliance formatCompliance, final boolean verbose)
             throws ImageReadException, IOException {
-        final byte identifier1 = readByte("Identifier1", is, "Not a Valid BMP File");
-        final byte identifier2 = readByte("Identifier2", is, "Not a Valid BMP File");
+        final byte identifier1 = reader.getByte("Not a Valid BMP File");
+        final byte identifier2 = reader.getByte("Not a Valid BMP File");
 
         if (formatCompliance != null) {
             formatCompliance.compareBytes("Signature", BMP_HEADER_SIGNATURE,
                     new byte[]{identifier1, identifier2,});
         }
 
-        final int fileSize = read4Bytes("File Size", is, "Not a Valid BMP File", getByteOrder());
-        final int reserved = read4Bytes("Reserved", is, "Not a Valid BMP File", getByteOrder());
-        final int bitmapDataOffset = read4Bytes("Bitmap Data Offset", is, "Not a Valid BMP File", getByteOrder());
+        final int fileSize = reader.getS32("Not a Valid BMP File");
+        final int reserved = reader.getS32("Not a Valid BMP File");
+        final int bitmapDataOffset = reader.getS32("Not a Valid BMP File");
 
-        final int bitmapHeaderSize = read4Bytes("Bitmap Header Size", is, "Not a Valid BMP File", getByteOrder());
+        final int bitmapHeaderSize = reader.getS32("Not a Valid BMP File");
         int width = 0;
         int height = 0;
         int planes = 0;
@@ -129,51 +131,51 @@ public class BmpImageParser extends ImageParser {
 
         if (bitmapHeaderSize >= 40) {
             // BITMAPINFOHEADER
-            width = read4Bytes("Width", is, "Not a Valid BMP File", getByteOrder());
-            height = read4Bytes("Height", is, "Not a Valid BMP File", getByteOrder());
-            planes = read2Bytes("Planes", is, "Not a Valid BMP File", getByteOrder());
-            bitsPerPixel = read2Bytes("Bits Per Pixel", is, "Not a Valid BMP File", getByteOrder());
-            compression = read4Bytes("Compression", is, "Not a Valid BMP File", getByteOrder());
-            bitmapDataSize = read4Bytes("Bitmap Data Size", is, "Not a Valid BMP File", getByteOrder());
-            hResolution = read4Bytes("HResolution", is, "Not a Valid BMP File", getByteOrder());
-            vResolution = read4Bytes("VResolution", is, "Not a Valid BMP File", getByteOrder());
-            colorsUsed = read4Bytes("ColorsUsed", is, "Not a Valid BMP File", getByteOrder());
-            colorsImportant = read4Bytes("ColorsImportant", is, "Not a Valid BMP File", getByteOrder());
+            width = reader.getS32("Not a Valid BMP File");
+            height = reader.getS32("Not a Valid BMP File");
+            planes = reader.getU16("Not a Valid BMP File");
+            bitsPerPixel = reader.getU16("Not a Valid BMP File");
+            compression = reader.getS32("Not a Valid BMP File");
+            bitmapDataSize = reader.getS32("Not a Valid BMP File");
+            hResolution = reader.getS32("Not a Valid BMP File");
+            vResolution = reader.getS32("Not a Valid BMP File");
+            colorsUsed = reader.getS32("Not a Valid BMP File");
+            colorsImportant = reader.getS32("Not a Valid BMP File");
             if (bitmapHeaderSize >= 52 || compression == BI_BITFIELDS) {
                 // 52 = BITMAPV2INFOHEADER, now undocumented
                 // see http://en.wikipedia.org/wiki/BMP_file_format
-                redMask = read4Bytes("RedMask", is, "Not a Valid BMP File", getByteOrder());
-                greenMask = read4Bytes("GreenMask", is, "Not a Valid BMP File", getByteOrder());
-                blueMask = read4Bytes("BlueMask", is, "Not a Valid BMP File", getByteOrder());
+                redMask = reader.getS32("Not a Valid BMP File");
+                greenMask = reader.getS32("Not a Valid BMP File");
+                blueMask = reader.getS32("Not a Valid BMP File");
             }
             if (bitmapHeaderSize >= 56) {
                 // 56 = the now undocumented BITMAPV3HEADER sometimes used by
                 // Photoshop
                 // see http://forums.adobe.com/thread/751592?tstart=1
-                alphaMask = read4Bytes("AlphaMask", is, "Not a Valid BMP File", getByteOrder());
+                alphaMask = reader.getS32("Not a Valid BMP File");
             }
             if (bitmapHeaderSize >= 108) {
                 // BITMAPV4HEADER
-                colorSpaceType = read4Bytes("ColorSpaceType", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.red.x = read4Bytes("ColorSpaceRedX", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.red.y = read4Bytes("ColorSpaceRedY", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.red.z = read4Bytes("ColorSpaceRedZ", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.green.x = read4Bytes("ColorSpaceGreenX", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.green.y = read4Bytes("ColorSpaceGreenY", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.green.z = read4Bytes("ColorSpaceGreenZ", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.blue.x = read4Bytes("ColorSpaceBlueX", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.blue.y = read4Bytes("ColorSpaceBlueY", is, "Not a Valid BMP File", getByteOrder());
-                colorSpace.blue.z = read4Bytes("ColorSpaceBlueZ", is, "Not a Valid BMP File", getByteOrder());
-                gammaRed = read4Bytes("GammaRed", is, "Not a Valid BMP File", getByteOrder());
-                gammaGreen = read4Bytes("GammaGreen", is, "Not a Valid BMP File", getByteOrder());
-                gammaBlue = read4Bytes("GammaBlue", is, "Not a Valid BMP File", getByteOrder());
+                colorSpaceType = reader.getS32("Not a Valid BMP File");
+                colorSpace.red.x = reader.getS32("Not a Valid BMP File");
+                colorSpace.red.y = reader.getS32("Not a Valid BMP File");
+                colorSpace.red.z = reader.getS32("Not a Valid BMP File");
+                colorSpace.green.x = reader.getS32("Not a Valid BMP File");
+                colorSpace.green.y = reader.getS32("Not a Valid BMP File");
+                colorSpace.green.z = reader.getS32("Not a Valid BMP File");
+                colorSpace.blue.x = reader.getS32("Not a Valid BMP File");
+                colorSpace.blue.y = reader.getS32("Not a Valid BMP File");
+                colorSpace.blue.z = reader.getS32("Not a Valid BMP File");
+                gammaRed = reader.getS32("Not a Valid BMP File");
+                gammaGreen = reader.getS32("Not a Valid BMP File");
+                gammaBlue = reader.getS32("Not a Valid BMP File");
             }
             if (bitmapHeaderSize >= 124) {
                 // BITMAPV5HEADER
-                intent = read4Bytes("Intent", is, "Not a Valid BMP File", getByteOrder());
-                profileData = read4Bytes("ProfileData", is, "Not a Valid BMP File", getByteOrder());
-                profileSize = read4Bytes("ProfileSize", is, "Not a Valid BMP File", getByteOrder());
-                reservedV5 = read4Bytes("Reserved", is, "Not a Valid BMP File", getByteOrder());
+                intent = reader.getS32("Not a Valid BMP File");
+                profileData = reader.getS32("Not a Valid BMP File");
+                profileSize = reader.getS32("Not a Valid BMP File");
+                reservedV5 = reader.getS32("Not a Valid BMP File");
             }
         } else {
             throw new ImageReadException("Invalid/unsupported BMP file");
@@ -236,16 +238,16 @@ public class BmpImageParser extends ImageParser {
                 profileSize, reservedV5);
     }
 
-    private byte[] getRLEBytes(final InputStream is, final int rleSamplesPerByte) throws IOException {
+    private byte[] getRLEBytes(final BinaryReader reader, final int rleSamplesPerByte) throws IOException {
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
         // this.setDebug(true);
 
         boolean done = false;
         while (!done) {
-            final int a = 0xff & readByte("RLE a", is, "BMP: Bad RLE");
+            final int a = reader.getU8("BMP: Bad RLE");
             baos.write(a);
-            final int b = 0xff & readByte("RLE b", is, "BMP: Bad RLE");
+            final int b = reader.getU8("BMP: Bad RLE");
             baos.write(b);
 
             if (a == 0) {
@@ -260,9 +262,9 @@ public class BmpImageParser extends ImageParser {
                 case 2: {
                     // System.out.println("xXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX"
                     // );
-                    final int c = 0xff & readByte("RLE c", is, "BMP: Bad RLE");
+                    final int c = reader.getU8("BMP: Bad RLE");
                     baos.write(c);
-                    final int d = 0xff & readByte("RLE d", is, "BMP: Bad RLE");
+                    final int d = reader.getU8("BMP: Bad RLE");
                     baos.write(d);
 
                 }
@@ -282,8 +284,7 @@ public class BmpImageParser extends ImageParser {
                     // RLESamplesPerByte);
                     // System.out.println("xXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX"
                     // );
-                    final byte[] bytes = readBytes("bytes", is, size,
-                            "RLE: Absolute Mode");
+                    final byte[] bytes = reader.getBytes(size, "RLE: Absolute Mode");
                     baos.write(bytes);
                 }
                     break;
@@ -294,28 +295,51 @@ public class BmpImageParser extends ImageParser {
         return baos.toByteArray();
     }
 
-    private ImageContents readImageContents(final InputStream is,
-            final FormatCompliance formatCompliance, final boolean verbose)
-            throws ImageReadException, IOException {
-        final BmpHeaderInfo bhi = readBmpHeaderInfo(is, formatCompliance, verbose);
+    private static int getColorTableSize(final BmpHeaderInfo bhi) {
+        if (bhi.colorsUsed == 0) {
+            return 1 << bhi.bitsPerPixel;
+        }
+        return bhi.colorsUsed;
+    }
 
-        int colorTableSize = bhi.colorsUsed;
-        if (colorTableSize == 0) {
-            colorTableSize = (1 << bhi.bitsPerPixel);
+    /**
+     * Returns the length in bytes of the color table that follows the
+     * headers.
+     */
+    private static int getPaletteLength(final BmpHeaderInfo bhi)
+            throws ImageReadException {
+        // A palette is always valid, even for images that don't need it
+        // (like 32 bpp), it specifies the "optimal color palette" for
+        // when the image is displayed on a <= 256 color graphics card.
+        switch (bhi.compression) {
+        case BI_RGB:
+        case BI_BITFIELDS:
+            if (bhi.bitsPerPixel <= 8) {
+                return 4 * getColorTableSize(bhi);
+            }
+            return 0;
+        case BI_RLE4:
+        case BI_RLE8:
+            return 4 * getColorTableSize(bhi);
+        default:
+            throw new ImageReadException("BMP: Unknown Compression: "
+                    + bhi.compression);
         }
+    }
+
+    private ImageContents readImageContents(final BinaryReader reader,
+            final FormatCompliance formatCompliance, final boolean verbose)
+            throws ImageReadException, IOException {
+        final BmpHeaderInfo bhi = readBmpHeaderInfo(reader, formatCompliance, verbose);
 
         if (verbose) {
             debugNumber("ColorsUsed", bhi.colorsUsed, 4);
             debugNumber("BitsPerPixel", bhi.bitsPerPixel, 4);
-            debugNumber("ColorTableSize", colorTableSize, 4);
+            debugNumber("ColorTableSize", getColorTableSize(bhi), 4);
             debugNumber("bhi.colorsUsed", bhi.colorsUsed, 4);
             debugNumber("Compression", bhi.compression, 4);
         }
 
-        // A palette is always valid, even for images that don't need it
-        // (like 32 bpp), it specifies the "optimal color palette" for
-        // when the image is displayed on a <= 256 color graphics card.
-        int paletteLength;
         int rleSamplesPerByte = 0;
         boolean rle = false;
 
@@ -324,11 +348,6 @@ public class BmpImageParser extends ImageParser {
             if (verbose) {
                 System.out.println("Compression: BI_RGB");
             }
-            if (bhi.bitsPerPixel <= 8) {
-                paletteLength = 4 * colorTableSize;
-            } else {
-                paletteLength = 0;
-            }
             // BytesPerPaletteEntry = 0;
             // System.out.println("Compression: BI_RGBx2: " + bhi.BitsPerPixel);
             // System.out.println("Compression: BI_RGBx2: " + (bhi.BitsPerPixel
@@ -339,7 +358,6 @@ public class BmpImageParser extends ImageParser {
             if (verbose) {
                 System.out.println("Compression: BI_RLE4");
             }
-            paletteLength = 4 * colorTableSize;
             rleSamplesPerByte = 2;
             // ExtraBitsPerPixel = 4;
             rle = true;
@@ -351,7 +369,6 @@ public class BmpImageParser extends ImageParser {
             if (verbose) {
                 System.out.println("Compression: BI_RLE8");
             }
-            paletteLength = 4 * colorTableSize;
             rleSamplesPerByte = 1;
             // ExtraBitsPerPixel = 8;
             rle = true;
@@ -363,11 +380,6 @@ public class BmpImageParser extends ImageParser {
             if (verbose) {
                 System.out.println("Compression: BI_BITFIELDS");
             }
-            if (bhi.bitsPerPixel <= 8) {
-                paletteLength = 4 * colorTableSize;
-            } else {
-                paletteLength = 0;
-            }
             // BytesPerPixel = 2;
             // BytesPerPaletteEntry = 4;
             break;
@@ -377,10 +389,11 @@ public class BmpImageParser extends ImageParser {
                     + bhi.compression);
         }
 
+        final int paletteLength = getPaletteLength(bhi);
+
         byte[] colorTable = null;
         if (paletteLength > 0) {
-            colorTable = readBytes("ColorTable", is, paletteLength,
-                    "Not a Valid BMP File");
+            colorTable = reader.getBytes(paletteLength, "Not a Valid BMP File");
         }
 
         if (verbose) {
@@ -427,7 +440,7 @@ public class BmpImageParser extends ImageParser {
                     + expectedDataOffset + ", paletteLength: " + paletteLength
                     + ", headerSize: " + headerSize + ")");
         } else if (extraBytes > 0) {
-            readBytes("BitmapDataOffset", is, extraBytes, "Not a Valid BMP File");
+            reader.skip(extraBytes, "Not a Valid BMP File");
         }
 
         final int imageDataSize = bhi.height * imageLineLength;
@@ -438,10 +451,9 @@ public class BmpImageParser extends ImageParser {
 
         byte[] imageData;
         if (rle) {
-            imageData = getRLEBytes(is, rleSamplesPerByte);
+            imageData = getRLEBytes(reader, rleSamplesPerByte);
         } else {
-            imageData = readBytes("ImageData", is, imageDataSize,
-                    "Not a Valid BMP File");
+            imageData = reader.getBytes(imageDataSize, "Not a Valid BMP File");
         }
 
         if (verbose) {
@@ -456,7 +468,11 @@ public class BmpImageParser extends ImageParser {
             pixelParser = new PixelParserRle(bhi, colorTable, imageData);
             break;
         case BI_RGB:
-            pixelParser = new PixelParserRgb(bhi, colorTable, imageData);
+            if (bhi.bitsPerPixel <= 8) {
+                pixelParser = new PixelParserIndexed(bhi, colorTable, imageData);
+            } else {
+                pixelParser = new PixelParserRgb(bhi, colorTable, imageData);
+            }
             break;
         case BI_BITFIELDS:
             pixelParser = new PixelParserBitFields(bhi, colorTable, imageData);
@@ -477,7 +493,7 @@ public class BmpImageParser extends ImageParser {
             is = byteSource.getInputStream();
 
             // readSignature(is);
-            final BmpHeaderInfo ret = readBmpHeaderInfo(is, null, verbose);
+            final BmpHeaderInfo ret = readBmpHeaderInfo(getBinaryReader(is), null, verbose);
             canThrow = true;
             return ret;
         } finally {
@@ -502,6 +518,9 @@ public class BmpImageParser extends ImageParser {
         if (params.containsKey(PARAM_KEY_VERBOSE)) {
             params.remove(PARAM_KEY_VERBOSE);
         }
+        if (params.containsKey(PARSER_LISTENER)) {
+            params.remove(PARSER_LISTENER);
+        }
 
         if (!params.isEmpty()) {
             final Object firstKey = params.keySet().iterator().next();
@@ -559,29 +578,18 @@ public class BmpImageParser extends ImageParser {
         if (params.containsKey(PARAM_KEY_VERBOSE)) {
             params.remove(PARAM_KEY_VERBOSE);
         }
+        if (params.containsKey(PARSER_LISTENER)) {
+            params.remove(PARSER_LISTENER);
+        }
 
         if (!params.isEmpty()) {
             final Object firstKey = params.keySet().iterator().next();
             throw new ImageReadException("Unknown parameter: " + firstKey);
         }
 
-        InputStream is = null;
-        ImageContents ic = null;
-        boolean canThrow = false;
-        try {
-            is = byteSource.getInputStream();
-            ic = readImageContents(is, FormatCompliance.getDefault(), verbose);
-            canThrow = true;
-        } finally {
-            IoUtils.closeQuietly(canThrow, is);
-        }
-
-        if (ic == null) {
-            throw new ImageReadException("Couldn't read BMP Data");
-        }
-
-        final BmpHeaderInfo bhi = ic.bhi;
-        final byte[] colorTable = ic.colorTable;
+        // only the headers are read; the color table's presence follows
+        // from them.
+        final BmpHeaderInfo bhi = readBmpHeaderInfo(byteSource, verbose);
 
         if (bhi == null) {
             throw new ImageReadException("BMP: couldn't read header");
@@ -616,7 +624,7 @@ public class BmpImageParser extends ImageParser {
 
         final boolean transparent = false;
 
-        final boolean usesPalette = colorTable != null;
+        final boolean usesPalette = getPaletteLength(bhi) > 0;
         final ImageInfo.ColorType colorType = ImageInfo.ColorType.RGB;
         final ImageInfo.CompressionAlgorithm compressionAlgorithm = ImageInfo.CompressionAlgorithm.RLE;
 
@@ -653,7 +661,7 @@ public class BmpImageParser extends ImageParser {
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
-            readImageContents(is, result, verbose);
+            readImageContents(getBinaryReader(is), result, verbose);
             canThrow = true;
         } finally {
             IoUtils.closeQuietly(canThrow, is);
@@ -690,37 +698,54 @@ public class BmpImageParser extends ImageParser {
         if (params.containsKey(BUFFERED_IMAGE_FACTORY)) {
             params.remove(BUFFERED_IMAGE_FACTORY);
         }
+        final RasterBufferProvider rasterBufferProvider = getRasterBufferProvider(params);
+        if (params.containsKey(RASTER_BUFFER_PROVIDER)) {
+            params.remove(RASTER_BUFFER_PROVIDER);
+        }
+        final PhaseRecorder recorder = getPhaseRecorder(ImageFormats.BMP, params);
+        if (params.containsKey(PARSER_LISTENER)) {
+            params.remove(PARSER_LISTENER);
+        }
 
         if (!params.isEmpty()) {
             final Object firstKey = params.keySet().iterator().next();
             throw new ImageReadException("Unknown parameter: " + firstKey);
         }
 
-        final ImageContents ic = readImageContents(inputStream,
-                FormatCompliance.getDefault(), verbose);
-        if (ic == null) {
-            throw new ImageReadException("Couldn't read BMP Data");
-        }
-
-        final BmpHeaderInfo bhi = ic.bhi;
-        // byte colorTable[] = ic.colorTable;
-        // byte imageData[] = ic.imageData;
+        ParserPhase phase = ParserPhase.HEADER;
+        long start = recorder.start();
+        try {
+            final ImageContents ic = readImageContents(getBinaryReader(inputStream),
+                    FormatCompliance.getDefault(), verbose);
+            if (ic == null) {
+                throw new ImageReadException("Couldn't read BMP Data");
+            }
 
-        final int width = bhi.width;
-        final int height = bhi.height;
+            final BmpHeaderInfo bhi = ic.bhi;
+            recorder.end(phase, start, bhi.bitmapDataOffset, 0);
+            // byte colorTable[] = ic.colorTable;
+            // byte imageData[] = ic.imageData;
 
-        if (verbose) {
-            System.out.println("width: " + width);
-            System.out.println("height: " + height);
-            System.out.println("width*height: " + width * height);
-            System.out.println("width*height*4: " + width * height * 4);
-        }
+            final int width = bhi.width;
+            final int height = bhi.height;
 
-        final PixelParser pixelParser = ic.pixelParser;
-        final ImageBuilder imageBuilder = new ImageBuilder(width, height, true);
-        pixelParser.processImage(imageBuilder);
+            if (verbose) {
+                System.out.println("width: " + width);
+                System.out.println("height: " + height);
+                System.out.println("width*height: " + width * height);
+                System.out.println("width*height*4: " + width * height * 4);
+            }
 
-        return imageBuilder.getBufferedImage();
+            final PixelParser pixelParser = ic.pixelParser;
+            phase = ParserPhase.PIXEL_INTERPRETATION;
+            start = recorder.start();
+            final BufferedImage result = pixelParser.processImage(rasterBufferProvider);
+            recorder.end(phase, start, -1, result);
+            phase = null;
+            return result;
+        } finally {
+            recorder.failed(phase, start);
+        }
 
     }
 
@@ -21,6 +21,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.palette.SimplePalette;
 
 class BmpWriterPalette implements BmpWriter {
@@ -73,9 +74,12 @@ class BmpWriterPalette implements BmpWriter {
         int bitsInCache = 0;
 
         int bytecount = 0;
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = height - 1; y >= 0; y--) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int rgb = 0xffffff & argb;
 
                 final int index = palette.getPaletteIndex(rgb);
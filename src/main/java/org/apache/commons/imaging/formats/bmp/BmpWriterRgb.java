@@ -21,6 +21,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.PixelReader;
 
 class BmpWriterRgb implements BmpWriter {
     // private final boolean alpha;
@@ -52,10 +53,13 @@ class BmpWriterRgb implements BmpWriter {
         // BYTE_ORDER_Network);
 
         int bytecount = 0;
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = height - 1; y >= 0; y--) {
             // for (int y = 0; y < height; y++)
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int rgb = 0xffffff & argb;
 
                 final int red = 0xff & (rgb >> 16);
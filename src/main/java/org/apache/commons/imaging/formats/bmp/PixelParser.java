@@ -16,42 +16,92 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 
 import org.apache.commons.imaging.ImageReadException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 
+/**
+ * Decodes the pixels of a BMP file into the raster of an image. The rows
+ * are stored bottom-up, each padded to a multiple of 4 bytes.
+ */
 abstract class PixelParser {
 
     final BmpHeaderInfo bhi;
     final byte[] colorTable;
     final byte[] imageData;
 
-    final InputStream is;
-
     public PixelParser(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData) {
         this.bhi = bhi;
         this.colorTable = colorTable;
         this.imageData = imageData;
+    }
 
-        is = new ByteArrayInputStream(imageData);
+    public abstract BufferedImage processImage(RasterBufferProvider rasterBufferProvider)
+            throws ImageReadException;
+
+    /**
+     * Returns the length in bytes of an uncompressed row, including the
+     * padding.
+     */
+    int getRowLength() {
+        return ((bhi.width * bhi.bitsPerPixel + 31) / 32) * 4;
     }
 
-    public abstract void processImage(ImageBuilder imageBuilder) throws ImageReadException, IOException;
+    /**
+     * Creates a color model from the color table, with an entry for every
+     * possible index. Indices past the color table are black.
+     */
+    IndexColorModel createColorModel() {
+        final int size = 1 << bhi.bitsPerPixel;
+        final int colors = Math.min(size, colorTable == null ? 0 : colorTable.length / 4);
+        final byte[] reds = new byte[size];
+        final byte[] greens = new byte[size];
+        final byte[] blues = new byte[size];
+        for (int i = 0; i < colors; i++) {
+            blues[i] = colorTable[4 * i + 0];
+            greens[i] = colorTable[4 * i + 1];
+            reds[i] = colorTable[4 * i + 2];
+        }
+        return new IndexColorModel(8, size, reds, greens, blues);
+    }
 
-    int getColorTableRGB(int index) {
-        index *= 4;
-        final int blue = 0xff & colorTable[index + 0];
-        final int green = 0xff & colorTable[index + 1];
-        final int red = 0xff & colorTable[index + 2];
-        final int alpha = 0xff;
+    /**
+     * Creates a TYPE_BYTE_INDEXED image backed by the given indices.
+     */
+    BufferedImage createIndexedImage(final byte[] indices) {
+        final DataBufferByte buffer = new DataBufferByte(indices, indices.length);
+        final WritableRaster raster = Raster.createInterleavedRaster(buffer,
+                bhi.width, bhi.height, bhi.width, 1, new int[] { 0 }, null);
+        return new BufferedImage(createColorModel(), raster, false, null);
+    }
 
-        return (alpha << 24)
-                | (red << 16)
-                | (green << 8)
-                | (blue << 0);
+    /**
+     * Creates a TYPE_INT_RGB, or with alpha TYPE_INT_ARGB, image backed by
+     * the given pixels.
+     */
+    BufferedImage createRgbImage(final int[] rgbs, final boolean hasAlpha) {
+        final DataBufferInt buffer = new DataBufferInt(rgbs, rgbs.length);
+        DirectColorModel colorModel;
+        int[] masks;
+        if (hasAlpha) {
+            colorModel = new DirectColorModel(32, 0x00ff0000, 0x0000ff00,
+                    0x000000ff, 0xff000000);
+            masks = new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000 };
+        } else {
+            colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00,
+                    0x000000ff);
+            masks = new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff };
+        }
+        final WritableRaster raster = Raster.createPackedRaster(buffer,
+                bhi.width, bhi.height, bhi.width, masks, null);
+        return new BufferedImage(colorModel, raster, false, null);
     }
 
 }
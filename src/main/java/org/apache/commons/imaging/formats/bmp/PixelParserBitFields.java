@@ -16,13 +16,8 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
-import java.io.IOException;
-import java.nio.ByteOrder;
-
 import org.apache.commons.imaging.ImageReadException;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
-
 class PixelParserBitFields extends PixelParserSimple {
 
     private final int redShift;
@@ -35,8 +30,6 @@ class PixelParserBitFields extends PixelParserSimple {
     private final int blueMask;
     private final int alphaMask;
 
-    private int bytecount;
-    
     public PixelParserBitFields(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData) {
         super(bhi, colorTable, imageData);
 
@@ -70,43 +63,36 @@ class PixelParserBitFields extends PixelParserSimple {
     }
 
     @Override
-    public int getNextRGB() throws ImageReadException, IOException {
-        int data;
-
-        if (bhi.bitsPerPixel == 8) {
-            data = 0xff & imageData[bytecount + 0];
-            bytecount += 1;
-        } else if (bhi.bitsPerPixel == 24) {
-            data = read3Bytes("Pixel", is, "BMP Image Data", ByteOrder.LITTLE_ENDIAN);
-            bytecount += 3;
-        } else if (bhi.bitsPerPixel == 32) {
-            data = read4Bytes("Pixel", is, "BMP Image Data", ByteOrder.LITTLE_ENDIAN);
-            bytecount += 4;
-        } else if (bhi.bitsPerPixel == 16) {
-            data = read2Bytes("Pixel", is, "BMP Image Data", ByteOrder.LITTLE_ENDIAN);
-            bytecount += 2;
-        } else {
+    public boolean hasAlpha() {
+        return alphaMask != 0;
+    }
+
+    @Override
+    public void getRGBs(int offset, final int[] rgbs, final int index) throws ImageReadException {
+        final int bytesPerPixel = bhi.bitsPerPixel / 8;
+        if (bhi.bitsPerPixel != 8 && bhi.bitsPerPixel != 16
+                && bhi.bitsPerPixel != 24 && bhi.bitsPerPixel != 32) {
             throw new ImageReadException("Unknown BitsPerPixel: " + bhi.bitsPerPixel);
         }
 
-        int red = (redMask & data);
-        int green = (greenMask & data);
-        int blue = (blueMask & data);
-        int alpha = (alphaMask != 0 ? alphaMask & data : 0xff);
+        final int end = index + bhi.width;
+        for (int i = index; i < end; i++, offset += bytesPerPixel) {
+            int data = 0;
+            for (int b = bytesPerPixel - 1; b >= 0; b--) {
+                data = (data << 8) | (0xff & imageData[offset + b]);
+            }
 
-        red = (redShift >= 0) ? red >> redShift : red << -redShift;
-        green = (greenShift >= 0) ? green >> greenShift : green << -greenShift;
-        blue = (blueShift >= 0) ? blue >> blueShift : blue << -blueShift;
-        alpha = (alphaShift >= 0) ? alpha >> alphaShift : alpha << -alphaShift;
+            int red = (redMask & data);
+            int green = (greenMask & data);
+            int blue = (blueMask & data);
+            int alpha = (alphaMask != 0 ? alphaMask & data : 0xff);
 
-        return (alpha << 24) | (red << 16) | (green << 8) | (blue << 0);
-    }
+            red = (redShift >= 0) ? red >>> redShift : red << -redShift;
+            green = (greenShift >= 0) ? green >>> greenShift : green << -greenShift;
+            blue = (blueShift >= 0) ? blue >>> blueShift : blue << -blueShift;
+            alpha = (alphaShift >= 0) ? alpha >>> alphaShift : alpha << -alphaShift;
 
-    @Override
-    public void newline() throws ImageReadException, IOException {
-        while ((bytecount % 4) != 0) {
-            readByte("Pixel", is, "BMP Image Data");
-            bytecount++;
+            rgbs[i] = (alpha << 24) | (red << 16) | (green << 8) | (blue << 0);
         }
     }
 }
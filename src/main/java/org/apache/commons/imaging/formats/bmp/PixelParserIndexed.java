@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.bmp;
+
+import java.awt.image.BufferedImage;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.RasterBufferProvider;
+
+/**
+ * Decodes uncompressed 1, 2, 4 and 8 bit pixels, which are indices into
+ * the color table, straight into an indexed image.
+ */
+class PixelParserIndexed extends PixelParser {
+
+    public PixelParserIndexed(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData) {
+        super(bhi, colorTable, imageData);
+    }
+
+    @Override
+    public BufferedImage processImage(final RasterBufferProvider rasterBufferProvider)
+            throws ImageReadException {
+        final int width = bhi.width;
+        final int height = bhi.height;
+        final int bitsPerPixel = bhi.bitsPerPixel;
+        if (bitsPerPixel != 1 && bitsPerPixel != 2 && bitsPerPixel != 4
+                && bitsPerPixel != 8) {
+            throw new ImageReadException("Unknown BitsPerPixel: " + bitsPerPixel);
+        }
+        final int rowLength = getRowLength();
+        if (imageData.length < height * rowLength) {
+            throw new ImageReadException("BMP: image data is too short");
+        }
+        final byte[] indices = rasterBufferProvider.getByteBuffer(width * height);
+        if (bitsPerPixel == 8) {
+            for (int row = 0; row < height; row++) {
+                System.arraycopy(imageData, row * rowLength, indices,
+                        (height - 1 - row) * width, width);
+            }
+        } else {
+            final int pixelsPerByte = 8 / bitsPerPixel;
+            final int mask = (1 << bitsPerPixel) - 1;
+            for (int row = 0; row < height; row++) {
+                final int offset = row * rowLength;
+                final int index = (height - 1 - row) * width;
+                for (int x = 0; x < width; x++) {
+                    final int data = 0xff & imageData[offset + x / pixelsPerByte];
+                    final int shift = 8 - bitsPerPixel * (1 + x % pixelsPerByte);
+                    indices[index + x] = (byte) (mask & (data >> shift));
+                }
+            }
+        }
+        return createIndexedImage(indices);
+    }
+}
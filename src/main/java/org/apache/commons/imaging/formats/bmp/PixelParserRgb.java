@@ -16,100 +16,40 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
-import java.io.IOException;
-import java.nio.ByteOrder;
-
 import org.apache.commons.imaging.ImageReadException;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
-
 class PixelParserRgb extends PixelParserSimple {
-    private int bytecount;
-    private int cachedBitCount;
-    private int cachedByte;
 
     public PixelParserRgb(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData) {
         super(bhi, colorTable, imageData);
-
     }
 
     @Override
-    public int getNextRGB() throws ImageReadException, IOException {
+    public void getRGBs(int offset, final int[] rgbs, final int index) throws ImageReadException {
+        final int end = index + bhi.width;
+        if (bhi.bitsPerPixel == 16) {
+            for (int i = index; i < end; i++, offset += 2) {
+                final int data = (0xff & imageData[offset]) | ((0xff & imageData[offset + 1]) << 8);
 
-        if ((bhi.bitsPerPixel == 1) 
-                || (bhi.bitsPerPixel == 4)) { // always grayscale?
-            if (cachedBitCount < bhi.bitsPerPixel) {
-                if (cachedBitCount != 0) {
-                    throw new ImageReadException("Unexpected leftover bits: "
-                            + cachedBitCount + "/" + bhi.bitsPerPixel);
-                }
+                final int blue = (0x1f & (data >> 0)) << 3;
+                final int green = (0x1f & (data >> 5)) << 3;
+                final int red = (0x1f & (data >> 10)) << 3;
 
-                cachedBitCount += 8;
-                cachedByte = (0xff & imageData[bytecount]);
-                bytecount++;
+                rgbs[i] = 0xff000000 | (red << 16) | (green << 8) | (blue << 0);
             }
-            final int cacheMask = (1 << bhi.bitsPerPixel) - 1;
-            final int sample = cacheMask & (cachedByte >> (8 - bhi.bitsPerPixel));
-            cachedByte = 0xff & (cachedByte << bhi.bitsPerPixel);
-            cachedBitCount -= bhi.bitsPerPixel;
-
-            return getColorTableRGB(sample);
-        } else if (bhi.bitsPerPixel == 8) { // always grayscale?
-            final int sample = 0xff & imageData[bytecount + 0];
-
-            final int rgb = getColorTableRGB(sample);
-
-            bytecount += 1;
-
-            return rgb;
-        } else if (bhi.bitsPerPixel == 16) {
-            final int data = read2Bytes("Pixel", is, "BMP Image Data", ByteOrder.LITTLE_ENDIAN);
-
-            final int blue = (0x1f & (data >> 0)) << 3;
-            final int green = (0x1f & (data >> 5)) << 3;
-            final int red = (0x1f & (data >> 10)) << 3;
-            final int alpha = 0xff;
-
-            final int rgb = (alpha << 24) | (red << 16) | (green << 8) | (blue << 0);
-
-            bytecount += 2;
-
-            return rgb;
-        } else if (bhi.bitsPerPixel == 24) {
-            final int blue = 0xff & imageData[bytecount + 0];
-            final int green = 0xff & imageData[bytecount + 1];
-            final int red = 0xff & imageData[bytecount + 2];
-            final int alpha = 0xff;
-
-            final int rgb = (alpha << 24) | (red << 16) | (green << 8) | (blue << 0);
-
-            bytecount += 3;
-
-            return rgb;
-        } else if (bhi.bitsPerPixel == 32) {
-            final int blue = 0xff & imageData[bytecount + 0];
-            final int green = 0xff & imageData[bytecount + 1];
-            final int red = 0xff & imageData[bytecount + 2];
-            final int alpha = 0xff;
-
-            final int rgb = (alpha << 24) | (red << 16) | (green << 8) | (blue << 0);
-
-            bytecount += 4;
-
-            return rgb;
-        }
-
-        throw new ImageReadException("Unknown BitsPerPixel: "
-                + bhi.bitsPerPixel);
-    }
-
-    @Override
-    public void newline() throws ImageReadException, IOException {
-        cachedBitCount = 0;
-
-        while (((bytecount) % 4) != 0) {
-            readByte("Pixel", is, "BMP Image Data");
-            bytecount++;
+        } else if (bhi.bitsPerPixel == 24 || bhi.bitsPerPixel == 32) {
+            // the fourth byte of a 32 bit pixel is unused
+            final int bytesPerPixel = bhi.bitsPerPixel / 8;
+            for (int i = index; i < end; i++, offset += bytesPerPixel) {
+                final int blue = 0xff & imageData[offset + 0];
+                final int green = 0xff & imageData[offset + 1];
+                final int red = 0xff & imageData[offset + 2];
+
+                rgbs[i] = 0xff000000 | (red << 16) | (green << 8) | (blue << 0);
+            }
+        } else {
+            throw new ImageReadException("Unknown BitsPerPixel: "
+                    + bhi.bitsPerPixel);
         }
     }
 }
@@ -16,12 +16,16 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
-import java.io.IOException;
+import java.awt.image.BufferedImage;
 
 import org.apache.commons.imaging.ImageReadException;
-import org.apache.commons.imaging.common.BinaryFunctions;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 
+/**
+ * Decodes RLE4 and RLE8 compressed pixels straight into an indexed image.
+ * Pixels skipped by a delta, or not reached before the end of the bitmap,
+ * get color index 0.
+ */
 class PixelParserRle extends PixelParser {
 
     public PixelParserRle(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData) {
@@ -40,125 +44,83 @@ class PixelParserRle extends PixelParser {
         }
     }
 
-    private int[] convertDataToSamples(final int data) throws ImageReadException {
-        int[] rgbs;
-        if (bhi.bitsPerPixel == 8) {
-            rgbs = new int[1];
-            rgbs[0] = getColorTableRGB(data);
-            // pixels_written = 1;
-        } else if (bhi.bitsPerPixel == 4) {
-            rgbs = new int[2];
-            final int sample1 = data >> 4;
-            final int sample2 = 0x0f & data;
-            rgbs[0] = getColorTableRGB(sample1);
-            rgbs[1] = getColorTableRGB(sample2);
-            // pixels_written = 2;
-        } else {
-            throw new ImageReadException("BMP RLE: bad BitsPerPixel: "
-                    + bhi.bitsPerPixel);
-        }
-
-        return rgbs;
-    }
-
-    private int processByteOfData(final int[] rgbs, final int repeat, int x, final int y,
-            final int width, final int height, final ImageBuilder imageBuilder) {
-        // int rbg
-        int pixelsWritten = 0;
-        for (int i = 0; i < repeat; i++) {
-
-            if ((x >= 0) && (x < width) && (y >= 0) && (y < height)) {
-                // int rgb = 0xff000000;
-                // rgb = getNextRGB();
-                final int rgb = rgbs[i % rgbs.length];
-                // bi.setRGB(x, y, rgb);
-                imageBuilder.setRGB(x, y, rgb);
-                // bi.setRGB(x, y, 0xff00ff00);
-            } else {
-                System.out.println("skipping bad pixel (" + x + "," + y + ")");
-            }
-
-            x++;
-            pixelsWritten++;
-        }
-
-        return pixelsWritten;
-    }
-
     @Override
-    public void processImage(final ImageBuilder imageBuilder)
-            throws ImageReadException, IOException {
+    public BufferedImage processImage(final RasterBufferProvider rasterBufferProvider)
+            throws ImageReadException {
         final int width = bhi.width;
         final int height = bhi.height;
+        final int samplesPerByte = getSamplesPerByte();
+        final byte[] indices = rasterBufferProvider.getByteBuffer(width * height);
+        final byte[] data = imageData;
+        int position = 0;
         int x = 0;
+        // the rows are stored bottom-up
         int y = height - 1;
 
-        boolean done = false;
-        while (!done) {
-            final int a = 0xff & BinaryFunctions.readByte("RLE (" + x + "," + y + ") a", is, "BMP: Bad RLE");
-            final int b = 0xff & BinaryFunctions.readByte("RLE (" + x + "," + y + ") b", is, "BMP: Bad RLE");
+        while (true) {
+            if (position + 2 > data.length) {
+                throw new ImageReadException("BMP: Bad RLE");
+            }
+            final int a = 0xff & data[position++];
+            final int b = 0xff & data[position++];
 
             if (a == 0) {
-                switch (b) {
-                case 0: {
+                if (b == 0) {
                     // EOL
                     y--;
                     x = 0;
-                    break;
-                }
-                case 1:
+                } else if (b == 1) {
                     // EOF
-                    done = true;
                     break;
-                case 2: {
-                    final int deltaX = 0xff & BinaryFunctions.readByte("RLE deltaX", is, "BMP: Bad RLE");
-                    final int deltaY = 0xff & BinaryFunctions.readByte("RLE deltaY", is, "BMP: Bad RLE");
-                    x += deltaX;
-                    y -= deltaY;
-                    break;
-                }
-                default: {
-                    final int samplesPerByte = getSamplesPerByte();
-                    int size = b / samplesPerByte;
-                    if ((b % samplesPerByte) > 0) {
-                        size++;
+                } else if (b == 2) {
+                    if (position + 2 > data.length) {
+                        throw new ImageReadException("BMP: Bad RLE");
                     }
+                    x += 0xff & data[position++];
+                    y -= 0xff & data[position++];
+                } else {
+                    // absolute mode, padded to an even number of bytes
+                    int size = (b + samplesPerByte - 1) / samplesPerByte;
                     if ((size % 2) != 0) {
                         size++;
                     }
-
-                    // System.out.println("b: " + b);
-                    // System.out.println("size: " + size);
-                    // System.out.println("SamplesPerByte: " + SamplesPerByte);
-
-                    final byte[] bytes = BinaryFunctions.readBytes("bytes", is, size, "RLE: Absolute Mode");
-
-                    int remaining = b;
-
-                    for (int i = 0; remaining > 0; i++) {
-                    // for (int i = 0; i < bytes.length; i++)
-                        final int[] samples = convertDataToSamples(0xff & bytes[i]);
-                        final int towrite = Math.min(remaining, samplesPerByte);
-                        // System.out.println("remaining: " + remaining);
-                        // System.out.println("SamplesPerByte: "
-                        // + SamplesPerByte);
-                        // System.out.println("towrite: " + towrite);
-                        final int written = processByteOfData(samples, towrite, x, y,
-                                width, height, imageBuilder);
-                        // System.out.println("written: " + written);
-                        // System.out.println("");
-                        x += written;
-                        remaining -= written;
+                    if (position + size > data.length) {
+                        throw new ImageReadException("RLE: Absolute Mode");
                     }
-                    break;
-                }
+                    final int rowStart = y * width;
+                    for (int i = 0; i < b; i++, x++) {
+                        if (x < width && y >= 0 && y < height) {
+                            if (samplesPerByte == 1) {
+                                indices[rowStart + x] = data[position + i];
+                            } else {
+                                final int bits = data[position + i / 2];
+                                indices[rowStart + x] = (byte) (0x0f & ((i % 2) == 0 ? bits >> 4 : bits));
+                            }
+                        }
+                    }
+                    position += size;
                 }
             } else {
-                final int[] rgbs = convertDataToSamples(b);
-
-                x += processByteOfData(rgbs, a, x, y, width, height,
-                        imageBuilder);
+                // encoded mode, a repeated byte of one or two samples
+                if (x < width && y >= 0 && y < height) {
+                    final int rowStart = y * width;
+                    final int count = Math.min(a, width - x);
+                    if (samplesPerByte == 1) {
+                        final byte sample = (byte) b;
+                        for (int i = 0; i < count; i++) {
+                            indices[rowStart + x + i] = sample;
+                        }
+                    } else {
+                        final byte[] samples = { (byte) (b >> 4), (byte) (b & 0x0f) };
+                        for (int i = 0; i < count; i++) {
+                            indices[rowStart + x + i] = samples[i % 2];
+                        }
+                    }
+                }
+                x += a;
             }
         }
+
+        return createIndexedImage(indices);
     }
 }
@@ -16,30 +16,43 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
-import java.io.IOException;
+import java.awt.image.BufferedImage;
 
 import org.apache.commons.imaging.ImageReadException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 
+/**
+ * Decodes uncompressed direct color pixels a row at a time.
+ */
 abstract class PixelParserSimple extends PixelParser {
     public PixelParserSimple(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData) {
         super(bhi, colorTable, imageData);
     }
 
-    public abstract int getNextRGB() throws ImageReadException, IOException;
+    public boolean hasAlpha() {
+        return false;
+    }
 
-    public abstract void newline() throws ImageReadException, IOException;
+    /**
+     * Decodes the row of pixels starting at the given offset of the image
+     * data into rgbs, starting at the given index.
+     */
+    public abstract void getRGBs(int offset, int[] rgbs, int index) throws ImageReadException;
 
     @Override
-    public void processImage(final ImageBuilder imageBuilder) throws ImageReadException, IOException {
-        for (int y = bhi.height - 1; y >= 0; y--) {
-            for (int x = 0; x < bhi.width; x++) {
-                final int rgb = getNextRGB();
-
-                imageBuilder.setRGB(x, y, rgb);
-                // db.setElem(y * bhi.width + x, rgb);
-            }
-            newline();
+    public BufferedImage processImage(final RasterBufferProvider rasterBufferProvider)
+            throws ImageReadException {
+        final int width = bhi.width;
+        final int height = bhi.height;
+        final int rowLength = getRowLength();
+        if (imageData.length < height * rowLength) {
+            throw new ImageReadException("BMP: image data is too short");
+        }
+        final int[] rgbs = rasterBufferProvider.getIntBuffer(width * height);
+        for (int row = 0; row < height; row++) {
+            // the last row of the image comes first
+            getRGBs(row * rowLength, rgbs, (height - 1 - row) * width);
         }
+        return createRgbImage(rgbs, hasAlpha());
     }
 }
@@ -37,7 +37,9 @@ import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.BinaryOutputStream;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.common.bytesource.ByteSourceInputStream;
 import org.apache.commons.imaging.formats.pcx.PcxConstants;
 import org.apache.commons.imaging.formats.pcx.PcxImageParser;
@@ -50,9 +52,11 @@ public class DcxImageParser extends ImageParser {
     // See http://www.fileformat.info/format/pcx/egff.htm for documentation
     private static final String DEFAULT_EXTENSION = ".dcx";
     private static final String[] ACCEPTED_EXTENSIONS = { ".dcx", };
+    // the length of the header that starts every page
+    private static final int PCX_HEADER_SIZE = 128;
 
     public DcxImageParser() {
-        super.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        super(ByteOrder.LITTLE_ENDIAN);
     }
 
     @Override
@@ -84,18 +88,43 @@ public class DcxImageParser extends ImageParser {
         return null;
     }
 
-    // FIXME should throw UOE
+    /**
+     * Describes the first page, from its PCX header, and counts the pages.
+     */
     @Override
     public ImageInfo getImageInfo(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return null;
+        final DcxHeader dcxHeader = readDcxHeader(byteSource);
+        final ImageInfo pcxInfo = new PcxImageParser().getImageInfo(
+                readFirstPcxHeader(byteSource, dcxHeader), params);
+        return new ImageInfo("DCX", pcxInfo.getBitsPerPixel(),
+                new ArrayList<String>(), ImageFormats.DCX, "ZSoft Multi-Page PCX",
+                pcxInfo.getHeight(), "image/x-dcx", dcxHeader.pageTable.length,
+                pcxInfo.getPhysicalHeightDpi(), pcxInfo.getPhysicalHeightInch(),
+                pcxInfo.getPhysicalWidthDpi(), pcxInfo.getPhysicalWidthInch(),
+                pcxInfo.getWidth(), false, false, pcxInfo.usesPalette(),
+                pcxInfo.getColorType(), pcxInfo.getCompressionAlgorithm());
     }
 
-    // FIXME should throw UOE
     @Override
     public Dimension getImageSize(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return null;
+        final DcxHeader dcxHeader = readDcxHeader(byteSource);
+        return new PcxImageParser().getImageSize(
+                readFirstPcxHeader(byteSource, dcxHeader), params);
+    }
+
+    /**
+     * Returns the PCX header of the first page, which is all that's needed
+     * to describe the page.
+     */
+    private ByteSource readFirstPcxHeader(final ByteSource byteSource,
+            final DcxHeader dcxHeader) throws ImageReadException, IOException {
+        if (dcxHeader.pageTable.length < 1) {
+            throw new ImageReadException("DCX file has no pages");
+        }
+        return new ByteSourceArray(byteSource.getBlock(dcxHeader.pageTable[0],
+                PCX_HEADER_SIZE));
     }
 
     // FIXME should throw UOE
@@ -174,7 +203,8 @@ public class DcxImageParser extends ImageParser {
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final List<BufferedImage> list = getAllBufferedImages(byteSource);
+        final List<BufferedImage> list = readImages(byteSource,
+                getRasterBufferProvider(params));
         if (list.isEmpty()) {
             return null;
         }
@@ -184,6 +214,12 @@ public class DcxImageParser extends ImageParser {
     @Override
     public List<BufferedImage> getAllBufferedImages(final ByteSource byteSource)
             throws ImageReadException, IOException {
+        return readImages(byteSource, getRasterBufferProvider(null));
+    }
+
+    private List<BufferedImage> readImages(final ByteSource byteSource,
+            final RasterBufferProvider rasterBufferProvider)
+            throws ImageReadException, IOException {
         final DcxHeader dcxHeader = readDcxHeader(byteSource);
         final List<BufferedImage> images = new ArrayList<BufferedImage>();
         final PcxImageParser pcxImageParser = new PcxImageParser();
@@ -194,8 +230,10 @@ public class DcxImageParser extends ImageParser {
                 stream = byteSource.getInputStream(element);
                 final ByteSourceInputStream pcxSource = new ByteSourceInputStream(
                         stream, null);
+                final Map<String, Object> pcxParams = new HashMap<String, Object>();
+                pcxParams.put(RASTER_BUFFER_PROVIDER, rasterBufferProvider);
                 final BufferedImage image = pcxImageParser.getBufferedImage(
-                        pcxSource, new HashMap<String, Object>());
+                        pcxSource, pcxParams);
                 images.add(image);
                 canThrow = true;
             } finally {
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.gif;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
+import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.util.IoUtils;
+
+/**
+ * Reads the frames of a (possibly animated) GIF file one at a time.
+ * <p>
+ * Each frame is decompressed only when it is asked for, and drawn onto a
+ * canvas of the logical screen size after the previous frame has been
+ * disposed of as its graphic control extension requests. Callers may stop
+ * reading at any point; the reader must be closed in any case.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * final GifFrameReader reader = new GifFrameReader(byteSource);
+ * try {
+ *     BufferedImage frame;
+ *     while ((frame = reader.readNextFrame()) != null) {
+ *         show(frame, reader.getDelay());
+ *     }
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ */
+public class GifFrameReader implements Closeable {
+    private static final int DISPOSE_TO_BACKGROUND = 2;
+    private static final int DISPOSE_TO_PREVIOUS = 3;
+
+    private final GifImageParser parser = new GifImageParser();
+    private final InputStream is;
+    private final BinaryReader reader;
+    private final GifHeaderInfo ghi;
+    private final byte[] globalColorTable;
+    private ImageBuilder canvas;
+    private boolean finished;
+
+    // the area and disposal method of the last frame
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+    private int dispose;
+    private int delay;
+    private int[] previousPixels;
+
+    public GifFrameReader(final ByteSource byteSource) throws ImageReadException,
+            IOException {
+        final InputStream stream = byteSource.getInputStream();
+        reader = new BinaryReader(stream, parser.getByteOrder());
+        boolean canThrow = false;
+        try {
+            ghi = parser.readHeader(reader, null);
+            if (ghi.globalColorTableFlag) {
+                globalColorTable = parser.readColorTable(reader,
+                        ghi.sizeOfGlobalColorTable);
+            } else {
+                globalColorTable = null;
+            }
+            canThrow = true;
+        } finally {
+            if (!canThrow) {
+                IoUtils.closeQuietly(false, stream);
+            }
+        }
+        is = stream;
+    }
+
+    /**
+     * Reads the next frame and draws it onto the canvas.
+     * <p>
+     * The returned image shares its pixels with the canvas, so it changes
+     * when the next frame is read; use {@link #copyFrame()} to keep it.
+     *
+     * @return the canvas with the frame drawn onto it, or null if there are
+     *         no more frames.
+     */
+    public BufferedImage readNextFrame() throws ImageReadException, IOException {
+        if (finished) {
+            return null;
+        }
+
+        GraphicControlExtension gce = null;
+        GifBlock block;
+        while ((block = parser.readBlock(ghi, reader, false, null)) != null) {
+            if (block instanceof GraphicControlExtension) {
+                gce = (GraphicControlExtension) block;
+            } else if (block instanceof ImageDescriptor) {
+                final ImageDescriptor id = (ImageDescriptor) block;
+                if (canvas == null) {
+                    // some files have frames larger than the logical screen.
+                    final int width = Math.max(ghi.logicalScreenWidth,
+                            id.imageLeftPosition + id.imageWidth);
+                    final int height = Math.max(ghi.logicalScreenHeight,
+                            id.imageTopPosition + id.imageHeight);
+                    canvas = new ImageBuilder(width, height, true);
+                } else {
+                    disposeFrame();
+                }
+
+                left = id.imageLeftPosition;
+                top = id.imageTopPosition;
+                right = Math.min(left + id.imageWidth, canvas.getWidth());
+                bottom = Math.min(top + id.imageHeight, canvas.getHeight());
+                dispose = gce == null ? 0 : gce.dispose;
+                delay = gce == null ? 0 : gce.delay;
+                if (dispose == DISPOSE_TO_PREVIOUS) {
+                    previousPixels = saveArea(previousPixels);
+                }
+
+                parser.drawImage(id, parser.getColorTable(id, globalColorTable),
+                        GifImageParser.getTransparentIndex(gce), canvas, left, top);
+                return canvas.getBufferedImage();
+            }
+        }
+
+        finished = true;
+        return null;
+    }
+
+    /**
+     * Returns a copy of the canvas as it was left by the last call to
+     * {@link #readNextFrame()}.
+     */
+    public BufferedImage copyFrame() {
+        if (canvas == null) {
+            return null;
+        }
+        return canvas.getSubimage(0, 0, canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Returns the delay of the last frame read, in hundredths of a second.
+     */
+    public int getDelay() {
+        return delay;
+    }
+
+    public int getLogicalScreenWidth() {
+        return ghi.logicalScreenWidth;
+    }
+
+    public int getLogicalScreenHeight() {
+        return ghi.logicalScreenHeight;
+    }
+
+    public void close() throws IOException {
+        is.close();
+    }
+
+    private void disposeFrame() {
+        if (dispose == DISPOSE_TO_BACKGROUND) {
+            // like most viewers, restore to transparent rather than to the
+            // background color.
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    canvas.setRGB(x, y, 0);
+                }
+            }
+        } else if (dispose == DISPOSE_TO_PREVIOUS) {
+            int index = 0;
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    canvas.setRGB(x, y, previousPixels[index++]);
+                }
+            }
+        }
+    }
+
+    private int[] saveArea(final int[] buffer) {
+        final int size = Math.max(0, right - left) * Math.max(0, bottom - top);
+        final int[] pixels = (buffer != null && buffer.length >= size) ? buffer
+                : new int[size];
+        int index = 0;
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                pixels[index++] = canvas.getRGB(x, y);
+            }
+        }
+        return pixels;
+    }
+}
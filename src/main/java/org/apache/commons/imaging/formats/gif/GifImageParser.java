@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.formats.gif;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -29,6 +30,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageFormat;
@@ -38,8 +44,13 @@ import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.ParallelTasks;
+import org.apache.commons.imaging.common.ParserPhase;
+import org.apache.commons.imaging.common.PhaseRecorder;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.mylzw.MyLzwCompressor;
 import org.apache.commons.imaging.common.mylzw.MyLzwDecompressor;
@@ -67,6 +78,21 @@ public class GifImageParser extends ImageParser {
     private static final int LOCAL_COLOR_TABLE_FLAG_MASK = 1 << 7;
     private static final int INTERLACE_FLAG_MASK = 1 << 6;
     private static final int SORT_FLAG_MASK = 1 << 5;
+    private static final byte[] NETSCAPE_APPLICATION_ID_AND_AUTH_CODE = {
+        0x4E, // N
+        0x45, // E
+        0x54, // T
+        0x53, // S
+        0x43, // C
+        0x41, // A
+        0x50, // P
+        0x45, // E
+        0x32, // 2
+        0x2E, // .
+        0x30, // 0
+    };
+    private static final int DISPOSE_NONE = 1;
+    private static final int DISPOSE_TO_BACKGROUND = 2;
     private static final byte[] XMP_APPLICATION_ID_AND_AUTH_CODE = {
         0x58, // X
         0x4D, // M
@@ -82,7 +108,7 @@ public class GifImageParser extends ImageParser {
     };
 
     public GifImageParser() {
-        super.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        super(ByteOrder.LITTLE_ENDIAN);
     }
 
     @Override
@@ -106,16 +132,16 @@ public class GifImageParser extends ImageParser {
         };
     }
 
-    private GifHeaderInfo readHeader(final InputStream is,
+    GifHeaderInfo readHeader(final BinaryReader reader,
             final FormatCompliance formatCompliance) throws ImageReadException,
             IOException {
-        final byte identifier1 = readByte("identifier1", is, "Not a Valid GIF File");
-        final byte identifier2 = readByte("identifier2", is, "Not a Valid GIF File");
-        final byte identifier3 = readByte("identifier3", is, "Not a Valid GIF File");
+        final byte identifier1 = reader.getByte("Not a Valid GIF File");
+        final byte identifier2 = reader.getByte("Not a Valid GIF File");
+        final byte identifier3 = reader.getByte("Not a Valid GIF File");
 
-        final byte version1 = readByte("version1", is, "Not a Valid GIF File");
-        final byte version2 = readByte("version2", is, "Not a Valid GIF File");
-        final byte version3 = readByte("version3", is, "Not a Valid GIF File");
+        final byte version1 = reader.getByte("Not a Valid GIF File");
+        final byte version2 = reader.getByte("Not a Valid GIF File");
+        final byte version3 = reader.getByte("Not a Valid GIF File");
 
         if (formatCompliance != null) {
             formatCompliance.compareBytes("Signature", GIF_HEADER_SIGNATURE,
@@ -133,8 +159,8 @@ public class GifImageParser extends ImageParser {
                     ((version1 << 16) | (version2 << 8) | (version3 << 0)));
         }
 
-        final int logicalScreenWidth = read2Bytes("Logical Screen Width", is, "Not a Valid GIF File", getByteOrder());
-        final int logicalScreenHeight = read2Bytes("Logical Screen Height", is, "Not a Valid GIF File", getByteOrder());
+        final int logicalScreenWidth = reader.getU16("Not a Valid GIF File");
+        final int logicalScreenHeight = reader.getU16("Not a Valid GIF File");
 
         if (formatCompliance != null) {
             formatCompliance.checkBounds("Width", 1, Integer.MAX_VALUE,
@@ -143,12 +169,9 @@ public class GifImageParser extends ImageParser {
                     logicalScreenHeight);
         }
 
-        final byte packedFields = readByte("Packed Fields", is,
-                "Not a Valid GIF File");
-        final byte backgroundColorIndex = readByte("Background Color Index", is,
-                "Not a Valid GIF File");
-        final byte pixelAspectRatio = readByte("Pixel Aspect Ratio", is,
-                "Not a Valid GIF File");
+        final byte packedFields = reader.getByte("Not a Valid GIF File");
+        final byte backgroundColorIndex = reader.getByte("Not a Valid GIF File");
+        final byte pixelAspectRatio = reader.getByte("Not a Valid GIF File");
 
         if (getDebug()) {
             printByteBits("PackedFields bits", packedFields);
@@ -188,35 +211,46 @@ public class GifImageParser extends ImageParser {
     }
 
     private GraphicControlExtension readGraphicControlExtension(final int code,
-            final InputStream is) throws IOException {
-        readByte("block_size", is, "GIF: corrupt GraphicControlExt");
-        final int packed = readByte("packed fields", is,
-                "GIF: corrupt GraphicControlExt");
+            final BinaryReader reader) throws IOException {
+        reader.getByte("GIF: corrupt GraphicControlExt");
+        final int packed = reader.getByte("GIF: corrupt GraphicControlExt");
 
         final int dispose = (packed & 0x1c) >> 2; // disposal method
         final boolean transparency = (packed & 1) != 0;
 
-        final int delay = read2Bytes("delay in milliseconds", is, "GIF: corrupt GraphicControlExt", getByteOrder());
-        final int transparentColorIndex = 0xff & readByte("transparent color index",
-                is, "GIF: corrupt GraphicControlExt");
-        readByte("block terminator", is, "GIF: corrupt GraphicControlExt");
+        final int delay = reader.getU16("GIF: corrupt GraphicControlExt");
+        final int transparentColorIndex = reader.getU8("GIF: corrupt GraphicControlExt");
+        reader.getByte("GIF: corrupt GraphicControlExt");
 
         return new GraphicControlExtension(code, packed, dispose, transparency,
                 delay, transparentColorIndex);
     }
 
-    private byte[] readSubBlock(final InputStream is) throws IOException {
-        final int blockSize = 0xff & readByte("block_size", is, "GIF: corrupt block");
+    private byte[] readSubBlock(final BinaryReader reader) throws IOException {
+        final int blockSize = reader.getU8("GIF: corrupt block");
 
-        return readBytes("block", is, blockSize, "GIF: corrupt block");
+        return reader.getBytes(blockSize, "GIF: corrupt block");
+    }
+
+    /**
+     * Skips the sub-blocks of a block, reading only their sizes.
+     */
+    private void skipSubBlocks(final BinaryReader reader) throws IOException {
+        while (true) {
+            final int blockSize = reader.getU8("GIF: corrupt block");
+            if (blockSize < 1) {
+                break;
+            }
+            reader.skip(blockSize, "GIF: corrupt block");
+        }
     }
 
-    private GenericGifBlock readGenericGIFBlock(final InputStream is, final int code)
+    private GenericGifBlock readGenericGIFBlock(final BinaryReader reader, final int code)
             throws IOException {
-        return readGenericGIFBlock(is, code, null);
+        return readGenericGIFBlock(reader, code, null);
     }
 
-    private GenericGifBlock readGenericGIFBlock(final InputStream is, final int code,
+    private GenericGifBlock readGenericGIFBlock(final BinaryReader reader, final int code,
             final byte[] first) throws IOException {
         final List<byte[]> subblocks = new ArrayList<byte[]>();
 
@@ -225,7 +259,7 @@ public class GifImageParser extends ImageParser {
         }
 
         while (true) {
-            final byte[] bytes = readSubBlock(is);
+            final byte[] bytes = readSubBlock(reader);
             if (bytes.length < 1) {
                 break;
             }
@@ -235,52 +269,58 @@ public class GifImageParser extends ImageParser {
         return new GenericGifBlock(code, subblocks);
     }
 
-    private List<GifBlock> readBlocks(final GifHeaderInfo ghi, final InputStream is,
-            final boolean stopBeforeImageData, final FormatCompliance formatCompliance)
+    private List<GifBlock> readBlocks(final GifHeaderInfo ghi, final BinaryReader reader,
+            final boolean stopBeforeImageData, final boolean firstImageOnly,
+            final FormatCompliance formatCompliance)
             throws ImageReadException, IOException {
         final List<GifBlock> result = new ArrayList<GifBlock>();
 
+        GifBlock block;
+        while ((block = readBlock(ghi, reader, stopBeforeImageData, formatCompliance)) != null) {
+            result.add(block);
+            if (firstImageOnly && block.blockCode == IMAGE_SEPARATOR) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the next block, decompressing the image data only of an image
+     * descriptor block. Returns null at the trailer.
+     */
+    GifBlock readBlock(final GifHeaderInfo ghi, final BinaryReader reader,
+            final boolean stopBeforeImageData, final FormatCompliance formatCompliance)
+            throws ImageReadException, IOException {
         while (true) {
-            final int code = is.read();
+            final int code = reader.read();
 
             switch (code) {
             case -1:
                 throw new ImageReadException("GIF: unexpected end of data");
 
             case IMAGE_SEPARATOR:
-                final ImageDescriptor id = readImageDescriptor(ghi, code, is,
+                return readImageDescriptor(ghi, code, reader,
                         stopBeforeImageData, formatCompliance);
-                result.add(id);
-                // if (stopBeforeImageData)
-                // return result;
-
-                break;
 
             case EXTENSION_CODE: // extension
             {
-                final int extensionCode = is.read();
+                final int extensionCode = reader.read();
                 final int completeCode = ((0xff & code) << 8)
                         | (0xff & extensionCode);
 
                 switch (extensionCode) {
                 case 0xf9:
-                    final GraphicControlExtension gce = readGraphicControlExtension(
-                            completeCode, is);
-                    result.add(gce);
-                    break;
+                    return readGraphicControlExtension(completeCode, reader);
 
                 case COMMENT_EXTENSION:
-                case PLAIN_TEXT_EXTENSION: {
-                    final GenericGifBlock block = readGenericGIFBlock(is,
-                            completeCode);
-                    result.add(block);
-                    break;
-                }
+                case PLAIN_TEXT_EXTENSION:
+                    return readGenericGIFBlock(reader, completeCode);
 
                 case APPLICATION_EXTENSION_LABEL: // 255 (hex 0xFF) Application
                     // Extension Label
                 {
-                    final byte[] label = readSubBlock(is);
+                    final byte[] label = readSubBlock(reader);
 
                     if (formatCompliance != null) {
                         formatCompliance.addComment(
@@ -295,9 +335,7 @@ public class GifImageParser extends ImageParser {
                     //}
 
                     if ((label != null) && (label.length > 0)) {
-                        final GenericGifBlock block = readGenericGIFBlock(is,
-                                completeCode, label);
-                        result.add(block);
+                        return readGenericGIFBlock(reader, completeCode, label);
                     }
                     break;
                 }
@@ -309,17 +347,14 @@ public class GifImageParser extends ImageParser {
                                 completeCode);
                     }
 
-                    final GenericGifBlock block = readGenericGIFBlock(is,
-                            completeCode);
-                    result.add(block);
-                    break;
+                    return readGenericGIFBlock(reader, completeCode);
                 }
                 }
             }
                 break;
 
             case TERMINATOR_BYTE:
-                return result;
+                return null;
 
             case 0x00: // bad byte, but keep going and see what happens
                 break;
@@ -331,14 +366,14 @@ public class GifImageParser extends ImageParser {
     }
 
     private ImageDescriptor readImageDescriptor(final GifHeaderInfo ghi,
-            final int blockCode, final InputStream is, final boolean stopBeforeImageData,
+            final int blockCode, final BinaryReader reader, final boolean stopBeforeImageData,
             final FormatCompliance formatCompliance) throws ImageReadException,
             IOException {
-        final int imageLeftPosition = read2Bytes("Image Left Position", is, "Not a Valid GIF File", getByteOrder());
-        final int imageTopPosition = read2Bytes("Image Top Position", is, "Not a Valid GIF File", getByteOrder());
-        final int imageWidth = read2Bytes("Image Width", is, "Not a Valid GIF File", getByteOrder());
-        final int imageHeight = read2Bytes("Image Height", is, "Not a Valid GIF File", getByteOrder());
-        final byte packedFields = readByte("Packed Fields", is, "Not a Valid GIF File");
+        final int imageLeftPosition = reader.getU16("Not a Valid GIF File");
+        final int imageTopPosition = reader.getU16("Not a Valid GIF File");
+        final int imageWidth = reader.getU16("Not a Valid GIF File");
+        final int imageHeight = reader.getU16("Not a Valid GIF File");
+        final byte packedFields = reader.getByte("Not a Valid GIF File");
 
         if (formatCompliance != null) {
             formatCompliance.checkBounds("Width", 1, ghi.logicalScreenWidth, imageWidth);
@@ -371,14 +406,14 @@ public class GifImageParser extends ImageParser {
 
         byte[] localColorTable = null;
         if (localColorTableFlag) {
-            localColorTable = readColorTable(is, sizeOfLocalColorTable);
+            localColorTable = readColorTable(reader, sizeOfLocalColorTable);
         }
 
         byte[] imageData = null;
         if (!stopBeforeImageData) {
-            final int lzwMinimumCodeSize = is.read();
+            final int lzwMinimumCodeSize = reader.read();
 
-            final GenericGifBlock block = readGenericGIFBlock(is, -1);
+            final GenericGifBlock block = readGenericGIFBlock(reader, -1);
             final byte[] bytes = block.appendSubBlocks();
             final InputStream bais = new ByteArrayInputStream(bytes);
 
@@ -387,12 +422,12 @@ public class GifImageParser extends ImageParser {
                     lzwMinimumCodeSize, ByteOrder.LITTLE_ENDIAN);
             imageData = myLzwDecompressor.decompress(bais, size);
         } else {
-            final int LZWMinimumCodeSize = is.read();
+            final int LZWMinimumCodeSize = reader.read();
             if (getDebug()) {
                 System.out.println("LZWMinimumCodeSize: " + LZWMinimumCodeSize);
             }
 
-            readGenericGIFBlock(is, -1);
+            skipSubBlocks(reader);
         }
 
         return new ImageDescriptor(blockCode,
@@ -415,10 +450,10 @@ public class GifImageParser extends ImageParser {
         return 3 * simplePow(2, tableSize + 1);
     }
 
-    private byte[] readColorTable(final InputStream is, final int tableSize) throws IOException {
+    byte[] readColorTable(final BinaryReader reader, final int tableSize) throws IOException {
         final int actualSize = convertColorTableSize(tableSize);
 
-        return readBytes("block", is, actualSize, "GIF: corrupt Color Table");
+        return reader.getBytes(actualSize, "GIF: corrupt Color Table");
     }
 
     private GifBlock findBlock(final List<GifBlock> blocks, final int code) {
@@ -432,28 +467,40 @@ public class GifImageParser extends ImageParser {
 
     private ImageContents readFile(final ByteSource byteSource,
             final boolean stopBeforeImageData) throws ImageReadException, IOException {
-        return readFile(byteSource, stopBeforeImageData,
+        return readFile(byteSource, stopBeforeImageData, false,
                 FormatCompliance.getDefault());
     }
 
     private ImageContents readFile(final ByteSource byteSource,
             final boolean stopBeforeImageData, final FormatCompliance formatCompliance)
             throws ImageReadException, IOException {
+        return readFile(byteSource, stopBeforeImageData, false, formatCompliance);
+    }
+
+    /**
+     * Reads the header and the blocks of a file, or with firstImageOnly,
+     * only the blocks up to and including the first image descriptor.
+     */
+    private ImageContents readFile(final ByteSource byteSource,
+            final boolean stopBeforeImageData, final boolean firstImageOnly,
+            final FormatCompliance formatCompliance)
+            throws ImageReadException, IOException {
         InputStream is = null;
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
+            final BinaryReader reader = getBinaryReader(is);
 
-            final GifHeaderInfo ghi = readHeader(is, formatCompliance);
+            final GifHeaderInfo ghi = readHeader(reader, formatCompliance);
 
             byte[] globalColorTable = null;
             if (ghi.globalColorTableFlag) {
-                globalColorTable = readColorTable(is,
+                globalColorTable = readColorTable(reader,
                         ghi.sizeOfGlobalColorTable);
             }
 
-            final List<GifBlock> blocks = readBlocks(ghi, is, stopBeforeImageData,
-                    formatCompliance);
+            final List<GifBlock> blocks = readBlocks(ghi, reader, stopBeforeImageData,
+                    firstImageOnly, formatCompliance);
 
             final ImageContents result = new ImageContents(ghi, globalColorTable,
                     blocks);
@@ -473,7 +520,8 @@ public class GifImageParser extends ImageParser {
     @Override
     public Dimension getImageSize(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final ImageContents blocks = readFile(byteSource, false);
+        final ImageContents blocks = readFile(byteSource, true, true,
+                FormatCompliance.getDefault());
 
         if (blocks == null) {
             throw new ImageReadException("GIF: Couldn't read blocks");
@@ -520,7 +568,7 @@ public class GifImageParser extends ImageParser {
     @Override
     public ImageInfo getImageInfo(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final ImageContents blocks = readFile(byteSource, false);
+        final ImageContents blocks = readFile(byteSource, true);
 
         if (blocks == null) {
             throw new ImageReadException("GIF: Couldn't read blocks");
@@ -550,8 +598,12 @@ public class GifImageParser extends ImageParser {
         final ImageFormat format = ImageFormats.GIF;
         final String formatName = "GIF Graphics Interchange Format";
         final String mimeType = "image/gif";
-        // we ought to count images, but don't yet.
-        final int numberOfImages = -1;
+        int numberOfImages = 0;
+        for (final GifBlock block : blocks.blocks) {
+            if (block.blockCode == IMAGE_SEPARATOR) {
+                numberOfImages++;
+            }
+        }
 
         final boolean progressive = id.interlaceFlag;
 
@@ -592,7 +644,7 @@ public class GifImageParser extends ImageParser {
 
         imageData.toString(pw, "");
         
-        final ImageContents blocks = readFile(byteSource, false);
+        final ImageContents blocks = readFile(byteSource, true);
 
         pw.println("gif.blocks: " + blocks.blocks.size());
         for (int i = 0; i < blocks.blocks.size(); i++) {
@@ -644,53 +696,122 @@ public class GifImageParser extends ImageParser {
     @Override
     public BufferedImage getBufferedImage(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final ImageContents imageContents = readFile(byteSource, false);
-
-        if (imageContents == null) {
-            throw new ImageReadException("GIF: Couldn't read blocks");
-        }
-
-        final GifHeaderInfo ghi = imageContents.gifHeaderInfo;
-        if (ghi == null) {
-            throw new ImageReadException("GIF: Couldn't read Header");
-        }
-
-        final ImageDescriptor id = (ImageDescriptor) findBlock(imageContents.blocks,
-                IMAGE_SEPARATOR);
-        if (id == null) {
-            throw new ImageReadException("GIF: Couldn't read Image Descriptor");
+        InputStream is = null;
+        boolean canThrow = false;
+        try {
+            is = byteSource.getInputStream();
+            final BinaryReader reader = getBinaryReader(is);
+
+            final PhaseRecorder recorder = getPhaseRecorder(ImageFormats.GIF, params);
+            ParserPhase phase = ParserPhase.HEADER;
+            long start = recorder.start();
+            try {
+                final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+                final GifHeaderInfo ghi = readHeader(reader, formatCompliance);
+
+                byte[] globalColorTable = null;
+                if (ghi.globalColorTableFlag) {
+                    globalColorTable = readColorTable(reader, ghi.sizeOfGlobalColorTable);
+                }
+                recorder.end(phase, start, -1, 0);
+
+                // only the first image is decompressed; the rest of the file
+                // is never read.
+                phase = ParserPhase.DECOMPRESSION;
+                start = recorder.start();
+                GraphicControlExtension gce = null;
+                GifBlock block;
+                while ((block = readBlock(ghi, reader, false, formatCompliance)) != null) {
+                    if (block instanceof GraphicControlExtension) {
+                        gce = (GraphicControlExtension) block;
+                    } else if (block instanceof ImageDescriptor) {
+                        final ImageDescriptor id = (ImageDescriptor) block;
+                        recorder.end(phase, start, -1, id.imageData.length);
+
+                        // Prefer the size information in the ImageDescriptor;
+                        // it is more reliable than the size information in
+                        // the header.
+                        phase = ParserPhase.PIXEL_INTERPRETATION;
+                        start = recorder.start();
+                        final boolean hasAlpha = gce != null && gce.transparency;
+                        final ImageBuilder imageBuilder = new ImageBuilder(
+                                id.imageWidth, id.imageHeight, hasAlpha);
+
+                        drawImage(id, getColorTable(id, globalColorTable),
+                                getTransparentIndex(gce), imageBuilder, 0, 0);
+                        final BufferedImage result = imageBuilder.getBufferedImage();
+                        recorder.end(phase, start, -1, result);
+                        phase = null;
+
+                        canThrow = true;
+                        return result;
+                    }
+                }
+                throw new ImageReadException("GIF: Couldn't read Image Descriptor");
+            } finally {
+                recorder.failed(phase, start);
+            }
+        } finally {
+            IoUtils.closeQuietly(canThrow, is);
         }
-        final GraphicControlExtension gce = (GraphicControlExtension) findBlock(
-                imageContents.blocks, GRAPHIC_CONTROL_EXTENSION);
-
-        // Prefer the size information in the ImageDescriptor; it is more
-        // reliable
-        // than the size information in the header.
-        final int width = id.imageWidth;
-        final int height = id.imageHeight;
+    }
 
-        boolean hasAlpha = false;
-        if (gce != null && gce.transparency) {
-            hasAlpha = true;
+    /**
+     * Reads the frames of a GIF file one at a time and composites them as
+     * an animation would show them. Only the image data of the frame being
+     * read is held in memory.
+     * 
+     * @param byteSource
+     *            the GIF file
+     * @return the frames as BufferedImages of the logical screen size
+     */
+    @Override
+    public List<BufferedImage> getAllBufferedImages(final ByteSource byteSource)
+            throws ImageReadException, IOException {
+        final List<BufferedImage> result = new ArrayList<BufferedImage>();
+        final GifFrameReader reader = new GifFrameReader(byteSource);
+        boolean canThrow = false;
+        try {
+            while (reader.readNextFrame() != null) {
+                result.add(reader.copyFrame());
+            }
+            canThrow = true;
+        } finally {
+            IoUtils.closeQuietly(canThrow, reader);
         }
+        return result;
+    }
 
-        final ImageBuilder imageBuilder = new ImageBuilder(width, height, hasAlpha);
-
-        int[] colorTable;
+    int[] getColorTable(final ImageDescriptor id, final byte[] globalColorTable)
+            throws ImageReadException {
         if (id.localColorTable != null) {
-            colorTable = getColorTable(id.localColorTable);
-        } else if (imageContents.globalColorTable != null) {
-            colorTable = getColorTable(imageContents.globalColorTable);
+            return getColorTable(id.localColorTable);
+        } else if (globalColorTable != null) {
+            return getColorTable(globalColorTable);
         } else {
             throw new ImageReadException("Gif: No Color Table");
         }
+    }
 
-        int transparentIndex = -1;
-        if (gce != null && hasAlpha) {
-            transparentIndex = gce.transparentColorIndex;
+    static int getTransparentIndex(final GraphicControlExtension gce) {
+        if (gce != null && gce.transparency) {
+            return gce.transparentColorIndex;
         }
+        return -1;
+    }
 
-        int counter = 0;
+    /**
+     * Draws the pixels of an image onto an image builder with its top left
+     * corner at the given position. Transparent pixels and pixels outside
+     * the image builder are skipped.
+     */
+    void drawImage(final ImageDescriptor id, final int[] colorTable,
+            final int transparentIndex, final ImageBuilder imageBuilder,
+            final int left, final int top) throws ImageReadException {
+        final int width = id.imageWidth;
+        final int height = id.imageHeight;
+        final int xLimit = Math.min(width, imageBuilder.getWidth() - left);
+        final int yLimit = Math.min(height, imageBuilder.getHeight() - top);
 
         final int rowsInPass1 = (height + 7) / 8;
         final int rowsInPass2 = (height + 3) / 8;
@@ -725,21 +846,17 @@ public class GifImageParser extends ImageParser {
                 y = row;
             }
 
-            for (int x = 0; x < width; x++) {
+            if (y >= yLimit) {
+                continue;
+            }
+            int counter = row * width;
+            for (int x = 0; x < xLimit; x++) {
                 final int index = 0xff & id.imageData[counter++];
-                int rgb = colorTable[index];
-
-                if (transparentIndex == index) {
-                    rgb = 0x00;
+                if (index != transparentIndex) {
+                    imageBuilder.setRGB(left + x, top + y, colorTable[index]);
                 }
-
-                imageBuilder.setRGB(x, y, rgb);
             }
-
         }
-
-        return imageBuilder.getBufferedImage();
-
     }
 
     private void writeAsSubBlocks(final OutputStream os, final byte[] bytes) throws IOException {
@@ -808,27 +925,378 @@ public class GifImageParser extends ImageParser {
 
         final BinaryOutputStream bos = new BinaryOutputStream(os, ByteOrder.LITTLE_ENDIAN);
 
-        // write Header
-        os.write(0x47); // G magic numbers
-        os.write(0x49); // I
-        os.write(0x46); // F
+        final int colorTableScaleLessOne = getColorTableScaleLessOne(paletteSize);
+        writeHeader(bos, width, height, colorTableScaleLessOne);
 
-        os.write(0x38); // 8 version magic numbers
-        os.write(0x39); // 9
-        os.write(0x61); // a
+        // ALWAYS write GraphicControlExtension
+        writeGraphicControlExtension(bos, 0, 0, hasAlpha ? palette2.length() : -1);
 
-        // Logical Screen Descriptor.
+        if (null != xmpXml) {
+            writeXmp(bos, xmpXml);
+        }
 
-        bos.write2Bytes(width);
-        bos.write2Bytes(height);
+        { // get Image Data.
+            final byte[] imagedata = new byte[width * height];
+            final PixelReader pixels = new PixelReader(src);
+            final int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                pixels.getRow(y, row);
+                for (int x = 0; x < width; x++) {
+                    final int argb = row[x];
+                    final int rgb = 0xffffff & argb;
+                    int index;
+
+                    if (hasAlpha) {
+                        final int alpha = 0xff & (argb >> 24);
+                        final int alphaThreshold = 255;
+                        if (alpha < alphaThreshold) {
+                            index = palette2.length(); // is transparent
+                        } else {
+                            index = palette2.getPaletteIndex(rgb);
+                        }
+                    } else {
+                        index = palette2.getPaletteIndex(rgb);
+                    }
+
+                    imagedata[y * width + x] = (byte) index;
+                }
+            }
+
+            writeFrame(bos, new GifFrame(0, 0, width, height, palette2,
+                    colorTableScaleLessOne, imagedata));
+        }
+
+        // palette2.dump();
+
+        bos.write(TERMINATOR_BYTE);
+
+        bos.close();
+        os.close();
+    }
+
+    /**
+     * Writes an animated GIF.
+     * <p>
+     * Each frame gets its own color table, built from the colors of the
+     * frame alone. The frames are encoded on the Executor given with
+     * ImagingConstants.EXECUTOR, if any. After the first frame only the
+     * bounding box of the pixels that changed since the previous frame is
+     * written, with the pixels in
+     * it that didn't change made transparent. Pixels with an alpha value
+     * below 255 are written as transparent.
+     * 
+     * @param frames
+     *            the frames, which must all have the same size.
+     * @param delays
+     *            the time each frame is shown, in hundredths of a second.
+     * @param os
+     *            the stream to write the GIF to; it is closed afterwards.
+     * @param params
+     *            Map of optional parameters, defined in ImagingConstants.
+     *            Only PARAM_KEY_XMP_XML and EXECUTOR are used.
+     */
+    public void writeImages(final List<BufferedImage> frames, final int[] delays,
+            final OutputStream os, Map<String, Object> params)
+            throws ImageWriteException, IOException {
+        // make copy of params; we'll clear keys as we consume them.
+        params = (params == null) ? new HashMap<String, Object>()
+                : new HashMap<String, Object>(params);
+
+        // clear format key.
+        if (params.containsKey(PARAM_KEY_FORMAT)) {
+            params.remove(PARAM_KEY_FORMAT);
+        }
 
-        final int colorTableScaleLessOne = (paletteSize > 128) ? 7
+        String xmpXml = null;
+        if (params.containsKey(PARAM_KEY_XMP_XML)) {
+            xmpXml = (String) params.get(PARAM_KEY_XMP_XML);
+            params.remove(PARAM_KEY_XMP_XML);
+        }
+
+        final Executor executor = getExecutor(params);
+        if (params.containsKey(EXECUTOR)) {
+            params.remove(EXECUTOR);
+        }
+
+        if (!params.isEmpty()) {
+            final Object firstKey = params.keySet().iterator().next();
+            throw new ImageWriteException("Unknown parameter: " + firstKey);
+        }
+
+        final int count = frames.size();
+        if (count < 1) {
+            throw new ImageWriteException("Gif: no frames to write");
+        }
+        if (delays.length != count) {
+            throw new ImageWriteException("Gif: " + count + " frames but "
+                    + delays.length + " delays");
+        }
+        final int width = frames.get(0).getWidth();
+        final int height = frames.get(0).getHeight();
+        for (final BufferedImage frame : frames) {
+            if (frame.getWidth() != width || frame.getHeight() != height) {
+                throw new ImageWriteException("Gif: frames differ in size");
+            }
+        }
+
+        // a pixel that becomes transparent can't be written as a change, so
+        // the frame before it is cleared after it is shown and the frame is
+        // written in full.
+        final Rectangle[] changes = new Rectangle[count];
+        final boolean[] clearsPixels = new boolean[count];
+        for (int i = 1; i < count; i++) {
+            changes[i] = findChanges(frames.get(i - 1), frames.get(i), clearsPixels, i);
+        }
+
+        final List<FutureTask<GifFrame>> tasks = new ArrayList<FutureTask<GifFrame>>();
+        final int[] disposals = new int[count];
+        for (int i = 0; i < count; i++) {
+            final boolean clearAfter = i + 1 < count && clearsPixels[i + 1];
+            disposals[i] = clearAfter ? DISPOSE_TO_BACKGROUND : DISPOSE_NONE;
+
+            final BufferedImage frame = frames.get(i);
+            if (i == 0 || clearAfter || clearsPixels[i]) {
+                tasks.add(new FutureTask<GifFrame>(new FrameEncoder(frame, null,
+                        new Rectangle(0, 0, width, height))));
+            } else {
+                tasks.add(new FutureTask<GifFrame>(new FrameEncoder(frame,
+                        frames.get(i - 1), changes[i])));
+            }
+        }
+        ParallelTasks.run(executor, tasks);
+
+        final BinaryOutputStream bos = new BinaryOutputStream(os, ByteOrder.LITTLE_ENDIAN);
+        writeHeader(bos, width, height, 7);
+        writeLoopExtension(bos);
+        if (null != xmpXml) {
+            writeXmp(bos, xmpXml);
+        }
+        for (int i = 0; i < count; i++) {
+            final GifFrame frame = getFrame(tasks.get(i));
+            writeGraphicControlExtension(bos, disposals[i], delays[i],
+                    frame.transparentIndex);
+            writeFrame(bos, frame);
+        }
+        bos.write(TERMINATOR_BYTE);
+
+        bos.close();
+        os.close();
+    }
+
+    private static GifFrame getFrame(final Future<GifFrame> future)
+            throws ImageWriteException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImageWriteException("Gif: interrupted while encoding frames", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ImageWriteException) {
+                throw (ImageWriteException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ImageWriteException("Gif: couldn't encode frame", cause);
+        }
+    }
+
+    private static boolean isTransparent(final int argb) {
+        return (argb >>> 24) < 0xff;
+    }
+
+    private static boolean isSamePixel(final int argb1, final int argb2) {
+        if (isTransparent(argb1)) {
+            return isTransparent(argb2);
+        }
+        return argb1 == argb2;
+    }
+
+    /**
+     * Returns the bounding box of the pixels that differ between two frames,
+     * or a single pixel if there are none, and records whether any pixel
+     * becomes transparent.
+     */
+    private static Rectangle findChanges(final BufferedImage previous,
+            final BufferedImage current, final boolean[] clearsPixels,
+            final int index) {
+        final int width = current.getWidth();
+        final int height = current.getHeight();
+        final PixelReader previousPixels = new PixelReader(previous);
+        final PixelReader currentPixels = new PixelReader(current);
+        final int[] previousRow = new int[width];
+        final int[] currentRow = new int[width];
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            previousPixels.getRow(y, previousRow);
+            currentPixels.getRow(y, currentRow);
+            for (int x = 0; x < width; x++) {
+                if (!isSamePixel(previousRow[x], currentRow[x])) {
+                    if (isTransparent(currentRow[x])) {
+                        clearsPixels[index] = true;
+                    }
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = y;
+                }
+            }
+        }
+        if (maxX < 0) {
+            // nothing changed, but a frame needs at least one pixel.
+            return new Rectangle(0, 0, 1, 1);
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    /**
+     * Builds the color table and compresses the pixels of one area of an
+     * animation frame. If a previous frame is given, pixels that are the
+     * same in it are made transparent.
+     */
+    private static class FrameEncoder implements Callable<GifFrame> {
+        private final BufferedImage frame;
+        private final BufferedImage previous;
+        private final Rectangle area;
+
+        FrameEncoder(final BufferedImage frame, final BufferedImage previous,
+                final Rectangle area) {
+            this.frame = frame;
+            this.previous = previous;
+            this.area = area;
+        }
+
+        public GifFrame call() throws ImageWriteException {
+            final int width = area.width;
+            final int height = area.height;
+            final int[] pixels = getPixels(frame, area);
+            final int[] previousPixels = (previous == null) ? null
+                    : getPixels(previous, area);
+
+            // transparent pixels take on the color of an opaque one, so that
+            // they don't use up a color of their own.
+            final boolean[] transparent = new boolean[pixels.length];
+            boolean hasTransparency = false;
+            int filler = 0;
+            for (int i = pixels.length - 1; i >= 0; i--) {
+                transparent[i] = isTransparent(pixels[i])
+                        || (previousPixels != null && previousPixels[i] == pixels[i]);
+                if (transparent[i]) {
+                    hasTransparency = true;
+                } else {
+                    filler = pixels[i];
+                }
+            }
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = 0xffffff & (transparent[i] ? filler : pixels[i]);
+            }
+
+            final BufferedImage opaque = new BufferedImage(width, height,
+                    BufferedImage.TYPE_INT_RGB);
+            opaque.setRGB(0, 0, width, height, pixels, 0, width);
+
+            final int maxColors = hasTransparency ? 255 : 256;
+            final PaletteFactory paletteFactory = new PaletteFactory();
+            Palette palette = paletteFactory.makeExactRgbPaletteSimple(opaque, maxColors);
+            if (palette == null) {
+                palette = paletteFactory.makeQuantizedRgbPalette(opaque, maxColors);
+            }
+
+            final int transparentIndex = palette.length();
+            final byte[] imageData = new byte[pixels.length];
+            for (int i = 0; i < pixels.length; i++) {
+                imageData[i] = (byte) (transparent[i] ? transparentIndex
+                        : palette.getPaletteIndex(pixels[i]));
+            }
+
+            final int paletteSize = palette.length() + (hasTransparency ? 1 : 0);
+            final GifFrame result = new GifFrame(area.x, area.y, width, height,
+                    palette, getColorTableScaleLessOne(paletteSize), imageData);
+            result.transparentIndex = hasTransparency ? transparentIndex : -1;
+            result.compress();
+            return result;
+        }
+
+        private static int[] getPixels(final BufferedImage image, final Rectangle area) {
+            return new PixelReader(image.getSubimage(area.x, area.y,
+                    area.width, area.height)).getRows(0, area.height, null);
+        }
+    }
+
+    /**
+     * The position, color table and image data of one image to be written.
+     */
+    private static class GifFrame {
+        final int left;
+        final int top;
+        final int width;
+        final int height;
+        final Palette palette;
+        final int colorTableScaleLessOne;
+        byte[] imageData;
+        byte[] compressed;
+        int transparentIndex = -1;
+
+        GifFrame(final int left, final int top, final int width, final int height,
+                final Palette palette, final int colorTableScaleLessOne,
+                final byte[] imageData) {
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+            this.palette = palette;
+            this.colorTableScaleLessOne = colorTableScaleLessOne;
+            this.imageData = imageData;
+        }
+
+        int getLzwMinimumCodeSize() {
+            // the bits of an index into the color table, as the GIF spec
+            // asks, which is never less than 2.
+            return Math.max(2, colorTableScaleLessOne + 1);
+        }
+
+        void compress() throws ImageWriteException {
+            try {
+                final MyLzwCompressor compressor = new MyLzwCompressor(
+                        getLzwMinimumCodeSize(), ByteOrder.LITTLE_ENDIAN, false); // GIF
+                // Mode);
+                compressed = compressor.compress(imageData);
+                imageData = null;
+            } catch (final IOException e) {
+                throw new ImageWriteException("Gif: couldn't compress image data", e);
+            }
+        }
+    }
+
+    private static int getColorTableScaleLessOne(final int paletteSize) {
+        return (paletteSize > 128) ? 7
                 : (paletteSize > 64) ? 6 : (paletteSize > 32) ? 5
                         : (paletteSize > 16) ? 4 : (paletteSize > 8) ? 3
                                 : (paletteSize > 4) ? 2
                                         : (paletteSize > 2) ? 1 : 0;
+    }
+
+    private void writeHeader(final BinaryOutputStream bos, final int width,
+            final int height, final int colorTableScaleLessOne) throws IOException {
+        // write Header
+        bos.write(0x47); // G magic numbers
+        bos.write(0x49); // I
+        bos.write(0x46); // F
+
+        bos.write(0x38); // 8 version magic numbers
+        bos.write(0x39); // 9
+        bos.write(0x61); // a
+
+        // Logical Screen Descriptor.
+
+        bos.write2Bytes(width);
+        bos.write2Bytes(height);
 
-        final int colorTableSizeInFormat = 1 << (colorTableScaleLessOne + 1);
         {
             final byte colorResolution = (byte) colorTableScaleLessOne; // TODO:
 
@@ -857,56 +1325,76 @@ public class GifImageParser extends ImageParser {
             // write Global Color Table.
 
         //}
+    }
 
-        { // ALWAYS write GraphicControlExtension
-            bos.write(EXTENSION_CODE);
-            bos.write((byte) 0xf9);
-            // bos.write(0xff & (kGraphicControlExtension >> 8));
-            // bos.write(0xff & (kGraphicControlExtension >> 0));
-
-            bos.write((byte) 4); // block size;
-            final int packedFields = hasAlpha ? 1 : 0; // transparency flag
-            bos.write((byte) packedFields);
-            bos.write((byte) 0); // Delay Time
-            bos.write((byte) 0); // Delay Time
-            bos.write((byte) (hasAlpha ? palette2.length() : 0)); // Transparent
-            // Color
-            // Index
-            bos.write((byte) 0); // terminator
-        }
-
-        if (null != xmpXml) {
-            bos.write(EXTENSION_CODE);
-            bos.write(APPLICATION_EXTENSION_LABEL);
+    /**
+     * Writes the Netscape application extension that makes viewers repeat
+     * an animation forever.
+     */
+    private void writeLoopExtension(final BinaryOutputStream bos) throws IOException {
+        bos.write(EXTENSION_CODE);
+        bos.write(APPLICATION_EXTENSION_LABEL);
+        bos.write(NETSCAPE_APPLICATION_ID_AND_AUTH_CODE.length); // 0x0B
+        bos.write(NETSCAPE_APPLICATION_ID_AND_AUTH_CODE);
+        bos.write((byte) 3); // sub-block size
+        bos.write((byte) 1); // loop sub-block id
+        bos.write2Bytes(0); // loop count; 0 is forever
+        bos.write((byte) 0); // terminator
+    }
 
-            bos.write(XMP_APPLICATION_ID_AND_AUTH_CODE.length); // 0x0B
-            bos.write(XMP_APPLICATION_ID_AND_AUTH_CODE);
+    private void writeGraphicControlExtension(final BinaryOutputStream bos,
+            final int disposal, final int delay, final int transparentIndex)
+            throws IOException {
+        bos.write(EXTENSION_CODE);
+        bos.write((byte) 0xf9);
+        // bos.write(0xff & (kGraphicControlExtension >> 8));
+        // bos.write(0xff & (kGraphicControlExtension >> 0));
+
+        bos.write((byte) 4); // block size;
+        final int packedFields = (disposal << 2)
+                | (transparentIndex >= 0 ? 1 : 0); // transparency flag
+        bos.write((byte) packedFields);
+        bos.write2Bytes(delay); // Delay Time
+        bos.write((byte) Math.max(0, transparentIndex)); // Transparent
+        // Color
+        // Index
+        bos.write((byte) 0); // terminator
+    }
 
-            final byte[] xmpXmlBytes = xmpXml.getBytes("utf-8");
-            bos.write(xmpXmlBytes);
+    private void writeXmp(final BinaryOutputStream bos, final String xmpXml)
+            throws IOException {
+        bos.write(EXTENSION_CODE);
+        bos.write(APPLICATION_EXTENSION_LABEL);
 
-            // write "magic trailer"
-            for (int magic = 0; magic <= 0xff; magic++) {
-                bos.write(0xff - magic);
-            }
+        bos.write(XMP_APPLICATION_ID_AND_AUTH_CODE.length); // 0x0B
+        bos.write(XMP_APPLICATION_ID_AND_AUTH_CODE);
 
-            bos.write((byte) 0); // terminator
+        final byte[] xmpXmlBytes = xmpXml.getBytes("utf-8");
+        bos.write(xmpXmlBytes);
 
+        // write "magic trailer"
+        for (int magic = 0; magic <= 0xff; magic++) {
+            bos.write(0xff - magic);
         }
 
+        bos.write((byte) 0); // terminator
+    }
+
+    private void writeFrame(final BinaryOutputStream bos, final GifFrame frame)
+            throws IOException, ImageWriteException {
         { // Image Descriptor.
             bos.write(IMAGE_SEPARATOR);
-            bos.write2Bytes(0); // Image Left Position
-            bos.write2Bytes(0); // Image Top Position
-            bos.write2Bytes(width); // Image Width
-            bos.write2Bytes(height); // Image Height
+            bos.write2Bytes(frame.left); // Image Left Position
+            bos.write2Bytes(frame.top); // Image Top Position
+            bos.write2Bytes(frame.width); // Image Width
+            bos.write2Bytes(frame.height); // Image Height
 
             {
                 final boolean localColorTableFlag = true;
                 // boolean LocalColorTableFlag = false;
                 final boolean interlaceFlag = false;
                 final boolean sortFlag = false;
-                final int sizeOfLocalColorTable = colorTableScaleLessOne;
+                final int sizeOfLocalColorTable = frame.colorTableScaleLessOne;
 
                 // int SizeOfLocalColorTable = 0;
 
@@ -927,9 +1415,10 @@ public class GifImageParser extends ImageParser {
         }
 
         { // write Local Color Table.
+            final int colorTableSizeInFormat = 1 << (frame.colorTableScaleLessOne + 1);
             for (int i = 0; i < colorTableSizeInFormat; i++) {
-                if (i < palette2.length()) {
-                    final int rgb = palette2.getEntry(i);
+                if (i < frame.palette.length()) {
+                    final int rgb = frame.palette.getEntry(i);
 
                     final int red = 0xff & (rgb >> 16);
                     final int green = 0xff & (rgb >> 8);
@@ -946,60 +1435,11 @@ public class GifImageParser extends ImageParser {
             }
         }
 
-        { // get Image Data.
-//            int image_data_total = 0;
-
-            int lzwMinimumCodeSize = colorTableScaleLessOne + 1;
-            // LZWMinimumCodeSize = Math.max(8, LZWMinimumCodeSize);
-            if (lzwMinimumCodeSize < 2) {
-                lzwMinimumCodeSize = 2;
-            }
-
-            // TODO:
-            // make
-            // better
-            // choice
-            // here.
-            bos.write(lzwMinimumCodeSize);
-
-            final MyLzwCompressor compressor = new MyLzwCompressor(
-                    lzwMinimumCodeSize, ByteOrder.LITTLE_ENDIAN, false); // GIF
-            // Mode);
-
-            final byte[] imagedata = new byte[width * height];
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    final int argb = src.getRGB(x, y);
-                    final int rgb = 0xffffff & argb;
-                    int index;
-
-                    if (hasAlpha) {
-                        final int alpha = 0xff & (argb >> 24);
-                        final int alphaThreshold = 255;
-                        if (alpha < alphaThreshold) {
-                            index = palette2.length(); // is transparent
-                        } else {
-                            index = palette2.getPaletteIndex(rgb);
-                        }
-                    } else {
-                        index = palette2.getPaletteIndex(rgb);
-                    }
-
-                    imagedata[y * width + x] = (byte) index;
-                }
-            }
-
-            final byte[] compressed = compressor.compress(imagedata);
-            writeAsSubBlocks(bos, compressed);
-//            image_data_total += compressed.length;
+        bos.write(frame.getLzwMinimumCodeSize());
+        if (frame.compressed == null) {
+            frame.compress();
         }
-
-        // palette2.dump();
-
-        bos.write(TERMINATOR_BYTE);
-
-        bos.close();
-        os.close();
+        writeAsSubBlocks(bos, frame.compressed);
     }
 
     /**
@@ -1020,15 +1460,16 @@ public class GifImageParser extends ImageParser {
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
+            final BinaryReader reader = getBinaryReader(is);
 
             final FormatCompliance formatCompliance = null;
-            final GifHeaderInfo ghi = readHeader(is, formatCompliance);
+            final GifHeaderInfo ghi = readHeader(reader, formatCompliance);
 
             if (ghi.globalColorTableFlag) {
-                readColorTable(is, ghi.sizeOfGlobalColorTable);
+                readColorTable(reader, ghi.sizeOfGlobalColorTable);
             }
 
-            final List<GifBlock> blocks = readBlocks(ghi, is, true, formatCompliance);
+            final List<GifBlock> blocks = readBlocks(ghi, reader, true, false, formatCompliance);
 
             final List<String> result = new ArrayList<String>();
             for (GifBlock block : blocks) {
@@ -190,22 +190,49 @@ final class IcnsDecoder {
         }
     }
 
+    static boolean canDecode(final IcnsType imageType) {
+        // FIXME: don't skip these when JPEG 2000 support is added:
+        return imageType != IcnsType.ICNS_256x256_32BIT_ARGB_IMAGE
+                && imageType != IcnsType.ICNS_512x512_32BIT_ARGB_IMAGE;
+    }
+
     public static List<BufferedImage> decodeAllImages(final IcnsImageParser.IcnsElement[] icnsElements)
             throws ImageReadException {
         final List<BufferedImage> result = new ArrayList<BufferedImage>();
         for (final IcnsElement imageElement : icnsElements) {
             final IcnsType imageType = IcnsType.findImageType(imageElement.type);
-            if (imageType == null) {
+            if (imageType == null || !canDecode(imageType)) {
                 continue;
             }
+            result.add(decodeImage(imageType, imageElement, icnsElements));
+        }
+        return result;
+    }
 
-            IcnsType maskType;
-            IcnsImageParser.IcnsElement maskElement = null;
-            if (imageType.hasMask()) {
-                maskType = imageType;
-                maskElement = imageElement;
-            } else {
-                maskType = IcnsType.find8BPPMaskType(imageType);
+    /**
+     * Decodes an image element, with its mask if it has one among the given
+     * elements.
+     */
+    static BufferedImage decodeImage(final IcnsType imageType,
+            final IcnsElement imageElement, final IcnsElement[] icnsElements)
+            throws ImageReadException {
+        IcnsType maskType;
+        IcnsImageParser.IcnsElement maskElement = null;
+        if (imageType.hasMask()) {
+            maskType = imageType;
+            maskElement = imageElement;
+        } else {
+            maskType = IcnsType.find8BPPMaskType(imageType);
+            if (maskType != null) {
+                for (final IcnsElement icnsElement : icnsElements) {
+                    if (icnsElement.type == maskType.getType()) {
+                        maskElement = icnsElement;
+                        break;
+                    }
+                }
+            }
+            if (maskElement == null) {
+                maskType = IcnsType.find1BPPMaskType(imageType);
                 if (maskType != null) {
                     for (final IcnsElement icnsElement : icnsElements) {
                         if (icnsElement.type == maskType.getType()) {
@@ -214,71 +241,53 @@ final class IcnsDecoder {
                         }
                     }
                 }
-                if (maskElement == null) {
-                    maskType = IcnsType.find1BPPMaskType(imageType);
-                    if (maskType != null) {
-                        for (final IcnsElement icnsElement : icnsElements) {
-                            if (icnsElement.type == maskType.getType()) {
-                                maskElement = icnsElement;
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-
-            // FIXME: don't skip these when JPEG 2000 support is added:
-            if (imageType == IcnsType.ICNS_256x256_32BIT_ARGB_IMAGE
-                    || imageType == IcnsType.ICNS_512x512_32BIT_ARGB_IMAGE) {
-                continue;
             }
+        }
 
-            final int expectedSize = (imageType.getWidth() * imageType.getHeight()
-                    * imageType.getBitsPerPixel() + 7) / 8;
-            byte[] imageData;
-            if (imageElement.data.length < expectedSize) {
-                if (imageType.getBitsPerPixel() == 32) {
-                    imageData = Rle24Compression.decompress(
-                            imageType.getWidth(), imageType.getHeight(),
-                            imageElement.data);
-                } else {
-                    throw new ImageReadException("Short image data but not a 32 bit compressed type");
-                }
+        final int expectedSize = (imageType.getWidth() * imageType.getHeight()
+                * imageType.getBitsPerPixel() + 7) / 8;
+        byte[] imageData;
+        if (imageElement.data.length < expectedSize) {
+            if (imageType.getBitsPerPixel() == 32) {
+                imageData = Rle24Compression.decompress(
+                        imageType.getWidth(), imageType.getHeight(),
+                        imageElement.data);
             } else {
-                imageData = imageElement.data;
+                throw new ImageReadException("Short image data but not a 32 bit compressed type");
             }
+        } else {
+            imageData = imageElement.data;
+        }
 
-            final ImageBuilder imageBuilder = new ImageBuilder(imageType.getWidth(),
-                    imageType.getHeight(), true);
-            switch (imageType.getBitsPerPixel()) {
-            case 1:
-                decode1BPPImage(imageType, imageData, imageBuilder);
-                break;
-            case 4:
-                decode4BPPImage(imageType, imageData, imageBuilder);
-                break;
-            case 8:
-                decode8BPPImage(imageType, imageData, imageBuilder);
-                break;
-            case 32:
-                decode32BPPImage(imageType, imageData, imageBuilder);
-                break;
-            default:
-                throw new ImageReadException("Unsupported bit depth " + imageType.getBitsPerPixel());
-            }
+        final ImageBuilder imageBuilder = new ImageBuilder(imageType.getWidth(),
+                imageType.getHeight(), true);
+        switch (imageType.getBitsPerPixel()) {
+        case 1:
+            decode1BPPImage(imageType, imageData, imageBuilder);
+            break;
+        case 4:
+            decode4BPPImage(imageType, imageData, imageBuilder);
+            break;
+        case 8:
+            decode8BPPImage(imageType, imageData, imageBuilder);
+            break;
+        case 32:
+            decode32BPPImage(imageType, imageData, imageBuilder);
+            break;
+        default:
+            throw new ImageReadException("Unsupported bit depth " + imageType.getBitsPerPixel());
+        }
 
-            if (maskElement != null) {
-                if (maskType.getBitsPerPixel() == 1) {
-                    apply1BPPMask(maskElement.data, imageBuilder);
-                } else if (maskType.getBitsPerPixel() == 8) {
-                    apply8BPPMask(maskElement.data, imageBuilder);
-                } else {
-                    throw new ImageReadException("Unsupport mask bit depth " + maskType.getBitsPerPixel());
-                }
+        if (maskElement != null) {
+            if (maskType.getBitsPerPixel() == 1) {
+                apply1BPPMask(maskElement.data, imageBuilder);
+            } else if (maskType.getBitsPerPixel() == 8) {
+                apply8BPPMask(maskElement.data, imageBuilder);
+            } else {
+                throw new ImageReadException("Unsupport mask bit depth " + maskType.getBitsPerPixel());
             }
-
-            result.add(imageBuilder.getBufferedImage());
         }
-        return result;
+
+        return imageBuilder.getBufferedImage();
     }
 }
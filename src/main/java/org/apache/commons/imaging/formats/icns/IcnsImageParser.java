@@ -35,7 +35,9 @@ import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.IconChooser;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.util.IoUtils;
 
@@ -48,7 +50,7 @@ public class IcnsImageParser extends ImageParser {
     private static final String[] ACCEPTED_EXTENSIONS = { ".icns", };
 
     public IcnsImageParser() {
-        super.setByteOrder(ByteOrder.BIG_ENDIAN);
+        super(ByteOrder.BIG_ENDIAN);
     }
 
     @Override
@@ -87,23 +89,24 @@ public class IcnsImageParser extends ImageParser {
         if (params.containsKey(PARAM_KEY_VERBOSE)) {
             params.remove(PARAM_KEY_VERBOSE);
         }
+        if (params.containsKey(PARSER_LISTENER)) {
+            params.remove(PARSER_LISTENER);
+        }
 
         if (!params.isEmpty()) {
             final Object firstKey = params.keySet().iterator().next();
             throw new ImageReadException("Unknown parameter: " + firstKey);
         }
 
-        final IcnsContents contents = readImage(byteSource);
-        final List<BufferedImage> images = IcnsDecoder
-                .decodeAllImages(contents.icnsElements);
-        if (images.isEmpty()) {
+        final List<IcnsType> imageTypes = readImageTypes(byteSource);
+        if (imageTypes.isEmpty()) {
             throw new ImageReadException("No icons in ICNS file");
         }
-        final BufferedImage image0 = images.get(0);
+        final IcnsType imageType0 = imageTypes.get(0);
         return new ImageInfo("Icns", 32, new ArrayList<String>(),
                 ImageFormats.ICNS, "ICNS Apple Icon Image",
-                image0.getHeight(), "image/x-icns", images.size(), 0, 0, 0, 0,
-                image0.getWidth(), false, true, false,
+                imageType0.getHeight(), "image/x-icns", imageTypes.size(), 0, 0, 0, 0,
+                imageType0.getWidth(), false, true, false,
                 ImageInfo.ColorType.RGB,
                 ImageInfo.CompressionAlgorithm.UNKNOWN);
     }
@@ -117,20 +120,21 @@ public class IcnsImageParser extends ImageParser {
         if (params.containsKey(PARAM_KEY_VERBOSE)) {
             params.remove(PARAM_KEY_VERBOSE);
         }
+        if (params.containsKey(PARSER_LISTENER)) {
+            params.remove(PARSER_LISTENER);
+        }
 
         if (!params.isEmpty()) {
             final Object firstKey = params.keySet().iterator().next();
             throw new ImageReadException("Unknown parameter: " + firstKey);
         }
 
-        final IcnsContents contents = readImage(byteSource);
-        final List<BufferedImage> images = IcnsDecoder
-                .decodeAllImages(contents.icnsElements);
-        if (images.isEmpty()) {
+        final List<IcnsType> imageTypes = readImageTypes(byteSource);
+        if (imageTypes.isEmpty()) {
             throw new ImageReadException("No icons in ICNS file");
         }
-        final BufferedImage image0 = images.get(0);
-        return new Dimension(image0.getWidth(), image0.getHeight());
+        final IcnsType imageType0 = imageTypes.get(0);
+        return new Dimension(imageType0.getWidth(), imageType0.getHeight());
     }
 
     @Override
@@ -254,6 +258,75 @@ public class IcnsImageParser extends ImageParser {
         }
     }
 
+    /**
+     * The type and position of an element, read without its data.
+     */
+    private static class IcnsElementHeader {
+        public final int type;
+        public final int elementSize;
+        public final long dataOffset;
+
+        public IcnsElementHeader(final int type, final int elementSize, final long dataOffset) {
+            this.type = type;
+            this.elementSize = elementSize;
+            this.dataOffset = dataOffset;
+        }
+    }
+
+    private List<IcnsElementHeader> readElementHeaders(final ByteSource byteSource)
+            throws ImageReadException, IOException {
+        InputStream is = null;
+        boolean canThrow = false;
+        try {
+            is = byteSource.getInputStream();
+            final IcnsHeader icnsHeader = readIcnsHeader(is);
+
+            final List<IcnsElementHeader> elementHeaders = new ArrayList<IcnsElementHeader>();
+            long offset = 8;
+            for (int remainingSize = icnsHeader.fileSize - 8; remainingSize > 0;) {
+                final int type = read4Bytes("Type", is, "Not a Valid ICNS File", getByteOrder());
+                final int elementSize = read4Bytes("ElementSize", is, "Not a Valid ICNS File", getByteOrder());
+                if (elementSize < 8) {
+                    throw new ImageReadException("Not a Valid ICNS File: element size is "
+                            + elementSize);
+                }
+                skipBytes(is, elementSize - 8, "Not a Valid ICNS File");
+                elementHeaders.add(new IcnsElementHeader(type, elementSize, offset + 8));
+                offset += elementSize;
+                remainingSize -= elementSize;
+            }
+
+            canThrow = true;
+            return elementHeaders;
+        } finally {
+            IoUtils.closeQuietly(canThrow, is);
+        }
+    }
+
+    private IcnsElement readIcnsElement(final ByteSource byteSource,
+            final IcnsElementHeader elementHeader) throws IOException {
+        final byte[] data = byteSource.getBlock(elementHeader.dataOffset,
+                elementHeader.elementSize - 8);
+        return new IcnsElement(elementHeader.type, elementHeader.elementSize, data);
+    }
+
+    /**
+     * Returns the types of the images that can be decoded, in the order
+     * they're in the file. Only the header of each element is read, as the
+     * type determines the size of the image.
+     */
+    private List<IcnsType> readImageTypes(final ByteSource byteSource)
+            throws ImageReadException, IOException {
+        final List<IcnsType> imageTypes = new ArrayList<IcnsType>();
+        for (final IcnsElementHeader elementHeader : readElementHeaders(byteSource)) {
+            final IcnsType imageType = IcnsType.findImageType(elementHeader.type);
+            if (imageType != null && IcnsDecoder.canDecode(imageType)) {
+                imageTypes.add(imageType);
+            }
+        }
+        return imageTypes;
+    }
+
     @Override
     public boolean dumpImageFile(final PrintWriter pw, final ByteSource byteSource)
             throws ImageReadException, IOException {
@@ -268,13 +341,45 @@ public class IcnsImageParser extends ImageParser {
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final IcnsContents icnsContents = readImage(byteSource);
-        final List<BufferedImage> result = IcnsDecoder
-                .decodeAllImages(icnsContents.icnsElements);
-        if (!result.isEmpty()) {
-            return result.get(0);
+        final List<IcnsElementHeader> elementHeaders = readElementHeaders(byteSource);
+        final IconChooser chooser = IconChooser.fromParams(params);
+        int index = -1;
+        for (int i = 0; i < elementHeaders.size(); i++) {
+            final IcnsType imageType = IcnsType.findImageType(elementHeaders.get(i).type);
+            if (imageType == null || !IcnsDecoder.canDecode(imageType)) {
+                continue;
+            }
+            if (chooser == null) {
+                index = i;
+                break;
+            }
+            chooser.add(i, imageType.getWidth(), imageType.getHeight(),
+                    imageType.getBitsPerPixel());
+        }
+        if (chooser != null) {
+            index = chooser.getChoice();
+        }
+        if (index < 0) {
+            throw new ImageReadException("No icons in ICNS file");
+        }
+
+        // only the chosen image and its masks are read
+        final IcnsType imageType = IcnsType.findImageType(elementHeaders.get(index).type);
+        final IcnsElement imageElement = readIcnsElement(byteSource, elementHeaders.get(index));
+        final List<IcnsElement> elements = new ArrayList<IcnsElement>();
+        elements.add(imageElement);
+        if (!imageType.hasMask()) {
+            final IcnsType mask8Type = IcnsType.find8BPPMaskType(imageType);
+            final IcnsType mask1Type = IcnsType.find1BPPMaskType(imageType);
+            for (final IcnsElementHeader elementHeader : elementHeaders) {
+                if ((mask8Type != null && elementHeader.type == mask8Type.getType())
+                        || (mask1Type != null && elementHeader.type == mask1Type.getType())) {
+                    elements.add(readIcnsElement(byteSource, elementHeader));
+                }
+            }
         }
-        throw new ImageReadException("No icons in ICNS file");
+        return IcnsDecoder.decodeImage(imageType, imageElement,
+                elements.toArray(new IcnsElement[elements.size()]));
     }
 
     @Override
@@ -324,9 +429,12 @@ public class IcnsImageParser extends ImageParser {
         bos.write4Bytes(imageType.getType());
         bos.write4Bytes(4 + 4 + 4 * imageType.getWidth()
                 * imageType.getHeight());
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[src.getWidth()];
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 bos.write(0);
                 bos.write(argb >> 16);
                 bos.write(argb >> 8);
@@ -338,8 +446,9 @@ public class IcnsImageParser extends ImageParser {
         bos.write4Bytes(maskType.getType());
         bos.write4Bytes(4 + 4 + imageType.getWidth() * imageType.getWidth());
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 bos.write(argb >> 24);
             }
         }
@@ -39,7 +39,10 @@ import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.BinaryReader;
+import org.apache.commons.imaging.common.IconChooser;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.bmp.BmpImageParser;
 import org.apache.commons.imaging.palette.PaletteFactory;
@@ -47,14 +50,13 @@ import org.apache.commons.imaging.palette.SimplePalette;
 import org.apache.commons.imaging.util.IoUtils;
 
 import static org.apache.commons.imaging.ImagingConstants.*;
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
 public class IcoImageParser extends ImageParser {
     private static final String DEFAULT_EXTENSION = ".ico";
     private static final String[] ACCEPTED_EXTENSIONS = { ".ico", ".cur", };
 
     public IcoImageParser() {
-        super.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        super(ByteOrder.LITTLE_ENDIAN);
     }
 
     @Override
@@ -85,18 +87,49 @@ public class IcoImageParser extends ImageParser {
         return null;
     }
 
-    // TODO should throw UOE
+    /**
+     * Describes the first icon, which is the one getBufferedImage() returns,
+     * from the directory of icons and the header of the icon's image.
+     */
     @Override
     public ImageInfo getImageInfo(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return null;
+        final IconDirectory directory = readIconDirectory(byteSource);
+        if (directory.iconInfos.length < 1) {
+            throw new ImageReadException("No icons in ICO file");
+        }
+        final IconImageHeader header = readIconImageHeader(byteSource,
+                directory.iconInfos[0]);
+
+        final boolean cursor = directory.fileHeader.iconType == 2;
+        final int physicalWidthDpi = (int) (header.xPelsPerMeter * .0254);
+        final int physicalHeightDpi = (int) (header.yPelsPerMeter * .0254);
+        final float physicalWidthInch = physicalWidthDpi > 0
+                ? (float) header.width / physicalWidthDpi : 0;
+        final float physicalHeightInch = physicalHeightDpi > 0
+                ? (float) header.height / physicalHeightDpi : 0;
+        return new ImageInfo(cursor ? "Cur" : "Ico", header.bitsPerPixel,
+                new ArrayList<String>(), ImageFormats.ICO,
+                cursor ? "CUR Windows Cursor" : "ICO Windows Icon",
+                header.height, "image/vnd.microsoft.icon",
+                directory.iconInfos.length, physicalHeightDpi,
+                physicalHeightInch, physicalWidthDpi, physicalWidthInch,
+                header.width, false,
+                true, header.bitsPerPixel <= 8, ImageInfo.ColorType.RGB,
+                header.png ? ImageInfo.CompressionAlgorithm.PNG_FILTER
+                        : ImageInfo.CompressionAlgorithm.NONE);
     }
 
-    // TODO should throw UOE
     @Override
     public Dimension getImageSize(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        return null;
+        final IconDirectory directory = readIconDirectory(byteSource);
+        if (directory.iconInfos.length < 1) {
+            throw new ImageReadException("No icons in ICO file");
+        }
+        final IconImageHeader header = readIconImageHeader(byteSource,
+                directory.iconInfos[0]);
+        return new Dimension(header.width, header.height);
     }
 
     // TODO should throw UOE
@@ -128,10 +161,10 @@ public class IcoImageParser extends ImageParser {
         }
     }
 
-    private FileHeader readFileHeader(final InputStream is) throws ImageReadException, IOException {
-        final int reserved = read2Bytes("Reserved", is, "Not a Valid ICO File", getByteOrder());
-        final int iconType = read2Bytes("IconType", is, "Not a Valid ICO File", getByteOrder());
-        final int iconCount = read2Bytes("IconCount", is, "Not a Valid ICO File", getByteOrder());
+    private FileHeader readFileHeader(final BinaryReader reader) throws ImageReadException, IOException {
+        final int reserved = reader.getU16("Not a Valid ICO File");
+        final int iconType = reader.getU16("Not a Valid ICO File");
+        final int iconCount = reader.getU16("Not a Valid ICO File");
 
         if (reserved != 0) {
             throw new ImageReadException("Not a Valid ICO File: reserved is " + reserved);
@@ -180,27 +213,27 @@ public class IcoImageParser extends ImageParser {
         }
     }
 
-    private IconInfo readIconInfo(final InputStream is) throws IOException {
+    private IconInfo readIconInfo(final BinaryReader reader) throws IOException {
         // Width (1 byte), Width of Icon (1 to 255)
-        final byte width = readByte("Width", is, "Not a Valid ICO File");
+        final byte width = reader.getByte("Not a Valid ICO File");
         // Height (1 byte), Height of Icon (1 to 255)
-        final byte height = readByte("Height", is, "Not a Valid ICO File");
+        final byte height = reader.getByte("Not a Valid ICO File");
         // ColorCount (1 byte), Number of colors, either
         // 0 for 24 bit or higher,
         // 2 for monochrome or 16 for 16 color images.
-        final byte colorCount = readByte("ColorCount", is, "Not a Valid ICO File");
+        final byte colorCount = reader.getByte("Not a Valid ICO File");
         // Reserved (1 byte), Not used (always 0)
-        final byte reserved = readByte("Reserved", is, "Not a Valid ICO File");
+        final byte reserved = reader.getByte("Not a Valid ICO File");
         // Planes (2 bytes), always 1
-        final int planes = read2Bytes("Planes", is, "Not a Valid ICO File", getByteOrder());
+        final int planes = reader.getU16("Not a Valid ICO File");
         // BitCount (2 bytes), number of bits per pixel (1 for monchrome,
         // 4 for 16 colors, 8 for 256 colors, 24 for true colors,
         // 32 for true colors + alpha channel)
-        final int bitCount = read2Bytes("BitCount", is, "Not a Valid ICO File", getByteOrder());
+        final int bitCount = reader.getU16("Not a Valid ICO File");
         // ImageSize (4 bytes), Length of resource in bytes
-        final int imageSize = read4Bytes("ImageSize", is, "Not a Valid ICO File", getByteOrder());
+        final int imageSize = reader.getS32("Not a Valid ICO File");
         // ImageOffset (4 bytes), start of the image in the file
-        final int imageOffset = read4Bytes("ImageOffset", is, "Not a Valid ICO File", getByteOrder());
+        final int imageOffset = reader.getS32("Not a Valid ICO File");
 
         return new IconInfo(width, height, colorCount, reserved, planes, bitCount, imageSize, imageOffset);
     }
@@ -319,22 +352,22 @@ public class IcoImageParser extends ImageParser {
 
     private IconData readBitmapIconData(final byte[] iconData, final IconInfo fIconInfo)
             throws ImageReadException, IOException {
-        final ByteArrayInputStream is = new ByteArrayInputStream(iconData);
-        final int size = read4Bytes("size", is, "Not a Valid ICO File", getByteOrder()); // Size (4
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(iconData));
+        final int size = reader.getS32("Not a Valid ICO File"); // Size (4
                                                                    // bytes),
                                                                    // size of
                                                                    // this
                                                                    // structure
                                                                    // (always
                                                                    // 40)
-        final int width = read4Bytes("width", is, "Not a Valid ICO File", getByteOrder()); // Width (4
+        final int width = reader.getS32("Not a Valid ICO File"); // Width (4
                                                                      // bytes),
                                                                      // width of
                                                                      // the
                                                                      // image
                                                                      // (same as
                                                                      // iconinfo.width)
-        final int height = read4Bytes("height", is, "Not a Valid ICO File", getByteOrder()); // Height
+        final int height = reader.getS32("Not a Valid ICO File"); // Height
                                                                        // (4
                                                                        // bytes),
                                                                        // scanlines
@@ -345,12 +378,12 @@ public class IcoImageParser extends ImageParser {
                                                                        // map
                                                                        // (iconinfo.height
                                                                        // * 2)
-        final int planes = read2Bytes("planes", is, "Not a Valid ICO File", getByteOrder()); // Planes
+        final int planes = reader.getU16("Not a Valid ICO File"); // Planes
                                                                        // (2
                                                                        // bytes),
                                                                        // always
                                                                        // 1
-        final int bitCount = read2Bytes("bitCount", is, "Not a Valid ICO File", getByteOrder()); // BitCount
+        final int bitCount = reader.getU16("Not a Valid ICO File"); // BitCount
                                                                            // (2
                                                                            // bytes),
                                                                            // 1,4,8,16,24,32
@@ -358,7 +391,7 @@ public class IcoImageParser extends ImageParser {
                                                                            // iconinfo
                                                                            // for
                                                                            // details)
-        int compression = read4Bytes("compression", is, "Not a Valid ICO File", getByteOrder()); // Compression
+        int compression = reader.getS32("Not a Valid ICO File"); // Compression
                                                                                  // (4
                                                                                  // bytes),
                                                                                  // we
@@ -366,7 +399,7 @@ public class IcoImageParser extends ImageParser {
                                                                                  // use
                                                                                  // this
                                                                                  // (0)
-        final int sizeImage = read4Bytes("sizeImage", is, "Not a Valid ICO File", getByteOrder()); // SizeImage
+        final int sizeImage = reader.getS32("Not a Valid ICO File"); // SizeImage
                                                                              // (4
                                                                              // bytes),
                                                                              // we
@@ -374,13 +407,11 @@ public class IcoImageParser extends ImageParser {
                                                                              // use
                                                                              // this
                                                                              // (0)
-        final int xPelsPerMeter = read4Bytes("xPelsPerMeter", is,
-                "Not a Valid ICO File", getByteOrder()); // XPelsPerMeter (4 bytes), we don?t
+        final int xPelsPerMeter = reader.getS32("Not a Valid ICO File"); // XPelsPerMeter (4 bytes), we don?t
                                          // use this (0)
-        final int yPelsPerMeter = read4Bytes("yPelsPerMeter", is, 
-                "Not a Valid ICO File", getByteOrder()); // YPelsPerMeter (4 bytes), we don?t
+        final int yPelsPerMeter = reader.getS32("Not a Valid ICO File"); // YPelsPerMeter (4 bytes), we don?t
                                          // use this (0)
-        final int colorsUsed = read4Bytes("colorsUsed", is, "Not a Valid ICO File", getByteOrder()); // ColorsUsed
+        final int colorsUsed = reader.getS32("Not a Valid ICO File"); // ColorsUsed
                                                                                // (4
                                                                                // bytes),
                                                                                // we
@@ -388,19 +419,19 @@ public class IcoImageParser extends ImageParser {
                                                                                // use
                                                                                // this
                                                                                // (0)
-        final int colorsImportant = read4Bytes("ColorsImportant", is,
-                "Not a Valid ICO File", getByteOrder()); // ColorsImportant (4 bytes), we don?t
+        final int colorsImportant = reader.getS32("Not a Valid ICO File"); // ColorsImportant (4 bytes), we don?t
                                          // use this (0)
         int redMask = 0;
         int greenMask = 0;
         int blueMask = 0;
         int alphaMask = 0;
         if (compression == 3) {
-            redMask = read4Bytes("redMask", is, "Not a Valid ICO File", getByteOrder());
-            greenMask = read4Bytes("greenMask", is, "Not a Valid ICO File", getByteOrder());
-            blueMask = read4Bytes("blueMask", is, "Not a Valid ICO File", getByteOrder());
+            redMask = reader.getS32("Not a Valid ICO File");
+            greenMask = reader.getS32("Not a Valid ICO File");
+            blueMask = reader.getS32("Not a Valid ICO File");
         }
-        final byte[] restOfFile = readBytes("RestOfFile", is, is.available());
+        final byte[] restOfFile = reader.getBytes(
+                iconData.length - (int) reader.getPosition(), "Not a Valid ICO File");
 
         if (size != 40) {
             throw new ImageReadException("Not a Valid ICO File: Wrong bitmap header size " + size);
@@ -478,15 +509,26 @@ public class IcoImageParser extends ImageParser {
                                                           // byte size.
         }
         final int colorMapSizeBytes = t_scanline_size * (height / 2);
+        // The transparency map follows the color table and the pixels. The
+        // BMP parser reads ahead, so it is located by its offset rather than
+        // by reading on from where the BMP parser stopped.
+        int transparencyMapOffset;
+        if (compression == 0 || compression == 3) {
+            final int colorTableSize = bitmapPixelsOffset - 14 - 56;
+            final int bitmapScanlineSize = ((width * bitCount + 31) / 32) * 4;
+            transparencyMapOffset = colorTableSize + bitmapScanlineSize * (height / 2);
+        } else {
+            // the length of RLE compressed pixels isn't known in advance
+            transparencyMapOffset = restOfFile.length - colorMapSizeBytes;
+        }
         byte[] transparencyMap = null;
-        try {
-            transparencyMap = readBytes("transparency_map",
-                    bmpInputStream, colorMapSizeBytes,
-                    "Not a Valid ICO File");
-        } catch (final IOException ioEx) {
-            if (bitCount != 32) {
-                throw ioEx;
-            }
+        if (transparencyMapOffset >= 0
+                && transparencyMapOffset + colorMapSizeBytes <= restOfFile.length) {
+            transparencyMap = new byte[colorMapSizeBytes];
+            System.arraycopy(restOfFile, transparencyMapOffset, transparencyMap,
+                    0, colorMapSizeBytes);
+        } else if (bitCount != 32) {
+            throw new IOException("Not a Valid ICO File: transparency map is missing");
         }
 
         boolean allAlphasZero = true;
@@ -545,27 +587,31 @@ public class IcoImageParser extends ImageParser {
         }
     }
 
-    private ImageContents readImage(final ByteSource byteSource)
+    private static class IconDirectory {
+        public final FileHeader fileHeader;
+        public final IconInfo[] iconInfos;
+
+        public IconDirectory(final FileHeader fileHeader, final IconInfo[] iconInfos) {
+            this.fileHeader = fileHeader;
+            this.iconInfos = iconInfos;
+        }
+    }
+
+    private IconDirectory readIconDirectory(final ByteSource byteSource)
             throws ImageReadException, IOException {
         InputStream is = null;
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
-            final FileHeader fileHeader = readFileHeader(is);
+            final BinaryReader reader = getBinaryReader(is);
+            final FileHeader fileHeader = readFileHeader(reader);
 
             final IconInfo[] fIconInfos = new IconInfo[fileHeader.iconCount];
             for (int i = 0; i < fileHeader.iconCount; i++) {
-                fIconInfos[i] = readIconInfo(is);
-            }
-
-            final IconData[] fIconDatas = new IconData[fileHeader.iconCount];
-            for (int i = 0; i < fileHeader.iconCount; i++) {
-                final byte[] iconData = byteSource.getBlock(
-                        fIconInfos[i].imageOffset, fIconInfos[i].imageSize);
-                fIconDatas[i] = readIconData(iconData, fIconInfos[i]);
+                fIconInfos[i] = readIconInfo(reader);
             }
 
-            final ImageContents ret = new ImageContents(fileHeader, fIconDatas);
+            final IconDirectory ret = new IconDirectory(fileHeader, fIconInfos);
             canThrow = true;
             return ret;
         } finally {
@@ -573,6 +619,95 @@ public class IcoImageParser extends ImageParser {
         }
     }
 
+    /**
+     * The size and depth of an icon, as its image says they are. The
+     * directory's width and height can't be more than 255, and its bit
+     * count is often 0 for icons stored as PNG images.
+     */
+    private static class IconImageHeader {
+        public final int width;
+        public final int height;
+        public final int bitsPerPixel;
+        public final boolean png;
+        public final int xPelsPerMeter;
+        public final int yPelsPerMeter;
+
+        public IconImageHeader(final int width, final int height,
+                final int bitsPerPixel, final boolean png,
+                final int xPelsPerMeter, final int yPelsPerMeter) {
+            this.width = width;
+            this.height = height;
+            this.bitsPerPixel = bitsPerPixel;
+            this.png = png;
+            this.xPelsPerMeter = xPelsPerMeter;
+            this.yPelsPerMeter = yPelsPerMeter;
+        }
+    }
+
+    private IconImageHeader readIconImageHeader(final ByteSource byteSource,
+            final IconInfo iconInfo) throws ImageReadException, IOException {
+        // enough for a BITMAPINFOHEADER, and for a PNG signature and IHDR
+        final byte[] bytes = byteSource.getBlock(iconInfo.imageOffset,
+                Math.min(40, iconInfo.imageSize));
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(bytes));
+        if (bytes.length >= 26 && (0xff & bytes[0]) == 0x89 && bytes[1] == 'P'
+                && bytes[2] == 'N' && bytes[3] == 'G') {
+            reader.setByteOrder(ByteOrder.BIG_ENDIAN);
+            // signature, chunk length and chunk type
+            reader.skip(16, "Not a Valid ICO File");
+            final int width = reader.getS32("Not a Valid ICO File");
+            final int height = reader.getS32("Not a Valid ICO File");
+            final int bitDepth = reader.getU8("Not a Valid ICO File");
+            final int colorType = reader.getU8("Not a Valid ICO File");
+            int samplesPerPixel;
+            switch (colorType) {
+            case 2:
+                samplesPerPixel = 3;
+                break;
+            case 4:
+                samplesPerPixel = 2;
+                break;
+            case 6:
+                samplesPerPixel = 4;
+                break;
+            default:
+                samplesPerPixel = 1;
+                break;
+            }
+            return new IconImageHeader(width, height, bitDepth * samplesPerPixel, true,
+                    0, 0);
+        }
+
+        reader.getS32("Not a Valid ICO File"); // size
+        final int width = reader.getS32("Not a Valid ICO File");
+        // the height of the pixels and the transparency map together
+        final int height = reader.getS32("Not a Valid ICO File") / 2;
+        reader.getU16("Not a Valid ICO File"); // planes
+        final int bitCount = reader.getU16("Not a Valid ICO File");
+        reader.getS32("Not a Valid ICO File"); // compression
+        reader.getS32("Not a Valid ICO File"); // size of the image
+        final int xPelsPerMeter = reader.getS32("Not a Valid ICO File");
+        final int yPelsPerMeter = reader.getS32("Not a Valid ICO File");
+        return new IconImageHeader(width, height, bitCount, false,
+                xPelsPerMeter, yPelsPerMeter);
+    }
+
+    private ImageContents readImage(final ByteSource byteSource)
+            throws ImageReadException, IOException {
+        final IconDirectory directory = readIconDirectory(byteSource);
+        final FileHeader fileHeader = directory.fileHeader;
+        final IconInfo[] fIconInfos = directory.iconInfos;
+
+        final IconData[] fIconDatas = new IconData[fileHeader.iconCount];
+        for (int i = 0; i < fileHeader.iconCount; i++) {
+            final byte[] iconData = byteSource.getBlock(
+                    fIconInfos[i].imageOffset, fIconInfos[i].imageSize);
+            fIconDatas[i] = readIconData(iconData, fIconInfos[i]);
+        }
+
+        return new ImageContents(fileHeader, fIconDatas);
+    }
+
     @Override
     public boolean dumpImageFile(final PrintWriter pw, final ByteSource byteSource)
             throws ImageReadException, IOException {
@@ -587,12 +722,34 @@ public class IcoImageParser extends ImageParser {
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final ImageContents contents = readImage(byteSource);
-        final FileHeader fileHeader = contents.fileHeader;
-        if (fileHeader.iconCount > 0) {
-            return contents.iconDatas[0].readBufferedImage();
+        final IconDirectory directory = readIconDirectory(byteSource);
+        if (directory.iconInfos.length < 1) {
+            throw new ImageReadException("No icons in ICO file");
+        }
+        int index = 0;
+        final IconChooser chooser = IconChooser.fromParams(params);
+        if (chooser != null) {
+            for (int i = 0; i < directory.iconInfos.length; i++) {
+                final IconInfo iconInfo = directory.iconInfos[i];
+                if (iconInfo.bitCount == 0) {
+                    // often the case for PNG icons
+                    final IconImageHeader header = readIconImageHeader(byteSource, iconInfo);
+                    chooser.add(i, header.width, header.height, header.bitsPerPixel);
+                } else {
+                    // a width or height of 0 is 256
+                    final int width = (0xff & iconInfo.width) == 0 ? 256 : 0xff & iconInfo.width;
+                    final int height = (0xff & iconInfo.height) == 0 ? 256 : 0xff & iconInfo.height;
+                    chooser.add(i, width, height, iconInfo.bitCount);
+                }
+            }
+            index = chooser.getChoice();
         }
-        throw new ImageReadException("No icons in ICO file");
+
+        // only the chosen icon is read
+        final IconInfo iconInfo = directory.iconInfos[index];
+        final byte[] iconData = byteSource.getBlock(iconInfo.imageOffset,
+                iconInfo.imageSize);
+        return readIconData(iconData, iconInfo).readBufferedImage();
     }
 
     @Override
@@ -720,7 +877,7 @@ public class IcoImageParser extends ImageParser {
         bos.write4Bytes(0); // compression
         bos.write4Bytes(0); // image size
         bos.write4Bytes(pixelDensity == null ? 0 : (int) Math.round(pixelDensity.horizontalDensityMetres())); // x pixels per meter
-        bos.write4Bytes(pixelDensity == null ? 0 : (int) Math.round(pixelDensity.horizontalDensityMetres())); // y pixels per meter
+        bos.write4Bytes(pixelDensity == null ? 0 : (int) Math.round(pixelDensity.verticalDensityMetres())); // y pixels per meter
         bos.write4Bytes(0); // colors used, 0 = (1 << bitCount) (ignored)
         bos.write4Bytes(0); // colors important
 
@@ -744,9 +901,12 @@ public class IcoImageParser extends ImageParser {
         int bitCache = 0;
         int bitsInCache = 0;
         final int rowPadding = scanline_size - (bitCount * src.getWidth() + 7) / 8;
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[src.getWidth()];
         for (int y = src.getHeight() - 1; y >= 0; y--) {
+            pixels.getRow(y, row);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 if (bitCount < 8) {
                     final int rgb = 0xffffff & argb;
                     final int index = palette.getPaletteIndex(rgb);
@@ -788,8 +948,9 @@ public class IcoImageParser extends ImageParser {
 
         final int t_row_padding = t_scanline_size - (src.getWidth() + 7) / 8;
         for (int y = src.getHeight() - 1; y >= 0; y--) {
+            pixels.getRow(y, row);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int alpha = 0xff & (argb >> 24);
                 bitCache <<= 1;
                 if (alpha == 0) {
@@ -25,6 +25,7 @@ import java.nio.ByteOrder;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -36,7 +37,10 @@ import org.apache.commons.imaging.ImageInfo;
 import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.ParserPhase;
+import org.apache.commons.imaging.common.PhaseRecorder;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.formats.jpeg.decoder.JpegDecoder;
 import org.apache.commons.imaging.formats.jpeg.iptc.IptcParser;
 import org.apache.commons.imaging.formats.jpeg.iptc.PhotoshopApp13Data;
@@ -54,7 +58,9 @@ import org.apache.commons.imaging.formats.jpeg.xmp.JpegXmpParser;
 import org.apache.commons.imaging.formats.tiff.TiffField;
 import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
 import org.apache.commons.imaging.formats.tiff.TiffImageParser;
+import org.apache.commons.imaging.formats.tiff.TiffReader;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
 import org.apache.commons.imaging.util.Debug;
 
 import static org.apache.commons.imaging.ImagingConstants.*;
@@ -65,7 +71,7 @@ public class JpegImageParser extends ImageParser {
     private static final String[] ACCEPTED_EXTENSIONS = { ".jpg", ".jpeg", };
     
     public JpegImageParser() {
-        setByteOrder(ByteOrder.BIG_ENDIAN);
+        super(ByteOrder.BIG_ENDIAN);
         // setDebug(true);
     }
 
@@ -94,7 +100,8 @@ public class JpegImageParser extends ImageParser {
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final JpegDecoder jpegDecoder = new JpegDecoder();
+        final JpegDecoder jpegDecoder = new JpegDecoder(
+                getPhaseRecorder(ImageFormats.JPEG, params));
         return jpegDecoder.decode(byteSource);
     }
 
@@ -116,7 +123,6 @@ public class JpegImageParser extends ImageParser {
             final int[] markers, final boolean returnAfterFirst,
             final boolean readEverything) throws ImageReadException, IOException {
         final List<Segment> result = new ArrayList<Segment>();
-        final JpegImageParser parser = this;
         final int[] sofnSegments = {
                 // kJFIFMarker,
                 JpegConstants.SOF0_MARKER,
@@ -134,64 +140,36 @@ public class JpegImageParser extends ImageParser {
                 JpegConstants.SOF15_MARKER,
         };
 
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            public boolean beginSOS() {
-                return false;
+        for (final JpegSegmentIndex.Entry entry : JpegSegmentIndex.getInstance(byteSource).getEntries()) {
+            final int marker = entry.marker;
+            if (!keepMarker(marker, markers)) {
+                continue;
             }
 
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
+            final byte[] segmentData = entry.getData(byteSource);
+            if (marker == JpegConstants.JPEG_APP13_MARKER) {
+                result.add(new App13Segment(this, marker, segmentData));
+            } else if (marker == JpegConstants.JPEG_APP14_MARKER) {
+                result.add(new App14Segment(marker, segmentData));
+            } else if (marker == JpegConstants.JPEG_APP2_MARKER) {
+                result.add(new App2Segment(marker, segmentData));
+            } else if (marker == JpegConstants.JFIF_MARKER) {
+                result.add(new JfifSegment(marker, segmentData));
+            } else if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
+                result.add(new SofnSegment(marker, segmentData));
+            } else if (marker == JpegConstants.DQT_MARKER) {
+                result.add(new DqtSegment(marker, segmentData));
+            } else if ((marker >= JpegConstants.JPEG_APP1_MARKER)
+                    && (marker <= JpegConstants.JPEG_APP15_MARKER)) {
+                result.add(new UnknownSegment(marker, segmentData));
+            } else if (marker == JpegConstants.COM_MARKER) {
+                result.add(new ComSegment(marker, segmentData));
             }
 
-            // return false to exit traversal.
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == JpegConstants.EOI_MARKER) {
-                    return false;
-                }
-
-                // Debug.debug("visitSegment marker", marker);
-                // // Debug.debug("visitSegment keepMarker(marker, markers)",
-                // keepMarker(marker, markers));
-                // Debug.debug("visitSegment keepMarker(marker, markers)",
-                // keepMarker(marker, markers));
-
-                if (!keepMarker(marker, markers)) {
-                    return true;
-                }
-
-                if (marker == JpegConstants.JPEG_APP13_MARKER) {
-                    // Debug.debug("app 13 segment data", segmentData.length);
-                    result.add(new App13Segment(parser, marker, segmentData));
-                } else if (marker == JpegConstants.JPEG_APP14_MARKER) {
-                    result.add(new App14Segment(marker, segmentData));
-                } else if (marker == JpegConstants.JPEG_APP2_MARKER) {
-                    result.add(new App2Segment(marker, segmentData));
-                } else if (marker == JpegConstants.JFIF_MARKER) {
-                    result.add(new JfifSegment(marker, segmentData));
-                } else if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
-                    result.add(new SofnSegment(marker, segmentData));
-                } else if (marker == JpegConstants.DQT_MARKER) {
-                    result.add(new DqtSegment(marker, segmentData));
-                } else if ((marker >= JpegConstants.JPEG_APP1_MARKER)
-                        && (marker <= JpegConstants.JPEG_APP15_MARKER)) {
-                    result.add(new UnknownSegment(marker, segmentData));
-                } else if (marker == JpegConstants.COM_MARKER) {
-                    result.add(new ComSegment(marker, segmentData));
-                }
-
-                if (returnAfterFirst) {
-                    return false;
-                }
-
-                return true;
+            if (returnAfterFirst) {
+                break;
             }
-        };
-
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        }
 
         return result;
     }
@@ -309,10 +287,19 @@ public class JpegImageParser extends ImageParser {
     @Override
     public ImageMetadata getMetadata(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final TiffImageMetadata exif = getExifMetadata(byteSource, params);
-
-        final JpegPhotoshopMetadata photoshop = getPhotoshopMetadata(byteSource,
-                params);
+        final PhaseRecorder recorder = getPhaseRecorder(ImageFormats.JPEG, params);
+        final long start = recorder.start();
+        ParserPhase phase = ParserPhase.METADATA;
+        final TiffImageMetadata exif;
+        final JpegPhotoshopMetadata photoshop;
+        try {
+            exif = getExifMetadata(byteSource, params);
+            photoshop = getPhotoshopMetadata(byteSource, params);
+            recorder.end(phase, start, -1, 0);
+            phase = null;
+        } finally {
+            recorder.failed(phase, start);
+        }
 
         if (null == exif && null == photoshop) {
             return null;
@@ -356,6 +343,27 @@ public class JpegImageParser extends ImageParser {
                 params);
     }
 
+    /**
+     * Reads the EXIF fields of the given tags, without building the
+     * TiffImageMetadata of the whole EXIF segment.
+     * 
+     * @return the first field found for each of the tags, which is empty if
+     *         the file has no EXIF segment.
+     * @see org.apache.commons.imaging.formats.tiff.TiffReader#readFields(ByteSource,
+     *      Collection, int[])
+     */
+    public Map<TagInfo, TiffField> getExifFields(final ByteSource byteSource,
+            final Collection<? extends TagInfo> tags, final Map<String, Object> params)
+            throws ImageReadException, IOException {
+        final byte[] bytes = getExifRawData(byteSource);
+        if (null == bytes) {
+            return new HashMap<TagInfo, TiffField>();
+        }
+
+        return new TiffReader(isStrict(params)).readFields(
+                new ByteSourceArray(bytes), tags);
+    }
+
     public byte[] getExifRawData(final ByteSource byteSource)
             throws ImageReadException, IOException {
         final List<Segment> segments = readSegments(byteSource,
@@ -396,118 +404,37 @@ public class JpegImageParser extends ImageParser {
 
     public boolean hasExifSegment(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            public boolean beginSOS() {
-                return false;
-            }
-
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER) {
-                    if (startsWith(segmentData, JpegConstants.EXIF_IDENTIFIER_CODE)) {
-                        result[0] = true;
-                        return false;
-                    }
-                }
-
+        for (final JpegSegmentIndex.Entry entry : JpegSegmentIndex.getInstance(
+                byteSource).getEntries(JpegConstants.JPEG_APP1_MARKER)) {
+            if (startsWith(entry.getData(byteSource), JpegConstants.EXIF_IDENTIFIER_CODE)) {
                 return true;
             }
-        };
-
-        new JpegUtils().traverseJFIF(byteSource, visitor);
-
-        return result[0];
+        }
+        return false;
     }
 
     public boolean hasIptcSegment(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            public boolean beginSOS() {
-                return false;
-            }
-
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP13_MARKER) {
-                    if (new IptcParser().isPhotoshopJpegSegment(segmentData)) {
-                        result[0] = true;
-                        return false;
-                    }
-                }
-
+        final IptcParser iptcParser = new IptcParser();
+        for (final JpegSegmentIndex.Entry entry : JpegSegmentIndex.getInstance(
+                byteSource).getEntries(JpegConstants.JPEG_APP13_MARKER)) {
+            if (iptcParser.isPhotoshopJpegSegment(entry.getData(byteSource))) {
                 return true;
             }
-        };
-
-        new JpegUtils().traverseJFIF(byteSource, visitor);
-
-        return result[0];
+        }
+        return false;
     }
 
     public boolean hasXmpSegment(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            public boolean beginSOS() {
-                return false;
-            }
-
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER) {
-                    if (new JpegXmpParser().isXmpJpegSegment(segmentData)) {
-                        result[0] = true;
-                        return false;
-                    }
-                }
-
+        final JpegXmpParser xmpParser = new JpegXmpParser();
+        for (final JpegSegmentIndex.Entry entry : JpegSegmentIndex.getInstance(
+                byteSource).getEntries(JpegConstants.JPEG_APP1_MARKER)) {
+            if (xmpParser.isXmpJpegSegment(entry.getData(byteSource))) {
                 return true;
             }
-        };
-        new JpegUtils().traverseJFIF(byteSource, visitor);
-
-        return result[0];
+        }
+        return false;
     }
 
     /**
@@ -526,37 +453,15 @@ public class JpegImageParser extends ImageParser {
 
         final List<String> result = new ArrayList<String>();
 
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            public boolean beginSOS() {
-                return false;
-            }
-
-            public void visitSOS(final int marker, final byte[] markerBytes,
-                    final byte[] imageData) {
-                // don't need image data
-            }
-
-            // return false to exit traversal.
-            public boolean visitSegment(final int marker, final byte[] markerBytes,
-                    final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImageReadException, IOException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER) {
-                    if (new JpegXmpParser().isXmpJpegSegment(segmentData)) {
-                        result.add(new JpegXmpParser()
-                                .parseXmpJpegSegment(segmentData));
-                        return false;
-                    }
-                }
-
-                return true;
+        final JpegXmpParser xmpParser = new JpegXmpParser();
+        for (final JpegSegmentIndex.Entry entry : JpegSegmentIndex.getInstance(
+                byteSource).getEntries(JpegConstants.JPEG_APP1_MARKER)) {
+            final byte[] segmentData = entry.getData(byteSource);
+            if (xmpParser.isXmpJpegSegment(segmentData)) {
+                result.add(xmpParser.parseXmpJpegSegment(segmentData));
+                break;
             }
-        };
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        }
 
         if (result.isEmpty()) {
             return null;
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.util.IoUtils;
+
+/**
+ * The positions of the marker segments that precede the entropy-coded image
+ * data of a JPEG file.
+ * <p>
+ * The index is built in a single pass that skips over the segment data
+ * instead of copying it, and stops at the first SOS (or EOI) marker. The
+ * data of individual segments is then read with positioned reads from the
+ * byte source.
+ * <p>
+ * Indices of files are cached by the file's path, length and modification
+ * time, so that each call that opens the same unchanged file finds the
+ * index, and only the most recently used files are kept. Indices of other
+ * byte sources are cached for as long as the byte source is reachable, on
+ * the assumption that the source doesn't change its segment layout.
+ */
+public final class JpegSegmentIndex {
+    private static final int MAX_CACHED_FILES = 32;
+    private static final Map<FileKey, JpegSegmentIndex> FILE_CACHE = Collections
+            .synchronizedMap(new LinkedHashMap<FileKey, JpegSegmentIndex>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<FileKey, JpegSegmentIndex> eldest) {
+                    return size() > MAX_CACHED_FILES;
+                }
+            });
+    private static final Map<ByteSource, JpegSegmentIndex> CACHE = Collections
+            .synchronizedMap(new WeakHashMap<ByteSource, JpegSegmentIndex>());
+
+    /**
+     * A marker segment: its marker, where it starts in the file, and the
+     * segment length as given after the marker (which counts the two length
+     * bytes but not the marker).
+     */
+    public static final class Entry {
+        public final int marker;
+        public final long offset;
+        public final int length;
+
+        Entry(final int marker, final long offset, final int length) {
+            this.marker = marker;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getDataOffset() {
+            return offset + 4;
+        }
+
+        public int getDataLength() {
+            return length - 2;
+        }
+
+        public byte[] getData(final ByteSource byteSource) throws IOException {
+            return byteSource.getBlock(getDataOffset(), getDataLength());
+        }
+    }
+
+    private final List<Entry> entries;
+    private final long imageDataOffset;
+
+    private JpegSegmentIndex(final List<Entry> entries, final long imageDataOffset) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.imageDataOffset = imageDataOffset;
+    }
+
+    /**
+     * Returns the index of a JPEG file, reading it only if it isn't cached
+     * for this byte source, or for the file it reads, yet.
+     */
+    public static JpegSegmentIndex getInstance(final ByteSource byteSource)
+            throws ImageReadException, IOException {
+        if (byteSource instanceof ByteSourceFile) {
+            final FileKey key = new FileKey(((ByteSourceFile) byteSource).getFile());
+            JpegSegmentIndex index = FILE_CACHE.get(key);
+            if (index == null) {
+                index = read(byteSource);
+                FILE_CACHE.put(key, index);
+            }
+            return index;
+        }
+        JpegSegmentIndex index = CACHE.get(byteSource);
+        if (index == null) {
+            index = read(byteSource);
+            CACHE.put(byteSource, index);
+        }
+        return index;
+    }
+
+    private static JpegSegmentIndex read(final ByteSource byteSource)
+            throws ImageReadException, IOException {
+        final List<Entry> entries = new ArrayList<Entry>();
+        InputStream is = null;
+        boolean canThrow = false;
+        try {
+            is = byteSource.getInputStream();
+            final BinaryReader reader = new BinaryReader(is, ByteOrder.BIG_ENDIAN);
+
+            reader.verifyBytes(JpegConstants.SOI,
+                    "Not a Valid JPEG File: doesn't begin with 0xffd8");
+
+            while (true) {
+                // markers may be preceded by any number of 0xff fill bytes.
+                int previous = 0;
+                int current = 0;
+                do {
+                    previous = current;
+                    current = reader.getU8("Could not read marker");
+                } while (previous != 0xff || current == 0xff);
+                final int marker = (previous << 8) | current;
+                final long offset = reader.getPosition() - 2;
+
+                if (marker == JpegConstants.EOI_MARKER || marker == JpegConstants.SOS_MARKER) {
+                    canThrow = true;
+                    return new JpegSegmentIndex(entries, offset);
+                }
+
+                final int length = reader.getU16("segmentLengthBytes");
+                if (length < 2) {
+                    throw new ImageReadException("Invalid segment length: " + length);
+                }
+                reader.skip(length - 2, "Invalid Segment: insufficient data");
+
+                entries.add(new Entry(marker, offset, length));
+            }
+        } finally {
+            IoUtils.closeQuietly(canThrow, is);
+        }
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public List<Entry> getEntries(final int marker) {
+        final List<Entry> result = new ArrayList<Entry>();
+        for (final Entry entry : entries) {
+            if (entry.marker == marker) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the offset of the SOS or EOI marker that ends the headers.
+     */
+    public long getImageDataOffset() {
+        return imageDataOffset;
+    }
+
+    /**
+     * Identifies a file as long as it isn't changed.
+     */
+    private static final class FileKey {
+        private final String path;
+        private final long length;
+        private final long lastModified;
+
+        FileKey(final File file) {
+            this.path = file.getAbsolutePath();
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof FileKey)) {
+                return false;
+            }
+            final FileKey other = (FileKey) obj;
+            return path.equals(other.path) && length == other.length
+                    && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() ^ (int) length ^ (int) lastModified;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.util.Debug;
@@ -31,7 +32,7 @@ import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
 public class JpegUtils extends BinaryFileParser {
     public JpegUtils() {
-        setByteOrder(ByteOrder.BIG_ENDIAN);
+        super(ByteOrder.BIG_ENDIAN);
     }
 
     public interface Visitor {
@@ -50,52 +51,76 @@ public class JpegUtils extends BinaryFileParser {
     public void traverseJFIF(final ByteSource byteSource, final Visitor visitor)
             throws ImageReadException,
             IOException {
+        traverse(byteSource, visitor, true);
+    }
+
+    /**
+     * Traverses the marker segments that precede the entropy-coded image
+     * data, stopping at the first SOS (or EOI) marker without reading
+     * anything beyond it. The visitor's beginSOS and visitSOS methods are
+     * never called.
+     * 
+     * @param byteSource
+     *            the JPEG file
+     * @param visitor
+     *            the visitor receiving each segment
+     * @return the offset of the SOS or EOI marker ending the headers, or -1
+     *         if the visitor ended the traversal before reaching it
+     * @throws ImageReadException
+     *             if the file is not a valid JPEG file
+     * @throws IOException
+     *             in the event of an unrecoverable I/O error
+     */
+    public long traverseJFIFHeaders(final ByteSource byteSource, final Visitor visitor)
+            throws ImageReadException, IOException {
+        return traverse(byteSource, visitor, false);
+    }
+
+    private long traverse(final ByteSource byteSource, final Visitor visitor,
+            final boolean readImageData) throws ImageReadException, IOException {
         InputStream is = null;
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
+            final BinaryReader reader = getBinaryReader(is);
 
-            readAndVerifyBytes(is, JpegConstants.SOI,
+            reader.verifyBytes(JpegConstants.SOI,
                     "Not a Valid JPEG File: doesn't begin with 0xffd8");
 
-            int markerCount;
-            for (markerCount = 0; true; markerCount++) {
+            while (true) {
                 final byte[] markerBytes = new byte[2];
                 do {
                     markerBytes[0] = markerBytes[1];
-                    markerBytes[1] = readByte("marker", is,
-                            "Could not read marker");
+                    markerBytes[1] = reader.getByte("Could not read marker");
                 } while ((0xff & markerBytes[0]) != 0xff
                         || (0xff & markerBytes[1]) == 0xff);
                 final int marker = ((0xff & markerBytes[0]) << 8)
                         | (0xff & markerBytes[1]);
 
                 if (marker == JpegConstants.EOI_MARKER || marker == JpegConstants.SOS_MARKER) {
-                    if (!visitor.beginSOS()) {
+                    final long markerOffset = reader.getPosition() - markerBytes.length;
+                    if (!readImageData || !visitor.beginSOS()) {
                         canThrow = true;
-                        return;
+                        return markerOffset;
                     }
 
-                    final byte[] imageData = getStreamBytes(is);
+                    final byte[] imageData = reader.getRemainingBytes();
                     visitor.visitSOS(marker, markerBytes, imageData);
-                    break;
+                    canThrow = true;
+                    return markerOffset;
                 }
 
-                final byte[] segmentLengthBytes = readBytes("segmentLengthBytes", is, 2, "segmentLengthBytes");
+                final byte[] segmentLengthBytes = reader.getBytes(2, "segmentLengthBytes");
                 final int segmentLength = ByteConversions.toUInt16(segmentLengthBytes, getByteOrder());
 
-                final byte[] segmentData = readBytes("Segment Data",
-                        is, segmentLength - 2,
+                final byte[] segmentData = reader.getBytes(segmentLength - 2,
                         "Invalid Segment: insufficient data");
 
                 if (!visitor.visitSegment(marker, markerBytes, segmentLength, segmentLengthBytes, segmentData)) {
                     canThrow = true;
-                    return;
+                    return -1;
                 }
             }
-            
-            Debug.debug(Integer.toString(markerCount) + " markers");
-            canThrow = true;
         } finally {
             IoUtils.closeQuietly(canThrow, is);
         }
@@ -28,6 +28,8 @@ import java.util.Properties;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.ParserPhase;
+import org.apache.commons.imaging.common.PhaseRecorder;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
@@ -60,12 +62,34 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     private final int[] zz = new int[64];
     private final int[] blockInt = new int[64];
     private final float[] block = new float[64];
+    private final PhaseRecorder recorder;
+    // the phase being decoded, null once the image is done
+    private ParserPhase phase;
+    private long phaseStart;
+    // SOI marker
+    private long headerBytes = 2;
+
+    public JpegDecoder() {
+        this(PhaseRecorder.NONE);
+    }
+
+    /**
+     * Creates a decoder that reports the time spent reading the header
+     * segments and decoding the scan to the given recorder.
+     */
+    public JpegDecoder(final PhaseRecorder recorder) {
+        this.recorder = recorder;
+    }
 
     public boolean beginSOS() {
         return true;
     }
 
     public void visitSOS(final int marker, final byte[] markerBytes, final byte[] imageData) {
+        recorder.end(phase, phaseStart, headerBytes, 0);
+        // entropy decoding, IDCT and YCbCr conversion are done per MCU
+        phase = ParserPhase.DECOMPRESSION;
+        phaseStart = recorder.start();
         final ByteArrayInputStream is = new ByteArrayInputStream(imageData);
         try {
             final int segmentLength = read2Bytes("segmentLength", is, "Not a Valid JPEG File", getByteOrder());
@@ -152,6 +176,8 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             }
             image = new BufferedImage(colorModel, raster,
                     colorModel.isAlphaPremultiplied(), new Properties());
+            recorder.end(phase, phaseStart, imageData.length, image);
+            phase = null;
             // byte[] remainder = super.getStreamBytes(is);
             // for (int i = 0; i < remainder.length; i++)
             // {
@@ -172,6 +198,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     public boolean visitSegment(final int marker, final byte[] markerBytes,
             final int segmentLength, final byte[] segmentLengthBytes, final byte[] segmentData)
             throws ImageReadException, IOException {
+        headerBytes += 2 + segmentLength;
         final int[] sofnSegments = {
                 JpegConstants.SOF0_MARKER,
                 JpegConstants.SOF1_MARKER,
@@ -433,13 +460,19 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     public BufferedImage decode(final ByteSource byteSource) throws IOException,
             ImageReadException {
         final JpegUtils jpegUtils = new JpegUtils();
-        jpegUtils.traverseJFIF(byteSource, this);
-        if (imageReadException != null) {
-            throw imageReadException;
-        }
-        if (ioException != null) {
-            throw ioException;
+        phase = ParserPhase.HEADER;
+        phaseStart = recorder.start();
+        try {
+            jpegUtils.traverseJFIF(byteSource, this);
+            if (imageReadException != null) {
+                throw imageReadException;
+            }
+            if (ioException != null) {
+                throw ioException;
+            }
+            return image;
+        } finally {
+            recorder.failed(phase, phaseStart);
         }
-        return image;
     }
 }
@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
@@ -34,6 +35,7 @@ import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
 import org.apache.commons.imaging.common.bytesource.ByteSourceInputStream;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.JpegSegmentIndex;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
 import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterBase;
 import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterLossless;
@@ -53,6 +55,8 @@ import static org.apache.commons.imaging.common.BinaryFunctions.*;
  *      href="https://svn.apache.org/repos/asf/commons/proper/imaging/trunk/src/test/java/org/apache/commons/imaging/examples/WriteExifMetadataExample.java">org.apache.commons.imaging.examples.WriteExifMetadataExample</a>
  */
 public class ExifRewriter extends BinaryFileParser {
+    private int padding;
+
     /**
      * Constructor. to guess whether a file contains an image based on its file
      * extension.
@@ -69,7 +73,35 @@ public class ExifRewriter extends BinaryFileParser {
      *            byte order of EXIF segment.
      */
     public ExifRewriter(final ByteOrder byteOrder) {
-        setByteOrder(byteOrder);
+        super(byteOrder);
+    }
+
+    /**
+     * Sets the number of zero bytes reserved at the end of each APP1 segment
+     * this rewriter writes. The reserved space lets later edits of the EXIF
+     * data be made in place with
+     * {@link #updateExifMetadataInPlace(File, TiffOutputSet)}, by this or any
+     * other rewriter. The padding is reduced if the segment would otherwise
+     * exceed its maximum length.
+     * 
+     * @param padding
+     *            the number of bytes to reserve, zero by default.
+     */
+    public void setPadding(final int padding) {
+        if (padding < 0) {
+            throw new IllegalArgumentException("Invalid padding: " + padding);
+        }
+        this.padding = padding;
+    }
+
+    /**
+     * Returns the number of zero bytes reserved at the end of each APP1
+     * segment this rewriter writes.
+     * 
+     * @return the padding set with {@link #setPadding(int)}, zero by default.
+     */
+    public int getPadding() {
+        return padding;
     }
 
     private static class JFIFPieces {
@@ -119,19 +151,18 @@ public class ExifRewriter extends BinaryFileParser {
     }
 
     private static class JFIFPieceImageData extends JFIFPiece {
-        public final byte[] markerBytes;
-        public final byte[] imageData;
+        private final ByteSource byteSource;
+        private final long offset;
 
-        public JFIFPieceImageData(final byte[] markerBytes, final byte[] imageData) {
+        public JFIFPieceImageData(final ByteSource byteSource, final long offset) {
             super();
-            this.markerBytes = markerBytes;
-            this.imageData = imageData;
+            this.byteSource = byteSource;
+            this.offset = offset;
         }
 
         @Override
         protected void write(final OutputStream os) throws IOException {
-            os.write(markerBytes);
-            os.write(imageData);
+            byteSource.writeTo(os, offset);
         }
     }
 
@@ -143,13 +174,12 @@ public class ExifRewriter extends BinaryFileParser {
         final List<JFIFPiece> exifPieces = new ArrayList<JFIFPiece>();
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
+            // image data is not read, see traverseJFIFHeaders().
             public boolean beginSOS() {
-                return true;
+                return false;
             }
 
             public void visitSOS(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                pieces.add(new JFIFPieceImageData(markerBytes, imageData));
             }
 
             // return false to exit traversal.
@@ -179,7 +209,9 @@ public class ExifRewriter extends BinaryFileParser {
             }
         };
 
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        // the entropy-coded data is copied from the source when writing
+        final long imageDataOffset = new JpegUtils().traverseJFIFHeaders(byteSource, visitor);
+        pieces.add(new JFIFPieceImageData(byteSource, imageDataOffset));
 
         // GenericSegment exifSegment = exifSegmentArray[0];
         // if (exifSegments.size() < 1)
@@ -389,7 +421,7 @@ public class ExifRewriter extends BinaryFileParser {
         }
 
         final boolean includeEXIFPrefix = true;
-        final byte[] newBytes = writeExifSegment(writer, outputSet, includeEXIFPrefix);
+        final byte[] newBytes = writeExifSegment(writer, outputSet, includeEXIFPrefix, padding);
 
         writeSegmentsReplacingExif(os, pieces, newBytes);
     }
@@ -489,7 +521,7 @@ public class ExifRewriter extends BinaryFileParser {
                 outputSet.byteOrder);
 
         final boolean includeEXIFPrefix = true;
-        final byte[] newBytes = writeExifSegment(writer, outputSet, includeEXIFPrefix);
+        final byte[] newBytes = writeExifSegment(writer, outputSet, includeEXIFPrefix, padding);
 
         writeSegmentsReplacingExif(os, pieces, newBytes);
     }
@@ -564,6 +596,72 @@ public class ExifRewriter extends BinaryFileParser {
         }
     }
 
+    /**
+     * Replaces the EXIF metadata of a Jpeg file in place, without rewriting
+     * the rest of the file.
+     * <p>
+     * The new EXIF data is laid out with the same "Lossless" approach as
+     * {@link #updateExifMetadataLossless(File, OutputStream, TiffOutputSet)}.
+     * If the result fits into the file's existing APP1 EXIF segment, it is
+     * written over that segment and any space left over is zero filled, so
+     * the segment and the file keep their length. Otherwise the file is left
+     * unchanged, and the caller should fall back to rewriting the file.
+     * <p>
+     * The zero bytes at the end of the segment that follow the last
+     * directory or value of the old EXIF data, such as the space reserved
+     * with {@link #setPadding(int)} when the segment was written, are reused,
+     * whatever padding this rewriter is set to.
+     * <p>
+     * 
+     * @param file
+     *            Jpeg file to update.
+     * @param outputSet
+     *            TiffOutputSet containing the EXIF data to write.
+     * @return true if the file was updated, false if it has no EXIF segment
+     *         or the new EXIF data doesn't fit into it.
+     */
+    public boolean updateExifMetadataInPlace(final File file,
+            final TiffOutputSet outputSet) throws ImageReadException,
+            IOException, ImageWriteException {
+        final ByteSource byteSource = new ByteSourceFile(file);
+        JpegSegmentIndex.Entry exifEntry = null;
+        byte[] segmentData = null;
+        for (final JpegSegmentIndex.Entry entry : JpegSegmentIndex.getInstance(
+                byteSource).getEntries(JpegConstants.JPEG_APP1_MARKER)) {
+            final byte[] data = entry.getData(byteSource);
+            if (startsWith(data, JpegConstants.EXIF_IDENTIFIER_CODE)) {
+                exifEntry = entry;
+                segmentData = data;
+                break;
+            }
+        }
+        if (exifEntry == null) {
+            return false;
+        }
+
+        // the segment can't grow, so any zero bytes after the old data's
+        // last element are free, however they got there.
+        final byte[] exifBytes = remainingBytes("trimmed exif bytes", segmentData, 6);
+        final TiffImageWriterBase writer = new TiffImageWriterLossless(
+                outputSet.byteOrder, exifBytes, exifBytes.length);
+        final byte[] newBytes = writeExifSegment(writer, outputSet, true, 0);
+        if (newBytes.length > segmentData.length) {
+            return false;
+        }
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        boolean canThrow = false;
+        try {
+            raf.seek(exifEntry.getDataOffset());
+            raf.write(newBytes);
+            raf.write(new byte[segmentData.length - newBytes.length]);
+            canThrow = true;
+        } finally {
+            IoUtils.closeQuietly(canThrow, raf);
+        }
+        return true;
+    }
+
     public static class ExifOverflowException extends ImageWriteException {
         private static final long serialVersionUID = 1401484357224931218L;
 
@@ -573,8 +671,8 @@ public class ExifRewriter extends BinaryFileParser {
     }
 
     private byte[] writeExifSegment(final TiffImageWriterBase writer,
-            final TiffOutputSet outputSet, final boolean includeEXIFPrefix)
-            throws IOException, ImageWriteException {
+            final TiffOutputSet outputSet, final boolean includeEXIFPrefix,
+            final int padding) throws IOException, ImageWriteException {
         final ByteArrayOutputStream os = new ByteArrayOutputStream();
 
         if (includeEXIFPrefix) {
@@ -585,6 +683,12 @@ public class ExifRewriter extends BinaryFileParser {
 
         writer.write(os, outputSet);
 
+        // the segment length includes the two length bytes.
+        final int reserved = Math.min(padding, 0xffff - 2 - os.size());
+        if (reserved > 0) {
+            os.write(new byte[reserved]);
+        }
+
         return os.toByteArray();
     }
 
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
@@ -41,18 +42,19 @@ public class App2Segment extends AppnSegment implements Comparable<App2Segment>
 
         if (startsWith(getSegmentData(),
                 JpegConstants.ICC_PROFILE_LABEL)) {
-            final InputStream is = new ByteArrayInputStream(getSegmentData());
+            final BinaryReader reader = getBinaryReader(
+                    new ByteArrayInputStream(getSegmentData()));
 
-            readAndVerifyBytes(is, JpegConstants.ICC_PROFILE_LABEL,
+            reader.verifyBytes(JpegConstants.ICC_PROFILE_LABEL,
                     "Not a Valid App2 Segment: missing ICC Profile label");
 
-            curMarker = readByte("curMarker", is, "Not a valid App2 Marker");
-            numMarkers = readByte("numMarkers", is, "Not a valid App2 Marker");
+            curMarker = reader.getByte("Not a valid App2 Marker");
+            numMarkers = reader.getByte("Not a valid App2 Marker");
 
             markerLength -= JpegConstants.ICC_PROFILE_LABEL.size();
             markerLength -= (1 + 1);
 
-            iccBytes = readBytes("App2 Data", is, markerLength, "Invalid App2 Segment: insufficient data");
+            iccBytes = reader.getBytes(markerLength, "Invalid App2 Segment: insufficient data");
         } else {
             // debugByteArray("Unknown APP2 Segment Type", bytes);
             curMarker = -1;
@@ -22,6 +22,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.commons.imaging.common.BinaryReader;
+
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
 public class DhtSegment extends Segment {
@@ -144,31 +146,33 @@ public class DhtSegment extends Segment {
         }
     }
 
-    public DhtSegment(final int marker, final byte[] segmentData) throws IOException {
-        this(marker, segmentData.length, new ByteArrayInputStream(segmentData));
+    public DhtSegment(final int marker, final int length, final InputStream is)
+            throws IOException {
+        this(marker, readBytes("Segment Data", is, length,
+                "Invalid Segment: insufficient data"));
     }
 
-    public DhtSegment(final int marker, int length, final InputStream is)
-            throws IOException {
-        super(marker, length);
+    public DhtSegment(final int marker, final byte[] segmentData) throws IOException {
+        super(marker, segmentData.length);
 
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(segmentData));
+        int length = segmentData.length;
         final ArrayList<HuffmanTable> huffmanTables = new ArrayList<DhtSegment.HuffmanTable>();
         while (length > 0) {
-            final int tableClassAndDestinationId = 0xff & readByte(
-                    "TableClassAndDestinationId", is, "Not a Valid JPEG File");
+            final int tableClassAndDestinationId = reader.getU8("Not a Valid JPEG File");
             length--;
             final int tableClass = (tableClassAndDestinationId >> 4) & 0xf;
             final int destinationIdentifier = tableClassAndDestinationId & 0xf;
             final int[] bits = new int[1 + 16];
             int bitsSum = 0;
             for (int i = 1; i < bits.length; i++) {
-                bits[i] = 0xff & readByte("Li", is, "Not a Valid JPEG File");
+                bits[i] = reader.getU8("Not a Valid JPEG File");
                 length--;
                 bitsSum += bits[i];
             }
             final int[] huffVal = new int[bitsSum];
             for (int i = 0; i < bitsSum; i++) {
-                huffVal[i] = 0xff & readByte("Vij", is, "Not a Valid JPEG File");
+                huffVal[i] = reader.getU8("Not a Valid JPEG File");
                 length--;
             }
 
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
 
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
@@ -48,19 +49,20 @@ public class DqtSegment extends Segment {
         }
     }
 
-    public DqtSegment(final int marker, final byte[] segmentData)
+    public DqtSegment(final int marker, final int length, final InputStream is)
             throws ImageReadException, IOException {
-        this(marker, segmentData.length, new ByteArrayInputStream(segmentData));
+        this(marker, readBytes("Segment Data", is, length,
+                "Invalid Segment: insufficient data"));
     }
 
-    public DqtSegment(final int marker, int length, final InputStream is)
+    public DqtSegment(final int marker, final byte[] segmentData)
             throws ImageReadException, IOException {
-        super(marker, length);
+        super(marker, segmentData.length);
 
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(segmentData));
+        int length = segmentData.length;
         while (length > 0) {
-            final int precisionAndDestination = readByte(
-                    "QuantizationTablePrecisionAndDestination", is,
-                    "Not a Valid JPEG File");
+            final int precisionAndDestination = reader.getByte("Not a Valid JPEG File");
             length--;
             final int precision = (precisionAndDestination >> 4) & 0xf;
             final int destinationIdentifier = precisionAndDestination & 0xf;
@@ -68,11 +70,10 @@ public class DqtSegment extends Segment {
             final int[] elements = new int[64];
             for (int i = 0; i < 64; i++) {
                 if (precision == 0) {
-                    elements[i] = 0xff & readByte("QuantizationTableElement",
-                            is, "Not a Valid JPEG File");
+                    elements[i] = reader.getU8("Not a Valid JPEG File");
                     length--;
                 } else if (precision == 1) {
-                    elements[i] = read2Bytes("QuantizationTableElement", is, "Not a Valid JPEG File", getByteOrder());
+                    elements[i] = reader.getU16("Not a Valid JPEG File");
                     length -= 2;
                 } else {
                     throw new ImageReadException(
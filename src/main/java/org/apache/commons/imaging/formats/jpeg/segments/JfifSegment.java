@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
@@ -41,36 +42,36 @@ public class JfifSegment extends Segment {
         return "JFIF (" + getSegmentType() + ")";
     }
 
-    public JfifSegment(final int marker, final byte[] segmentData)
+    public JfifSegment(final int marker, final int markerLength, final InputStream is) 
             throws ImageReadException, IOException {
-        this(marker, segmentData.length, new ByteArrayInputStream(segmentData));
+        this(marker, readBytes("Segment Data", is, markerLength,
+                "Invalid Segment: insufficient data"));
     }
 
-    public JfifSegment(final int marker, final int markerLength, final InputStream is) 
+    public JfifSegment(final int marker, final byte[] segmentData)
             throws ImageReadException, IOException {
-        super(marker, markerLength);
+        super(marker, segmentData.length);
 
-        final byte[] signature = readBytes(is, JpegConstants.JFIF0_SIGNATURE.size());
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(segmentData));
+        final byte[] signature = reader.getBytes(JpegConstants.JFIF0_SIGNATURE.size(),
+                "Not a Valid JPEG File");
         if (!JpegConstants.JFIF0_SIGNATURE.equals(signature)
                 && !JpegConstants.JFIF0_SIGNATURE_ALTERNATIVE.equals(signature)) {
             throw new ImageReadException(
                     "Not a Valid JPEG File: missing JFIF string");
         }
 
-        jfifMajorVersion = readByte("JFIF_major_version", is,
-                "Not a Valid JPEG File");
-        jfifMinorVersion = readByte("JFIF_minor_version", is,
-                "Not a Valid JPEG File");
-        densityUnits = readByte("density_units", is, "Not a Valid JPEG File");
-        xDensity = read2Bytes("x_density", is, "Not a Valid JPEG File", getByteOrder());
-        yDensity = read2Bytes("y_density", is, "Not a Valid JPEG File", getByteOrder());
+        jfifMajorVersion = reader.getByte("Not a Valid JPEG File");
+        jfifMinorVersion = reader.getByte("Not a Valid JPEG File");
+        densityUnits = reader.getByte("Not a Valid JPEG File");
+        xDensity = reader.getU16("Not a Valid JPEG File");
+        yDensity = reader.getU16("Not a Valid JPEG File");
 
-        xThumbnail = readByte("x_thumbnail", is, "Not a Valid JPEG File");
-        yThumbnail = readByte("y_thumbnail", is, "Not a Valid JPEG File");
+        xThumbnail = reader.getByte("Not a Valid JPEG File");
+        yThumbnail = reader.getByte("Not a Valid JPEG File");
         thumbnailSize = xThumbnail * yThumbnail;
         if (thumbnailSize > 0) {
-            skipBytes(is, thumbnailSize,
-                    "Not a Valid JPEG File: missing thumbnail");
+            reader.skip(thumbnailSize, "Not a Valid JPEG File: missing thumbnail");
 
         }
 
@@ -20,6 +20,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
@@ -46,34 +47,33 @@ public class SofnSegment extends Segment {
         }
     }
 
-    public SofnSegment(final int marker, final byte[] segmentData) throws IOException {
-        this(marker, segmentData.length, new ByteArrayInputStream(segmentData));
-    }
-
     public SofnSegment(final int marker, final int markerLength, final InputStream is)
             throws IOException {
-        super(marker, markerLength);
+        this(marker, readBytes("Segment Data", is, markerLength,
+                "Invalid Segment: insufficient data"));
+    }
+
+    public SofnSegment(final int marker, final byte[] segmentData) throws IOException {
+        super(marker, segmentData.length);
 
         if (getDebug()) {
-            System.out.println("SOF0Segment marker_length: " + markerLength);
+            System.out.println("SOF0Segment marker_length: " + segmentData.length);
         }
 
-        precision = readByte("Data_precision", is, "Not a Valid JPEG File");
-        height = read2Bytes("Image_height", is, "Not a Valid JPEG File", getByteOrder());
-        width = read2Bytes("Image_Width", is, "Not a Valid JPEG File", getByteOrder());
-        numberOfComponents = readByte("Number_of_components", is,
-                "Not a Valid JPEG File");
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(segmentData));
+
+        precision = reader.getByte("Not a Valid JPEG File");
+        height = reader.getU16("Not a Valid JPEG File");
+        width = reader.getU16("Not a Valid JPEG File");
+        numberOfComponents = reader.getByte("Not a Valid JPEG File");
         components = new Component[numberOfComponents];
         for (int i = 0; i < numberOfComponents; i++) {
-            final int componentIdentifier = readByte("ComponentIdentifier", is,
-                    "Not a Valid JPEG File");
+            final int componentIdentifier = reader.getByte("Not a Valid JPEG File");
 
-            final int hvSamplingFactors = readByte("SamplingFactors", is,
-                    "Not a Valid JPEG File");
+            final int hvSamplingFactors = reader.getByte("Not a Valid JPEG File");
             final int horizontalSamplingFactor = (hvSamplingFactors >> 4) & 0xf;
             final int verticalSamplingFactor = hvSamplingFactors & 0xf;
-            final int quantTabDestSelector = readByte("QuantTabDestSel", is,
-                    "Not a Valid JPEG File");
+            final int quantTabDestSelector = reader.getByte("Not a Valid JPEG File");
             components[i] = new Component(componentIdentifier,
                     horizontalSamplingFactor, verticalSamplingFactor,
                     quantTabDestSelector);
@@ -20,6 +20,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.commons.imaging.common.BinaryReader;
+
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
 public class SosSegment extends Segment {
@@ -43,32 +45,32 @@ public class SosSegment extends Segment {
         }
     }
 
-    public SosSegment(final int marker, final byte[] segmentData) throws IOException {
-        this(marker, segmentData.length, new ByteArrayInputStream(segmentData));
+    public SosSegment(final int marker, final int markerLength, final InputStream is) throws IOException {
+        this(marker, readBytes("Segment Data", is, markerLength,
+                "Invalid Segment: insufficient data"));
     }
 
-    public SosSegment(final int marker, final int markerLength, final InputStream is) throws IOException {
-        super(marker, markerLength);
+    public SosSegment(final int marker, final byte[] segmentData) throws IOException {
+        super(marker, segmentData.length);
 
         if (getDebug()) {
-            System.out.println("SosSegment marker_length: " + markerLength);
+            System.out.println("SosSegment marker_length: " + segmentData.length);
         }
 
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(segmentData));
+
         // Debug.debug("SOS", marker_length);
 
-        numberOfComponents = readByte("number_of_components_in_scan", is,
-                "Not a Valid JPEG File");
+        numberOfComponents = reader.getByte("Not a Valid JPEG File");
         // Debug.debug("number_of_components_in_scan",
         // numberOfComponents);
 
         components = new Component[numberOfComponents];
         for (int i = 0; i < numberOfComponents; i++) {
-            final int scanComponentSelector = readByte("scanComponentSelector", is, "Not a Valid JPEG File");
+            final int scanComponentSelector = reader.getByte("Not a Valid JPEG File");
             // Debug.debug("scanComponentSelector", scanComponentSelector);
 
-            final int acDcEntropoyCodingTableSelector = readByte(
-                    "acDcEntropoyCodingTableSelector", is,
-                    "Not a Valid JPEG File");
+            final int acDcEntropoyCodingTableSelector = reader.getByte("Not a Valid JPEG File");
             // Debug.debug("ac_dc_entrooy_coding_table_selector",
             // acDcEntropoyCodingTableSelector);
 
@@ -78,15 +80,11 @@ public class SosSegment extends Segment {
                     dcCodingTableSelector, acCodingTableSelector);
         }
 
-        startOfSpectralSelection = readByte("start_of_spectral_selection", is,
-                "Not a Valid JPEG File");
+        startOfSpectralSelection = reader.getByte("Not a Valid JPEG File");
         // Debug.debug("start_of_spectral_selection", startOfSpectralSelection);
-        endOfSpectralSelection = readByte("end_of_spectral_selection", is,
-                "Not a Valid JPEG File");
+        endOfSpectralSelection = reader.getByte("Not a Valid JPEG File");
         // Debug.debug("end_of_spectral_selection", endOfSpectralSelection);
-        final int successiveApproximationBitPosition = readByte(
-                "successive_approximation_bit_position", is,
-                "Not a Valid JPEG File");
+        final int successiveApproximationBitPosition = reader.getByte("Not a Valid JPEG File");
         // Debug.debug("successive_approximation_bit_position",
         // successive_approximation_bit_position);
         successiveApproximationBitHigh = (successiveApproximationBitPosition >> 4) & 0xf;
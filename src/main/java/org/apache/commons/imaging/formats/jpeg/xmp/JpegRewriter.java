@@ -60,7 +60,7 @@ public class JpegRewriter extends BinaryFileParser {
      * extension.
      */
     public JpegRewriter() {
-        setByteOrder(JPEG_BYTE_ORDER);
+        super(JPEG_BYTE_ORDER);
     }
 
     protected static class JFIFPieces {
@@ -158,20 +158,24 @@ public class JpegRewriter extends BinaryFileParser {
 
     }
 
+    /**
+     * The image data of a JPEG file: everything from the first SOS (or EOI)
+     * marker to the end of the file. The bytes are not held in memory but
+     * copied straight from the source when the piece is written.
+     */
     protected static class JFIFPieceImageData extends JFIFPiece {
-        public final byte[] markerBytes;
-        public final byte[] imageData;
+        public final ByteSource byteSource;
+        public final long offset;
 
-        public JFIFPieceImageData(final byte[] markerBytes, final byte[] imageData) {
+        public JFIFPieceImageData(final ByteSource byteSource, final long offset) {
             super();
-            this.markerBytes = markerBytes;
-            this.imageData = imageData;
+            this.byteSource = byteSource;
+            this.offset = offset;
         }
 
         @Override
         protected void write(final OutputStream os) throws IOException {
-            os.write(markerBytes);
-            os.write(imageData);
+            byteSource.writeTo(os, offset);
         }
     }
 
@@ -183,13 +187,12 @@ public class JpegRewriter extends BinaryFileParser {
         final List<JFIFPiece> segmentPieces = new ArrayList<JFIFPiece>();
 
         final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
+            // image data is not read, see traverseJFIFHeaders().
             public boolean beginSOS() {
-                return true;
+                return false;
             }
 
             public void visitSOS(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                pieces.add(new JFIFPieceImageData(markerBytes, imageData));
             }
 
             // return false to exit traversal.
@@ -205,7 +208,8 @@ public class JpegRewriter extends BinaryFileParser {
             }
         };
 
-        new JpegUtils().traverseJFIF(byteSource, visitor);
+        final long imageDataOffset = new JpegUtils().traverseJFIFHeaders(byteSource, visitor);
+        pieces.add(new JFIFPieceImageData(byteSource, imageDataOffset));
 
         return new JFIFPieces(pieces, segmentPieces);
     }
@@ -44,12 +44,13 @@ import org.apache.commons.imaging.ImageInfo;
 import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.util.IoUtils;
 
 import static org.apache.commons.imaging.ImagingConstants.*;
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
 import static org.apache.commons.imaging.common.ByteConversions.*;
 
 public class PcxImageParser extends ImageParser {
@@ -69,7 +70,7 @@ public class PcxImageParser extends ImageParser {
     private static final String[] ACCEPTED_EXTENSIONS = { ".pcx", ".pcc", };
 
     public PcxImageParser() {
-        super.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        super(ByteOrder.LITTLE_ENDIAN);
     }
 
     @Override
@@ -103,7 +104,7 @@ public class PcxImageParser extends ImageParser {
     public ImageInfo getImageInfo(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
         final PcxHeader pcxHeader = readPcxHeader(byteSource);
-        final Dimension size = getImageSize(byteSource, params);
+        final Dimension size = getImageSize(pcxHeader);
         return new ImageInfo(
                 "PCX",
                 pcxHeader.nPlanes * pcxHeader.bitsPerPixel,
@@ -129,7 +130,10 @@ public class PcxImageParser extends ImageParser {
     @Override
     public Dimension getImageSize(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final PcxHeader pcxHeader = readPcxHeader(byteSource);
+        return getImageSize(readPcxHeader(byteSource));
+    }
+
+    private Dimension getImageSize(final PcxHeader pcxHeader) throws ImageReadException {
         final int xSize = pcxHeader.xMax - pcxHeader.xMin + 1;
         if (xSize < 0) {
             throw new ImageReadException("Image width is negative");
@@ -244,7 +248,7 @@ public class PcxImageParser extends ImageParser {
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
-            final PcxHeader ret = readPcxHeader(is, false);
+            final PcxHeader ret = readPcxHeader(getBinaryReader(is), false);
             canThrow = true;
             return ret;
         } finally {
@@ -252,10 +256,9 @@ public class PcxImageParser extends ImageParser {
         }
     }
 
-    private PcxHeader readPcxHeader(final InputStream is, final boolean isStrict)
+    private PcxHeader readPcxHeader(final BinaryReader reader, final boolean isStrict)
             throws ImageReadException, IOException {
-        final byte[] pcxHeaderBytes = readBytes("PcxHeader", is, 128,
-                "Not a Valid PCX File");
+        final byte[] pcxHeaderBytes = reader.getBytes(128, "Not a Valid PCX File");
         final int manufacturer = 0xff & pcxHeaderBytes[0];
         final int version = 0xff & pcxHeaderBytes[1];
         final int encoding = 0xff & pcxHeaderBytes[2];
@@ -305,27 +308,20 @@ public class PcxImageParser extends ImageParser {
         return true;
     }
 
-    private void readScanLine(final PcxHeader pcxHeader, final InputStream is,
+    private void readScanLine(final PcxHeader pcxHeader, final BinaryReader reader,
             final byte[] samples) throws IOException, ImageReadException {
         if (pcxHeader.encoding == PcxHeader.ENCODING_UNCOMPRESSED) {
-            int r;
-            for (int bytesRead = 0; bytesRead < samples.length; bytesRead += r) {
-                r = is.read(samples, bytesRead, samples.length - bytesRead);
-                if (r < 0) {
-                    throw new ImageReadException(
-                            "Premature end of file reading image data");
-                }
-            }
+            reader.getBytes(samples, 0, samples.length,
+                    "Premature end of file reading image data");
         } else {
             if (pcxHeader.encoding == PcxHeader.ENCODING_RLE) {
                 for (int bytesRead = 0; bytesRead < samples.length;) {
-                    final byte b = readByte("Pixel", is, "Error reading image data");
+                    final byte b = reader.getByte("Error reading image data");
                     int count;
                     byte sample;
                     if ((b & 0xc0) == 0xc0) {
                         count = b & 0x3f;
-                        sample = readByte("Pixel", is,
-                                "Error reading image data");
+                        sample = reader.getByte("Error reading image data");
                     } else {
                         count = 1;
                         sample = b;
@@ -342,9 +338,8 @@ public class PcxImageParser extends ImageParser {
         }
     }
 
-    private int[] read256ColorPalette(final InputStream stream) throws IOException {
-        final byte[] paletteBytes = readBytes("Palette", stream, 769,
-                "Error reading palette");
+    private int[] read256ColorPalette(final BinaryReader reader) throws IOException {
+        final byte[] paletteBytes = reader.getBytes(769, "Error reading palette");
         if (paletteBytes[0] != 12) {
             return null;
         }
@@ -363,9 +358,9 @@ public class PcxImageParser extends ImageParser {
         boolean canThrow = false;
         try {
             stream = byteSource.getInputStream();
-            final long toSkip = byteSource.getLength() - 769;
-            skipBytes(stream, (int) toSkip);
-            final int[] ret = read256ColorPalette(stream);
+            final BinaryReader reader = getBinaryReader(stream);
+            reader.skip(byteSource.getLength() - 769, "Couldn't skip bytes");
+            final int[] ret = read256ColorPalette(reader);
             canThrow = true;
             return ret;
         } finally {
@@ -373,8 +368,21 @@ public class PcxImageParser extends ImageParser {
         }
     }
 
-    private BufferedImage readImage(final PcxHeader pcxHeader, final InputStream is,
-            final ByteSource byteSource) throws ImageReadException, IOException {
+    private BufferedImage readImage(final PcxHeader pcxHeader, final BinaryReader reader,
+            final ByteSource byteSource, final RasterBufferProvider rasterBufferProvider)
+            throws ImageReadException, IOException {
+        final int scanlineLength = pcxHeader.bytesPerLine * pcxHeader.nPlanes;
+        final byte[] scanline = rasterBufferProvider.getByteBuffer(scanlineLength);
+        try {
+            return readImage(pcxHeader, reader, byteSource, rasterBufferProvider, scanline);
+        } finally {
+            rasterBufferProvider.release(scanline);
+        }
+    }
+
+    private BufferedImage readImage(final PcxHeader pcxHeader, final BinaryReader reader,
+            final ByteSource byteSource, final RasterBufferProvider rasterBufferProvider,
+            final byte[] scanline) throws ImageReadException, IOException {
         final int xSize = pcxHeader.xMax - pcxHeader.xMin + 1;
         if (xSize < 0) {
             throw new ImageReadException("Image width is negative");
@@ -384,15 +392,13 @@ public class PcxImageParser extends ImageParser {
             throw new ImageReadException("Image height is negative");
         }
 
-        final int scanlineLength = pcxHeader.bytesPerLine * pcxHeader.nPlanes;
-        final byte[] scanline = new byte[scanlineLength];
         if ((pcxHeader.bitsPerPixel == 1 || pcxHeader.bitsPerPixel == 2
                 || pcxHeader.bitsPerPixel == 4 || pcxHeader.bitsPerPixel == 8)
                 && pcxHeader.nPlanes == 1) {
             final int bytesPerImageRow = (xSize * pcxHeader.bitsPerPixel + 7) / 8;
-            final byte[] image = new byte[ySize * bytesPerImageRow];
+            final byte[] image = rasterBufferProvider.getByteBuffer(ySize * bytesPerImageRow);
             for (int y = 0; y < ySize; y++) {
-                readScanLine(pcxHeader, is, scanline);
+                readScanLine(pcxHeader, reader, scanline);
                 System.arraycopy(scanline, 0, image, y * bytesPerImageRow,
                         bytesPerImageRow);
             }
@@ -407,7 +413,7 @@ public class PcxImageParser extends ImageParser {
                 // there could be extra data before the end! So try look for the
                 // palette
                 // immediately after the image data first.
-                palette = read256ColorPalette(is);
+                palette = read256ColorPalette(reader);
                 if (palette == null) {
                     palette = read256ColorPaletteFromEndOfFile(byteSource);
                 }
@@ -441,7 +447,7 @@ public class PcxImageParser extends ImageParser {
                     BufferedImage.TYPE_BYTE_BINARY, colorModel);
             final byte[] unpacked = new byte[xSize];
             for (int y = 0; y < ySize; y++) {
-                readScanLine(pcxHeader, is, scanline);
+                readScanLine(pcxHeader, reader, scanline);
                 int nextByte = 0;
                 Arrays.fill(unpacked, (byte) 0);
                 for (int plane = 0; plane < pcxHeader.nPlanes; plane++) {
@@ -457,11 +463,11 @@ public class PcxImageParser extends ImageParser {
             return image;
         } else if (pcxHeader.bitsPerPixel == 8 && pcxHeader.nPlanes == 3) {
             final byte[][] image = new byte[3][];
-            image[0] = new byte[xSize * ySize];
-            image[1] = new byte[xSize * ySize];
-            image[2] = new byte[xSize * ySize];
+            image[0] = rasterBufferProvider.getByteBuffer(xSize * ySize);
+            image[1] = rasterBufferProvider.getByteBuffer(xSize * ySize);
+            image[2] = rasterBufferProvider.getByteBuffer(xSize * ySize);
             for (int y = 0; y < ySize; y++) {
-                readScanLine(pcxHeader, is, scanline);
+                readScanLine(pcxHeader, reader, scanline);
                 System.arraycopy(scanline, 0, image[0], y * xSize, xSize);
                 System.arraycopy(scanline, pcxHeader.bytesPerLine, image[1], y
                         * xSize, xSize);
@@ -481,9 +487,9 @@ public class PcxImageParser extends ImageParser {
         } else if ((pcxHeader.bitsPerPixel == 24 && pcxHeader.nPlanes == 1)
                 || (pcxHeader.bitsPerPixel == 32 && pcxHeader.nPlanes == 1)) {
             final int rowLength = 3 * xSize;
-            final byte[] image = new byte[rowLength * ySize];
+            final byte[] image = rasterBufferProvider.getByteBuffer(rowLength * ySize);
             for (int y = 0; y < ySize; y++) {
-                readScanLine(pcxHeader, is, scanline);
+                readScanLine(pcxHeader, reader, scanline);
                 if (pcxHeader.bitsPerPixel == 24) {
                     System.arraycopy(scanline, 0, image, y * rowLength,
                             rowLength);
@@ -526,8 +532,10 @@ public class PcxImageParser extends ImageParser {
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
-            final PcxHeader pcxHeader = readPcxHeader(is, isStrict);
-            final BufferedImage ret = readImage(pcxHeader, is, byteSource);
+            final BinaryReader reader = getBinaryReader(is);
+            final PcxHeader pcxHeader = readPcxHeader(reader, isStrict);
+            final BufferedImage ret = readImage(pcxHeader, reader, byteSource,
+                    getRasterBufferProvider(params));
             canThrow = true;
             return ret;
         } finally {
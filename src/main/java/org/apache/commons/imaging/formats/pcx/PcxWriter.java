@@ -27,6 +27,7 @@ import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.palette.PaletteFactory;
 import org.apache.commons.imaging.palette.SimplePalette;
 
@@ -199,10 +200,11 @@ class PcxWriter {
         bos.write2Bytes(0); // vScreenSize
         bos.write(new byte[54]);
 
+        final PixelReader pixels = new PixelReader(src);
         final int[] rgbs = new int[src.getWidth()];
         final byte[] rgbBytes = new byte[4 * bytesPerLine];
         for (int y = 0; y < src.getHeight(); y++) {
-            src.getRGB(0, y, src.getWidth(), 1, rgbs, 0, src.getWidth());
+            pixels.getRow(y, rgbs);
             for (int x = 0; x < rgbs.length; x++) {
                 rgbBytes[4 * x + 0] = (byte) (rgbs[x] & 0xff);
                 rgbBytes[4 * x + 1] = (byte) ((rgbs[x] >> 8) & 0xff);
@@ -239,10 +241,11 @@ class PcxWriter {
         bos.write2Bytes(0); // vScreenSize
         bos.write(new byte[54]);
 
+        final PixelReader pixels = new PixelReader(src);
         final int[] rgbs = new int[src.getWidth()];
         final byte[] rgbBytes = new byte[3 * bytesPerLine];
         for (int y = 0; y < src.getHeight(); y++) {
-            src.getRGB(0, y, src.getWidth(), 1, rgbs, 0, src.getWidth());
+            pixels.getRow(y, rgbs);
             for (int x = 0; x < rgbs.length; x++) {
                 rgbBytes[x] = (byte) ((rgbs[x] >> 16) & 0xff);
                 rgbBytes[bytesPerLine + x] = (byte) ((rgbs[x] >> 8) & 0xff);
@@ -282,11 +285,14 @@ class PcxWriter {
         bos.write2Bytes(0); // vScreenSize
         bos.write(new byte[54]);
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] rgbs = new int[src.getWidth()];
         final byte[] row = new byte[bytesPerLine];
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, rgbs);
             Arrays.fill(row, (byte) 0);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int rgb = 0xffffff & src.getRGB(x, y);
+                final int rgb = 0xffffff & rgbs[x];
                 int bit;
                 if (rgb == 0x000000) {
                     bit = 0;
@@ -343,11 +349,14 @@ class PcxWriter {
         bos.write2Bytes(0); // vScreenSize
         bos.write(new byte[54]);
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] rgbs = new int[src.getWidth()];
         final byte[] indeces = new byte[bytesPerLine];
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, rgbs);
             Arrays.fill(indeces, (byte) 0);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = rgbs[x];
                 final int index = palette.getPaletteIndex(0xffffff & argb);
                 indeces[x / 2] |= (index << 4 * (1 - (x % 2)));
             }
@@ -381,10 +390,13 @@ class PcxWriter {
         bos.write2Bytes(0); // vScreenSize
         bos.write(new byte[54]);
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] rgbs = new int[src.getWidth()];
         final byte[] indeces = new byte[bytesPerLine];
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, rgbs);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = rgbs[x];
                 final int index = palette.getPaletteIndex(0xffffff & argb);
                 indeces[x] = (byte) index;
             }
@@ -41,8 +41,11 @@ import org.apache.commons.imaging.ImageInfo;
 import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.GenericImageMetadata;
+import org.apache.commons.imaging.common.ParserPhase;
+import org.apache.commons.imaging.common.PhaseRecorder;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.png.chunks.PngChunk;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkGama;
@@ -147,14 +150,15 @@ public class PngImageParser extends ImageParser {
     private List<PngChunk> readChunks(final InputStream is, final ChunkType[] chunkTypes,
             final boolean returnAfterFirst) throws ImageReadException, IOException {
         final List<PngChunk> result = new ArrayList<PngChunk>();
+        final BinaryReader reader = getBinaryReader(is);
 
         while (true) {
             if (getDebug()) {
                 System.out.println("");
             }
 
-            final int length = read4Bytes("Length", is, "Not a Valid PNG File", getByteOrder());
-            final int chunkType = read4Bytes("ChunkType", is, "Not a Valid PNG File", getByteOrder());
+            final int length = reader.getS32("Not a Valid PNG File");
+            final int chunkType = reader.getS32("Not a Valid PNG File");
 
             if (getDebug()) {
                 printCharQuad("ChunkType", chunkType);
@@ -164,10 +168,13 @@ public class PngImageParser extends ImageParser {
 
             byte[] bytes = null;
             if (keep) {
-                bytes = readBytes("Chunk Data", is, length,
+                if (length < 0) {
+                    throw new ImageReadException("Not a Valid PNG File: Invalid Chunk Length.");
+                }
+                bytes = reader.getBytes(length,
                         "Not a Valid PNG File: Couldn't read Chunk Data.");
             } else {
-                skipBytes(is, length, "Not a Valid PNG File");
+                reader.skip(length, "Not a Valid PNG File");
             }
 
             if (getDebug()) {
@@ -176,7 +183,7 @@ public class PngImageParser extends ImageParser {
                 }
             }
 
-            final int crc = read4Bytes("CRC", is, "Not a Valid PNG File", getByteOrder());
+            final int crc = reader.getS32("Not a Valid PNG File");
 
             if (keep) {
                 if (chunkType == ChunkType.iCCP.value) {
@@ -283,7 +290,19 @@ public class PngImageParser extends ImageParser {
     @Override
     public ImageMetadata getMetadata(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.tEXt, ChunkType.zTXt, }, true);
+        final PhaseRecorder recorder = getPhaseRecorder(ImageFormats.PNG, params);
+        final long start = recorder.start();
+        ParserPhase phase = ParserPhase.METADATA;
+        final List<PngChunk> chunks;
+        try {
+            chunks = readChunks(byteSource, new ChunkType[] { ChunkType.tEXt, ChunkType.zTXt, }, true);
+            if (recorder.isEnabled()) {
+                recorder.end(phase, start, getLength(chunks), 0);
+            }
+            phase = null;
+        } finally {
+            recorder.failed(phase, start);
+        }
 
         if ((chunks == null) || (chunks.isEmpty())) {
             return null;
@@ -300,6 +319,20 @@ public class PngImageParser extends ImageParser {
         return result;
     }
 
+    /**
+     * Returns the number of bytes of the signature and the given chunks.
+     */
+    private static long getLength(final List<PngChunk> chunks) {
+        long length = PngConstants.PNG_SIGNATURE.size();
+        if (chunks != null) {
+            for (final PngChunk chunk : chunks) {
+                // length, type and CRC
+                length += 12L + chunk.length;
+            }
+        }
+        return length;
+    }
+
     private List<PngChunk> filterChunks(final List<PngChunk> chunks, final ChunkType type) {
         final List<PngChunk> result = new ArrayList<PngChunk>();
 
@@ -482,172 +515,194 @@ public class PngImageParser extends ImageParser {
         // throw new ImageWriteException("Unknown parameter: " + firstKey);
         // }
 
-        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] {
-                ChunkType.IHDR,
-                ChunkType.PLTE,
-                ChunkType.IDAT,
-                ChunkType.tRNS,
-                ChunkType.iCCP,
-                ChunkType.gAMA,
-                ChunkType.sRGB,
-            }, false);
-
-        if ((chunks == null) || (chunks.isEmpty())) {
-            throw new ImageReadException("PNG: no chunks");
-        }
+        final PhaseRecorder recorder = getPhaseRecorder(ImageFormats.PNG, params);
+        ParserPhase phase = ParserPhase.HEADER;
+        long start = recorder.start();
+        try {
+            final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] {
+                    ChunkType.IHDR,
+                    ChunkType.PLTE,
+                    ChunkType.IDAT,
+                    ChunkType.tRNS,
+                    ChunkType.iCCP,
+                    ChunkType.gAMA,
+                    ChunkType.sRGB,
+                }, false);
+
+            if ((chunks == null) || (chunks.isEmpty())) {
+                throw new ImageReadException("PNG: no chunks");
+            }
 
-        final List<PngChunk> IHDRs = filterChunks(chunks, ChunkType.IHDR);
-        if (IHDRs.size() != 1) {
-            throw new ImageReadException("PNG contains more than one Header");
-        }
+            final List<PngChunk> IHDRs = filterChunks(chunks, ChunkType.IHDR);
+            if (IHDRs.size() != 1) {
+                throw new ImageReadException("PNG contains more than one Header");
+            }
 
-        final PngChunkIhdr pngChunkIHDR = (PngChunkIhdr) IHDRs.get(0);
+            final PngChunkIhdr pngChunkIHDR = (PngChunkIhdr) IHDRs.get(0);
 
-        final List<PngChunk> PLTEs = filterChunks(chunks, ChunkType.PLTE);
-        if (PLTEs.size() > 1) {
-            throw new ImageReadException("PNG contains more than one Palette");
-        }
+            final List<PngChunk> PLTEs = filterChunks(chunks, ChunkType.PLTE);
+            if (PLTEs.size() > 1) {
+                throw new ImageReadException("PNG contains more than one Palette");
+            }
 
-        PngChunkPlte pngChunkPLTE = null;
-        if (PLTEs.size() == 1) {
-            pngChunkPLTE = (PngChunkPlte) PLTEs.get(0);
-        }
+            PngChunkPlte pngChunkPLTE = null;
+            if (PLTEs.size() == 1) {
+                pngChunkPLTE = (PngChunkPlte) PLTEs.get(0);
+            }
 
-        // -----
+            // -----
 
-        final List<PngChunk> IDATs = filterChunks(chunks, ChunkType.IDAT);
-        if (IDATs.isEmpty()) {
-            throw new ImageReadException("PNG missing image data");
-        }
+            final List<PngChunk> IDATs = filterChunks(chunks, ChunkType.IDAT);
+            if (IDATs.isEmpty()) {
+                throw new ImageReadException("PNG missing image data");
+            }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        for (PngChunk IDAT : IDATs) {
-            final PngChunkIdat pngChunkIDAT = (PngChunkIdat) IDAT;
-            final byte[] bytes = pngChunkIDAT.getBytes();
-            // System.out.println(i + ": bytes: " + bytes.length);
-            baos.write(bytes);
-        }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            for (PngChunk IDAT : IDATs) {
+                final PngChunkIdat pngChunkIDAT = (PngChunkIdat) IDAT;
+                final byte[] bytes = pngChunkIDAT.getBytes();
+                // System.out.println(i + ": bytes: " + bytes.length);
+                baos.write(bytes);
+            }
 
-        final byte[] compressed = baos.toByteArray();
+            final byte[] compressed = baos.toByteArray();
 
-        baos = null;
+            baos = null;
+            if (recorder.isEnabled()) {
+                recorder.end(phase, start, getLength(chunks), compressed.length);
+            }
+            // the transparency and color chunks are interpreted as part of
+            // the decompression, which ends with the image
+            phase = ParserPhase.DECOMPRESSION;
+            start = recorder.start();
 
-        TransparencyFilter transparencyFilter = null;
+            TransparencyFilter transparencyFilter = null;
 
-        final List<PngChunk> tRNSs = filterChunks(chunks, ChunkType.tRNS);
-        if (!tRNSs.isEmpty()) {
-            final PngChunk pngChunktRNS = tRNSs.get(0);
-            transparencyFilter = getTransparencyFilter(pngChunkIHDR.pngColorType, pngChunktRNS);
-        }
-
-        ICC_Profile iccProfile = null;
-        GammaCorrection gammaCorrection = null;
-        {
-            final List<PngChunk> sRGBs = filterChunks(chunks, ChunkType.sRGB);
-            final List<PngChunk> gAMAs = filterChunks(chunks, ChunkType.gAMA);
-            final List<PngChunk> iCCPs = filterChunks(chunks, ChunkType.iCCP);
-            if (sRGBs.size() > 1) {
-                throw new ImageReadException("PNG: unexpected sRGB chunk");
-            }
-            if (gAMAs.size() > 1) {
-                throw new ImageReadException("PNG: unexpected gAMA chunk");
-            }
-            if (iCCPs.size() > 1) {
-                throw new ImageReadException("PNG: unexpected iCCP chunk");
+            final List<PngChunk> tRNSs = filterChunks(chunks, ChunkType.tRNS);
+            if (!tRNSs.isEmpty()) {
+                final PngChunk pngChunktRNS = tRNSs.get(0);
+                transparencyFilter = getTransparencyFilter(pngChunkIHDR.pngColorType, pngChunktRNS);
             }
 
-            if (sRGBs.size() == 1) {
-                // no color management neccesary.
-                if (getDebug()) {
-                    System.out.println("sRGB, no color management neccesary.");
+            ICC_Profile iccProfile = null;
+            GammaCorrection gammaCorrection = null;
+            {
+                final List<PngChunk> sRGBs = filterChunks(chunks, ChunkType.sRGB);
+                final List<PngChunk> gAMAs = filterChunks(chunks, ChunkType.gAMA);
+                final List<PngChunk> iCCPs = filterChunks(chunks, ChunkType.iCCP);
+                if (sRGBs.size() > 1) {
+                    throw new ImageReadException("PNG: unexpected sRGB chunk");
+                }
+                if (gAMAs.size() > 1) {
+                    throw new ImageReadException("PNG: unexpected gAMA chunk");
                 }
-            } else if (iCCPs.size() == 1) {
-                if (getDebug()) {
-                    System.out.println("iCCP.");
+                if (iCCPs.size() > 1) {
+                    throw new ImageReadException("PNG: unexpected iCCP chunk");
                 }
 
-                final PngChunkIccp pngChunkiCCP = (PngChunkIccp) iCCPs.get(0);
-                final byte[] bytes = pngChunkiCCP.getUncompressedProfile();
+                if (sRGBs.size() == 1) {
+                    // no color management neccesary.
+                    if (getDebug()) {
+                        System.out.println("sRGB, no color management neccesary.");
+                    }
+                } else if (iCCPs.size() == 1) {
+                    if (getDebug()) {
+                        System.out.println("iCCP.");
+                    }
 
-                iccProfile = ICC_Profile.getInstance(bytes);
-            } else if (gAMAs.size() == 1) {
-                final PngChunkGama pngChunkgAMA = (PngChunkGama) gAMAs.get(0);
-                final double gamma = pngChunkgAMA.getGamma();
+                    final PngChunkIccp pngChunkiCCP = (PngChunkIccp) iCCPs.get(0);
+                    final byte[] bytes = pngChunkiCCP.getUncompressedProfile();
 
-                // charles: what is the correct target value here?
-                // double targetGamma = 2.2;
-                final double targetGamma = 1.0;
-                final double diff = Math.abs(targetGamma - gamma);
-                if (diff >= 0.5) {
-                    gammaCorrection = new GammaCorrection(gamma, targetGamma);
-                }
+                    iccProfile = ICC_Profile.getInstance(bytes);
+                } else if (gAMAs.size() == 1) {
+                    final PngChunkGama pngChunkgAMA = (PngChunkGama) gAMAs.get(0);
+                    final double gamma = pngChunkgAMA.getGamma();
 
-                if (gammaCorrection != null) {
-                    if (pngChunkPLTE != null) {
-                        pngChunkPLTE.correct(gammaCorrection);
+                    // charles: what is the correct target value here?
+                    // double targetGamma = 2.2;
+                    final double targetGamma = 1.0;
+                    final double diff = Math.abs(targetGamma - gamma);
+                    if (diff >= 0.5) {
+                        gammaCorrection = new GammaCorrection(gamma, targetGamma);
                     }
-                }
 
+                    if (gammaCorrection != null) {
+                        if (pngChunkPLTE != null) {
+                            pngChunkPLTE.correct(gammaCorrection);
+                        }
+                    }
+
+                }
             }
-        }
 
-        {
-            final int width = pngChunkIHDR.width;
-            final int height = pngChunkIHDR.height;
-            final PngColorType pngColorType = pngChunkIHDR.pngColorType;
-            final int bitDepth = pngChunkIHDR.bitDepth;
+            {
+                final int width = pngChunkIHDR.width;
+                final int height = pngChunkIHDR.height;
+                final PngColorType pngColorType = pngChunkIHDR.pngColorType;
+                final int bitDepth = pngChunkIHDR.bitDepth;
 
-            if (pngChunkIHDR.filterMethod != 0) {
-                throw new ImageReadException("PNG: unknown FilterMethod: " + pngChunkIHDR.filterMethod);
-            }
+                if (pngChunkIHDR.filterMethod != 0) {
+                    throw new ImageReadException("PNG: unknown FilterMethod: " + pngChunkIHDR.filterMethod);
+                }
 
-            final int bitsPerPixel = bitDepth * pngColorType.getSamplesPerPixel();
+                final int bitsPerPixel = bitDepth * pngColorType.getSamplesPerPixel();
 
-            final boolean hasAlpha = pngColorType.hasAlpha() || transparencyFilter != null;
+                final boolean hasAlpha = pngColorType.hasAlpha() || transparencyFilter != null;
 
-            BufferedImage result;
-            if (pngColorType.isGreyscale()) {
-                result = getBufferedImageFactory(params).getGrayscaleBufferedImage(width, height, hasAlpha);
-            } else {
-                result = getBufferedImageFactory(params).getColorBufferedImage(width, height, hasAlpha);
-            }
+                // inflating, unfiltering and interpreting go row by row together
+                BufferedImage result;
+                if (pngColorType.isGreyscale()) {
+                    result = getBufferedImageFactory(params).getGrayscaleBufferedImage(width, height, hasAlpha);
+                } else {
+                    result = getBufferedImageFactory(params).getColorBufferedImage(width, height, hasAlpha);
+                }
 
-            final ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
-            final InflaterInputStream iis = new InflaterInputStream(bais);
-
-            ScanExpediter scanExpediter;
-
-            switch (pngChunkIHDR.interlaceMethod) {
-                case NONE:
-                    scanExpediter = new ScanExpediterSimple(width, height, iis,
-                            result, pngColorType, bitDepth, bitsPerPixel,
-                            pngChunkPLTE, gammaCorrection, transparencyFilter);
-                    break;
-                case ADAM7:
-                    scanExpediter = new ScanExpediterInterlaced(width, height, iis,
-                            result, pngColorType, bitDepth, bitsPerPixel,
-                            pngChunkPLTE, gammaCorrection, transparencyFilter);
-                    break;
-                default:
-                    throw new ImageReadException("Unknown InterlaceMethod: " + pngChunkIHDR.interlaceMethod);
-            }
+                final ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
+                final InflaterInputStream iis = new InflaterInputStream(bais);
+
+                ScanExpediter scanExpediter;
+
+                switch (pngChunkIHDR.interlaceMethod) {
+                    case NONE:
+                        scanExpediter = new ScanExpediterSimple(width, height, iis,
+                                result, pngColorType, bitDepth, bitsPerPixel,
+                                pngChunkPLTE, gammaCorrection, transparencyFilter,
+                                getRasterBufferProvider(params));
+                        break;
+                    case ADAM7:
+                        scanExpediter = new ScanExpediterInterlaced(width, height, iis,
+                                result, pngColorType, bitDepth, bitsPerPixel,
+                                pngChunkPLTE, gammaCorrection, transparencyFilter,
+                                getRasterBufferProvider(params));
+                        break;
+                    default:
+                        throw new ImageReadException("Unknown InterlaceMethod: " + pngChunkIHDR.interlaceMethod);
+                }
 
-            scanExpediter.drive();
+                scanExpediter.drive();
+                recorder.end(phase, start, compressed.length, result);
 
-            if (iccProfile != null) {
-                final Boolean is_srgb = new IccProfileParser().issRGB(iccProfile);
-                if (is_srgb == null || !is_srgb.booleanValue()) {
-                    final ICC_ColorSpace cs = new ICC_ColorSpace(iccProfile);
+                if (iccProfile != null) {
+                    final Boolean is_srgb = new IccProfileParser().issRGB(iccProfile);
+                    if (is_srgb == null || !is_srgb.booleanValue()) {
+                        phase = ParserPhase.COLOR_CONVERSION;
+                        start = recorder.start();
+                        final ICC_ColorSpace cs = new ICC_ColorSpace(iccProfile);
 
-                    final ColorModel srgbCM = ColorModel.getRGBdefault();
-                    final ColorSpace cs_sRGB = srgbCM.getColorSpace();
+                        final ColorModel srgbCM = ColorModel.getRGBdefault();
+                        final ColorSpace cs_sRGB = srgbCM.getColorSpace();
 
-                    result = new ColorTools().convertBetweenColorSpaces(result, cs, cs_sRGB);
+                        result = new ColorTools().convertBetweenColorSpaces(result, cs, cs_sRGB);
+                        recorder.end(phase, start, 0, result);
+                    }
                 }
-            }
 
-            return result;
+                phase = null;
+                return result;
 
+            }
+        } finally {
+            recorder.failed(phase, start);
         }
 
     }
@@ -29,6 +29,7 @@ import java.util.zip.DeflaterOutputStream;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.PixelDensity;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.palette.Palette;
 import org.apache.commons.imaging.palette.PaletteFactory;
 import org.apache.commons.imaging.palette.SimplePalette;
@@ -548,10 +549,11 @@ class PngWriter {
                 final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA
                         || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
 
+                final PixelReader pixels = new PixelReader(src);
                 final int[] row = new int[width];
                 for (int y = 0; y < height; y++) {
                     // Debug.debug("y", y + "/" + height);
-                    src.getRGB(0, y, width, 1, row, 0, width);
+                    pixels.getRow(y, row);
 
                     baos.write(FilterType.NONE.ordinal());
                     for (int x = 0; x < width; x++) {
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilter;
 import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterAverage;
@@ -30,8 +31,6 @@ import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterSub;
 import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterUp;
 import org.apache.commons.imaging.formats.png.transparencyfilters.TransparencyFilter;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
-
 abstract class ScanExpediter {
     protected final int width;
     protected final int height;
@@ -44,11 +43,13 @@ abstract class ScanExpediter {
     protected final PngChunkPlte pngChunkPLTE;
     protected final GammaCorrection gammaCorrection;
     protected final TransparencyFilter transparencyFilter;
+    protected final RasterBufferProvider rasterBufferProvider;
 
     public ScanExpediter(final int width, final int height, final InputStream is,
             final BufferedImage bi, final PngColorType pngColorType, final int bitDepth, final int bitsPerPixel,
             final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
-            final TransparencyFilter transparencyFilter)
+            final TransparencyFilter transparencyFilter,
+            final RasterBufferProvider rasterBufferProvider)
 
     {
         this.width = width;
@@ -62,6 +63,7 @@ abstract class ScanExpediter {
         this.pngChunkPLTE = pngChunkPLTE;
         this.gammaCorrection = gammaCorrection;
         this.transparencyFilter = transparencyFilter;
+        this.rasterBufferProvider = rasterBufferProvider;
     }
 
     protected final int getBitsToBytesRoundingUp(final int bits) {
@@ -192,7 +194,7 @@ abstract class ScanExpediter {
             final int bytesPerPixel) throws ImageReadException, IOException {
         final ScanlineFilter filter = getScanlineFilter(filterType, bytesPerPixel);
 
-        final byte[] dst = new byte[src.length];
+        final byte[] dst = rasterBufferProvider.getByteBuffer(src.length);
         filter.unfilter(src, dst, prev);
         return dst;
     }
@@ -207,9 +209,19 @@ abstract class ScanExpediter {
             throw new ImageReadException("PNG: unknown filterType: " + filterType);
         }
 
-        byte[] scanline = readBytes("scanline", is, length, "PNG: missing image data");
-
-        return unfilterScanline(FilterType.values()[filterType], scanline, prev, bytesPerPixel);
+        final byte[] scanline = rasterBufferProvider.getByteBuffer(length);
+        try {
+            int read;
+            for (int total = 0; total < length; total += read) {
+                read = is.read(scanline, total, length - total);
+                if (read < 0) {
+                    throw new IOException("PNG: missing image data");
+                }
+            }
+            return unfilterScanline(FilterType.values()[filterType], scanline, prev, bytesPerPixel);
+        } finally {
+            rasterBufferProvider.release(scanline);
+        }
     }
 
 }
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.TransparencyFilter;
 
@@ -37,11 +38,13 @@ class ScanExpediterInterlaced extends ScanExpediter {
             PngColorType pngColorType, int bitDepth, int bitsPerPixel,
             PngChunkPlte fPNGChunkPLTE,
             GammaCorrection gammaCorrection,
-            TransparencyFilter transparencyFilter)
+            TransparencyFilter transparencyFilter,
+            RasterBufferProvider rasterBufferProvider)
 
     {
         super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel,
-                fPNGChunkPLTE, gammaCorrection, transparencyFilter);
+                fPNGChunkPLTE, gammaCorrection, transparencyFilter,
+                rasterBufferProvider);
     }
 
     private void visit(final int x, final int y, final BufferedImage bi, final BitParser fBitParser,
@@ -73,6 +76,7 @@ class ScanExpediterInterlaced extends ScanExpediter {
 
                     final byte[] unfiltered = getNextScanline(is, pixelBytesPerScanLine, prev, bytesPerPixel);
 
+                    rasterBufferProvider.release(prev);
                     prev = unfiltered;
 
                     final BitParser fBitParser = new BitParser(unfiltered, bitsPerPixel, bitDepth);
@@ -86,6 +90,7 @@ class ScanExpediterInterlaced extends ScanExpediter {
                 }
                 y = y + ROW_INCREMENT[pass - 1];
             }
+            rasterBufferProvider.release(prev);
             pass = pass + 1;
         }
     }
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.TransparencyFilter;
 
@@ -28,11 +29,13 @@ class ScanExpediterSimple extends ScanExpediter {
     public ScanExpediterSimple(final int width, final int height, final InputStream is,
             final BufferedImage bi, final PngColorType pngColorType, final int bitDepth, final int bitsPerPixel,
             final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
-            final TransparencyFilter transparencyFilter)
+            final TransparencyFilter transparencyFilter,
+            final RasterBufferProvider rasterBufferProvider)
 
     {
         super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel,
-                pngChunkPLTE, gammaCorrection, transparencyFilter);
+                pngChunkPLTE, gammaCorrection, transparencyFilter,
+                rasterBufferProvider);
     }
 
     @Override
@@ -44,6 +47,7 @@ class ScanExpediterSimple extends ScanExpediter {
         for (int y = 0; y < height; y++) {
             final byte[] unfiltered = getNextScanline(is, pixelBytesPerScanLine, prev, bytesPerPixel);
 
+            rasterBufferProvider.release(prev);
             prev = unfiltered;
 
             final BitParser bitParser = new BitParser(unfiltered, bitsPerPixel,
@@ -55,6 +59,7 @@ class ScanExpediterSimple extends ScanExpediter {
                 bi.setRGB(x, y, rgb);
             }
         }
+        rasterBufferProvider.release(prev);
 
     }
 }
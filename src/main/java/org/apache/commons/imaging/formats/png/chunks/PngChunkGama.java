@@ -19,7 +19,7 @@ package org.apache.commons.imaging.formats.png.chunks;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
+import org.apache.commons.imaging.common.BinaryReader;
 
 public class PngChunkGama extends PngChunk {
     public final int gamma;
@@ -28,8 +28,8 @@ public class PngChunkGama extends PngChunk {
             throws IOException {
         super(length, chunkType, crc, bytes);
 
-        final ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-        gamma = read4Bytes("Gamma", is, "Not a Valid Png File: gAMA Corrupt", getByteOrder());
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(bytes));
+        gamma = reader.getS32("Not a Valid Png File: gAMA Corrupt");
     }
 
     public double getGamma() {
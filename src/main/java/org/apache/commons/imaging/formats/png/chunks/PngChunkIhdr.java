@@ -20,11 +20,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.formats.png.PngColorType;
 import org.apache.commons.imaging.formats.png.InterlaceMethod;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
-
 public class PngChunkIhdr extends PngChunk {
     public final int width;
     public final int height;
@@ -37,18 +36,18 @@ public class PngChunkIhdr extends PngChunk {
     public PngChunkIhdr(int length, int chunkType, int crc, byte[] bytes) throws ImageReadException, IOException {
         super(length, chunkType, crc, bytes);
 
-        final ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-        width = read4Bytes("Width", is, "Not a Valid Png File: IHDR Corrupt", getByteOrder());
-        height = read4Bytes("Height", is, "Not a Valid Png File: IHDR Corrupt", getByteOrder());
-        bitDepth = readByte("BitDepth", is, "Not a Valid Png File: IHDR Corrupt");
-        int type = readByte("ColorType", is, "Not a Valid Png File: IHDR Corrupt");
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(bytes));
+        width = reader.getS32("Not a Valid Png File: IHDR Corrupt");
+        height = reader.getS32("Not a Valid Png File: IHDR Corrupt");
+        bitDepth = reader.getByte("Not a Valid Png File: IHDR Corrupt");
+        int type = reader.getByte("Not a Valid Png File: IHDR Corrupt");
         pngColorType = PngColorType.getColorType(type);
         if (pngColorType == null) {
             throw new ImageReadException("PNG: unknown color type: " + type);
         }
-        compressionMethod = readByte("CompressionMethod", is, "Not a Valid Png File: IHDR Corrupt");
-        filterMethod = readByte("FilterMethod", is, "Not a Valid Png File: IHDR Corrupt");
-        int method = readByte("InterlaceMethod", is, "Not a Valid Png File: IHDR Corrupt");
+        compressionMethod = reader.getByte("Not a Valid Png File: IHDR Corrupt");
+        filterMethod = reader.getByte("Not a Valid Png File: IHDR Corrupt");
+        int method = reader.getByte("Not a Valid Png File: IHDR Corrupt");
         if (method < 0 && method >= InterlaceMethod.values().length) {
             throw new ImageReadException("PNG: unknown interlace method: " + method);
         }
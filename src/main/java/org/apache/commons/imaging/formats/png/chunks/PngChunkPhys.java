@@ -19,7 +19,7 @@ package org.apache.commons.imaging.formats.png.chunks;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
+import org.apache.commons.imaging.common.BinaryReader;
 
 public class PngChunkPhys extends PngChunk {
     public final int pixelsPerUnitXAxis;
@@ -29,11 +29,11 @@ public class PngChunkPhys extends PngChunk {
     public PngChunkPhys(int length, int chunkType, int crc, byte[] bytes) throws IOException {
         super(length, chunkType, crc, bytes);
 
-        final ByteArrayInputStream is = new ByteArrayInputStream(bytes);
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(bytes));
 
-        pixelsPerUnitXAxis = read4Bytes("PixelsPerUnitXAxis", is, "Not a Valid Png File: pHYs Corrupt", getByteOrder());
-        pixelsPerUnitYAxis = read4Bytes("PixelsPerUnitYAxis", is, "Not a Valid Png File: pHYs Corrupt", getByteOrder());
-        unitSpecifier = readByte("Unit specifier", is, "Not a Valid Png File: pHYs Corrupt");
+        pixelsPerUnitXAxis = reader.getS32("Not a Valid Png File: pHYs Corrupt");
+        pixelsPerUnitYAxis = reader.getS32("Not a Valid Png File: pHYs Corrupt");
+        unitSpecifier = reader.getByte("Not a Valid Png File: pHYs Corrupt");
     }
 
 }
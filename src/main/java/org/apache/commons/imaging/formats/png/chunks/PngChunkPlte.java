@@ -20,10 +20,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.formats.png.GammaCorrection;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
-
 public class PngChunkPlte extends PngChunk {
     private final int[] rgb;
 
@@ -31,7 +30,7 @@ public class PngChunkPlte extends PngChunk {
             throws ImageReadException, IOException {
         super(length, chunkType, crc, bytes);
 
-        final ByteArrayInputStream is = new ByteArrayInputStream(bytes);
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(bytes));
 
         if ((length % 3) != 0) {
             throw new ImageReadException("PLTE: wrong length: " + length);
@@ -42,12 +41,9 @@ public class PngChunkPlte extends PngChunk {
         rgb = new int[count];
 
         for (int i = 0; i < count; i++) {
-            final int red = readByte("red[" + i + "]", is,
-                    "Not a Valid Png File: PLTE Corrupt");
-            final int green = readByte("green[" + i + "]", is,
-                    "Not a Valid Png File: PLTE Corrupt");
-            final int blue = readByte("blue[" + i + "]", is,
-                    "Not a Valid Png File: PLTE Corrupt");
+            final int red = reader.getByte("Not a Valid Png File: PLTE Corrupt");
+            final int green = reader.getByte("Not a Valid Png File: PLTE Corrupt");
+            final int blue = reader.getByte("Not a Valid Png File: PLTE Corrupt");
             rgb[i] = 0xff000000 | ((0xff & red) << 16) | ((0xff & green) << 8)
                     | ((0xff & blue) << 0);
         }
@@ -20,8 +20,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImageReadException;
-
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
+import org.apache.commons.imaging.common.BinaryReader;
 
 public class TransparencyFilterGrayscale extends TransparencyFilter {
     private final int transparentColor;
@@ -29,8 +28,8 @@ public class TransparencyFilterGrayscale extends TransparencyFilter {
     public TransparencyFilterGrayscale(byte[] bytes) throws IOException {
         super(bytes);
 
-        ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-        transparentColor = read2Bytes("transparentColor", is, "tRNS: Missing transparentColor", getByteOrder());
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(bytes));
+        transparentColor = reader.getU16("tRNS: Missing transparentColor");
     }
 
     @Override
@@ -20,8 +20,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImageReadException;
-
-import static org.apache.commons.imaging.common.BinaryFunctions.*;
+import org.apache.commons.imaging.common.BinaryReader;
 
 public class TransparencyFilterTrueColor extends TransparencyFilter {
     private final int transparentColor;
@@ -29,10 +28,10 @@ public class TransparencyFilterTrueColor extends TransparencyFilter {
     public TransparencyFilterTrueColor(byte[] bytes) throws IOException {
         super(bytes);
 
-        ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-        int transparentRed = read2Bytes("transparentRed", is, "tRNS: Missing transparentColor", getByteOrder());
-        int transparentGreen = read2Bytes("transparentGreen", is, "tRNS: Missing transparentColor", getByteOrder());
-        int transparentBlue = read2Bytes("transparentBlue", is, "tRNS: Missing transparentColor", getByteOrder());
+        final BinaryReader reader = getBinaryReader(new ByteArrayInputStream(bytes));
+        int transparentRed = reader.getU16("tRNS: Missing transparentColor");
+        int transparentGreen = reader.getU16("tRNS: Missing transparentColor");
+        int transparentBlue = reader.getU16("tRNS: Missing transparentColor");
 
         transparentColor = ((0xff & transparentRed) << 16)
                 | ((0xff & transparentGreen) << 8)
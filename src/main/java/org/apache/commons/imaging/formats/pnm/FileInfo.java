@@ -18,12 +18,17 @@ package org.apache.commons.imaging.formats.pnm;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.MappedByteBuffer;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageInfo;
+import org.apache.commons.imaging.common.BinaryFunctions;
 import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
 
 abstract class FileInfo {
+    private static final int MAX_MAPPING_LENGTH = 1 << 26;
+
     protected final int width;
     protected final int height;
     protected final boolean rawbits;
@@ -48,74 +53,103 @@ abstract class FileInfo {
 
     public abstract ImageInfo.ColorType getColorType();
 
-    public abstract int getRGB(WhiteSpaceReader wsr) throws IOException;
-
-    public abstract int getRGB(InputStream is) throws IOException;
-
-    protected void newline() {
-        // do nothing by default.
+    /**
+     * Returns the length in bytes of a row of a binary file.
+     */
+    protected abstract int getRowLength();
+
+    /**
+     * Converts a row of a binary file to ARGB values.
+     */
+    protected abstract void getRGBs(byte[] row, int[] argb) throws IOException;
+
+    /**
+     * Reads a row of a text file as ARGB values.
+     */
+    protected abstract void getRGBs(SampleTokenizer tokenizer, int[] argb) throws IOException;
+
+    /**
+     * Returns the 8 bit values of the samples up to max, for which a
+     * sample is an index. Samples above max are invalid and are black.
+     */
+    protected static int[] createScaleTable(final int max, final int bytesPerSample) {
+        final int[] table = new int[1 << (8 * bytesPerSample)];
+        final float scale = 255f;
+        for (int sample = 0; sample <= max; sample++) {
+            table[sample] = (int) ((sample * scale / max) + 0.5f);
+        }
+        return table;
     }
-    
-    protected static int readSample(final InputStream is, final int bytesPerSample) throws IOException {
-        int sample = 0;
-        for (int i = 0; i < bytesPerSample; i++) {
-            final int nextByte = is.read();
-            if (nextByte < 0) {
-                throw new IOException("PNM: Unexpected EOF");
+
+    /**
+     * Scales the samples of a row of a binary file to 8 bits.
+     */
+    protected static void scaleSamples(final byte[] row, final int bytesPerSample,
+            final int[] table, final int[] samples) {
+        if (bytesPerSample == 1) {
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = table[0xff & row[i]];
+            }
+        } else {
+            for (int i = 0, j = 0; i < samples.length; i++, j += 2) {
+                samples[i] = table[((0xff & row[j]) << 8) | (0xff & row[j + 1])];
             }
-            sample <<= 8;
-            sample |= nextByte;
         }
-        return sample;
     }
-    
-    protected static int scaleSample(int sample, final float scale, final int max) throws IOException {
-        if (sample < 0) {
-            // Even netpbm tools break for files like this
-            throw new IOException("Negative pixel values are invalid in PNM files");
-        } else if (sample > max) {
-            // invalid values -> black
-            sample = 0;
+
+    /**
+     * Reads and scales the samples of a row of a text file to 8 bits.
+     */
+    protected static void scaleSamples(final SampleTokenizer tokenizer, final int max,
+            final int[] table, final int[] samples) throws IOException {
+        for (int i = 0; i < samples.length; i++) {
+            final int sample = tokenizer.nextInt();
+            samples[i] = sample <= max ? table[sample] : 0;
         }
-        return (int) ((sample * scale / max) + 0.5f);
     }
 
     public void readImage(final ImageBuilder imageBuilder, final InputStream is)
             throws IOException {
-        // is = new BufferedInputStream(is);
-        // int count = 0;
-        //
-        // try
-        // {
-
+        final int[] argb = new int[width];
         if (!rawbits) {
-            final WhiteSpaceReader wsr = new WhiteSpaceReader(is);
-
+            final SampleTokenizer tokenizer = new SampleTokenizer(is);
             for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    final int rgb = getRGB(wsr);
-
-                    imageBuilder.setRGB(x, y, rgb);
-                    // count++;
-                }
-                newline();
+                getRGBs(tokenizer, argb);
+                imageBuilder.setRGBRow(y, argb);
             }
         } else {
+            final byte[] row = new byte[getRowLength()];
             for (int y = 0; y < height; y++) {
-                // System.out.println("y: " + y);
-                for (int x = 0; x < width; x++) {
-                    final int rgb = getRGB(is);
-                    imageBuilder.setRGB(x, y, rgb);
-                    // count++;
-                }
-                newline();
+                BinaryFunctions.readBytes(is, row, "PNM: Unexpected EOF");
+                getRGBs(row, argb);
+                imageBuilder.setRGBRow(y, argb);
+            }
+        }
+    }
+
+    /**
+     * Reads the image of a binary file from a memory mapped file, whose
+     * image data starts at the given position. Large files are mapped a
+     * part at a time, as a mapping can't be more than 2 GB.
+     */
+    public void readImage(final ImageBuilder imageBuilder, final ByteSourceFile byteSource,
+            final long position) throws IOException {
+        final int rowLength = getRowLength();
+        final int rowsPerMapping = Math.max(1, MAX_MAPPING_LENGTH / rowLength);
+        final byte[] row = new byte[rowLength];
+        final int[] argb = new int[width];
+        for (int y = 0; y < height; y += rowsPerMapping) {
+            final int rows = Math.min(rowsPerMapping, height - y);
+            final long start = position + (long) y * rowLength;
+            if (start + (long) rows * rowLength > byteSource.getLength()) {
+                throw new IOException("PNM: Unexpected EOF");
+            }
+            final MappedByteBuffer buffer = byteSource.map(start, (long) rows * rowLength);
+            for (int i = 0; i < rows; i++) {
+                buffer.get(row);
+                getRGBs(row, argb);
+                imageBuilder.setRGBRow(y + i, argb);
             }
         }
-        // }
-        // finally
-        // {
-        // System.out.println("count: " + count);
-        // dump();
-        // }
     }
 }
@@ -18,7 +18,6 @@
 package org.apache.commons.imaging.formats.pnm;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
@@ -28,10 +27,11 @@ import org.apache.commons.imaging.ImageReadException;
 class PamFileInfo extends FileInfo {
     private final int depth;
     private final int maxval;
-    private final float scale;
-    private final int bytesPerSample; 
+    private final int bytesPerSample;
     private final boolean hasAlpha;
     private final TupleReader tupleReader;
+    private final int[] scaleTable;
+    private final int[] samples;
 
     PamFileInfo(final int width, final int height, final int depth, final int maxval, final String tupleType) throws ImageReadException {
         super(width, height, true);
@@ -41,10 +41,8 @@ class PamFileInfo extends FileInfo {
             throw new ImageReadException("PAM maxVal " + maxval
                     + " is out of range [1;65535]");
         } else if (maxval <= 255) {
-            scale = 255f;
             bytesPerSample = 1;
         } else if (maxval <= 65535) {
-            scale = 65535f;
             bytesPerSample = 2;
         } else {
             throw new ImageReadException("PAM maxVal " + maxval
@@ -61,6 +59,12 @@ class PamFileInfo extends FileInfo {
         } else {
             throw new ImageReadException("Unknown PAM tupletype '" + tupleType + "'");
         }
+        if (depth < tupleReader.getSamplesPerTuple()) {
+            throw new ImageReadException("PAM depth " + depth
+                    + " is too small for tupletype '" + tupleType + "'");
+        }
+        scaleTable = createScaleTable(maxval, bytesPerSample);
+        samples = new int[width * depth];
     }
     
     @Override
@@ -99,18 +103,25 @@ class PamFileInfo extends FileInfo {
     }
     
     @Override
-    public int getRGB(final WhiteSpaceReader wsr) throws IOException {
-        throw new UnsupportedOperationException("PAM files are only ever binary");
+    protected int getRowLength() {
+        return width * depth * bytesPerSample;
     }
 
     @Override
-    public int getRGB(final InputStream is) throws IOException {
-        return tupleReader.getRGB(is);
+    protected void getRGBs(final byte[] row, final int[] argb) {
+        scaleSamples(row, bytesPerSample, scaleTable, samples);
+        tupleReader.getRGBs(samples, argb);
+    }
+
+    @Override
+    protected void getRGBs(final SampleTokenizer tokenizer, final int[] argb) throws IOException {
+        throw new UnsupportedOperationException("PAM files are only ever binary");
     }
 
     private abstract class TupleReader {
         public abstract ImageInfo.ColorType getColorType();
-        public abstract int getRGB(InputStream is) throws IOException;
+        public abstract int getSamplesPerTuple();
+        public abstract void getRGBs(int[] samples, int[] argb);
     }
     
     private class GrayscaleTupleReader extends TupleReader {
@@ -124,22 +135,19 @@ class PamFileInfo extends FileInfo {
         public ImageInfo.ColorType getColorType() {
             return colorType;
         }
+
+        @Override
+        public int getSamplesPerTuple() {
+            return hasAlpha ? 2 : 1;
+        }
         
         @Override
-        public int getRGB(final InputStream is) throws IOException {
-            int sample = readSample(is, bytesPerSample);
-            sample = scaleSample(sample, scale, maxval);
-            
-            int alpha = 0xff;
-            if (hasAlpha) {
-                alpha = readSample(is, bytesPerSample);
-                alpha = scaleSample(alpha, scale, maxval);
+        public void getRGBs(final int[] samples, final int[] argb) {
+            for (int x = 0, i = 0; x < width; x++, i += depth) {
+                final int sample = samples[i];
+                final int alpha = hasAlpha ? samples[i + 1] : 0xff;
+                argb[x] = (alpha << 24) | (sample << 16) | (sample << 8) | sample;
             }
-
-            return ((0xff & alpha)  << 24) 
-                 | ((0xff & sample) << 16)
-                 | ((0xff & sample) << 8)
-                 | ((0xff & sample) << 0);
         }
     }
 
@@ -148,27 +156,21 @@ class PamFileInfo extends FileInfo {
         public ImageInfo.ColorType getColorType() {
             return ImageInfo.ColorType.RGB;
         }
+
+        @Override
+        public int getSamplesPerTuple() {
+            return hasAlpha ? 4 : 3;
+        }
         
         @Override
-        public int getRGB(final InputStream is) throws IOException {
-            int red = readSample(is, bytesPerSample);
-            int green = readSample(is, bytesPerSample);
-            int blue = readSample(is, bytesPerSample);
-
-            red = scaleSample(red, scale, maxval);
-            green = scaleSample(green, scale, maxval);
-            blue = scaleSample(blue, scale, maxval);
-
-            int alpha =  0xff;
-            if (hasAlpha) {
-                alpha = readSample(is, bytesPerSample);
-                alpha = scaleSample(alpha, scale, maxval);
+        public void getRGBs(final int[] samples, final int[] argb) {
+            for (int x = 0, i = 0; x < width; x++, i += depth) {
+                final int alpha = hasAlpha ? samples[i + 3] : 0xff;
+                argb[x] = (alpha << 24)
+                        | (samples[i] << 16)
+                        | (samples[i + 1] << 8)
+                        | samples[i + 2];
             }
-
-            return ((0xff & alpha) << 24) 
-                 | ((0xff & red)   << 16)
-                 | ((0xff & green) << 8)
-                 | ((0xff & blue)  << 0);
         }
     }
 }
@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.util.Map;
 
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PixelReader;
 
 class PamWriter implements PnmWriter {
 
@@ -54,9 +55,12 @@ class PamWriter implements PnmWriter {
         os.write(("ENDHDR").getBytes("US-ASCII"));
         os.write(PnmConstants.PNM_NEWLINE);
         
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int alpha = 0xff & (argb >> 24);
                 final int red = 0xff & (argb >> 16);
                 final int green = 0xff & (argb >> 8);
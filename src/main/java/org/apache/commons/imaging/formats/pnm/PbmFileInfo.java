@@ -17,16 +17,12 @@
 package org.apache.commons.imaging.formats.pnm;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageInfo;
 
 class PbmFileInfo extends FileInfo {
-    private int bitcache;
-    private int bitsInCache;
-
     public PbmFileInfo(final int width, final int height, final boolean rawbits) {
         super(width, height, rawbits);
     }
@@ -67,45 +63,23 @@ class PbmFileInfo extends FileInfo {
     }
 
     @Override
-    protected void newline() {
-        bitcache = 0;
-        bitsInCache = 0;
+    protected int getRowLength() {
+        return (width + 7) / 8;
     }
 
     @Override
-    public int getRGB(final InputStream is) throws IOException {
-        if (bitsInCache < 1) {
-            final int bits = is.read();
-            if (bits < 0) {
-                throw new IOException("PBM: Unexpected EOF");
-            }
-            bitcache = 0xff & bits;
-            bitsInCache += 8;
-        }
-
-        final int bit = 0x1 & (bitcache >> 7);
-        bitcache <<= 1;
-        bitsInCache--;
-
-        if (bit == 0) {
-            return 0xffffffff;
-        }
-        if (bit == 1) {
-            return 0xff000000;
+    protected void getRGBs(final byte[] row, final int[] argb) {
+        for (int x = 0; x < width; x++) {
+            final int bit = 0x1 & (row[x >> 3] >> (7 - (x & 7)));
+            argb[x] = bit == 0 ? 0xffffffff : 0xff000000;
         }
-        throw new IOException("PBM: bad bit: " + bit);
     }
 
     @Override
-    public int getRGB(final WhiteSpaceReader wsr) throws IOException {
-        final int bit = Integer.parseInt(wsr.readtoWhiteSpace());
-        if (bit == 0) {
-            return 0xff000000;
-        }
-        if (bit == 1) {
-            return 0xffffffff;
+    protected void getRGBs(final SampleTokenizer tokenizer, final int[] argb) throws IOException {
+        for (int x = 0; x < width; x++) {
+            argb[x] = tokenizer.nextBit() == 0 ? 0xffffffff : 0xff000000;
         }
-        throw new IOException("PBM: bad bit: " + bit);
     }
 
 }
@@ -22,6 +22,7 @@ import java.io.OutputStream;
 import java.util.Map;
 
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PixelReader;
 
 class PbmWriter implements PnmWriter {
 
@@ -49,9 +50,12 @@ class PbmWriter implements PnmWriter {
         int bitcache = 0;
         int bitsInCache = 0;
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int red = 0xff & (argb >> 16);
                 final int green = 0xff & (argb >> 8);
                 final int blue = 0xff & (argb >> 0);
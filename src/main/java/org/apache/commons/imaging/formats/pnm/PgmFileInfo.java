@@ -17,7 +17,6 @@
 package org.apache.commons.imaging.formats.pnm;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
@@ -26,8 +25,9 @@ import org.apache.commons.imaging.ImageReadException;
 
 class PgmFileInfo extends FileInfo {
     private final int max;
-    private final float scale;
-    private final int bytesPerSample; 
+    private final int bytesPerSample;
+    private final int[] scaleTable;
+    private final int[] samples;
 
     public PgmFileInfo(final int width, final int height, final boolean rawbits, final int max) throws ImageReadException {
         super(width, height, rawbits);
@@ -35,16 +35,16 @@ class PgmFileInfo extends FileInfo {
             throw new ImageReadException("PGM maxVal " + max
                     + " is out of range [1;65535]");
         } else if (max <= 255) {
-            scale = 255f;
             bytesPerSample = 1;
         } else if (max <= 65535) {
-            scale = 65535f;
             bytesPerSample = 2;
         } else {
             throw new ImageReadException("PGM maxVal " + max
                     + " is out of range [1;65535]");
         }
         this.max = max;
+        scaleTable = createScaleTable(max, bytesPerSample);
+        samples = new int[width];
     }
     
     @Override
@@ -83,31 +83,27 @@ class PgmFileInfo extends FileInfo {
     }
 
     @Override
-    public int getRGB(final InputStream is) throws IOException {
-        int sample = readSample(is, bytesPerSample);
-        
-        sample = scaleSample(sample, scale, max);
-
-        final int alpha = 0xff;
-
-        return ((0xff & alpha)  << 24) 
-             | ((0xff & sample) << 16) 
-             | ((0xff & sample) << 8) 
-             | ((0xff & sample) << 0);
+    protected int getRowLength() {
+        return width * bytesPerSample;
     }
 
     @Override
-    public int getRGB(final WhiteSpaceReader wsr) throws IOException {
-        int sample = Integer.parseInt(wsr.readtoWhiteSpace());
+    protected void getRGBs(final byte[] row, final int[] argb) {
+        scaleSamples(row, bytesPerSample, scaleTable, samples);
+        toRGBs(argb);
+    }
 
-        sample = scaleSample(sample, scale, max);
-        
-        final int alpha = 0xff;
+    @Override
+    protected void getRGBs(final SampleTokenizer tokenizer, final int[] argb) throws IOException {
+        scaleSamples(tokenizer, max, scaleTable, samples);
+        toRGBs(argb);
+    }
 
-        return ((0xff & alpha)  << 24) 
-             | ((0xff & sample) << 16) 
-             | ((0xff & sample) << 8) 
-             | ((0xff & sample) << 0);
+    private void toRGBs(final int[] argb) {
+        for (int x = 0; x < width; x++) {
+            final int sample = samples[x];
+            argb[x] = 0xff000000 | (sample << 16) | (sample << 8) | sample;
+        }
     }
 
 }
@@ -22,6 +22,7 @@ import java.io.OutputStream;
 import java.util.Map;
 
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PixelReader;
 
 class PgmWriter implements PnmWriter {
 
@@ -51,9 +52,12 @@ class PgmWriter implements PnmWriter {
         os.write(Integer.toString(255).getBytes("US-ASCII")); // max component value
         os.write(PnmConstants.PNM_NEWLINE);
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int red = 0xff & (argb >> 16);
                 final int green = 0xff & (argb >> 8);
                 final int blue = 0xff & (argb >> 0);
@@ -18,6 +18,7 @@ package org.apache.commons.imaging.formats.pnm;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -38,6 +39,7 @@ import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
 import org.apache.commons.imaging.palette.PaletteFactory;
 import org.apache.commons.imaging.util.IoUtils;
 
@@ -45,6 +47,7 @@ import static org.apache.commons.imaging.ImagingConstants.*;
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
 public class PnmImageParser extends ImageParser {
+    private static final long MIN_MAPPED_LENGTH = 1024 * 1024;
     private static final String DEFAULT_EXTENSION = ".pnm";
     private static final String[] ACCEPTED_EXTENSIONS = { ".pbm", ".pgm",
             ".ppm", ".pnm", ".pam" };
@@ -53,7 +56,7 @@ public class PnmImageParser extends ImageParser {
     public static final String PARAM_VALUE_PNM_RAWBITS_NO = "NO";
 
     public PnmImageParser() {
-        super.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        super(ByteOrder.LITTLE_ENDIAN);
         // setDebug(true);
     }
 
@@ -284,10 +287,10 @@ public class PnmImageParser extends ImageParser {
     @Override
     public BufferedImage getBufferedImage(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        InputStream is = null;
+        CountingInputStream is = null;
         boolean canThrow = false;
         try {
-            is = byteSource.getInputStream();
+            is = new CountingInputStream(byteSource.getInputStream());
 
             final FileInfo info = readHeader(is);
 
@@ -297,7 +300,14 @@ public class PnmImageParser extends ImageParser {
             final boolean hasAlpha = info.hasAlpha();
             final ImageBuilder imageBuilder = new ImageBuilder(width, height,
                     hasAlpha);
-            info.readImage(imageBuilder, is);
+            if (info.rawbits && byteSource instanceof ByteSourceFile
+                    && byteSource.getLength() >= MIN_MAPPED_LENGTH) {
+                // large binary files are read through a memory mapping
+                // of the image data, which follows the header
+                info.readImage(imageBuilder, (ByteSourceFile) byteSource, is.getCount());
+            } else {
+                info.readImage(imageBuilder, is);
+            }
 
             final BufferedImage ret = imageBuilder.getBufferedImage();
             canThrow = true;
@@ -355,6 +365,11 @@ public class PnmImageParser extends ImageParser {
         if (params.containsKey(PARAM_KEY_FORMAT)) {
             params.remove(PARAM_KEY_FORMAT);
         }
+
+        // clear rawbits key.
+        if (params.containsKey(PARAM_KEY_PNM_RAWBITS)) {
+            params.remove(PARAM_KEY_PNM_RAWBITS);
+        }
         
         if (!params.isEmpty()) {
             final Object firstKey = params.keySet().iterator().next();
@@ -379,4 +394,44 @@ public class PnmImageParser extends ImageParser {
             throws ImageReadException, IOException {
         return null;
     }
+
+    /**
+     * Counts the bytes read, which after the header is its length.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result >= 0) {
+                count++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int result = super.read(b, off, len);
+            if (result > 0) {
+                count += result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long result = super.skip(n);
+            count += result;
+            return result;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
 }
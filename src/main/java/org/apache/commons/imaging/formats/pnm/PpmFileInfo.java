@@ -17,7 +17,6 @@
 package org.apache.commons.imaging.formats.pnm;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
@@ -26,23 +25,24 @@ import org.apache.commons.imaging.ImageReadException;
 
 class PpmFileInfo extends FileInfo {
     private final int max;
-    private final float scale;
-    private final int bytesPerSample; 
+    private final int bytesPerSample;
+    private final int[] scaleTable;
+    private final int[] samples;
 
     public PpmFileInfo(final int width, final int height, final boolean rawbits, final int max) throws ImageReadException {
         super(width, height, rawbits);
         if (max <= 0) {
             throw new ImageReadException("PPM maxVal " + max + " is out of range [1;65535]");
         } else if (max <= 255) {
-            scale = 255f;
             bytesPerSample = 1;
         } else if (max <= 65535) {
-            scale = 65535f;
             bytesPerSample = 2;
         } else {
             throw new ImageReadException("PPM maxVal " + max + " is out of range [1;65535]");
         }
         this.max = max;
+        scaleTable = createScaleTable(max, bytesPerSample);
+        samples = new int[width * 3];
     }
     
     @Override
@@ -81,36 +81,28 @@ class PpmFileInfo extends FileInfo {
     }
 
     @Override
-    public int getRGB(final InputStream is) throws IOException {
-        int red = readSample(is, bytesPerSample);
-        int green = readSample(is, bytesPerSample);
-        int blue = readSample(is, bytesPerSample);
-
-        red = scaleSample(red, scale, max);
-        green = scaleSample(green, scale, max);
-        blue = scaleSample(blue, scale, max);
-        final int alpha = 0xff;
-
-        return ((0xff & alpha) << 24)
-             | ((0xff & red)   << 16)
-             | ((0xff & green) << 8)
-             | ((0xff & blue)  << 0);
+    protected int getRowLength() {
+        return width * 3 * bytesPerSample;
     }
 
     @Override
-    public int getRGB(final WhiteSpaceReader wsr) throws IOException {
-        int red = Integer.parseInt(wsr.readtoWhiteSpace());
-        int green = Integer.parseInt(wsr.readtoWhiteSpace());
-        int blue = Integer.parseInt(wsr.readtoWhiteSpace());
+    protected void getRGBs(final byte[] row, final int[] argb) {
+        scaleSamples(row, bytesPerSample, scaleTable, samples);
+        toRGBs(argb);
+    }
 
-        red = scaleSample(red, scale, max);
-        green = scaleSample(green, scale, max);
-        blue = scaleSample(blue, scale, max);
-        final int alpha = 0xff;
+    @Override
+    protected void getRGBs(final SampleTokenizer tokenizer, final int[] argb) throws IOException {
+        scaleSamples(tokenizer, max, scaleTable, samples);
+        toRGBs(argb);
+    }
 
-        return ((0xff & alpha)  << 24)
-              | ((0xff & red)   << 16)
-              | ((0xff & green) << 8)
-              | ((0xff & blue)  << 0);
+    private void toRGBs(final int[] argb) {
+        for (int x = 0, i = 0; x < width; x++, i += 3) {
+            argb[x] = 0xff000000
+                    | (samples[i] << 16)
+                    | (samples[i + 1] << 8)
+                    | samples[i + 2];
+        }
     }
 }
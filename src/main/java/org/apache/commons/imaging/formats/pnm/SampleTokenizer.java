@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.pnm;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the samples of a plain (text) PNM file, parsing the numbers
+ * straight from the bytes of the file. It reads ahead through a buffer of
+ * its own, so once the header has been read it must be the only reader of
+ * the stream.
+ */
+class SampleTokenizer {
+    private final InputStream is;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+
+    public SampleTokenizer(final InputStream is) {
+        this.is = is;
+    }
+
+    private int read() throws IOException {
+        if (position >= limit) {
+            limit = is.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return 0xff & buffer[position++];
+    }
+
+    private static boolean isWhiteSpace(final int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == 0x0b
+                || c == '\f';
+    }
+
+    private void skipComment() throws IOException {
+        for (int c = read(); c != '\n' && c != '\r'; c = read()) {
+            if (c < 0) {
+                return;
+            }
+        }
+    }
+
+    private int nextNonWhiteSpace() throws IOException {
+        for (int c = read();; c = read()) {
+            if (c < 0) {
+                throw new IOException("PNM: Unexpected EOF");
+            } else if (c == '#') {
+                skipComment();
+            } else if (!isWhiteSpace(c)) {
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Returns the next number, which must be followed by white space, a
+     * comment or the end of the file.
+     */
+    public int nextInt() throws IOException {
+        int c = nextNonWhiteSpace();
+        if (c < '0' || c > '9') {
+            throw new IOException("PNM: Invalid sample '" + (char) c + "'");
+        }
+        int value = 0;
+        for (; c >= '0' && c <= '9'; c = read()) {
+            // larger values are all above the largest maxval anyway
+            if (value <= 0xffffff) {
+                value = value * 10 + (c - '0');
+            }
+        }
+        if (c == '#') {
+            skipComment();
+        } else if (c >= 0 && !isWhiteSpace(c)) {
+            throw new IOException("PNM: Invalid sample ending in '" + (char) c + "'");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the next bit of a plain PBM file, where the bits needn't be
+     * separated by white space.
+     */
+    public int nextBit() throws IOException {
+        final int c = nextNonWhiteSpace();
+        if (c == '0' || c == '1') {
+            return c - '0';
+        }
+        throw new IOException("PBM: bad bit: " + (char) c);
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageInfo;
 import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.psd.dataparsers.DataParser;
@@ -64,7 +65,7 @@ public class PsdImageParser extends ImageParser {
     public static final String BLOCK_NAME_XMP = "XMP";
 
     public PsdImageParser() {
-        super.setByteOrder(ByteOrder.BIG_ENDIAN);
+        super(ByteOrder.BIG_ENDIAN);
         // setDebug(true);
     }
 
@@ -96,7 +97,7 @@ public class PsdImageParser extends ImageParser {
         try {
             is = byteSource.getInputStream();
 
-            final PsdHeaderInfo ret = readHeader(is);
+            final PsdHeaderInfo ret = readHeader(getBinaryReader(is));
             canThrow = true;
             return ret;
         } finally {
@@ -104,46 +105,43 @@ public class PsdImageParser extends ImageParser {
         }
     }
 
-    private PsdHeaderInfo readHeader(final InputStream is) throws ImageReadException, IOException {
-        readAndVerifyBytes(is, new byte[] { 56, 66, 80, 83 }, "Not a Valid PSD File");
+    private PsdHeaderInfo readHeader(final BinaryReader reader) throws ImageReadException, IOException {
+        reader.verifyBytes(new byte[] { 56, 66, 80, 83 }, "Not a Valid PSD File");
 
-        final int version = read2Bytes("Version", is, "Not a Valid PSD File", getByteOrder());
-        final byte[] reserved = readBytes("Reserved", is, 6, "Not a Valid PSD File");
-        final int channels = read2Bytes("Channels", is, "Not a Valid PSD File", getByteOrder());
-        final int rows = read4Bytes("Rows", is, "Not a Valid PSD File", getByteOrder());
-        final int columns = read4Bytes("Columns", is, "Not a Valid PSD File", getByteOrder());
-        final int depth = read2Bytes("Depth", is, "Not a Valid PSD File", getByteOrder());
-        final int mode = read2Bytes("Mode", is, "Not a Valid PSD File", getByteOrder());
+        final int version = reader.getU16("Not a Valid PSD File");
+        final byte[] reserved = reader.getBytes(6, "Not a Valid PSD File");
+        final int channels = reader.getU16("Not a Valid PSD File");
+        final int rows = reader.getS32("Not a Valid PSD File");
+        final int columns = reader.getS32("Not a Valid PSD File");
+        final int depth = reader.getU16("Not a Valid PSD File");
+        final int mode = reader.getU16("Not a Valid PSD File");
 
         return new PsdHeaderInfo(version, reserved, channels, rows, columns, depth, mode);
     }
 
-    private ImageContents readImageContents(final InputStream is)
+    private ImageContents readImageContents(final BinaryReader reader)
             throws ImageReadException, IOException {
-        final PsdHeaderInfo header = readHeader(is);
+        final PsdHeaderInfo header = readHeader(reader);
 
-        final int ColorModeDataLength = read4Bytes("ColorModeDataLength", is,
-                "Not a Valid PSD File", getByteOrder());
-        skipBytes(is, ColorModeDataLength);
+        final int ColorModeDataLength = reader.getS32("Not a Valid PSD File");
+        reader.skip(ColorModeDataLength, "Couldn't skip bytes");
         // is.skip(ColorModeDataLength);
         // byte ColorModeData[] = readByteArray("ColorModeData",
         // ColorModeDataLength, is, "Not a Valid PSD File");
 
-        final int ImageResourcesLength = read4Bytes("ImageResourcesLength", is,
-                "Not a Valid PSD File", getByteOrder());
-        skipBytes(is, ImageResourcesLength);
+        final int ImageResourcesLength = reader.getS32("Not a Valid PSD File");
+        reader.skip(ImageResourcesLength, "Couldn't skip bytes");
         // long skipped = is.skip(ImageResourcesLength);
         // byte ImageResources[] = readByteArray("ImageResources",
         // ImageResourcesLength, is, "Not a Valid PSD File");
 
-        final int LayerAndMaskDataLength = read4Bytes("LayerAndMaskDataLength", is,
-                "Not a Valid PSD File", getByteOrder());
-        skipBytes(is, LayerAndMaskDataLength);
+        final int LayerAndMaskDataLength = reader.getS32("Not a Valid PSD File");
+        reader.skip(LayerAndMaskDataLength, "Couldn't skip bytes");
         // is.skip(LayerAndMaskDataLength);
         // byte LayerAndMaskData[] = readByteArray("LayerAndMaskData",
         // LayerAndMaskDataLength, is, "Not a Valid PSD File");
 
-        final int Compression = read2Bytes("Compression", is, "Not a Valid PSD File", getByteOrder());
+        final int Compression = reader.getU16("Not a Valid PSD File");
 
         // skip_bytes(is, LayerAndMaskDataLength);
         // byte ImageData[] = readByteArray("ImageData", LayerAndMaskDataLength,
@@ -163,7 +161,7 @@ public class PsdImageParser extends ImageParser {
     private List<ImageResourceBlock> readImageResourceBlocks(final byte[] bytes,
             final int[] imageResourceIDs, final int maxBlocksToRead)
             throws ImageReadException, IOException {
-        return readImageResourceBlocks(new ByteArrayInputStream(bytes),
+        return readImageResourceBlocks(getBinaryReader(new ByteArrayInputStream(bytes)),
                 imageResourceIDs, maxBlocksToRead, bytes.length);
     }
 
@@ -181,44 +179,43 @@ public class PsdImageParser extends ImageParser {
         return false;
     }
 
-    private List<ImageResourceBlock> readImageResourceBlocks(final InputStream is,
+    private List<ImageResourceBlock> readImageResourceBlocks(final BinaryReader reader,
             final int[] imageResourceIDs, final int maxBlocksToRead, int available)
             throws ImageReadException, IOException {
         final List<ImageResourceBlock> result = new ArrayList<ImageResourceBlock>();
 
         while (available > 0) {
-            readAndVerifyBytes(is, new byte[] { 56, 66, 73, 77 },
+            reader.verifyBytes(new byte[] { 56, 66, 73, 77 },
                     "Not a Valid PSD File");
             available -= 4;
 
-            final int id = read2Bytes("ID", is, "Not a Valid PSD File", getByteOrder());
+            final int id = reader.getU16("Not a Valid PSD File");
             available -= 2;
 
-            final int nameLength = readByte("NameLength", is, "Not a Valid PSD File");
+            final int nameLength = reader.getByte("Not a Valid PSD File");
 
             available -= 1;
-            final byte[] nameBytes = readBytes("NameData", is, nameLength,
+            final byte[] nameBytes = reader.getBytes(nameLength,
                     "Not a Valid PSD File");
             available -= nameLength;
             if (((nameLength + 1) % 2) != 0) {
                 //final int NameDiscard = 
-                readByte("NameDiscard", is,
-                        "Not a Valid PSD File");
+                reader.getByte("Not a Valid PSD File");
                 available -= 1;
             }
             // String Name = readPString("Name", 6, is, "Not a Valid PSD File");
-            final int dataSize = read4Bytes("Size", is, "Not a Valid PSD File", getByteOrder());
+            final int dataSize = reader.getS32("Not a Valid PSD File");
             available -= 4;
             // int ActualDataSize = ((DataSize % 2) == 0)
             // ? DataSize
             // : DataSize + 1; // pad to make even
 
-            final byte[] data = readBytes("Data", is, dataSize, "Not a Valid PSD File");
+            final byte[] data = reader.getBytes(dataSize, "Not a Valid PSD File");
             available -= dataSize;
 
             if ((dataSize % 2) != 0) {
                 //final int DataDiscard =
-                readByte("DataDiscard", is, "Not a Valid PSD File");
+                reader.getByte("Not a Valid PSD File");
                 available -= 1;
             }
 
@@ -246,7 +243,8 @@ public class PsdImageParser extends ImageParser {
         try {
             imageStream = byteSource.getInputStream();
 
-            final ImageContents imageContents = readImageContents(imageStream);
+            final ImageContents imageContents = readImageContents(
+                    getBinaryReader(imageStream));
 
             resourceStream = this.getInputStream(byteSource, PSD_SECTION_IMAGE_RESOURCES);
             final byte[] ImageResources = readBytes("ImageResources",
@@ -324,61 +322,64 @@ public class PsdImageParser extends ImageParser {
                 + section);
     }
 
+    private long getImageDataOffset(final ImageContents imageContents) {
+        // the header, the three length prefixed sections and the compression
+        return PSD_HEADER_LENGTH + 4L + (0xffffffffL & imageContents.ColorModeDataLength)
+                + 4 + (0xffffffffL & imageContents.ImageResourcesLength)
+                + 4 + (0xffffffffL & imageContents.LayerAndMaskDataLength) + 2;
+    }
+
     private byte[] getData(final ByteSource byteSource, final int section)
             throws ImageReadException, IOException {
         InputStream is = null;
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
+            final BinaryReader reader = getBinaryReader(is);
 
             // PsdHeaderInfo header = readHeader(is);
             if (section == PSD_SECTION_HEADER) {
                 canThrow = true;
-                return readBytes("Header", is, PSD_HEADER_LENGTH,
+                return reader.getBytes(PSD_HEADER_LENGTH,
                         "Not a Valid PSD File");
             }
-            skipBytes(is, PSD_HEADER_LENGTH);
+            reader.skip(PSD_HEADER_LENGTH, "Couldn't skip bytes");
 
-            final int ColorModeDataLength = read4Bytes("ColorModeDataLength", is,
-                    "Not a Valid PSD File", getByteOrder());
+            final int ColorModeDataLength = reader.getS32("Not a Valid PSD File");
 
             if (section == PSD_SECTION_COLOR_MODE) {
                 canThrow = true;
-                return readBytes("ColorModeData", is, ColorModeDataLength,
+                return reader.getBytes(ColorModeDataLength,
                         "Not a Valid PSD File");
             }
 
-            skipBytes(is, ColorModeDataLength);
+            reader.skip(ColorModeDataLength, "Couldn't skip bytes");
             // byte ColorModeData[] = readByteArray("ColorModeData",
             // ColorModeDataLength, is, "Not a Valid PSD File");
 
-            final int ImageResourcesLength = read4Bytes("ImageResourcesLength", is,
-                    "Not a Valid PSD File", getByteOrder());
+            final int ImageResourcesLength = reader.getS32("Not a Valid PSD File");
 
             if (section == PSD_SECTION_IMAGE_RESOURCES) {
                 canThrow = true;
-                return readBytes("ImageResources", is,
-                        ImageResourcesLength, "Not a Valid PSD File");
+                return reader.getBytes(ImageResourcesLength, "Not a Valid PSD File");
             }
 
-            skipBytes(is, ImageResourcesLength);
+            reader.skip(ImageResourcesLength, "Couldn't skip bytes");
             // byte ImageResources[] = readByteArray("ImageResources",
             // ImageResourcesLength, is, "Not a Valid PSD File");
 
-            final int LayerAndMaskDataLength = read4Bytes("LayerAndMaskDataLength",
-                    is, "Not a Valid PSD File", getByteOrder());
+            final int LayerAndMaskDataLength = reader.getS32("Not a Valid PSD File");
 
             if (section == PSD_SECTION_LAYER_AND_MASK_DATA) {
                 canThrow = true;
-                return readBytes("LayerAndMaskData",
-                        is, LayerAndMaskDataLength, "Not a Valid PSD File");
+                return reader.getBytes(LayerAndMaskDataLength, "Not a Valid PSD File");
             }
 
-            skipBytes(is, LayerAndMaskDataLength);
+            reader.skip(LayerAndMaskDataLength, "Couldn't skip bytes");
             // byte LayerAndMaskData[] = readByteArray("LayerAndMaskData",
             // LayerAndMaskDataLength, is, "Not a Valid PSD File");
 
-            read2Bytes("Compression", is, "Not a Valid PSD File", getByteOrder());
+            reader.getU16("Not a Valid PSD File");
 
             // byte ImageData[] = readByteArray("ImageData",
             // LayerAndMaskDataLength, is, "Not a Valid PSD File");
@@ -402,7 +403,7 @@ public class PsdImageParser extends ImageParser {
         try {
             is = byteSource.getInputStream();
 
-            final ImageContents imageContents = readImageContents(is);
+            final ImageContents imageContents = readImageContents(getBinaryReader(is));
             canThrow = true;
             return imageContents;
         } finally {
@@ -681,10 +682,13 @@ public class PsdImageParser extends ImageParser {
         DataReader fDataReader;
         switch (imageContents.Compression) {
         case 0:
-            fDataReader = new UncompressedDataReader(dataParser);
+            fDataReader = new UncompressedDataReader(dataParser, byteSource,
+                    getImageDataOffset(imageContents),
+                    getRasterBufferProvider(params));
             break;
         case 1:
-            fDataReader = new CompressedDataReader(dataParser);
+            fDataReader = new CompressedDataReader(dataParser,
+                    getRasterBufferProvider(params));
             break;
         default:
             throw new ImageReadException("Unknown Compression: "
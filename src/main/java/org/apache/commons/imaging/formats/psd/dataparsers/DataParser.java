@@ -18,6 +18,7 @@ package org.apache.commons.imaging.formats.psd.dataparsers;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 
 import org.apache.commons.imaging.formats.psd.ImageContents;
 import org.apache.commons.imaging.formats.psd.PsdHeaderInfo;
@@ -39,7 +40,56 @@ public abstract class DataParser {
         }
     }
 
+    /**
+     * Converts one row of the image and stores it in the image.
+     * 
+     * @param samples
+     *            the samples of the row, one array per channel with one byte
+     *            per pixel
+     * @param y
+     *            the row
+     * @param argb
+     *            a work array, as long as the row
+     * @param bi
+     *            the image
+     * @param imageContents
+     *            the contents of the PSD file
+     */
+    public final void parseRow(final byte[][] samples, final int y, final int[] argb,
+            final BufferedImage bi, final ImageContents imageContents) {
+        final int width = imageContents.header.columns;
+        getRGBs(samples, argb, width, imageContents);
+
+        final DataBuffer buffer = bi.getRaster().getDataBuffer();
+        if (buffer instanceof DataBufferInt && buffer.getNumBanks() == 1
+                && buffer.getOffset() == 0) {
+            System.arraycopy(argb, 0, ((DataBufferInt) buffer).getData(), y * width, width);
+        } else {
+            for (int x = 0; x < width; x++) {
+                buffer.setElem(y * width + x, argb[x]);
+            }
+        }
+    }
+
     protected abstract int getRGB(int[][][] data, int x, int y, ImageContents imageContents);
 
+    /**
+     * Converts one row of samples to ARGB pixels. This implementation calls
+     * {@link #getRGB(int[][][], int, int, ImageContents)} for each pixel;
+     * subclasses convert the row directly.
+     */
+    protected void getRGBs(final byte[][] samples, final int[] argb, final int width,
+            final ImageContents imageContents) {
+        final int[][][] data = new int[samples.length][1][width];
+        for (int channel = 0; channel < samples.length; channel++) {
+            for (int x = 0; x < width; x++) {
+                data[channel][0][x] = 0xff & samples[channel][x];
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            argb[x] = getRGB(data, x, 0, imageContents);
+        }
+    }
+
     public abstract int getBasicChannelsCount();
 }
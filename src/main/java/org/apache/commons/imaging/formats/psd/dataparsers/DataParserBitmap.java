@@ -38,6 +38,15 @@ public class DataParserBitmap extends DataParser {
              | ((0xff & sample) << 0);
     }
 
+    @Override
+    protected void getRGBs(final byte[][] samples, final int[] argb, final int width,
+            final ImageContents imageContents) {
+        final byte[] bits = samples[0];
+        for (int x = 0; x < width; x++) {
+            argb[x] = bits[x] == 0 ? 0xffffffff : 0xff000000;
+        }
+    }
+
     @Override
     public int getBasicChannelsCount() {
         return 1;
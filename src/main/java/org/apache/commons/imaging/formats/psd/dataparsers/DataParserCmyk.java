@@ -37,6 +37,21 @@ public class DataParserCmyk extends DataParser {
         return ColorConversions.convertCMYKtoRGB(sc, sm, sy, sk);
     }
 
+    @Override
+    protected void getRGBs(final byte[][] samples, final int[] argb, final int width,
+            final ImageContents imageContents) {
+        final byte[] cyan = samples[0];
+        final byte[] magenta = samples[1];
+        final byte[] yellow = samples[2];
+        final byte[] black = samples[3];
+        for (int x = 0; x < width; x++) {
+            // stored inverted, as in getRGB
+            argb[x] = ColorConversions.convertCMYKtoRGB(255 - (0xff & cyan[x]),
+                    255 - (0xff & magenta[x]), 255 - (0xff & yellow[x]),
+                    255 - (0xff & black[x]));
+        }
+    }
+
     @Override
     public int getBasicChannelsCount() {
         return 4;
@@ -31,6 +31,16 @@ public class DataParserGrayscale extends DataParser {
               | ((0xff & sample) << 0);
     }
 
+    @Override
+    protected void getRGBs(final byte[][] samples, final int[] argb, final int width,
+            final ImageContents imageContents) {
+        final byte[] gray = samples[0];
+        for (int x = 0; x < width; x++) {
+            final int sample = 0xff & gray[x];
+            argb[x] = 0xff000000 | (sample << 16) | (sample << 8) | sample;
+        }
+    }
+
     @Override
     public int getBasicChannelsCount() {
         return 1;
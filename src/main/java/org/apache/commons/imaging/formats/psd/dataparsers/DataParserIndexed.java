@@ -42,6 +42,15 @@ public class DataParserIndexed extends DataParser {
         return colorTable[sample];
     }
 
+    @Override
+    protected void getRGBs(final byte[][] samples, final int[] argb, final int width,
+            final ImageContents imageContents) {
+        final byte[] indexes = samples[0];
+        for (int x = 0; x < width; x++) {
+            argb[x] = colorTable[0xff & indexes[x]];
+        }
+    }
+
     @Override
     public int getBasicChannelsCount() {
         return 1;
@@ -33,6 +33,18 @@ public class DataParserLab extends DataParser {
         return ColorConversions.convertCIELabtoARGBTest(cieL, cieA, cieB);
     }
 
+    @Override
+    protected void getRGBs(final byte[][] samples, final int[] argb, final int width,
+            final ImageContents imageContents) {
+        final byte[] lightness = samples[0];
+        final byte[] a = samples[1];
+        final byte[] b = samples[2];
+        for (int x = 0; x < width; x++) {
+            argb[x] = ColorConversions.convertCIELabtoARGBTest(0xff & lightness[x],
+                    (0xff & a[x]) - 128, (0xff & b[x]) - 128);
+        }
+    }
+
     @Override
     public int getBasicChannelsCount() {
         return 3;
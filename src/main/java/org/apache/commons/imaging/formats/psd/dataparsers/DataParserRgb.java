@@ -33,6 +33,20 @@ public class DataParserRgb extends DataParser {
              | ((0xff & blue)  << 0);
     }
 
+    @Override
+    protected void getRGBs(final byte[][] samples, final int[] argb, final int width,
+            final ImageContents imageContents) {
+        final byte[] red = samples[0];
+        final byte[] green = samples[1];
+        final byte[] blue = samples[2];
+        for (int x = 0; x < width; x++) {
+            argb[x] = 0xff000000
+                    | ((0xff & red[x]) << 16)
+                    | ((0xff & green[x]) << 8)
+                    | (0xff & blue[x]);
+        }
+    }
+
     @Override
     public int getBasicChannelsCount() {
         return 3;
@@ -17,28 +17,38 @@
 package org.apache.commons.imaging.formats.psd.datareaders;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.BinaryFileParser;
 import org.apache.commons.imaging.common.BinaryFunctions;
 import org.apache.commons.imaging.common.PackBits;
-import org.apache.commons.imaging.common.mylzw.BitsToByteInputStream;
-import org.apache.commons.imaging.common.mylzw.MyBitInputStream;
+import org.apache.commons.imaging.common.RasterBufferProvider;
+import org.apache.commons.imaging.common.SimpleRasterBufferProvider;
 import org.apache.commons.imaging.formats.psd.ImageContents;
 import org.apache.commons.imaging.formats.psd.PsdHeaderInfo;
 import org.apache.commons.imaging.formats.psd.dataparsers.DataParser;
-import org.apache.commons.imaging.util.IoUtils;
 
+/**
+ * Reads PackBits compressed image data. The channels are stored one after
+ * the other, so the compressed data of the channels used is read in one
+ * go, and the image is then decompressed a row at a time, each channel
+ * into a reused row.
+ */
 public class CompressedDataReader implements DataReader {
 
     private DataParser dataParser;
+    private final RasterBufferProvider rasterBufferProvider;
 
     public CompressedDataReader(final DataParser dataParser) {
+        this(dataParser, new SimpleRasterBufferProvider());
+    }
+
+    public CompressedDataReader(final DataParser dataParser,
+            final RasterBufferProvider rasterBufferProvider) {
         this.dataParser = dataParser;
+        this.rasterBufferProvider = rasterBufferProvider;
     }
 
     public void readData(final InputStream is, final BufferedImage bi,
@@ -55,39 +65,52 @@ public class CompressedDataReader implements DataReader {
             scanlineBytecounts[i] = BinaryFunctions.read2Bytes("scanline_bytecount[" + i
                     + "]", is, "PSD: bad Image Data", bfp.getByteOrder());
         }
-        bfp.setDebug(false);
         // System.out.println("fImageContents.Compression: "
         // + imageContents.Compression);
 
         final int depth = header.depth;
-
         final int channelCount = dataParser.getBasicChannelsCount();
-        final int[][][] data = new int[channelCount][height][];
-        // channels[0] =
+
+        // only the basic channels are needed, and they come first.
+        final int[] scanlineOffsets = new int[channelCount * height];
+        int compressedLength = 0;
+        for (int i = 0; i < scanlineOffsets.length; i++) {
+            scanlineOffsets[i] = compressedLength;
+            compressedLength += scanlineBytecounts[i];
+        }
+        final byte[] compressed = rasterBufferProvider.getByteBuffer(compressedLength);
+        final int rowLength = SampleRows.getRowLength(width, depth);
+        final byte[] unpacked = rasterBufferProvider.getByteBuffer(rowLength);
+        final byte[][] samples = new byte[channelCount][];
         for (int channel = 0; channel < channelCount; channel++) {
-            for (int y = 0; y < height; y++) {
-                final int index = channel * height + y;
-                final byte[] packed = BinaryFunctions.readBytes("scanline",
-                        is, scanlineBytecounts[index],
-                        "PSD: Missing Image Data");
+            samples[channel] = rasterBufferProvider.getByteBuffer(width);
+        }
+        final int[] argb = rasterBufferProvider.getIntBuffer(width);
+        try {
+            BinaryFunctions.readBytes(is, compressed, "PSD: Missing Image Data");
 
-                final byte[] unpacked = new PackBits().decompress(packed, width);
-                final InputStream bais = new ByteArrayInputStream(unpacked);
-                final MyBitInputStream mbis = new MyBitInputStream(bais, ByteOrder.BIG_ENDIAN);
-                BitsToByteInputStream bbis = null;
-                boolean canThrow = false;
-                try {
-                    bbis = new BitsToByteInputStream(mbis, 8); // we want all samples to be bytes
-                    final int[] scanline = bbis.readBitsArray(depth, width);
-                    data[channel][y] = scanline;
-                    canThrow = true;
-                } finally {
-                    IoUtils.closeQuietly(canThrow, bbis);
+            final PackBits packBits = new PackBits();
+            for (int y = 0; y < height; y++) {
+                for (int channel = 0; channel < channelCount; channel++) {
+                    final int index = channel * height + y;
+                    if (depth == 8) {
+                        packBits.decompress(compressed, scanlineOffsets[index],
+                                scanlineBytecounts[index], samples[channel], 0, width);
+                    } else {
+                        packBits.decompress(compressed, scanlineOffsets[index],
+                                scanlineBytecounts[index], unpacked, 0, rowLength);
+                        SampleRows.toBytes(unpacked, 0, depth, samples[channel], width);
+                    }
                 }
+                dataParser.parseRow(samples, y, argb, bi, imageContents);
             }
+        } finally {
+            rasterBufferProvider.release(compressed);
+            rasterBufferProvider.release(unpacked);
+            for (final byte[] row : samples) {
+                rasterBufferProvider.release(row);
+            }
+            rasterBufferProvider.release(argb);
         }
-
-        dataParser.parseData(data, bi, imageContents);
-
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.psd.datareaders;
+
+/**
+ * Converts rows of samples as stored in PSD files to the one byte per sample
+ * the data parsers work on.
+ */
+final class SampleRows {
+    private SampleRows() {
+    }
+
+    /**
+     * Converts one row of samples of a channel. Samples wider than 8 bits
+     * keep their most significant byte; narrower ones are shifted up to 8
+     * bits.
+     * 
+     * @param src
+     *            the stored row
+     * @param srcOffset
+     *            the offset of the row in src
+     * @param depth
+     *            the number of bits per sample
+     * @param dst
+     *            receives one byte per sample
+     * @param width
+     *            the number of samples in the row
+     */
+    static void toBytes(final byte[] src, final int srcOffset, final int depth,
+            final byte[] dst, final int width) {
+        if (depth == 8) {
+            System.arraycopy(src, srcOffset, dst, 0, width);
+        } else if (depth % 8 == 0) {
+            // big endian, so the first byte of each sample
+            final int step = depth / 8;
+            for (int x = 0, i = srcOffset; x < width; x++, i += step) {
+                dst[x] = src[i];
+            }
+        } else {
+            final int mask = (1 << depth) - 1;
+            for (int x = 0; x < width; x++) {
+                final int bit = x * depth;
+                final int sample = (src[srcOffset + (bit >> 3)] >> (8 - depth - (bit & 7))) & mask;
+                dst[x] = (byte) (sample << (8 - depth));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes a row of samples is stored in.
+     */
+    static int getRowLength(final int width, final int depth) {
+        return (width * depth + 7) / 8;
+    }
+}
@@ -19,23 +19,47 @@ package org.apache.commons.imaging.formats.psd.datareaders;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.BinaryFileParser;
-import org.apache.commons.imaging.common.mylzw.BitsToByteInputStream;
-import org.apache.commons.imaging.common.mylzw.MyBitInputStream;
+import org.apache.commons.imaging.common.BinaryFunctions;
+import org.apache.commons.imaging.common.RasterBufferProvider;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.psd.ImageContents;
 import org.apache.commons.imaging.formats.psd.PsdHeaderInfo;
 import org.apache.commons.imaging.formats.psd.dataparsers.DataParser;
 import org.apache.commons.imaging.util.IoUtils;
 
+/**
+ * Reads uncompressed image data. The channels are stored one after the
+ * other, so each channel is read through its own stream, positioned at the
+ * start of its plane, and the image is converted a row at a time without
+ * holding more than one row of each channel.
+ */
 public class UncompressedDataReader implements DataReader {
 
     private DataParser dataParser;
+    private final ByteSource byteSource;
+    private final long imageDataOffset;
+    private final RasterBufferProvider rasterBufferProvider;
 
-    public UncompressedDataReader(final DataParser dataParser) {
+    /**
+     * @param dataParser
+     *            converts the rows of samples to pixels
+     * @param byteSource
+     *            the PSD file, used to read the channels after the first
+     * @param imageDataOffset
+     *            the offset in the file of the first channel's data
+     * @param rasterBufferProvider
+     *            supplies the row buffers
+     */
+    public UncompressedDataReader(final DataParser dataParser,
+            final ByteSource byteSource, final long imageDataOffset,
+            final RasterBufferProvider rasterBufferProvider) {
         this.dataParser = dataParser;
+        this.byteSource = byteSource;
+        this.imageDataOffset = imageDataOffset;
+        this.rasterBufferProvider = rasterBufferProvider;
     }
 
     public void readData(final InputStream is, final BufferedImage bi,
@@ -45,32 +69,53 @@ public class UncompressedDataReader implements DataReader {
         final int width = header.columns;
         final int height = header.rows;
 
-        bfp.setDebug(false);
-
         final int channelCount = dataParser.getBasicChannelsCount();
         final int depth = header.depth;
-        final MyBitInputStream mbis = new MyBitInputStream(is, ByteOrder.BIG_ENDIAN);
-        // we want all samples to be bytes
-        BitsToByteInputStream bbis = null;
+        final int rowLength = SampleRows.getRowLength(width, depth);
+        final long planeLength = (long) height * rowLength;
+
+        // the first channel is read from the stream we were given, which is
+        // positioned at the start of the image data.
+        final InputStream[] planes = new InputStream[channelCount];
+        planes[0] = is;
+        final byte[] packed = depth == 8 ? null : rasterBufferProvider.getByteBuffer(rowLength);
+        final byte[][] samples = new byte[channelCount][];
+        for (int channel = 0; channel < channelCount; channel++) {
+            samples[channel] = rasterBufferProvider.getByteBuffer(width);
+        }
+        final int[] argb = rasterBufferProvider.getIntBuffer(width);
         boolean canThrow = false;
         try {
-            bbis = new BitsToByteInputStream(mbis, 8);
+            for (int channel = 1; channel < channelCount; channel++) {
+                planes[channel] = byteSource.getInputStream(imageDataOffset
+                        + channel * planeLength);
+            }
 
-            final int[][][] data = new int[channelCount][height][width];
-            for (int channel = 0; channel < channelCount; channel++) {
-                for (int y = 0; y < height; y++) {
-                    for (int x = 0; x < width; x++) {
-                        final int b = bbis.readBits(depth);
-    
-                        data[channel][y][x] = (byte) b;
+            for (int y = 0; y < height; y++) {
+                for (int channel = 0; channel < channelCount; channel++) {
+                    if (packed == null) {
+                        BinaryFunctions.readBytes(planes[channel], samples[channel],
+                                "PSD: Missing Image Data");
+                    } else {
+                        BinaryFunctions.readBytes(planes[channel], packed,
+                                "PSD: Missing Image Data");
+                        SampleRows.toBytes(packed, 0, depth, samples[channel], width);
                     }
                 }
+                dataParser.parseRow(samples, y, argb, bi, imageContents);
             }
-    
-            dataParser.parseData(data, bi, imageContents);
             canThrow = true;
         } finally {
-            IoUtils.closeQuietly(canThrow, bbis);
+            if (packed != null) {
+                rasterBufferProvider.release(packed);
+            }
+            for (final byte[] row : samples) {
+                rasterBufferProvider.release(row);
+            }
+            rasterBufferProvider.release(argb);
+            // the caller closes the stream it gave us
+            planes[0] = null;
+            IoUtils.closeQuietly(canThrow, planes);
         }
     }
 }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.rgbe;
+
+/**
+ * Scales the values of each pixel by an exposure, clipping those that are
+ * still brighter than the display can show.
+ */
+public class ExposureToneMapper implements ToneMapper {
+    private final float exposure;
+
+    public ExposureToneMapper() {
+        this(1);
+    }
+
+    /**
+     * @param exposure the factor the values are multiplied by, with each
+     *            doubling brightening the image by one stop.
+     */
+    public ExposureToneMapper(final float exposure) {
+        this.exposure = exposure;
+    }
+
+    public int toRgb(final float red, final float green, final float blue) {
+        return SrgbEncoding.toRgb(red * exposure, green * exposure, blue * exposure);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.rgbe;
+
+/**
+ * Compresses the luminance of each pixel with Reinhard's global operator,
+ * L / (1 + L), so highlights are rolled off rather than clipped while dark
+ * areas are left almost as they are.
+ */
+public class ReinhardToneMapper implements ToneMapper {
+    private final float exposure;
+
+    public ReinhardToneMapper() {
+        this(1);
+    }
+
+    /**
+     * @param exposure the factor the values are multiplied by before they're
+     *            compressed.
+     */
+    public ReinhardToneMapper(final float exposure) {
+        this.exposure = exposure;
+    }
+
+    public int toRgb(final float red, final float green, final float blue) {
+        final float luminance = exposure
+                * (0.2126f * red + 0.7152f * green + 0.0722f * blue);
+        final float scale = exposure / (1 + luminance);
+        return SrgbEncoding.toRgb(red * scale, green * scale, blue * scale);
+    }
+}
@@ -14,16 +14,18 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.apache.commons.imaging.common.itu_t4;
+package org.apache.commons.imaging.formats.rgbe;
 
-class HuffmanTreeException extends Exception {
-    private static final long serialVersionUID = 1L;
+public final class RgbeConstants {
+    /**
+     * Parameter key. Reads the image as an 8 bit sRGB image, mapping each
+     * pixel with the given operator, instead of as an image of floats.
+     * <p>
+     * Valid values: any ToneMapper, for example an ExposureToneMapper or a
+     * ReinhardToneMapper.
+     */
+    public static final String PARAM_KEY_TONE_MAPPER = "RGBE_TONE_MAPPER";
 
-    public HuffmanTreeException(final String message) {
-        super(message);
-    }
-
-    public HuffmanTreeException(final String message, final Throwable cause) {
-        super(message, cause);
+    private RgbeConstants() {
     }
 }
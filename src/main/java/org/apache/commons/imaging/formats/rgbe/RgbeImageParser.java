@@ -25,11 +25,15 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ComponentColorModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
 import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
@@ -37,6 +41,7 @@ import org.apache.commons.imaging.ImageInfo;
 import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.util.IoUtils;
 
@@ -48,7 +53,7 @@ import org.apache.commons.imaging.util.IoUtils;
 public class RgbeImageParser extends ImageParser {
 
     public RgbeImageParser() {
-        setByteOrder(ByteOrder.BIG_ENDIAN);
+        super(ByteOrder.BIG_ENDIAN);
     }
 
     @Override
@@ -111,10 +116,26 @@ public class RgbeImageParser extends ImageParser {
         final RgbeInfo info = new RgbeInfo(byteSource);
         boolean canThrow = false;
         try {
+            final Object toneMapper = params == null ? null
+                    : params.get(RgbeConstants.PARAM_KEY_TONE_MAPPER);
+            if (toneMapper != null) {
+                if (!(toneMapper instanceof ToneMapper)) {
+                    throw new ImageReadException("Invalid tone mapper: "
+                            + toneMapper);
+                }
+                final BufferedImage ret = getRgbImage(info,
+                        getRasterBufferProvider(params), (ToneMapper) toneMapper,
+                        getExecutor(params));
+                canThrow = true;
+                return ret;
+            }
+
             // It is necessary to create our own BufferedImage here as the
             // org.apache.commons.imaging.common.IBufferedImageFactory interface does
             // not expose this complexity
-            final DataBuffer buffer = new DataBufferFloat(info.getPixelData(),
+            final DataBuffer buffer = new DataBufferFloat(
+                    info.getPixelData(getRasterBufferProvider(params),
+                            getExecutor(params)),
                     info.getWidth() * info.getHeight());
 
             final BufferedImage ret = new BufferedImage(new ComponentColorModel(
@@ -131,6 +152,22 @@ public class RgbeImageParser extends ImageParser {
         }
     }
 
+    private BufferedImage getRgbImage(final RgbeInfo info,
+            final RasterBufferProvider rasterBufferProvider,
+            final ToneMapper toneMapper, final Executor executor)
+            throws ImageReadException, IOException {
+        final int width = info.getWidth();
+        final int height = info.getHeight();
+        final DataBufferInt buffer = new DataBufferInt(
+                info.getRgbData(rasterBufferProvider, toneMapper, executor),
+                width * height);
+        final DirectColorModel colorModel = new DirectColorModel(24,
+                0x00ff0000, 0x0000ff00, 0x000000ff);
+        final WritableRaster raster = Raster.createPackedRaster(buffer, width,
+                height, width, colorModel.getMasks(), null);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
     @Override
     public Dimension getImageSize(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
@@ -20,14 +20,22 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.BinaryFunctions;
-import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.GenericImageMetadata;
+import org.apache.commons.imaging.common.ParallelTasks;
+import org.apache.commons.imaging.common.RasterBufferProvider;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 
 class RgbeInfo implements Closeable {
@@ -41,7 +49,17 @@ class RgbeInfo implements Closeable {
     private GenericImageMetadata metadata;
     private int width = -1;
     private int height = -1;
-    private static final byte[] TWO_TWO = new byte[] { 0x2, 0x2 };
+    // below this many pixels, splitting the work costs more than it saves
+    private static final int PARALLEL_PIXELS = 1 << 18;
+    // the factor each exponent scales the mantissas by
+    private static final float[] EXPONENTS = new float[256];
+
+    static {
+        // an exponent of 0 makes the pixel black
+        for (int e = 1; e < EXPONENTS.length; e++) {
+            EXPONENTS[e] = (float) Math.pow(2, e - (128 + 8));
+        }
+    }
 
     RgbeInfo(final ByteSource byteSource) throws IOException {
         this.in = byteSource.getInputStream();
@@ -125,7 +143,83 @@ class RgbeInfo implements Closeable {
         }
     }
 
-    public float[][] getPixelData() throws IOException, ImageReadException {
+    public float[][] getPixelData(final RasterBufferProvider rasterBufferProvider,
+            final Executor executor) throws IOException, ImageReadException {
+        final byte[] rgbe = readScanLines(rasterBufferProvider);
+        final int wd = getWidth();
+        final int ht = getHeight();
+        final float[][] out = new float[3][];
+        for (int channel = 0; channel < 3; channel++) {
+            out[channel] = rasterBufferProvider.getFloatBuffer(wd * ht);
+        }
+
+        convertRows(new RowConverter() {
+            @Override
+            void convertRows(final int firstRow, final int lastRow) {
+                for (int i = firstRow; i < lastRow; i++) {
+                    final int rowOffset = 4 * wd * i;
+                    final int eOffset = rowOffset + 3 * wd;
+                    for (int channel = 0; channel < 3; channel++) {
+                        final float[] samples = out[channel];
+                        final int channelOffset = rowOffset + channel * wd;
+                        int pos = i * wd;
+                        for (int p = 0; p < wd; p++) {
+                            samples[pos++] = toFloat(rgbe[channelOffset + p],
+                                    rgbe[eOffset + p]);
+                        }
+                    }
+                }
+            }
+        }, executor);
+        rasterBufferProvider.release(rgbe);
+
+        return out;
+    }
+
+    /**
+     * Returns the pixels as 8 bit sRGB values in the low 24 bits of each int,
+     * mapping each pixel with the given operator as it's read from the scan
+     * lines, rather than from an intermediate image of floats.
+     */
+    public int[] getRgbData(final RasterBufferProvider rasterBufferProvider,
+            final ToneMapper toneMapper, final Executor executor)
+            throws IOException, ImageReadException {
+        final byte[] rgbe = readScanLines(rasterBufferProvider);
+        final int wd = getWidth();
+        final int ht = getHeight();
+        final int[] out = rasterBufferProvider.getIntBuffer(wd * ht);
+
+        convertRows(new RowConverter() {
+            @Override
+            void convertRows(final int firstRow, final int lastRow) {
+                for (int i = firstRow; i < lastRow; i++) {
+                    final int rowOffset = 4 * wd * i;
+                    int pos = i * wd;
+                    for (int p = 0; p < wd; p++) {
+                        final byte e = rgbe[rowOffset + 3 * wd + p];
+                        out[pos++] = toneMapper.toRgb(
+                                toFloat(rgbe[rowOffset + p], e),
+                                toFloat(rgbe[rowOffset + wd + p], e),
+                                toFloat(rgbe[rowOffset + 2 * wd + p], e));
+                    }
+                }
+            }
+        }, executor);
+        rasterBufferProvider.release(rgbe);
+
+        return out;
+    }
+
+    private static float toFloat(final byte mantissa, final byte exponent) {
+        return ((mantissa & 0xff) + 0.5f) * EXPONENTS[exponent & 0xff];
+    }
+
+    /**
+     * Decodes all the scan lines, each of which holds the red, green, blue
+     * and exponent bytes of its pixels one component after the other.
+     */
+    private byte[] readScanLines(final RasterBufferProvider rasterBufferProvider)
+            throws IOException, ImageReadException {
         // Read into local variables to ensure that we have seeked into the file
         // far enough
         final int ht = getHeight();
@@ -135,57 +229,97 @@ class RgbeInfo implements Closeable {
             throw new ImageReadException("Scan lines must be less than 32768 bytes long");
         }
 
-        final byte[] scanLineBytes = ByteConversions.toBytes((short) wd,
-                ByteOrder.BIG_ENDIAN);
-        final byte[] rgbe = new byte[wd * 4];
-        final float[][] out = new float[3][wd * ht];
-
+        final int rowLength = 4 * wd;
+        final byte[] rgbe = rasterBufferProvider.getByteBuffer(rowLength * ht);
+        // the header was read a byte at a time, so nothing past it has been
+        // read from the stream yet.
+        final BinaryReader reader = new BinaryReader(in, ByteOrder.BIG_ENDIAN);
         for (int i = 0; i < ht; i++) {
-            BinaryFunctions.readAndVerifyBytes(in, TWO_TWO, "Scan line " + i + " expected to start with 0x2 0x2");
-            BinaryFunctions.readAndVerifyBytes(in, scanLineBytes, "Scan line " + i + " length expected");
-
-            decompress(in, rgbe);
-
-            for (int channel = 0; channel < 3; channel++) {
-                final int channelOffset = channel * wd;
-                final int eOffset = 3 * wd;
-
-                for (int p = 0; p < wd; p++) {
-                    final int mantissa = rgbe[p + eOffset] & 0xff;
-                    final int pos = p + i * wd;
-
-                    if (0 == mantissa) {
-                        out[channel][pos] = 0;
-                    } else {
-                        final float mult = (float) Math.pow(2, mantissa - (128 + 8));
-                        out[channel][pos] = ((rgbe[p + channelOffset] & 0xff) + 0.5f) * mult;
-                    }
-                }
+            if (reader.getU16("Scan line expected") != 0x0202) {
+                throw new ImageReadException("Scan line " + i
+                        + " expected to start with 0x2 0x2");
+            }
+            if (reader.getU16("Scan line length expected") != wd) {
+                throw new ImageReadException("Scan line " + i + " length expected");
             }
+
+            decompress(reader, rgbe, i * rowLength, rowLength);
         }
 
-        return out;
+        return rgbe;
     }
 
-    private static void decompress(final InputStream in, final byte[] out)
-            throws IOException {
-        int position = 0;
-        final int total = out.length;
+    private static void decompress(final BinaryReader reader, final byte[] out,
+            int position, final int length) throws IOException, ImageReadException {
+        final int total = position + length;
 
         while (position < total) {
-            final int n = in.read();
+            final int n = reader.getU8("Unexpected end of scan line");
 
             if (n > 128) {
-                final int value = in.read();
-
-                for (int i = 0; i < (n & 0x7f); i++) {
-                    out[position++] = (byte) value;
+                final int count = n & 0x7f;
+                if (count > total - position) {
+                    throw new ImageReadException("Run overflows scan line");
                 }
+                final byte value = reader.getByte("Unexpected end of scan line");
+                Arrays.fill(out, position, position + count, value);
+                position += count;
             } else {
-                for (int i = 0; i < n; i++) {
-                    out[position++] = (byte) in.read();
+                if (n > total - position) {
+                    throw new ImageReadException("Run overflows scan line");
                 }
+                reader.getBytes(out, position, n, "Unexpected end of scan line");
+                position += n;
             }
         }
     }
+
+    /**
+     * Converts the decoded scan lines, spreading large images over the
+     * executor, if there is one, as every row is converted independently of
+     * the others.
+     */
+    private void convertRows(final RowConverter converter, final Executor executor)
+            throws IOException, ImageReadException {
+        final int ht = getHeight();
+        final int parts = Math.min(ht,
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+        if (executor == null || parts < 2 || (long) getWidth() * ht < PARALLEL_PIXELS) {
+            converter.convertRows(0, ht);
+            return;
+        }
+
+        final List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+        final int rowsPerTask = (ht + parts - 1) / parts;
+        for (int row = 0; row < ht; row += rowsPerTask) {
+            final int firstRow = row;
+            final int lastRow = Math.min(ht, row + rowsPerTask);
+            tasks.add(new FutureTask<Void>(new Runnable() {
+                public void run() {
+                    converter.convertRows(firstRow, lastRow);
+                }
+            }, null));
+        }
+        ParallelTasks.run(executor, tasks);
+        for (final FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ImageReadException("HDR: interrupted while converting pixels", e);
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new ImageReadException("HDR: couldn't convert pixels", cause);
+            }
+        }
+    }
+
+    private abstract static class RowConverter {
+        abstract void convertRows(int firstRow, int lastRow);
+    }
 }
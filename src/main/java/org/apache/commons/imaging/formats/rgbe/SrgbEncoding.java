@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.rgbe;
+
+/**
+ * Applies the sRGB transfer function to linear values, from a table rather
+ * than calling Math.pow() for every sample.
+ */
+final class SrgbEncoding {
+    // fine enough that neighbouring entries differ by at most 1
+    private static final int STEPS = 4095;
+    private static final byte[] TABLE = new byte[STEPS + 1];
+
+    static {
+        for (int i = 0; i <= STEPS; i++) {
+            final double linear = (double) i / STEPS;
+            final double encoded;
+            if (linear <= 0.0031308) {
+                encoded = 12.92 * linear;
+            } else {
+                encoded = 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+            }
+            TABLE[i] = (byte) Math.round(255 * encoded);
+        }
+    }
+
+    private SrgbEncoding() {
+    }
+
+    /**
+     * Encodes a linear value, clipping it to the range 0 to 1.
+     */
+    static int encode(final float linear) {
+        if (!(linear > 0)) {
+            // also catches NaN
+            return 0;
+        } else if (linear >= 1) {
+            return 0xff;
+        }
+        return TABLE[(int) (linear * STEPS + 0.5f)] & 0xff;
+    }
+
+    static int toRgb(final float red, final float green, final float blue) {
+        return 0xff000000 | (encode(red) << 16) | (encode(green) << 8)
+                | encode(blue);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.rgbe;
+
+/**
+ * Maps the linear, unbounded values of a high dynamic range pixel to the 8 bit
+ * sRGB values a display can show.
+ * <p>
+ * Implementations are called for every pixel, possibly from several threads
+ * at once, so they should be immutable.
+ * 
+ * @see RgbeConstants#PARAM_KEY_TONE_MAPPER
+ */
+public interface ToneMapper {
+    /**
+     * Maps a pixel.
+     * 
+     * @param red the linear red value
+     * @param green the linear green value
+     * @param blue the linear blue value
+     * @return the sRGB pixel, as 0xff in the high 8 bits followed by 8 bits
+     *         each of red, green and blue.
+     */
+    int toRgb(float red, float green, float blue);
+}
@@ -20,6 +20,7 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +52,10 @@ public class TiffDirectory extends TiffElement {
     public final int type;
     public final List<TiffField> entries;
     public final long nextDirectoryOffset;
+    private final List<TiffField> entryList;
+    // the distinct tags of the entries, sorted, and the first entry of each
+    private int[] indexedTags;
+    private TiffField[] indexedFields;
     private TiffImageData tiffImageData;
     private JpegImageData jpegImageData;
 
@@ -60,8 +65,43 @@ public class TiffDirectory extends TiffElement {
                 + TiffConstants.TIFF_DIRECTORY_FOOTER_LENGTH);
 
         this.type = type;
+        this.entryList = entries;
         this.entries = Collections.unmodifiableList(entries);
         this.nextDirectoryOffset = nextDirectoryOffset;
+
+        indexEntries();
+    }
+
+    private void indexEntries() {
+        // sort by tag, then by position, so the first entry of a tag wins
+        final long[] keys = new long[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) entries.get(i).getTag() << 32) | i;
+        }
+        Arrays.sort(keys);
+        int count = 0;
+        final int[] tags = new int[keys.length];
+        final TiffField[] fields = new TiffField[keys.length];
+        for (final long key : keys) {
+            final int tag = (int) (key >>> 32);
+            if (count == 0 || tags[count - 1] != tag) {
+                tags[count] = tag;
+                fields[count] = entries.get((int) key);
+                count++;
+            }
+        }
+        indexedTags = new int[count];
+        System.arraycopy(tags, 0, indexedTags, 0, count);
+        indexedFields = new TiffField[count];
+        System.arraycopy(fields, 0, indexedFields, 0, count);
+    }
+
+    /**
+     * Removes an entry that turned out to be unusable while reading the file.
+     */
+    void removeEntry(final TiffField field) {
+        entryList.remove(field);
+        indexEntries();
     }
     
     public String description() {
@@ -164,14 +204,9 @@ public class TiffDirectory extends TiffElement {
 
     public TiffField findField(final TagInfo tag, final boolean failIfMissing)
             throws ImageReadException {
-        if (entries == null) {
-            return null;
-        }
-
-        for (TiffField field : entries) {
-            if (field.getTag() == tag.tag) {
-                return field;
-            }
+        final int index = Arrays.binarySearch(indexedTags, tag.tag);
+        if (index >= 0) {
+            return indexedFields[index];
         }
 
         if (failIfMissing) {
@@ -53,10 +53,29 @@ import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
 public class TiffImageMetadata extends GenericImageMetadata {
     public final TiffContents contents;
 
+    // the directories in the order they were added, and by type
+    private final List<Directory> directories = new ArrayList<Directory>();
+    private final Map<Integer, List<Directory>> directoriesByType = new HashMap<Integer, List<Directory>>();
+
     public TiffImageMetadata(final TiffContents contents) {
         this.contents = contents;
     }
 
+    @Override
+    public void add(final ImageMetadataItem item) {
+        super.add(item);
+        if (item instanceof Directory) {
+            final Directory directory = (Directory) item;
+            directories.add(directory);
+            List<Directory> directoriesOfType = directoriesByType.get(directory.type);
+            if (directoriesOfType == null) {
+                directoriesOfType = new ArrayList<Directory>();
+                directoriesByType.put(directory.type, directoriesOfType);
+            }
+            directoriesOfType.add(directory);
+        }
+    }
+
     public static class Directory extends GenericImageMetadata implements
             ImageMetadataItem {
         // private BufferedImage thumbnail = null;
@@ -224,34 +243,24 @@ public class TiffImageMetadata extends GenericImageMetadata {
     public TiffField findField(final TagInfo tagInfo, final boolean exactDirectoryMatch)
             throws ImageReadException {
         // Please keep this method in sync with TiffField's getTag()
-        final Integer tagCount = TiffTags.getTagCount(tagInfo.tag);
-        final int tagsMatching = tagCount == null ? 0 : tagCount;
-
-        final List<? extends ImageMetadataItem> directories = getDirectories();
         if (exactDirectoryMatch
                 || tagInfo.directoryType != TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN) {
-            for (ImageMetadataItem directory1 : directories) {
-                final Directory directory = (Directory) directory1;
-                if (directory.type == tagInfo.directoryType.directoryType) {
+            final List<Directory> directoriesOfType = directoriesByType
+                    .get(tagInfo.directoryType.directoryType);
+            if (directoriesOfType != null) {
+                for (Directory directory : directoriesOfType) {
                     final TiffField field = directory.findField(tagInfo);
                     if (field != null) {
                         return field;
                     }
                 }
             }
-            if (exactDirectoryMatch || tagsMatching > 1) {
+            if (exactDirectoryMatch || TiffTags.getTagCount(tagInfo.tag) > 1) {
                 return null;
             }
-            for (ImageMetadataItem directory1 : directories) {
-                final Directory directory = (Directory) directory1;
-                if (tagInfo.directoryType.isImageDirectory()
-                        && directory.type >= 0) {
-                    final TiffField field = directory.findField(tagInfo);
-                    if (field != null) {
-                        return field;
-                    }
-                } else if (!tagInfo.directoryType.isImageDirectory()
-                        && directory.type < 0) {
+            final boolean imageDirectory = tagInfo.directoryType.isImageDirectory();
+            for (Directory directory : directories) {
+                if ((directory.type >= 0) == imageDirectory) {
                     final TiffField field = directory.findField(tagInfo);
                     if (field != null) {
                         return field;
@@ -260,8 +269,7 @@ public class TiffImageMetadata extends GenericImageMetadata {
             }
         }
 
-        for (ImageMetadataItem directory1 : directories) {
-            final Directory directory = (Directory) directory1;
+        for (Directory directory : directories) {
             final TiffField field = directory.findField(tagInfo);
             if (field != null) {
                 return field;
@@ -428,21 +436,16 @@ public class TiffImageMetadata extends GenericImageMetadata {
     }
 
     public TiffDirectory findDirectory(final int directoryType) {
-        final List<? extends ImageMetadataItem> directories = getDirectories();
-        for (ImageMetadataItem directory1 : directories) {
-            final Directory directory = (Directory) directory1;
-            if (directory.type == directoryType) {
-                return directory.directory;
-            }
+        final List<Directory> directoriesOfType = directoriesByType.get(directoryType);
+        if (directoriesOfType == null) {
+            return null;
         }
-        return null;
+        return directoriesOfType.get(0).directory;
     }
 
     public List<TiffField> getAllFields() {
         final List<TiffField> result = new ArrayList<TiffField>();
-        final List<? extends ImageMetadataItem> directories = getDirectories();
-        for (ImageMetadataItem directory1 : directories) {
-            final Directory directory = (Directory) directory1;
+        for (Directory directory : directories) {
             result.addAll(directory.getAllFields());
         }
         return result;
@@ -19,12 +19,14 @@ package org.apache.commons.imaging.formats.tiff;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -37,12 +39,15 @@ import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.ParserPhase;
+import org.apache.commons.imaging.common.PhaseRecorder;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory.ImageDataElement;
 import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffEpTagConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.datareaders.DataReader;
+import org.apache.commons.imaging.formats.tiff.datareaders.DataReaderStrips;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreter;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterBiLevel;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterCieLab;
@@ -51,6 +56,7 @@ import org.apache.commons.imaging.formats.tiff.photometricinterpreters.Photometr
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterPalette;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterRgb;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterYCbCr;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
 import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterLossy;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.*;
@@ -118,10 +124,19 @@ public class TiffImageParser extends ImageParser {
     @Override
     public ImageMetadata getMetadata(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final FormatCompliance formatCompliance = FormatCompliance.getDefault();
-        final TiffReader tiffReader = new TiffReader(isStrict(params));
-        final TiffContents contents = tiffReader.readContents(byteSource, params,
-                formatCompliance);
+        final PhaseRecorder recorder = getPhaseRecorder(ImageFormats.TIFF, params);
+        final long start = recorder.start();
+        ParserPhase phase = ParserPhase.METADATA;
+        final TiffContents contents;
+        try {
+            final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+            final TiffReader tiffReader = new TiffReader(isStrict(params));
+            contents = tiffReader.readContents(byteSource, params, formatCompliance);
+            recorder.end(phase, start, -1, 0);
+            phase = null;
+        } finally {
+            recorder.failed(phase, start);
+        }
 
         final List<TiffDirectory> directories = contents.directories;
 
@@ -129,7 +144,7 @@ public class TiffImageParser extends ImageParser {
 
         for (TiffDirectory dir : directories) {
             final TiffImageMetadata.Directory metadataDirectory = new TiffImageMetadata.Directory(
-                    tiffReader.getByteOrder(), dir);
+                    contents.header.byteOrder, dir);
 
             final List<TiffField> entries = dir.getDirectoryEntries();
 
@@ -143,6 +158,18 @@ public class TiffImageParser extends ImageParser {
         return result;
     }
 
+    /**
+     * Reads the fields of the given tags without reading the rest of the
+     * metadata.
+     * 
+     * @see TiffReader#readFields(ByteSource, Collection, int[])
+     */
+    public Map<TagInfo, TiffField> getFields(final ByteSource byteSource,
+            final Collection<? extends TagInfo> tags, final Map<String, Object> params)
+            throws ImageReadException, IOException {
+        return new TiffReader(isStrict(params)).readFields(byteSource, tags);
+    }
+
     @Override
     public ImageInfo getImageInfo(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
@@ -454,17 +481,48 @@ public class TiffImageParser extends ImageParser {
     @Override
     public BufferedImage getBufferedImage(final ByteSource byteSource, final Map<String, Object> params)
             throws ImageReadException, IOException {
-        final FormatCompliance formatCompliance = FormatCompliance.getDefault();
-        final TiffReader reader = new TiffReader(isStrict(params));
-        final TiffContents contents = reader.readFirstDirectory(byteSource, params,
-                true, formatCompliance);
-        final ByteOrder byteOrder = reader.getByteOrder();
-        final TiffDirectory directory = contents.directories.get(0);
-        final BufferedImage result = directory.getTiffImage(byteOrder, params);
-        if (null == result) {
-            throw new ImageReadException("TIFF does not contain an image.");
+        final PhaseRecorder recorder = getPhaseRecorder(ImageFormats.TIFF, params);
+        ParserPhase phase = ParserPhase.HEADER;
+        long start = recorder.start();
+        try {
+            final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+            final TiffReader reader = new TiffReader(isStrict(params));
+            final TiffContents contents = reader.readFirstDirectory(byteSource, params,
+                    true, formatCompliance);
+            final ByteOrder byteOrder = contents.header.byteOrder;
+            final TiffDirectory directory = contents.directories.get(0);
+            recorder.end(phase, start, -1, 0);
+            // strips and tiles are decompressed and interpreted one at a time
+            phase = ParserPhase.DECOMPRESSION;
+            start = recorder.start();
+            final BufferedImage result = directory.getTiffImage(byteOrder, params);
+            if (null == result) {
+                throw new ImageReadException("TIFF does not contain an image.");
+            }
+            if (recorder.isEnabled()) {
+                recorder.end(phase, start, getImageDataLength(directory), result);
+            }
+            phase = null;
+            return result;
+        } finally {
+            recorder.failed(phase, start);
         }
-        return result;
+    }
+
+    /**
+     * Returns the number of bytes of strip or tile data in the directory,
+     * or -1 if it has none.
+     */
+    private static long getImageDataLength(final TiffDirectory directory) {
+        final TiffImageData imageData = directory.getTiffImageData();
+        if (imageData == null) {
+            return -1;
+        }
+        long length = 0;
+        for (final TiffElement.DataElement element : imageData.getImageData()) {
+            length += element.length;
+        }
+        return length;
     }
 
     @Override
@@ -478,7 +536,7 @@ public class TiffImageParser extends ImageParser {
         for (int i = 0; i < contents.directories.size(); i++) {
             final TiffDirectory directory = contents.directories.get(i);
             final BufferedImage result = directory.getTiffImage(
-                    tiffReader.getByteOrder(), null);
+                    contents.header.byteOrder, null);
             if (result != null) {
                 results.add(result);
             }
@@ -643,6 +701,15 @@ public class TiffImageParser extends ImageParser {
         BufferedImage result = null;
         if (subImage != null) {
             result = dataReader.readImageData(subImage);
+        } else if (params != null
+                && Boolean.TRUE.equals(params.get(TiffConstants.PARAM_KEY_READ_BILEVEL_AS_BINARY))
+                && (photometricInterpretation == 0 || photometricInterpretation == 1)
+                && bitsPerPixel == 1 && predictor != 2
+                && DataReader.isBilevelCompression(compression)
+                && dataReader instanceof DataReaderStrips) {
+            result = createBinaryImage(width, height,
+                    photometricInterpretation == 0);
+            ((DataReaderStrips) dataReader).readImageData(result);
         } else {
             final boolean hasAlpha = false;
             final ImageBuilder imageBuilder = new ImageBuilder(width, height, hasAlpha);
@@ -653,6 +720,16 @@ public class TiffImageParser extends ImageParser {
         return result;     
     }
 
+    private BufferedImage createBinaryImage(final int width, final int height,
+            final boolean whiteIsZero) {
+        final byte[] levels = whiteIsZero ? new byte[] { (byte) 0xff, 0 }
+                : new byte[] { 0, (byte) 0xff };
+        final IndexColorModel colorModel = new IndexColorModel(1, 2, levels,
+                levels, levels);
+        return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY,
+                colorModel);
+    }
+
     private PhotometricInterpreter getPhotometricInterpreter(
             final TiffDirectory directory, final int photometricInterpretation,
             final int bitsPerPixel, final int[] bitsPerSample, final int predictor,
@@ -688,26 +765,48 @@ public class TiffImageParser extends ImageParser {
         case 5: // CMYK
             return new PhotometricInterpreterCmyk(samplesPerPixel,
                     bitsPerSample, predictor, width, height);
-        case 6: //
+        case 6: // YCbCr
         {
 //            final double yCbCrCoefficients[] = directory.findField(
 //                    TiffTagConstants.TIFF_TAG_YCBCR_COEFFICIENTS, true)
 //                    .getDoubleArrayValue();
 //
-//            final int yCbCrPositioning[] = directory.findField(
-//                    TiffTagConstants.TIFF_TAG_YCBCR_POSITIONING, true)
-//                    .getIntArrayValue();
-//            final int yCbCrSubSampling[] = directory.findField(
-//                    TiffTagConstants.TIFF_TAG_YCBCR_SUB_SAMPLING, true)
-//                    .getIntArrayValue();
-//
 //            final double referenceBlackWhite[] = directory.findField(
 //                    TiffTagConstants.TIFF_TAG_REFERENCE_BLACK_WHITE, true)
 //                    .getDoubleArrayValue();
 
+            // the TIFF 6.0 spec defaults to 2:1 subsampling in both
+            // directions, with the chroma samples centered
+            int subSamplingHorizontal = 2;
+            int subSamplingVertical = 2;
+            final TiffField subSamplingField = directory.findField(
+                    TiffTagConstants.TIFF_TAG_YCBCR_SUB_SAMPLING);
+            if (subSamplingField != null) {
+                final int[] yCbCrSubSampling = subSamplingField.getIntArrayValue();
+                if (yCbCrSubSampling.length != 2) {
+                    throw new ImageReadException("TIFF: invalid YCbCrSubSampling length: "
+                            + yCbCrSubSampling.length);
+                }
+                subSamplingHorizontal = yCbCrSubSampling[0];
+                subSamplingVertical = yCbCrSubSampling[1];
+            }
+            if (!isValidSubSampling(subSamplingHorizontal)
+                    || !isValidSubSampling(subSamplingVertical)
+                    || subSamplingVertical > subSamplingHorizontal) {
+                throw new ImageReadException("TIFF: invalid YCbCrSubSampling: "
+                        + subSamplingHorizontal + "," + subSamplingVertical);
+            }
+
+            int positioning = TiffTagConstants.YCB_CR_POSITIONING_VALUE_CENTERED;
+            final TiffField positioningField = directory.findField(
+                    TiffTagConstants.TIFF_TAG_YCBCR_POSITIONING);
+            if (positioningField != null) {
+                positioning = positioningField.getIntValue();
+            }
+
             return new PhotometricInterpreterYCbCr(samplesPerPixel,
-                    bitsPerSample, predictor, width,
-                    height);
+                    bitsPerSample, predictor, width, height,
+                    subSamplingHorizontal, subSamplingVertical, positioning);
         }
 
         case 8:
@@ -728,6 +827,10 @@ public class TiffImageParser extends ImageParser {
         }
     }
 
+    private static boolean isValidSubSampling(final int subSampling) {
+        return subSampling == 1 || subSampling == 2 || subSampling == 4;
+    }
+
     @Override
     public void writeImage(final BufferedImage src, final OutputStream os, final Map<String, Object> params)
             throws ImageWriteException, IOException {
@@ -20,28 +20,45 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.BinaryReader;
 import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.common.ReadContext;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory.ImageDataElement;
 import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryType;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldType;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldTypeLong;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
 import org.apache.commons.imaging.formats.tiff.taginfos.TagInfoLong;
 import org.apache.commons.imaging.util.IoUtils;
 
 import static org.apache.commons.imaging.common.BinaryFunctions.*;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.*;
 
+/**
+ * Reads the header and directories of TIFF data.
+ * <p>
+ * The byte order of the data is only known once its header has been read,
+ * so it is kept in the {@link TiffHeader} of the result and in the
+ * {@link ReadContext} of each read rather than in the reader, and one reader
+ * can be used by several threads at once.
+ */
 public class TiffReader extends BinaryFileParser {
 
     private final boolean strict;
@@ -74,28 +91,24 @@ public class TiffReader extends BinaryFileParser {
     }
 
     private TiffHeader readTiffHeader(final InputStream is) throws ImageReadException, IOException {
-        final int byteOrder1 = readByte("BYTE_ORDER_1", is, "Not a Valid TIFF File");
-        final int byteOrder2 = readByte("BYTE_ORDER_2", is, "Not a Valid TIFF File");
+        final BinaryReader reader = getBinaryReader(is);
+        final int byteOrder1 = reader.getByte("Not a Valid TIFF File");
+        final int byteOrder2 = reader.getByte("Not a Valid TIFF File");
         if (byteOrder1 != byteOrder2) {
             throw new ImageReadException("Byte Order bytes don't match (" + byteOrder1 + ", " + byteOrder2 + ").");
         }
 
         final ByteOrder byteOrder = getTiffByteOrder(byteOrder1);
-        setByteOrder(byteOrder);
+        reader.setByteOrder(byteOrder);
 
-        final int tiffVersion = read2Bytes("tiffVersion", is, "Not a Valid TIFF File", getByteOrder());
+        final int tiffVersion = reader.getU16("Not a Valid TIFF File");
         if (tiffVersion != 42) {
             throw new ImageReadException("Unknown Tiff Version: " + tiffVersion);
         }
 
-        final long offsetToFirstIFD = 
-                0xFFFFffffL & read4Bytes("offsetToFirstIFD", is, "Not a Valid TIFF File", getByteOrder());
-
-        skipBytes(is, offsetToFirstIFD - 8, "Not a Valid TIFF File: couldn't find IFDs");
+        final long offsetToFirstIFD = reader.getU32("Not a Valid TIFF File");
 
-        if (getDebug()) {
-            System.out.println("");
-        }
+        reader.skip(offsetToFirstIFD - 8, "Not a Valid TIFF File: couldn't find IFDs");
 
         return new TiffHeader(byteOrder, tiffVersion, offsetToFirstIFD);
     }
@@ -111,24 +124,28 @@ public class TiffReader extends BinaryFileParser {
         final long offset = tiffHeader.offsetToFirstIFD;
         final int dirType = TiffDirectoryConstants.DIRECTORY_TYPE_ROOT;
 
+        final ReadContext context = new ReadContext(tiffHeader.byteOrder,
+                formatCompliance, getDebug());
         final List<Number> visited = new ArrayList<Number>();
-        readDirectory(byteSource, offset, dirType, formatCompliance, listener, visited);
+        readDirectory(byteSource, offset, dirType, context, listener, visited);
     }
 
     private boolean readDirectory(final ByteSource byteSource, final long offset,
-            final int dirType, final FormatCompliance formatCompliance, final Listener listener,
+            final int dirType, final ReadContext context, final Listener listener,
             final List<Number> visited) throws ImageReadException, IOException {
         final boolean ignoreNextDirectory = false;
-        return readDirectory(byteSource, offset, dirType, formatCompliance,
+        return readDirectory(byteSource, offset, dirType, context,
                 listener, ignoreNextDirectory, visited);
     }
 
     private boolean readDirectory(final ByteSource byteSource, final long directoryOffset,
-            final int dirType, final FormatCompliance formatCompliance, final Listener listener,
+            final int dirType, final ReadContext context, final Listener listener,
             final boolean ignoreNextDirectory, final List<Number> visited)
             throws ImageReadException, IOException {
 
         if (visited.contains(directoryOffset)) {
+            addComment(context, "Directory at offset " + directoryOffset
+                    + " is read more than once");
             return false;
         }
         visited.add(directoryOffset);
@@ -137,39 +154,50 @@ public class TiffReader extends BinaryFileParser {
         boolean canThrow = false;
         try {
             if (directoryOffset >= byteSource.getLength()) {
+                addComment(context, "Directory offset " + directoryOffset
+                        + " is outside the file");
                 canThrow = true;
                 return true;
             }
 
+            final ByteOrder byteOrder = context.getByteOrder();
             is = byteSource.getInputStream();
-            skipBytes(is, directoryOffset);
+            final BinaryReader reader = new BinaryReader(is, byteOrder);
+            reader.skip(directoryOffset, "Couldn't skip bytes");
 
             final List<TiffField> fields = new ArrayList<TiffField>();
 
             int entryCount;
             try {
-                entryCount = read2Bytes("DirectoryEntryCount", is, "Not a Valid TIFF File", getByteOrder());
+                entryCount = reader.getU16("Not a Valid TIFF File");
             } catch (final IOException e) {
                 if (strict) {
                     throw e;
                 } else {
+                    addComment(context, "Couldn't read the entry count of the directory at offset "
+                            + directoryOffset);
                     canThrow = true;
                     return true;
                 }
             }
+            if (context.getDebug()) {
+                System.out.println("Directory " + dirType + " at offset "
+                        + directoryOffset + ": " + entryCount + " entries");
+            }
 
             for (int i = 0; i < entryCount; i++) {
-                final int tag = read2Bytes("Tag", is, "Not a Valid TIFF File", getByteOrder());
-                final int type = read2Bytes("Type", is, "Not a Valid TIFF File", getByteOrder());
-                final long count = 0xFFFFffffL & read4Bytes("Count", is, "Not a Valid TIFF File", getByteOrder());
-                final byte[] offsetBytes = readBytes("Offset", is, 4, "Not a Valid TIFF File");
-                final long offset = 0xFFFFffffL & ByteConversions.toInt(offsetBytes, getByteOrder());
+                final int tag = reader.getU16("Not a Valid TIFF File");
+                final int type = reader.getU16("Not a Valid TIFF File");
+                final long count = reader.getU32("Not a Valid TIFF File");
+                final byte[] offsetBytes = reader.getBytes(4, "Not a Valid TIFF File");
+                final long offset = 0xFFFFffffL & ByteConversions.toInt(offsetBytes, byteOrder);
 
                 if (tag == 0) {
                     // skip invalid fields.
                     // These are seen very rarely, but can have invalid value
                     // lengths,
                     // which can cause OOM problems.
+                    addComment(context, "Ignored entry with tag 0");
                     continue;
                 }
                 
@@ -180,30 +208,21 @@ public class TiffReader extends BinaryFileParser {
                     // skip over unknown fields types, since we
                     // can't calculate their size without
                     // knowing their type
+                    addComment(context, "Ignored entry with unknown field type " + type
+                            + ", tag", tag);
                     continue;
                 }
-                final long valueLength = count * fieldType.getSize();
-                final byte[] value;
-                if (valueLength > TIFF_ENTRY_MAX_VALUE_LENGTH) {
-                    if ((offset < 0) || (offset + valueLength) > byteSource.getLength()) {
-                        if (strict) {
-                            throw new IOException(
-                                    "Attempt to read byte range starting from " + offset + " "
-                                            + "of length " + valueLength + " "
-                                            + "which is outside the file's size of "
-                                            + byteSource.getLength());
-                        } else {
-                            // corrupt field, ignore it
-                            continue;
-                        }
-                    }
-                    value = byteSource.getBlock(offset, (int) valueLength);
-                } else {
-                    value = offsetBytes;
+                final byte[] value = readFieldValue(byteSource, fieldType, count,
+                        offset, offsetBytes);
+                if (value == null) {
+                    // corrupt field, ignore it
+                    addComment(context, "Ignored entry with value outside the file, tag",
+                            tag);
+                    continue;
                 }
 
                 final TiffField field = new TiffField(tag, dirType, fieldType, count,
-                        offset, value, getByteOrder(), i);
+                        offset, value, byteOrder, i);
 
                 fields.add(field);
 
@@ -213,8 +232,7 @@ public class TiffReader extends BinaryFileParser {
                 }
             }
 
-            final long nextDirectoryOffset = 0xFFFFffffL & read4Bytes("nextDirectoryOffset", is,
-                    "Not a Valid TIFF File", getByteOrder());
+            final long nextDirectoryOffset = reader.getU32("Not a Valid TIFF File");
 
             final TiffDirectory directory = new TiffDirectory(dirType, fields,
                     directoryOffset, nextDirectoryOffset);
@@ -260,15 +278,18 @@ public class TiffReader extends BinaryFileParser {
                             subDirectoryType = directoryTypes[i];
                             subDirectoryRead = readDirectory(byteSource,
                                     subDirectoryOffset, subDirectoryType,
-                                    formatCompliance, listener, true, visited);
+                                    context, listener, true, visited);
     
                         } catch (final ImageReadException imageReadException) {
                             if (strict) {
                                 throw imageReadException;
                             }
+                            addComment(context, "Couldn't read "
+                                    + offsetField.name + " directory: "
+                                    + imageReadException.getMessage());
                         }
                         if (!subDirectoryRead) {
-                            fields.remove(field);
+                            directory.removeEntry(field);
                         }
                     }
                 }
@@ -277,7 +298,7 @@ public class TiffReader extends BinaryFileParser {
             if (!ignoreNextDirectory && directory.nextDirectoryOffset > 0) {
                 // Debug.debug("next dir", directory.nextDirectoryOffset );
                 readDirectory(byteSource, directory.nextDirectoryOffset,
-                        dirType + 1, formatCompliance, listener, visited);
+                        dirType + 1, context, listener, visited);
             }
 
             canThrow = true;
@@ -287,6 +308,47 @@ public class TiffReader extends BinaryFileParser {
         }
     }
 
+    private static void addComment(final ReadContext context, final String comment)
+            throws ImageReadException {
+        final FormatCompliance formatCompliance = context.getFormatCompliance();
+        if (formatCompliance != null) {
+            formatCompliance.addComment(comment);
+        }
+    }
+
+    private static void addComment(final ReadContext context, final String comment,
+            final int value) throws ImageReadException {
+        final FormatCompliance formatCompliance = context.getFormatCompliance();
+        if (formatCompliance != null) {
+            formatCompliance.addComment(comment, value);
+        }
+    }
+
+    /**
+     * Returns the value of a field, which is either in its entry or at the
+     * given offset, or null if a non-strict reader should ignore the field
+     * because its value lies outside the file.
+     */
+    private byte[] readFieldValue(final ByteSource byteSource,
+            final FieldType fieldType, final long count, final long offset,
+            final byte[] offsetBytes) throws IOException {
+        final long valueLength = count * fieldType.getSize();
+        if (valueLength <= TIFF_ENTRY_MAX_VALUE_LENGTH) {
+            return offsetBytes;
+        }
+        if ((offset < 0) || (offset + valueLength) > byteSource.getLength()) {
+            if (strict) {
+                throw new IOException(
+                        "Attempt to read byte range starting from " + offset + " "
+                                + "of length " + valueLength + " "
+                                + "which is outside the file's size of "
+                                + byteSource.getLength());
+            }
+            return null;
+        }
+        return byteSource.getBlock(offset, (int) valueLength);
+    }
+
     public interface Listener {
         boolean setTiffHeader(TiffHeader tiffHeader);
 
@@ -401,7 +463,10 @@ public class TiffReader extends BinaryFileParser {
     public TiffContents readDirectories(final ByteSource byteSource,
             final boolean readImageData, final FormatCompliance formatCompliance)
             throws ImageReadException, IOException {
-        final Collector collector = new Collector(null);
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.PARAM_KEY_READ_THUMBNAILS,
+                Boolean.valueOf(readImageData));
+        final Collector collector = new Collector(params);
         readDirectories(byteSource, formatCompliance, collector);
         final TiffContents contents = collector.getContents();
         if (contents.directories.size() < 1) {
@@ -427,6 +492,233 @@ public class TiffReader extends BinaryFileParser {
         readDirectories(byteSource, formatCompliance, listener);
     }
 
+    public Map<TagInfo, TiffField> readFields(final ByteSource byteSource,
+            final Collection<? extends TagInfo> tags) throws ImageReadException,
+            IOException {
+        return readFields(byteSource, tags, null);
+    }
+
+    /**
+     * Reads the fields of the given tags, and nothing else.
+     * <p>
+     * Unlike {@link #readContents}, which reads every field of every
+     * directory, this only reads the entries of the directories the tags can
+     * be in, and only reads the values of the fields asked for. The EXIF, GPS
+     * and interoperability directories and the directories after the first
+     * are only followed if a tag is looked for in them, and reading stops as
+     * soon as every tag has been found.
+     * <p>
+     * Tags with a known directory type are only looked for in that directory,
+     * and other tags in every directory, unless directory types are given,
+     * in which case all the tags are looked for in those directories only.
+     * 
+     * @param byteSource
+     *            a TIFF file, or the TIFF data of an EXIF segment.
+     * @param tags
+     *            the tags to read.
+     * @param directoryTypes
+     *            the directory types (see TiffDirectoryConstants) to look for
+     *            the tags in, or null to use the directory types of the tags.
+     * @return the first field found for each of the tags. Tags that weren't
+     *         found have no entry.
+     */
+    public Map<TagInfo, TiffField> readFields(final ByteSource byteSource,
+            final Collection<? extends TagInfo> tags, final int[] directoryTypes)
+            throws ImageReadException, IOException {
+        final FieldQuery query = new FieldQuery(tags, directoryTypes);
+        if (query.isComplete()) {
+            return query.fields;
+        }
+        final TiffHeader tiffHeader = readTiffHeader(byteSource);
+        final ReadContext context = new ReadContext(tiffHeader.byteOrder,
+                null, getDebug());
+        readFields(byteSource, tiffHeader.offsetToFirstIFD,
+                TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, true, context, query);
+        return query.fields;
+    }
+
+    private void readFields(final ByteSource byteSource, final long directoryOffset,
+            final int dirType, final boolean readNextDirectory,
+            final ReadContext context, final FieldQuery query)
+            throws ImageReadException, IOException {
+        if (query.isComplete() || !query.visited.add(directoryOffset)
+                || directoryOffset + 2 > byteSource.getLength()) {
+            return;
+        }
+
+        final ByteOrder byteOrder = context.getByteOrder();
+        final int entryCount = ByteConversions.toUInt16(
+                byteSource.getBlock(directoryOffset, 2), byteOrder);
+        final byte[] entries = byteSource.getBlock(directoryOffset + 2, 12 * entryCount);
+
+        long exifOffset = -1;
+        long gpsOffset = -1;
+        long interopOffset = -1;
+        final List<TagInfo> wanted = new ArrayList<TagInfo>();
+        for (int i = 0; i < entryCount; i++) {
+            final int entryOffset = 12 * i;
+            final int tag = ByteConversions.toUInt16(entries, entryOffset, byteOrder);
+            final List<TagInfo> tagInfos = query.tags.get(tag);
+            final boolean isPointer = tag == ExifTagConstants.EXIF_TAG_EXIF_OFFSET.tag
+                    || tag == ExifTagConstants.EXIF_TAG_GPSINFO.tag
+                    || tag == ExifTagConstants.EXIF_TAG_INTEROP_OFFSET.tag;
+            if (tag == 0 || (tagInfos == null && !isPointer)) {
+                continue;
+            }
+
+            final FieldType fieldType;
+            try {
+                fieldType = FieldType.getFieldType(
+                        ByteConversions.toUInt16(entries, entryOffset + 2, byteOrder));
+            } catch (final ImageReadException imageReadEx) {
+                // unknown field types can't be read
+                continue;
+            }
+            final long count = 0xFFFFffffL & ByteConversions.toInt(entries,
+                    entryOffset + 4, byteOrder);
+            final long offset = 0xFFFFffffL & ByteConversions.toInt(entries,
+                    entryOffset + 8, byteOrder);
+
+            if (isPointer && count == 1 && fieldType instanceof FieldTypeLong) {
+                if (tag == ExifTagConstants.EXIF_TAG_EXIF_OFFSET.tag) {
+                    exifOffset = offset;
+                } else if (tag == ExifTagConstants.EXIF_TAG_GPSINFO.tag) {
+                    gpsOffset = offset;
+                } else {
+                    interopOffset = offset;
+                }
+            }
+
+            wanted.clear();
+            if (tagInfos != null) {
+                for (final TagInfo tagInfo : tagInfos) {
+                    if (query.isWanted(tagInfo, dirType)) {
+                        wanted.add(tagInfo);
+                    }
+                }
+            }
+            if (wanted.isEmpty()) {
+                continue;
+            }
+
+            final byte[] offsetBytes = new byte[4];
+            System.arraycopy(entries, entryOffset + 8, offsetBytes, 0, 4);
+            final byte[] value = readFieldValue(byteSource, fieldType, count,
+                    offset, offsetBytes);
+            if (value == null) {
+                continue;
+            }
+            final TiffField field = new TiffField(tag, dirType, fieldType, count,
+                    offset, value, byteOrder, i);
+            for (final TagInfo tagInfo : wanted) {
+                query.fields.put(tagInfo, field);
+            }
+        }
+
+        // the interoperability directory is found through the EXIF directory
+        if (exifOffset >= 0
+                && (query.isDirectoryWanted(TiffDirectoryConstants.DIRECTORY_TYPE_EXIF)
+                || query.isDirectoryWanted(TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY))) {
+            readFields(byteSource, exifOffset,
+                    TiffDirectoryConstants.DIRECTORY_TYPE_EXIF, false, context, query);
+        }
+        if (gpsOffset >= 0
+                && query.isDirectoryWanted(TiffDirectoryConstants.DIRECTORY_TYPE_GPS)) {
+            readFields(byteSource, gpsOffset,
+                    TiffDirectoryConstants.DIRECTORY_TYPE_GPS, false, context, query);
+        }
+        if (interopOffset >= 0
+                && query.isDirectoryWanted(TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY)) {
+            readFields(byteSource, interopOffset,
+                    TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY, false, context, query);
+        }
+
+        if (readNextDirectory && query.isLaterDirectoryWanted(dirType)) {
+            final long nextDirectoryOffset = 0xFFFFffffL & ByteConversions.toInt(
+                    byteSource.getBlock(directoryOffset + 2 + entries.length, 4),
+                    byteOrder);
+            if (nextDirectoryOffset > 0) {
+                readFields(byteSource, nextDirectoryOffset, dirType + 1, true, context, query);
+            }
+        }
+    }
+
+    private static class FieldQuery {
+        private final Map<Integer, List<TagInfo>> tags = new HashMap<Integer, List<TagInfo>>();
+        private final List<TagInfo> tagInfos = new ArrayList<TagInfo>();
+        private final int[] directoryTypes;
+        private final Map<TagInfo, TiffField> fields = new HashMap<TagInfo, TiffField>();
+        private final Set<Long> visited = new HashSet<Long>();
+
+        public FieldQuery(final Collection<? extends TagInfo> tagInfos,
+                final int[] directoryTypes) {
+            for (final TagInfo tagInfo : tagInfos) {
+                List<TagInfo> list = tags.get(tagInfo.tag);
+                if (list == null) {
+                    list = new ArrayList<TagInfo>();
+                    tags.put(tagInfo.tag, list);
+                }
+                if (!list.contains(tagInfo)) {
+                    list.add(tagInfo);
+                    this.tagInfos.add(tagInfo);
+                }
+            }
+            this.directoryTypes = directoryTypes == null ? null : directoryTypes.clone();
+        }
+
+        public boolean isComplete() {
+            return fields.size() == tagInfos.size();
+        }
+
+        public boolean isWanted(final TagInfo tagInfo, final int directoryType) {
+            if (fields.containsKey(tagInfo)) {
+                return false;
+            }
+            if (directoryTypes != null) {
+                for (final int type : directoryTypes) {
+                    if (type == directoryType) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN
+                    || tagInfo.directoryType.directoryType == directoryType;
+        }
+
+        public boolean isDirectoryWanted(final int directoryType) {
+            for (final TagInfo tagInfo : tagInfos) {
+                if (isWanted(tagInfo, directoryType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns whether a tag that hasn't been found yet may be in an image
+         * directory after the given one.
+         */
+        public boolean isLaterDirectoryWanted(final int directoryType) {
+            if (directoryTypes != null) {
+                for (final int type : directoryTypes) {
+                    if (type > directoryType) {
+                        return !isComplete();
+                    }
+                }
+                return false;
+            }
+            for (final TagInfo tagInfo : tagInfos) {
+                if (!fields.containsKey(tagInfo)
+                        && (tagInfo.directoryType == TiffDirectoryType.EXIF_DIRECTORY_UNKNOWN
+                        || tagInfo.directoryType.directoryType > directoryType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     private TiffImageData getTiffRawImageData(final ByteSource byteSource,
             final TiffDirectory directory) throws ImageReadException, IOException {
 
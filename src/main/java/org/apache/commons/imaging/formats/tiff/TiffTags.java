@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -50,8 +51,24 @@ final class TiffTags {
     }
 
     private static final List<TagInfo> ALL_TAGS = makeMergedTagList();
-    private static final Map<Integer, List<TagInfo>> ALL_TAG_MAP = makeTagMap(TiffTags.ALL_TAGS);
-    private static final Map<Integer, Integer> TAG_COUNTS = countTags(TiffTags.ALL_TAGS);
+    // the distinct tag numbers, sorted, and the tags with each number
+    private static final int[] TAG_NUMBERS;
+    private static final TagInfo[][] TAGS_BY_NUMBER;
+
+    static {
+        final Map<Integer, List<TagInfo>> map = makeTagMap(ALL_TAGS);
+        TAG_NUMBERS = new int[map.size()];
+        int i = 0;
+        for (final Integer tag : map.keySet()) {
+            TAG_NUMBERS[i++] = tag;
+        }
+        Arrays.sort(TAG_NUMBERS);
+        TAGS_BY_NUMBER = new TagInfo[TAG_NUMBERS.length][];
+        for (i = 0; i < TAG_NUMBERS.length; i++) {
+            final List<TagInfo> tags = map.get(TAG_NUMBERS[i]);
+            TAGS_BY_NUMBER[i] = tags.toArray(new TagInfo[tags.size()]);
+        }
+    }
 
     private static List<TagInfo> makeMergedTagList() {
         final ArrayList<TagInfo> result = new ArrayList<TagInfo>();
@@ -80,7 +97,6 @@ final class TiffTags {
     
     private static Map<Integer, List<TagInfo>> makeTagMap(
             final List<TagInfo> tags) {
-        // make sure to use the thread-safe version; this is shared state.
         final Map<Integer, List<TagInfo>> map = new HashMap<Integer, List<TagInfo>>();
 
         for (TagInfo tag : tags) {
@@ -95,39 +111,24 @@ final class TiffTags {
         return map;
     }
 
-    private static Map<Integer, Integer> countTags(final List<TagInfo> tags) {
-        final Map<Integer, Integer> map = new HashMap<Integer, Integer>();
-
-        for (TagInfo tag : tags) {
-            final Integer count = map.get(tag.tag);
-            if (count == null) {
-                map.put(tag.tag, 1);
-            } else {
-                map.put(tag.tag, count + 1);
-            }
-        }
-
-        return map;
-    }
-
-    static Integer getTagCount(int tag) {
-        return TAG_COUNTS.get(tag);
+    static int getTagCount(final int tag) {
+        final int index = Arrays.binarySearch(TAG_NUMBERS, tag);
+        return index < 0 ? 0 : TAGS_BY_NUMBER[index].length;
     }
 
     static TagInfo getTag(final int directoryType, final int tag) {
-        final List<TagInfo> possibleMatches = ALL_TAG_MAP.get(tag);
-
-        if (null == possibleMatches) {
+        final int index = Arrays.binarySearch(TAG_NUMBERS, tag);
+        if (index < 0) {
             return TiffTagConstants.TIFF_TAG_UNKNOWN;
         }
 
-        return getTag(directoryType, possibleMatches);
+        return getTag(directoryType, TAGS_BY_NUMBER[index]);
     }
 
-    private static TagInfo getTag(final int directoryType, final List<TagInfo> possibleMatches) {
+    private static TagInfo getTag(final int directoryType, final TagInfo[] possibleMatches) {
         // Please keep this method in sync with TiffImageMetadata's findField()
 
-        if (possibleMatches.size() < 1) {
+        if (possibleMatches.length < 1) {
             return null;
         }
 
@@ -65,6 +65,17 @@ public final class TiffConstants {
     public static final int TIFF_FLAG_T6_OPTIONS_UNCOMPRESSED_MODE = 2;
     
     
+    /**
+     * Parameter key. Used in read operations to read bilevel images with
+     * 1 bit per sample that are uncompressed or CCITT compressed, and stored
+     * in strips, into a BufferedImage of TYPE_BYTE_BINARY, which takes 1 bit
+     * per pixel instead of the 32 bits of the usual RGB image. Other images
+     * are read as usual.
+     * <p>
+     * Valid values: Boolean.TRUE or Boolean.FALSE (the default).
+     */
+    public static final String PARAM_KEY_READ_BILEVEL_AS_BINARY = "READ_BILEVEL_AS_BINARY";
+
     public static final String PARAM_KEY_SUBIMAGE_X = "SUBIMAGE_X";
     public static final String PARAM_KEY_SUBIMAGE_Y = "SUBIMAGE_Y";
     public static final String PARAM_KEY_SUBIMAGE_WIDTH = "SUBIMAGE_WIDTH";
@@ -32,6 +32,7 @@ import org.apache.commons.imaging.formats.tiff.TiffDirectory;
 import org.apache.commons.imaging.formats.tiff.TiffField;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreter;
+import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterYCbCr;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.*;
 
@@ -40,12 +41,12 @@ public abstract class DataReader {
     protected final PhotometricInterpreter photometricInterpreter;
     private final int[] bitsPerSample;
     protected final int bitsPerSampleLength;
-    private final int[] last;
 
     protected final int predictor;
     protected final int samplesPerPixel;
     protected final int width;
     protected final int height;
+    final YCbCrUpsampler yCbCrUpsampler;
 
     public DataReader(final TiffDirectory directory,
             final PhotometricInterpreter photometricInterpreter, final int[] bitsPerSample,
@@ -58,7 +59,36 @@ public abstract class DataReader {
         this.predictor = predictor;
         this.width = width;
         this.height = height;
-        last = new int[samplesPerPixel];
+        yCbCrUpsampler = createYCbCrUpsampler(photometricInterpreter);
+    }
+
+    private static YCbCrUpsampler createYCbCrUpsampler(
+            final PhotometricInterpreter photometricInterpreter) {
+        if (photometricInterpreter instanceof PhotometricInterpreterYCbCr) {
+            final PhotometricInterpreterYCbCr yCbCr = (PhotometricInterpreterYCbCr) photometricInterpreter;
+            if (yCbCr.isSubsampled()) {
+                return new YCbCrUpsampler(yCbCr,
+                        yCbCr.getSubSamplingHorizontal(),
+                        yCbCr.getSubSamplingVertical(),
+                        yCbCr.isChromaCentered());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks that subsampled YCbCr data is in a form the upsampler supports.
+     * @throws ImageReadException if it is not
+     */
+    protected void checkSubsampledYCbCr() throws ImageReadException {
+        if (!isHomogenous(8) || bitsPerSampleLength != 3) {
+            throw new ImageReadException(
+                    "TIFF: subsampled YCbCr is only supported with three 8-bit samples per pixel");
+        }
+        if (predictor == 2) {
+            throw new ImageReadException(
+                    "TIFF: subsampled YCbCr with a predictor is not supported");
+        }
     }
 
     // public abstract void readImageData(BufferedImage bi, ByteSource
@@ -85,16 +115,17 @@ public abstract class DataReader {
     }
  
     /**
-     * Reads samples and returns them in an int array.
+     * Reads the samples of a single pixel, scaled to 8 bits.
      * 
      * @param bis
      *            the stream to read from
      * @param result
-     *            the samples array to populate, must be the same length as
-     *            bitsPerSample.length
+     *            the samples array to populate
+     * @param offset
+     *            the index in the samples array of the first sample to populate
      * @throws IOException
      */
-    void getSamplesAsBytes(final BitInputStream bis, final int[] result) throws IOException {
+    void getSamplesAsBytes(final BitInputStream bis, final int[] result, final int offset) throws IOException {
         for (int i = 0; i < bitsPerSample.length; i++) {
             final int bits = bitsPerSample[i];
             int sample = bis.readBits(bits);
@@ -107,31 +138,144 @@ public abstract class DataReader {
             } else if (bits > 8) {
                 sample = sample >> (bits - 8); // extend to byte.
             }
-            result[i] = sample;
+            result[offset + i] = sample;
+        }
+    }
+
+    /**
+     * Reads one row of pixels from a byte-aligned bit stream into a samples
+     * array, scaling every sample to 8 bits and applying the predictor.
+     * The caller is responsible for flushing the bit cache at the end of the row.
+     * 
+     * @param bis
+     *            the stream to read from
+     * @param samples
+     *            the array to populate, bitsPerSampleLength entries per pixel
+     * @param count
+     *            the number of pixels to read
+     * @throws IOException
+     */
+    void readRow(final BitInputStream bis, final int[] samples, final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            getSamplesAsBytes(bis, samples, i * bitsPerSampleLength);
         }
+        applyPredictor(samples, count);
     }
 
-    protected void resetPredictor() {
-        for (int i = 0; i < last.length; i++) {
-            last[i] = 0;
+    /**
+     * Copies one row of pixels whose samples are all 8 bits wide into a
+     * samples array, applying the predictor.
+     * 
+     * @param bytes
+     *            the decompressed image data
+     * @param offset
+     *            the offset of the first byte of the row
+     * @param samples
+     *            the array to populate, bitsPerSampleLength entries per pixel
+     * @param count
+     *            the number of pixels to read
+     */
+    void readRow(final byte[] bytes, final int offset, final int[] samples, final int count) {
+        final int length = count * bitsPerSampleLength;
+        for (int i = 0; i < length; i++) {
+            samples[i] = bytes[offset + i] & 0xff;
         }
+        applyPredictor(samples, count);
     }
 
-    protected int[] applyPredictor(final int[] samples) {
+    private void applyPredictor(final int[] samples, final int count) {
         if (predictor == 2) {
             // Horizontal differencing.
-            for (int i = 0; i < samples.length; i++) {
-                samples[i] = 0xff & (samples[i] + last[i]);
-                last[i] = samples[i];
+            final int length = count * bitsPerSampleLength;
+            for (int i = 0; i < bitsPerSampleLength; i++) {
+                samples[i] = 0xff & samples[i];
+            }
+            for (int i = bitsPerSampleLength; i < length; i++) {
+                samples[i] = 0xff & (samples[i] + samples[i - bitsPerSampleLength]);
             }
         }
-
-        return samples;
     }
 
     protected byte[] decompress(final byte[] compressed, final int compression,
             final int expectedSize, final int tileWidth, final int tileHeight)
             throws ImageReadException, IOException {
+        applyFillOrder(compressed);
+
+        switch (compression) {
+        case TIFF_COMPRESSION_UNCOMPRESSED: // None;
+            return compressed;
+        case TIFF_COMPRESSION_CCITT_1D: // CCITT Group 3 1-Dimensional Modified
+                                        // Huffman run-length encoding.
+        case TIFF_COMPRESSION_CCITT_GROUP_3:
+        case TIFF_COMPRESSION_CCITT_GROUP_4: {
+            final byte[] rows = new byte[tileHeight * ((tileWidth + 7) / 8)];
+            decompressCcitt(compressed, compression, tileWidth, tileHeight,
+                    rows, 0);
+            return rows;
+        }
+        case TIFF_COMPRESSION_LZW: // LZW
+        {
+            final InputStream is = new ByteArrayInputStream(compressed);
+
+            final int lzwMinimumCodeSize = 8;
+
+            final MyLzwDecompressor myLzwDecompressor = new MyLzwDecompressor(
+                    lzwMinimumCodeSize, ByteOrder.BIG_ENDIAN);
+
+            myLzwDecompressor.setTiffLZWMode();
+
+            return myLzwDecompressor.decompress(is, expectedSize);
+        }
+
+        case TIFF_COMPRESSION_PACKBITS: // Packbits
+        {
+            return new PackBits().decompress(compressed, expectedSize);
+        }
+
+        default:
+            throw new ImageReadException("Tiff: unknown/unsupported compression: " + compression);
+        }
+    }
+
+    /**
+     * Decompresses bilevel data with 1 bit per sample straight into packed
+     * rows of (width + 7) / 8 bytes, which is the layout of the data buffer
+     * of a BufferedImage.TYPE_BYTE_BINARY image.
+     * 
+     * @param compressed the compressed data of a strip or tile
+     * @param compression an uncompressed or CCITT compression
+     * @param tileWidth the width of the strip or tile
+     * @param tileHeight the number of rows in the strip or tile
+     * @param rows the array to write the rows to
+     * @param offset where the first row starts in the array
+     */
+    protected void decompressBilevel(final byte[] compressed, final int compression,
+            final int tileWidth, final int tileHeight, final byte[] rows,
+            final int offset) throws ImageReadException {
+        applyFillOrder(compressed);
+
+        if (compression == TIFF_COMPRESSION_UNCOMPRESSED) {
+            final int length = Math.min(compressed.length,
+                    tileHeight * ((tileWidth + 7) / 8));
+            System.arraycopy(compressed, 0, rows, offset, length);
+        } else {
+            decompressCcitt(compressed, compression, tileWidth, tileHeight,
+                    rows, offset);
+        }
+    }
+
+    /**
+     * Checks whether {@link #decompressBilevel(byte[], int, int, int, byte[], int)}
+     * can decompress data with the given compression.
+     */
+    public static boolean isBilevelCompression(final int compression) {
+        return compression == TIFF_COMPRESSION_UNCOMPRESSED
+                || compression == TIFF_COMPRESSION_CCITT_1D
+                || compression == TIFF_COMPRESSION_CCITT_GROUP_3
+                || compression == TIFF_COMPRESSION_CCITT_GROUP_4;
+    }
+
+    private void applyFillOrder(final byte[] compressed) throws ImageReadException {
         final TiffField fillOrderField = directory
                 .findField(TiffTagConstants.TIFF_TAG_FILL_ORDER);
         int fillOrder = TiffTagConstants.FILL_ORDER_VALUE_NORMAL;
@@ -148,14 +292,16 @@ public abstract class DataReader {
             throw new ImageReadException("TIFF FillOrder=" + fillOrder
                     + " is invalid");
         }
+    }
 
+    private void decompressCcitt(final byte[] compressed, final int compression,
+            final int tileWidth, final int tileHeight, final byte[] rows,
+            final int offset) throws ImageReadException {
         switch (compression) {
-        case TIFF_COMPRESSION_UNCOMPRESSED: // None;
-            return compressed;
-        case TIFF_COMPRESSION_CCITT_1D: // CCITT Group 3 1-Dimensional Modified
-                                        // Huffman run-length encoding.
-            return T4AndT6Compression.decompressModifiedHuffman(compressed,
-                    tileWidth, tileHeight);
+        case TIFF_COMPRESSION_CCITT_1D:
+            T4AndT6Compression.decompressModifiedHuffman(compressed,
+                    tileWidth, tileHeight, rows, offset);
+            break;
         case TIFF_COMPRESSION_CCITT_GROUP_3: {
             int t4Options = 0;
             final TiffField field = directory
@@ -171,11 +317,13 @@ public abstract class DataReader {
             }
             final boolean hasFillBitsBeforeEOL = (t4Options & TIFF_FLAG_T4_OPTIONS_FILL) != 0;
             if (is2D) {
-                return T4AndT6Compression.decompressT4_2D(compressed,
-                        tileWidth, tileHeight, hasFillBitsBeforeEOL);
+                T4AndT6Compression.decompressT4_2D(compressed, tileWidth,
+                        tileHeight, hasFillBitsBeforeEOL, rows, offset);
+            } else {
+                T4AndT6Compression.decompressT4_1D(compressed, tileWidth,
+                        tileHeight, hasFillBitsBeforeEOL, rows, offset);
             }
-            return T4AndT6Compression.decompressT4_1D(compressed,
-                    tileWidth, tileHeight, hasFillBitsBeforeEOL);
+            break;
         }
         case TIFF_COMPRESSION_CCITT_GROUP_4: {
             int t6Options = 0;
@@ -189,28 +337,10 @@ public abstract class DataReader {
                 throw new ImageReadException(
                         "T.6 compression with the uncompressed mode extension is not yet supported");
             }
-            return T4AndT6Compression.decompressT6(compressed, tileWidth,
-                    tileHeight);
+            T4AndT6Compression.decompressT6(compressed, tileWidth, tileHeight,
+                    rows, offset);
+            break;
         }
-        case TIFF_COMPRESSION_LZW: // LZW
-        {
-            final InputStream is = new ByteArrayInputStream(compressed);
-
-            final int lzwMinimumCodeSize = 8;
-
-            final MyLzwDecompressor myLzwDecompressor = new MyLzwDecompressor(
-                    lzwMinimumCodeSize, ByteOrder.BIG_ENDIAN);
-
-            myLzwDecompressor.setTiffLZWMode();
-
-            return myLzwDecompressor.decompress(is, expectedSize);
-        }
-
-        case TIFF_COMPRESSION_PACKBITS: // Packbits
-        {
-            return new PackBits().decompress(compressed, expectedSize);
-        }
-
         default:
             throw new ImageReadException("Tiff: unknown/unsupported compression: " + compression);
         }
@@ -18,6 +18,7 @@ package org.apache.commons.imaging.formats.tiff.datareaders;
 
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
@@ -27,7 +28,6 @@ import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory;
 import org.apache.commons.imaging.formats.tiff.TiffImageData;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreter;
-import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterRgb;
 
 public final class DataReaderStrips extends DataReader {
 
@@ -35,7 +35,6 @@ public final class DataReaderStrips extends DataReader {
     private final int compression;
     private final int rowsPerStrip;
     private final ByteOrder byteOrder;
-    private int x;
     private int y;
     private final TiffImageData.Strips imageData;
 
@@ -57,153 +56,67 @@ public final class DataReaderStrips extends DataReader {
     private void interpretStrip(
             final ImageBuilder imageBuilder, 
             final byte[] bytes,
-            final int pixelsPerStrip,
+            final int rowsInStrip,
             final int yLimit) throws ImageReadException, IOException {
         if (y >= yLimit) {
             return;
         }
 
-        // changes added May 2012
-        // In the original implementation, a general-case bit reader called
-        // getSamplesAsBytes is used to retrieve the samples (raw data values)
-        // for each pixel in the strip. These samples are then passed into a
-        // photogrammetric interpreter that converts them to ARGB pixel values
-        // and stores them in the image. Because the bit-reader must handle
-        // a large number of formats, it involves several conditional
-        // branches that must be executed each time a pixel is read.
-        // Depending on the size of an image, the same evaluations must be
-        // executed redundantly thousands and perhaps millions of times
-        // in order to process the complete collection of pixels.
-        // This code attempts to remove that redundancy by
-        // evaluating the format up-front and bypassing the general-format
-        // code for two commonly used data formats: the 8 bits-per-pixel
-        // and 24 bits-per-pixel cases. For these formats, the
-        // special case code achieves substantial reductions in image-loading
-        // time. In other cases, it simply falls through to the original code
-        // and continues to read the data correctly as it did in previous
-        // versions of this class.
-        // In addition to bypassing the getBytesForSample() method,
-        // the 24-bit case also implements a special block for RGB
-        // formatted images. To get a sense of the contributions of each
-        // optimization (removing getSamplesAsBytes and removing the
-        // photometric interpreter), consider the following results from tests
-        // conducted with large TIFF images using the 24-bit RGB format
-        // bypass getSamplesAsBytes: 67.5 % reduction
-        // bypass both optimizations: 77.2 % reduction
-        //
-        //
-        // Future Changes
-        // Both of the 8-bit and 24-bit blocks make the assumption that a strip
-        // always begins on x = 0 and that each strip exactly fills out the rows
-        // it contains (no half rows). The original code did not make this
-        // assumption, but the approach is consistent with the TIFF 6.0 spec
-        // (1992),
-        // and should probably be considered as an enhancement to the
-        // original general-case code block that remains from the original
-        // implementation. Taking this approach saves one conditional
-        // operation per pixel or about 5 percent of the total run time
-        // in the 8 bits/pixel case.
-
-        // verify that all samples are one byte in size
-        final boolean allSamplesAreOneByte = isHomogenous(8);
-
-        if (predictor != 2 && bitsPerPixel == 8 && allSamplesAreOneByte) {
-            int k = 0;
-            int nRows = pixelsPerStrip / width;
-            if (y + nRows > yLimit) {
-                nRows = yLimit - y;
-            }
-            final int i0 = y;
-            final int i1 = y + nRows;
-            x = 0;
+        // Samples are unpacked one row at a time and handed to the
+        // photometric interpreter as a whole row, so that the interpreter
+        // can convert them in a tight loop instead of through a virtual
+        // call per pixel. When all samples are one byte in size (by far
+        // the most common case), rows are copied straight out of the
+        // decompressed data; the general-purpose bit reader handles all
+        // other sample sizes. Strips always begin on x = 0 and contain
+        // whole rows, as required by the TIFF 6.0 spec (1992).
+        int nRows = rowsInStrip;
+        if (y + nRows > yLimit) {
+            nRows = yLimit - y;
+        }
+        if (yCbCrUpsampler != null) {
+            yCbCrUpsampler.interpretBlock(imageBuilder, bytes, width,
+                    rowsInStrip, 0, y, width, nRows);
             y += nRows;
-            final int[] samples = new int[1];
-            for (int i = i0; i < i1; i++) {
-                for (int j = 0; j < width; j++) {
-                    samples[0] = bytes[k++] & 0xff;
-                    photometricInterpreter.interpretPixel(imageBuilder,
-                            samples, j, i);
-                }
-            }
             return;
-        } else if (predictor != 2 && bitsPerPixel == 24 && allSamplesAreOneByte) {
-            int k = 0;
-            int nRows = pixelsPerStrip / width;
-            if (y + nRows > yLimit) {
-                nRows = yLimit - y;
-            }
-            final int i0 = y;
-            final int i1 = y + nRows;
-            x = 0;
-            y += nRows;
-            if (photometricInterpreter instanceof PhotometricInterpreterRgb) {
-                for (int i = i0; i < i1; i++) {
-                    for (int j = 0; j < width; j++, k += 3) {
-                        final int rgb = 0xff000000
-                                | (((bytes[k] << 8) | (bytes[k + 1] & 0xff)) << 8)
-                                | (bytes[k + 2] & 0xff);
-                        imageBuilder.setRGB(j, i, rgb);
-                    }
-                }
-            } else {
-                final int[] samples = new int[3];
-                for (int i = i0; i < i1; i++) {
-                    for (int j = 0; j < width; j++) {
-                        samples[0] = bytes[k++] & 0xff;
-                        samples[1] = bytes[k++] & 0xff;
-                        samples[2] = bytes[k++] & 0xff;
-                        photometricInterpreter.interpretPixel(imageBuilder,
-                                samples, j, i);
-                    }
-                }
-            }
+        }
 
+        final int bytesPerRow = (bitsPerPixel * width + 7) / 8;
+        final int[] samples = new int[width * bitsPerSampleLength];
+
+        if (isHomogenous(8) && bytes.length >= nRows * bytesPerRow) {
+            for (int i = 0; i < nRows; i++) {
+                readRow(bytes, i * bytesPerRow, samples, width);
+                photometricInterpreter.interpretRow(imageBuilder, samples, 0, y, width);
+                y++;
+            }
             return;
         }
 
-        // ------------------------------------------------------------
-        // original code before May 2012 modification
-        // this logic will handle all cases not conforming to the
-        // special case handled above
-
         final ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
         final BitInputStream bis = new BitInputStream(bais, byteOrder);
-
-        int[] samples = new int[bitsPerSampleLength];
-        resetPredictor();
-        for (int i = 0; i < pixelsPerStrip; i++) {
-            getSamplesAsBytes(bis, samples);
-
-            if (x < width) {
-                samples = applyPredictor(samples);
-
-                photometricInterpreter.interpretPixel(
-                        imageBuilder, samples, x,  y);
-            }
-
-            x++;
-            if (x >= width) {
-                x = 0;
-                resetPredictor();
-                y++;
-                bis.flushCache();
-                if (y >= yLimit) {
-                    break;
-                }
-            }
+        for (int i = 0; i < nRows; i++) {
+            readRow(bis, samples, width);
+            bis.flushCache();
+            photometricInterpreter.interpretRow(imageBuilder, samples, 0, y, width);
+            y++;
         }
     }
 
     @Override
     public void readImageData(final ImageBuilder imageBuilder)
             throws ImageReadException, IOException {
+        if (yCbCrUpsampler != null) {
+            checkSubsampledYCbCr();
+        }
         for (int strip = 0; strip < imageData.getImageDataLength(); strip++) {
             final long rowsPerStripLong = 0xFFFFffffL & rowsPerStrip;
             final long rowsRemaining = height - (strip * rowsPerStripLong);
             final long rowsInThisStrip = Math.min(rowsRemaining, rowsPerStripLong);
             final long bytesPerRow = (bitsPerPixel * width + 7) / 8;
-            final long bytesPerStrip = rowsInThisStrip * bytesPerRow;
-            final long pixelsPerStrip = rowsInThisStrip * width;
+            final long bytesPerStrip = yCbCrUpsampler == null
+                    ? rowsInThisStrip * bytesPerRow
+                    : yCbCrUpsampler.getBlockSize(width, (int) rowsInThisStrip);
 
             final byte[] compressed = imageData.getImageData(strip).getData();
 
@@ -213,17 +126,49 @@ public final class DataReaderStrips extends DataReader {
             interpretStrip(
                     imageBuilder,
                     decompressed,
-                    (int) pixelsPerStrip,
+                    (int) rowsInThisStrip,
                     height);
 
         }
     }
     
     
+    /**
+     * Reads a bilevel image with 1 bit per sample, uncompressed or CCITT
+     * compressed, straight into the data buffer of an image of type
+     * BufferedImage.TYPE_BYTE_BINARY and the same size, without going
+     * through the photometric interpreter.
+     * 
+     * @param image the image to read into
+     */
+    public void readImageData(final BufferedImage image)
+            throws ImageReadException, IOException {
+        final byte[] rows = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        final long rowsPerStripLong = 0xFFFFffffL & rowsPerStrip;
+        final long bytesPerRow = (width + 7) / 8;
+        for (int strip = 0; strip < imageData.getImageDataLength(); strip++) {
+            final long rowsRemaining = height - (strip * rowsPerStripLong);
+            if (rowsRemaining <= 0) {
+                break;
+            }
+            final long rowsInThisStrip = Math.min(rowsRemaining, rowsPerStripLong);
+
+            final byte[] compressed = imageData.getImageData(strip).getData();
+
+            decompressBilevel(compressed, compression, width,
+                    (int) rowsInThisStrip, rows,
+                    (int) (strip * rowsPerStripLong * bytesPerRow));
+        }
+    }
+
     @Override
     public BufferedImage readImageData(final Rectangle subImage)
             throws ImageReadException, IOException
     {
+        if (yCbCrUpsampler != null) {
+            checkSubsampledYCbCr();
+        }
+
         // the legacy code is optimized to the reading of whole
         // strips (except for the last strip in the image, which can
         // be a partial).  So create a working image with compatible 
@@ -257,8 +202,9 @@ public final class DataReaderStrips extends DataReader {
             final long rowsRemaining = height - (strip * rowsPerStripLong);
             final long rowsInThisStrip = Math.min(rowsRemaining, rowsPerStripLong);
             final long bytesPerRow = (bitsPerPixel * width + 7) / 8;
-            final long bytesPerStrip = rowsInThisStrip * bytesPerRow;
-            final long pixelsPerStrip = rowsInThisStrip * width;
+            final long bytesPerStrip = yCbCrUpsampler == null
+                    ? rowsInThisStrip * bytesPerRow
+                    : yCbCrUpsampler.getBlockSize(width, (int) rowsInThisStrip);
 
             final byte[] compressed = imageData.getImageData(strip).getData();
 
@@ -268,7 +214,7 @@ public final class DataReaderStrips extends DataReader {
             interpretStrip(
                     workingBuilder,
                     decompressed,
-                    (int) pixelsPerStrip,
+                    (int) rowsInThisStrip,
                     yLimit);
         }
  
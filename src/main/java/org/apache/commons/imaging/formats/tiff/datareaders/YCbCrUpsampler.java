@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.datareaders;
+
+import java.io.IOException;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreter;
+
+/**
+ * Decodes YCbCr image data with subsampled chroma. Such data is stored
+ * in data units, each consisting of a block of subSamplingHorizontal by
+ * subSamplingVertical luma samples followed by one Cb and one Cr sample.
+ * <p>
+ * The chroma planes are upsampled to full resolution with a bilinear filter
+ * in fixed-point arithmetic, taking into account whether the chroma samples
+ * are centered on their block or co-sited with its top-left luma sample
+ * (the YCbCrPositioning tag). Interpolation is confined to a single strip
+ * or tile; samples beyond its edges are replicated from the nearest edge.
+ * The upsampled rows are then handed to the photometric interpreter as
+ * ordinary Y, Cb, Cr triples.
+ */
+final class YCbCrUpsampler {
+    private final PhotometricInterpreter photometricInterpreter;
+    private final int subSamplingHorizontal;
+    private final int subSamplingVertical;
+    private final boolean centered;
+
+    YCbCrUpsampler(final PhotometricInterpreter photometricInterpreter,
+            final int subSamplingHorizontal, final int subSamplingVertical,
+            final boolean centered) {
+        this.photometricInterpreter = photometricInterpreter;
+        this.subSamplingHorizontal = subSamplingHorizontal;
+        this.subSamplingVertical = subSamplingVertical;
+        this.centered = centered;
+    }
+
+    /**
+     * Gets the number of bytes of data units needed to cover a block of
+     * the given size.
+     * @param blockWidth the width of the strip or tile in pixels
+     * @param blockHeight the height of the strip or tile in pixels
+     * @return the number of bytes in the block's data units
+     */
+    int getBlockSize(final int blockWidth, final int blockHeight) {
+        final int unitsPerRow = (blockWidth + subSamplingHorizontal - 1) / subSamplingHorizontal;
+        final int unitRows = (blockHeight + subSamplingVertical - 1) / subSamplingVertical;
+        return unitsPerRow * unitRows * (subSamplingHorizontal * subSamplingVertical + 2);
+    }
+
+    /**
+     * Decodes a strip or tile of data units and interprets the part of it
+     * that lies within the image.
+     * 
+     * @param imageBuilder the image builder receiving the pixels
+     * @param bytes the decompressed data units of the strip or tile
+     * @param blockWidth the width of the strip or tile in pixels
+     * @param blockHeight the height of the strip or tile in pixels
+     * @param startX the X coordinate of the block in the image builder
+     * @param startY the Y coordinate of the block in the image builder
+     * @param nCols the number of columns of the block to interpret
+     * @param nRows the number of rows of the block to interpret
+     * @throws ImageReadException in the event of invalid image data
+     * @throws IOException in the event of an unrecoverable I/O error
+     */
+    void interpretBlock(final ImageBuilder imageBuilder, byte[] bytes,
+            final int blockWidth, final int blockHeight, final int startX,
+            final int startY, final int nCols, final int nRows)
+            throws ImageReadException, IOException {
+        final int h = subSamplingHorizontal;
+        final int v = subSamplingVertical;
+        final int unitsPerRow = (blockWidth + h - 1) / h;
+        final int unitRows = (blockHeight + v - 1) / v;
+        final int lumaWidth = unitsPerRow * h;
+        final int blockSize = getBlockSize(blockWidth, blockHeight);
+        if (bytes.length < blockSize) {
+            // tolerate truncated data as the other readers do
+            final byte[] padded = new byte[blockSize];
+            System.arraycopy(bytes, 0, padded, 0, bytes.length);
+            bytes = padded;
+        }
+
+        // split the data units into a luma plane and two chroma planes
+        final byte[] luma = new byte[lumaWidth * unitRows * v];
+        final int[] cb = new int[unitsPerRow * unitRows];
+        final int[] cr = new int[unitsPerRow * unitRows];
+        int k = 0;
+        for (int unitRow = 0; unitRow < unitRows; unitRow++) {
+            for (int unit = 0; unit < unitsPerRow; unit++) {
+                for (int j = 0; j < v; j++) {
+                    System.arraycopy(bytes, k, luma,
+                            (unitRow * v + j) * lumaWidth + unit * h, h);
+                    k += h;
+                }
+                cb[unitRow * unitsPerRow + unit] = bytes[k++] & 0xff;
+                cr[unitRow * unitsPerRow + unit] = bytes[k++] & 0xff;
+            }
+        }
+
+        final int[] x0 = new int[nCols];
+        final int[] x1 = new int[nCols];
+        final int[] fx = new int[nCols];
+        for (int x = 0; x < nCols; x++) {
+            final int[] tap = getTap(x, h, unitsPerRow);
+            x0[x] = tap[0];
+            x1[x] = tap[1];
+            fx[x] = tap[2];
+        }
+
+        final int hScale = 2 * h;
+        final int vScale = 2 * v;
+        final int scale = hScale * vScale;
+        final int round = scale / 2;
+        final int[] samples = new int[nCols * 3];
+        for (int y = 0; y < nRows; y++) {
+            final int[] tap = getTap(y, v, unitRows);
+            final int row0 = tap[0] * unitsPerRow;
+            final int row1 = tap[1] * unitsPerRow;
+            final int fy = tap[2];
+            final int lumaRow = y * lumaWidth;
+            for (int x = 0, s = 0; x < nCols; x++, s += 3) {
+                final int w11 = fx[x] * fy;
+                final int w01 = (hScale - fx[x]) * fy;
+                final int w10 = fx[x] * (vScale - fy);
+                final int w00 = scale - w01 - w10 - w11;
+                final int i00 = row0 + x0[x];
+                final int i10 = row0 + x1[x];
+                final int i01 = row1 + x0[x];
+                final int i11 = row1 + x1[x];
+                samples[s] = luma[lumaRow + x] & 0xff;
+                samples[s + 1] = (cb[i00] * w00 + cb[i10] * w10 + cb[i01] * w01
+                        + cb[i11] * w11 + round) / scale;
+                samples[s + 2] = (cr[i00] * w00 + cr[i10] * w10 + cr[i01] * w01
+                        + cr[i11] * w11 + round) / scale;
+            }
+            photometricInterpreter.interpretRow(imageBuilder, samples, startX,
+                    startY + y, nCols);
+        }
+    }
+
+    /**
+     * Finds the two chroma samples surrounding a luma position, and the
+     * weight of the second one in units of 1/(2 * factor).
+     */
+    private int[] getTap(final int position, final int factor, final int count) {
+        // positions are doubled so that the half-sample offset of
+        // centered chroma stays an integer
+        final int scaled = centered ? 2 * position - (factor - 1) : 2 * position;
+        if (scaled <= 0) {
+            return new int[] { 0, 0, 0 };
+        }
+        final int index = scaled / (2 * factor);
+        if (index >= count - 1) {
+            return new int[] { count - 1, count - 1, 0 };
+        }
+        return new int[] { index, index + 1, scaled - index * 2 * factor };
+    }
+}
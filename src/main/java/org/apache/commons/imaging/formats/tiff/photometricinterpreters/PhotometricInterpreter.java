@@ -39,6 +39,41 @@ public abstract class PhotometricInterpreter {
 
     public abstract void interpretPixel(ImageBuilder imageBuilder,
             int[] samples, int x, int y) throws ImageReadException, IOException;
+
+    /**
+     * Interprets a run of consecutive pixels within a single row of the image.
+     * The samples for each pixel are stored one after another in the
+     * samples array, samplesPerPixel values per pixel, beginning at
+     * index zero. Subclasses that are able to convert a whole row at once
+     * should override this method to avoid the per-pixel call to
+     * interpretPixel made by this default implementation.
+     * 
+     * @param imageBuilder
+     *            the image builder receiving the interpreted pixels
+     * @param samples
+     *            the samples for the run of pixels
+     * @param x
+     *            the X coordinate of the first pixel in the run
+     * @param y
+     *            the Y coordinate of the row
+     * @param count
+     *            the number of pixels to interpret
+     * @throws ImageReadException
+     *             in the event of an invalid sample value
+     * @throws IOException
+     *             in the event of an unrecoverable I/O error
+     */
+    public void interpretRow(final ImageBuilder imageBuilder,
+            final int[] samples, final int x, final int y, final int count)
+            throws ImageReadException, IOException {
+        final int[] pixel = new int[samplesPerPixel];
+        int k = 0;
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(samples, k, pixel, 0, samplesPerPixel);
+            k += samplesPerPixel;
+            interpretPixel(imageBuilder, pixel, x + i, y);
+        }
+    }
     
     protected int getBitsPerSample(int offset) {
         return bitsPerSample[offset];
@@ -53,4 +53,17 @@ public class PhotometricInterpreterBiLevel extends PhotometricInterpreter {
 
         imageBuilder.setRGB(x, y, rgb);
     }
+
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples,
+            final int x, final int y, final int count) throws ImageReadException, IOException {
+        int k = 0;
+        for (int i = x; i < x + count; i++, k += samplesPerPixel) {
+            int sample = samples[k];
+            if (invert) {
+                sample = 255 - sample;
+            }
+            imageBuilder.setRGB(i, y, 0xff000000 | (sample * 0x010101));
+        }
+    }
 }
@@ -41,4 +41,21 @@ public class PhotometricInterpreterCmyk extends PhotometricInterpreter {
         imageBuilder.setRGB(x, y, rgb);
     }
 
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples,
+            final int x, final int y, final int count) throws ImageReadException, IOException {
+        // Integer form of ColorConversions.convertCMYKtoRGB():
+        // R = round((255 - C) * (255 - K) / 255), and similarly for G and B.
+        // Since 255 is odd, no product lies exactly halfway between two
+        // integers, so the results are identical to the floating-point path.
+        int k = 0;
+        for (int i = x; i < x + count; i++, k += samplesPerPixel) {
+            final int white = 255 - samples[k + 3];
+            final int red = (2 * (255 - samples[k]) * white + 255) / 510;
+            final int green = (2 * (255 - samples[k + 1]) * white + 255) / 510;
+            final int blue = (2 * (255 - samples[k + 2]) * white + 255) / 510;
+            imageBuilder.setRGB(i, y, 0xff000000 | (red << 16) | (green << 8) | blue);
+        }
+    }
+
 }
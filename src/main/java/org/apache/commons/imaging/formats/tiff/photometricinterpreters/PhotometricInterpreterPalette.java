@@ -52,4 +52,13 @@ public class PhotometricInterpreterPalette extends PhotometricInterpreter {
             final int y) throws ImageReadException, IOException {
         imageBuilder.setRGB(x, y, indexColorMap[samples[0]]);
     }
+
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples,
+            final int x, final int y, final int count) throws ImageReadException, IOException {
+        int k = 0;
+        for (int i = x; i < x + count; i++, k += samplesPerPixel) {
+            imageBuilder.setRGB(i, y, indexColorMap[samples[k]]);
+        }
+    }
 }
@@ -39,4 +39,15 @@ public class PhotometricInterpreterRgb extends PhotometricInterpreter {
         imageBuilder.setRGB(x, y, rgb);
 
     }
+
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples,
+            final int x, final int y, final int count) throws ImageReadException, IOException {
+        int k = 0;
+        for (int i = x; i < x + count; i++, k += samplesPerPixel) {
+            final int rgb = 0xff000000 | (samples[k] << 16)
+                    | (samples[k + 1] << 8) | samples[k + 2];
+            imageBuilder.setRGB(i, y, rgb);
+        }
+    }
 }
@@ -20,13 +20,98 @@ import java.io.IOException;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 
 public class PhotometricInterpreterYCbCr extends PhotometricInterpreter {
+    private static final int SCALE_BITS = 16;
+    private static final int[] CR_TO_RED = new int[256];
+    private static final int[] CB_TO_BLUE = new int[256];
+    private static final int[] CR_TO_GREEN = new int[256];
+    private static final int[] CB_TO_GREEN = new int[256];
+
+    static {
+        final double scale = 1 << SCALE_BITS;
+        for (int i = 0; i < 256; i++) {
+            final int c = i - 128;
+            // red and blue need no fractional part: flooring the chroma term
+            // gives the same result as truncating the sum with Y once clamped
+            CR_TO_RED[i] = (int) Math.floor(1.402 * c);
+            CB_TO_BLUE[i] = (int) Math.floor(1.772 * c);
+            CR_TO_GREEN[i] = (int) Math.round(-0.71414 * c * scale);
+            CB_TO_GREEN[i] = (int) Math.round(-0.34414 * c * scale);
+        }
+    }
+
+    private final int subSamplingHorizontal;
+    private final int subSamplingVertical;
+    private final boolean chromaCentered;
 
     public PhotometricInterpreterYCbCr(final int samplesPerPixel,
             final int[] bitsPerSample, final int predictor,
             final int width, final int height) {
+        this(samplesPerPixel, bitsPerSample, predictor, width, height, 1, 1,
+                TiffTagConstants.YCB_CR_POSITIONING_VALUE_CENTERED);
+    }
+
+    /**
+     * Constructs an interpreter for YCbCr data with subsampled chroma.
+     * 
+     * @param samplesPerPixel
+     *            the number of samples per pixel
+     * @param bitsPerSample
+     *            the number of bits in each sample
+     * @param predictor
+     *            the predictor, or -1 if none
+     * @param width
+     *            the width of the image
+     * @param height
+     *            the height of the image
+     * @param subSamplingHorizontal
+     *            the horizontal chroma subsampling factor (1, 2 or 4) from
+     *            the YCbCrSubSampling tag
+     * @param subSamplingVertical
+     *            the vertical chroma subsampling factor (1, 2 or 4) from the
+     *            YCbCrSubSampling tag
+     * @param positioning
+     *            the position of the chroma samples relative to the luma
+     *            samples from the YCbCrPositioning tag
+     */
+    public PhotometricInterpreterYCbCr(final int samplesPerPixel,
+            final int[] bitsPerSample, final int predictor,
+            final int width, final int height,
+            final int subSamplingHorizontal, final int subSamplingVertical,
+            final int positioning) {
         super(samplesPerPixel, bitsPerSample, predictor, width, height);
+        this.subSamplingHorizontal = subSamplingHorizontal;
+        this.subSamplingVertical = subSamplingVertical;
+        this.chromaCentered = positioning != TiffTagConstants.YCB_CR_POSITIONING_VALUE_CO_SITED;
+    }
+
+    public int getSubSamplingHorizontal() {
+        return subSamplingHorizontal;
+    }
+
+    public int getSubSamplingVertical() {
+        return subSamplingVertical;
+    }
+
+    /**
+     * Indicates whether the chroma samples are centered on the block of luma
+     * samples they apply to, rather than co-sited with its top-left sample.
+     * @return true for centered positioning, false for co-sited
+     */
+    public boolean isChromaCentered() {
+        return chromaCentered;
+    }
+
+    /**
+     * Indicates whether the chroma samples are subsampled, so that the
+     * image data is stored in data units rather than one Y, Cb, Cr triple
+     * per pixel.
+     * @return true if either subsampling factor is greater than one
+     */
+    public boolean isSubsampled() {
+        return subSamplingHorizontal != 1 || subSamplingVertical != 1;
     }
 
     public static int limit(final int value, final int min, final int max) {
@@ -67,20 +152,42 @@ public class PhotometricInterpreterYCbCr extends PhotometricInterpreter {
     @Override
     public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x,
             final int y) throws ImageReadException, IOException {
-        final int Y = samples[0];
-        final int Cb = samples[1];
-        final int Cr = samples[2];
-        final double R = Y + 1.402 * (Cr - 128.0);
-        final double G = Y - 0.34414 * (Cb - 128.0) - 0.71414 * (Cr - 128.0);
-        final double B = Y + 1.772 * (Cb - 128.0);
+        imageBuilder.setRGB(x, y, convertToRgb(samples[0], samples[1], samples[2]));
+    }
 
-        final int red = limit((int) R, 0, 255);
-        final int green = limit((int) G, 0, 255);
-        final int blue = limit((int) B, 0, 255);
+    @Override
+    public void interpretRow(final ImageBuilder imageBuilder, final int[] samples,
+            final int x, final int y, final int count) throws ImageReadException, IOException {
+        int k = 0;
+        for (int i = x; i < x + count; i++, k += samplesPerPixel) {
+            imageBuilder.setRGB(i, y, convertToRgb(samples[k], samples[k + 1], samples[k + 2]));
+        }
+    }
 
-        final int alpha = 0xff;
-        final int rgb = (alpha << 24) | (red << 16) | (green << 8) | (blue << 0);
-        imageBuilder.setRGB(x, y, rgb);
+    /**
+     * Converts a YCbCr triple in the 0..255 range to an opaque ARGB value
+     * using the ITU-R BT.601 full range equations
+     * <pre>
+     *   R = Y + 1.402 (Cr - 128)
+     *   G = Y - 0.34414 (Cb - 128) - 0.71414 (Cr - 128)
+     *   B = Y + 1.772 (Cb - 128)
+     * </pre>
+     * evaluated in fixed-point arithmetic through lookup tables.
+     */
+    private static int convertToRgb(final int Y, final int Cb, final int Cr) {
+        final int cb = Cb & 0xff;
+        final int cr = Cr & 0xff;
+        final int red = clamp(Y + CR_TO_RED[cr]);
+        final int green = clamp(Y + ((CB_TO_GREEN[cb] + CR_TO_GREEN[cr]) >> SCALE_BITS));
+        final int blue = clamp(Y + CB_TO_BLUE[cb]);
+        return 0xff000000 | (red << 16) | (green << 8) | blue;
+    }
 
+    private static int clamp(final int value) {
+        if ((value & ~0xff) == 0) {
+            return value;
+        }
+        return value < 0 ? 0 : 255;
     }
+
 }
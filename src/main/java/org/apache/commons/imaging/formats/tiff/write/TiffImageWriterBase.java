@@ -32,6 +32,7 @@ import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.BinaryOutputStream;
 import org.apache.commons.imaging.common.PackBits;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.common.RationalNumber;
 import org.apache.commons.imaging.common.itu_t4.T4AndT6Compression;
 import org.apache.commons.imaging.common.mylzw.MyLzwCompressor;
@@ -530,6 +531,9 @@ public abstract class TiffImageWriterBase {
         { // Write Strips
             result = new byte[stripCount][];
 
+            final PixelReader pixels = new PixelReader(src);
+            final int[] row = new int[width];
+
             int remainingRows = height;
 
             for (int i = 0; i < stripCount; i++) {
@@ -547,10 +551,11 @@ public abstract class TiffImageWriterBase {
                 final int stop = i * rowsPerStrip + rowsPerStrip;
 
                 for (; (y < height) && (y < stop); y++) {
+                    pixels.getRow(y, row);
                     int bitCache = 0;
                     int bitsInCache = 0;
                     for (int x = 0; x < width; x++) {
-                        final int rgb = src.getRGB(x, y);
+                        final int rgb = row[x];
                         final int red = 0xff & (rgb >> 16);
                         final int green = 0xff & (rgb >> 8);
                         final int blue = 0xff & (rgb >> 0);
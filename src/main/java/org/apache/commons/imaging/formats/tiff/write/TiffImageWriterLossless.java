@@ -46,6 +46,7 @@ import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.*;
 
 public class TiffImageWriterLossless extends TiffImageWriterBase {
     private final byte[] exifBytes;
+    private final int padding;
     private static final Comparator<TiffElement> ELEMENT_SIZE_COMPARATOR = new Comparator<TiffElement>() {
         public int compare(final TiffElement e1, final TiffElement e2) {
             return e1.length - e2.length;
@@ -59,11 +60,31 @@ public class TiffImageWriterLossless extends TiffImageWriterBase {
 
     public TiffImageWriterLossless(final byte[] exifBytes) {
         this.exifBytes = exifBytes;
+        this.padding = 0;
     }
 
     public TiffImageWriterLossless(final ByteOrder byteOrder, final byte[] exifBytes) {
+        this(byteOrder, exifBytes, 0);
+    }
+
+    /**
+     * Creates a writer for data that ends with padding reserved when it was
+     * written. Zero bytes of the padding that follow the last element of the
+     * old data are reused; nothing before the padding is treated as free.
+     * 
+     * @param byteOrder
+     *            the byte order of the output.
+     * @param exifBytes
+     *            the old data.
+     * @param padding
+     *            the number of bytes at the end of the old data that were
+     *            reserved as padding.
+     */
+    public TiffImageWriterLossless(final ByteOrder byteOrder, final byte[] exifBytes,
+            final int padding) {
         super(byteOrder);
         this.exifBytes = exifBytes;
+        this.padding = padding;
     }
 
     private List<TiffElement> analyzeOldTiff(final Map<Integer, TiffOutputField> frozenFields) throws ImageWriteException,
@@ -203,6 +224,18 @@ public class TiffImageWriterLossless extends TiffImageWriterBase {
         // items we cannot fit into a gap, we shall append to tail.
         long overflowIndex = exifBytes.length;
 
+        // so is the unused part of the padding we were told about.
+        if (padding > 0) {
+            long paddingStart = Math.max(TIFF_HEADER_SIZE, overflowIndex - padding);
+            for (TiffElement element : analysis) {
+                paddingStart = Math.max(paddingStart, element.offset + element.length);
+            }
+            while (overflowIndex > paddingStart
+                    && exifBytes[(int) overflowIndex - 1] == 0) {
+                overflowIndex--;
+            }
+        }
+
         // make copy.
         final List<TiffElement> unusedElements = new ArrayList<TiffElement>(analysis);
 
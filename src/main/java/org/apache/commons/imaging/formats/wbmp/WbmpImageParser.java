@@ -38,6 +38,7 @@ import org.apache.commons.imaging.ImageParser;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.util.IoUtils;
 
@@ -251,11 +252,14 @@ public class WbmpImageParser extends ImageParser {
         writeMultiByteInteger(os, src.getWidth());
         writeMultiByteInteger(os, src.getHeight());
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[src.getWidth()];
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, row);
             int pixel = 0;
             int nextBit = 0x80;
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int red = 0xff & (argb >> 16);
                 final int green = 0xff & (argb >> 8);
                 final int blue = 0xff & (argb >> 0);
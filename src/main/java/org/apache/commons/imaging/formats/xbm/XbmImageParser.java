@@ -44,6 +44,7 @@ import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.BasicCParser;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.util.IoUtils;
 
@@ -135,19 +136,20 @@ public class XbmImageParser extends ImageParser {
 
     private XbmHeader readXbmHeader(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final XbmParseResult result = parseXbmHeader(byteSource);
+        // the defines come before the data, which starts with the first '{'
+        final XbmParseResult result = parseXbmHeader(byteSource, '{');
         return result.xbmHeader;
     }
 
-    private XbmParseResult parseXbmHeader(final ByteSource byteSource)
-            throws ImageReadException, IOException {
+    private XbmParseResult parseXbmHeader(final ByteSource byteSource,
+            final int stopAt) throws ImageReadException, IOException {
         InputStream is = null;
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
             final Map<String, String> defines = new HashMap<String, String>();
             final ByteArrayOutputStream preprocessedFile = BasicCParser.preprocess(
-                    is, null, defines);
+                    is, null, defines, stopAt);
             int width = -1;
             int height = -1;
             int xHot = -1;
@@ -293,7 +295,7 @@ public class XbmImageParser extends ImageParser {
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final XbmParseResult result = parseXbmHeader(byteSource);
+        final XbmParseResult result = parseXbmHeader(byteSource, -1);
         return readXbmImage(result.xbmHeader, result.cParser);
     }
 
@@ -351,9 +353,12 @@ public class XbmImageParser extends ImageParser {
         int bitsInCache = 0;
         String separator = "\n  ";
         int written = 0;
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[src.getWidth()];
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int red = 0xff & (argb >> 16);
                 final int green = 0xff & (argb >> 8);
                 final int blue = 0xff & (argb >> 0);
@@ -19,13 +19,14 @@ import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
 import java.awt.image.DirectColorModel;
 import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -33,9 +34,10 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.UUID;
 
@@ -47,6 +49,7 @@ import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.common.BasicCParser;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.common.bytesource.ByteSource;
 import org.apache.commons.imaging.palette.PaletteFactory;
 import org.apache.commons.imaging.palette.SimplePalette;
@@ -57,7 +60,7 @@ import static org.apache.commons.imaging.ImagingConstants.*;
 public class XpmImageParser extends ImageParser {
     private static final String DEFAULT_EXTENSION = ".xpm";
     private static final String[] ACCEPTED_EXTENSIONS = { ".xpm", };
-    private static Map<String, Integer> colorNames;
+    private static volatile Map<String, Integer> colorNames;
     private static final char[] WRITE_PALETTE = { ' ', '.', 'X', 'o', 'O', '+',
         '@', '#', '$', '%', '&', '*', '=', '-', ';', ':', '>', ',', '<',
         '1', '2', '3', '4', '5', '6', '7', '8', '9', '0', 'q', 'w', 'e',
@@ -67,48 +70,60 @@ public class XpmImageParser extends ImageParser {
         'U', 'Y', 'T', 'R', 'E', 'W', 'Q', '!', '~', '^', '/', '(', ')',
         '_', '`', '\'', ']', '[', '{', '}', '|', };
 
-    private static void loadColorNames() throws ImageReadException {
-        synchronized (XpmImageParser.class) {
-            if (colorNames != null) {
-                return;
+    /**
+     * Returns the colors named in rgb.txt, which are loaded the first time
+     * they are needed and then shared by all threads.
+     */
+    private static Map<String, Integer> getColorNames() throws ImageReadException {
+        Map<String, Integer> names = colorNames;
+        if (names == null) {
+            synchronized (XpmImageParser.class) {
+                names = colorNames;
+                if (names == null) {
+                    names = loadColorNames();
+                    colorNames = names;
+                }
             }
-    
+        }
+        return names;
+    }
+
+    private static Map<String, Integer> loadColorNames() throws ImageReadException {
+        try {
+            final InputStream rgbTxtStream =
+                    XpmImageParser.class.getResourceAsStream("rgb.txt");
+            if (rgbTxtStream == null) {
+                throw new ImageReadException("Couldn't find rgb.txt in our resources");
+            }
+            final Map<String, Integer> colors = new HashMap<String, Integer>();
+            BufferedReader reader = null;
+            boolean canThrow = false;
             try {
-                final InputStream rgbTxtStream =
-                        XpmImageParser.class.getResourceAsStream("rgb.txt");
-                if (rgbTxtStream == null) {
-                    throw new ImageReadException("Couldn't find rgb.txt in our resources");
-                }
-                final Map<String, Integer> colors = new HashMap<String, Integer>();
-                BufferedReader reader = null;
-                boolean canThrow = false;
-                try {
-                    reader = new BufferedReader(new InputStreamReader(rgbTxtStream,
-                            "US-ASCII"));
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (line.charAt(0) == '!') {
-                            continue;
-                        }
-                        try {
-                            final int red = Integer.parseInt(line.substring(0, 3).trim());
-                            final int green = Integer.parseInt(line.substring(4, 7).trim());
-                            final int blue = Integer.parseInt(line.substring(8, 11).trim());
-                            final String colorName = line.substring(11).trim();
-                            colors.put(colorName, 0xff000000 | (red << 16)
-                                    | (green << 8) | blue);
-                        } catch (final NumberFormatException nfe) {
-                            throw new ImageReadException("Couldn't parse color in rgb.txt", nfe);
-                        }
+                reader = new BufferedReader(new InputStreamReader(rgbTxtStream,
+                        "US-ASCII"));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.charAt(0) == '!') {
+                        continue;
+                    }
+                    try {
+                        final int red = Integer.parseInt(line.substring(0, 3).trim());
+                        final int green = Integer.parseInt(line.substring(4, 7).trim());
+                        final int blue = Integer.parseInt(line.substring(8, 11).trim());
+                        final String colorName = line.substring(11).trim();
+                        colors.put(colorName, 0xff000000 | (red << 16)
+                                | (green << 8) | blue);
+                    } catch (final NumberFormatException nfe) {
+                        throw new ImageReadException("Couldn't parse color in rgb.txt", nfe);
                     }
-                    canThrow = true;
-                } finally {
-                    IoUtils.closeQuietly(canThrow, reader);
                 }
-                colorNames = colors;
-            } catch (final IOException ioException) {
-                throw new ImageReadException("Could not parse rgb.txt", ioException);
+                canThrow = true;
+            } finally {
+                IoUtils.closeQuietly(canThrow, reader);
             }
+            return Collections.unmodifiableMap(colors);
+        } catch (final IOException ioException) {
+            throw new ImageReadException("Could not parse rgb.txt", ioException);
         }
     }
 
@@ -145,19 +160,17 @@ public class XpmImageParser extends ImageParser {
         final XpmHeader xpmHeader = readXpmHeader(byteSource);
         boolean transparent = false;
         ImageInfo.ColorType colorType = ImageInfo.ColorType.BW;
-        for (final Entry<Object, PaletteEntry> entry : xpmHeader.palette
-                .entrySet()) {
-         final PaletteEntry paletteEntry = entry.getValue();
-         if ((paletteEntry.getBestARGB() & 0xff000000) != 0xff000000) {
-        transparent = true;
-         }
-         if (paletteEntry.haveColor) {
-        colorType = ImageInfo.ColorType.RGB;
-         } else if (colorType != ImageInfo.ColorType.RGB
-            && (paletteEntry.haveGray || paletteEntry.haveGray4Level)) {
-        colorType = ImageInfo.ColorType.GRAYSCALE;
-         }
-      }
+        for (final PaletteEntry paletteEntry : xpmHeader.palette) {
+            if ((paletteEntry.getBestARGB() & 0xff000000) != 0xff000000) {
+                transparent = true;
+            }
+            if (paletteEntry.haveColor) {
+                colorType = ImageInfo.ColorType.RGB;
+            } else if (colorType != ImageInfo.ColorType.RGB
+                    && (paletteEntry.haveGray || paletteEntry.haveGray4Level)) {
+                colorType = ImageInfo.ColorType.GRAYSCALE;
+            }
+        }
         return new ImageInfo("XPM version 3", xpmHeader.numCharsPerPixel * 8,
                 new ArrayList<String>(), ImageFormats.XPM,
                 "X PixMap", xpmHeader.height, "image/x-xpixmap", 1, 0, 0, 0, 0,
@@ -187,7 +200,8 @@ public class XpmImageParser extends ImageParser {
         int yHotSpot = -1;
         boolean xpmExt;
 
-        Map<Object, PaletteEntry> palette = new HashMap<Object, PaletteEntry>();
+        List<PaletteEntry> palette;
+        XpmPaletteTable paletteTable;
 
         public XpmHeader(final int width, final int height, final int numColors,
                 final int numCharsPerPixel, final int xHotSpot, final int yHotSpot, final boolean xpmExt) {
@@ -240,69 +254,25 @@ public class XpmImageParser extends ImageParser {
         }
     }
 
-    private static class XpmParseResult {
-        XpmHeader xpmHeader;
-        BasicCParser cParser;
-    }
-
     private XpmHeader readXpmHeader(final ByteSource byteSource)
             throws ImageReadException, IOException {
-        final XpmParseResult result = parseXpmHeader(byteSource);
-        return result.xpmHeader;
-    }
-
-    private XpmParseResult parseXpmHeader(final ByteSource byteSource)
-            throws ImageReadException, IOException {
         InputStream is = null;
         boolean canThrow = false;
         try {
             is = byteSource.getInputStream();
-            final StringBuilder firstComment = new StringBuilder();
-            final ByteArrayOutputStream preprocessedFile = BasicCParser.preprocess(
-                    is, firstComment, null);
-            if (!"XPM".equals(firstComment.toString().trim())) {
-                throw new ImageReadException("Parsing XPM file failed, "
-                        + "signature isn't '/* XPM */'");
-            }
-
-            final XpmParseResult xpmParseResult = new XpmParseResult();
-            xpmParseResult.cParser = new BasicCParser(new ByteArrayInputStream(
-                    preprocessedFile.toByteArray()));
-            xpmParseResult.xpmHeader = parseXpmHeader(xpmParseResult.cParser);
+            // only the header and palette are read, not the pixels
+            final XpmHeader ret = parseXpmHeader(new XpmTokenizer(is));
             canThrow = true;
-            return xpmParseResult;
+            return ret;
         } finally {
             IoUtils.closeQuietly(canThrow, is);
         }
     }
 
-    private boolean parseNextString(final BasicCParser cParser,
-            final StringBuilder stringBuilder) throws IOException, ImageReadException {
-        stringBuilder.setLength(0);
-        String token = cParser.nextToken();
-        if (token.charAt(0) != '"') {
-            throw new ImageReadException("Parsing XPM file failed, "
-                    + "no string found where expected");
-        }
-        BasicCParser.unescapeString(stringBuilder, token);
-        for (token = cParser.nextToken(); token.charAt(0) == '"'; token = cParser
-                .nextToken()) {
-            BasicCParser.unescapeString(stringBuilder, token);
-        }
-        if (",".equals(token)) {
-            return true;
-        } else if ("}".equals(token)) {
-            return false;
-        } else {
-            throw new ImageReadException("Parsing XPM file failed, "
-                    + "no ',' or '}' found where expected");
-        }
-    }
-
     private XpmHeader parseXpmValuesSection(final String row)
             throws ImageReadException {
         final String[] tokens = BasicCParser.tokenizeRow(row);
-        if (tokens.length < 4 && tokens.length > 7) {
+        if (tokens.length < 4 || tokens.length > 7) {
             throw new ImageReadException("Parsing XPM file failed, "
                     + "<Values> section has incorrect tokens");
         }
@@ -311,6 +281,15 @@ public class XpmImageParser extends ImageParser {
             final int height = Integer.parseInt(tokens[1]);
             final int numColors = Integer.parseInt(tokens[2]);
             final int numCharsPerPixel = Integer.parseInt(tokens[3]);
+            if (numColors < 0 || numCharsPerPixel < 0) {
+                throw new ImageReadException("Parsing XPM file failed, "
+                        + "<Values> section has invalid values");
+            }
+            // there can't be more colors than names for them
+            if (numCharsPerPixel <= 3 && numColors > 1 << (8 * numCharsPerPixel)) {
+                throw new ImageReadException("Parsing XPM file failed, "
+                        + "<Values> section has more colors than names");
+            }
             int xHotSpot = -1;
             int yHotSpot = -1;
             boolean xpmExt = false;
@@ -363,9 +342,9 @@ public class XpmImageParser extends ImageParser {
         } else if ("None".equals(color)) {
             return 0x00000000;
         } else {
-            loadColorNames();
-            if (colorNames.containsKey(color)) {
-                return colorNames.get(color);
+            final Integer argb = getColorNames().get(color);
+            if (argb != null) {
+                return argb;
             }
             return 0x00000000;
         }
@@ -390,16 +369,23 @@ public class XpmImageParser extends ImageParser {
         }
     }
 
-    private void parsePaletteEntries(final XpmHeader xpmHeader, final BasicCParser cParser)
+    private void parsePaletteEntries(final XpmHeader xpmHeader, final XpmTokenizer tokenizer)
             throws IOException, ImageReadException {
-        final StringBuilder row = new StringBuilder();
+        // the header's color count isn't trusted to size anything, as the
+        // file may end long before that many colors
+        xpmHeader.palette = new ArrayList<PaletteEntry>();
+        xpmHeader.paletteTable = new XpmPaletteTable(xpmHeader.numCharsPerPixel);
         for (int i = 0; i < xpmHeader.numColors; i++) {
-            row.setLength(0);
-            final boolean hasMore = parseNextString(cParser, row);
+            final boolean hasMore = tokenizer.nextString();
             if (!hasMore) {
                 throw new ImageReadException("Parsing XPM file failed, " + "file ended while reading palette");
             }
-            final String name = row.substring(0, xpmHeader.numCharsPerPixel);
+            if (tokenizer.getStringLength() < xpmHeader.numCharsPerPixel) {
+                throw new ImageReadException("Parsing XPM file failed, "
+                        + "palette entry is too short");
+            }
+            xpmHeader.paletteTable.put(tokenizer.getString(), 0, i);
+            final String row = tokenizer.getStringAsString();
             final String[] tokens = BasicCParser.tokenizeRow(row.substring(xpmHeader.numCharsPerPixel));
             final PaletteEntry paletteEntry = new PaletteEntry();
             paletteEntry.index = i;
@@ -440,30 +426,34 @@ public class XpmImageParser extends ImageParser {
                 colorBuffer.setLength(0);
                 populatePaletteEntry(paletteEntry, key, color);
             }
-            xpmHeader.palette.put(name, paletteEntry);
+            xpmHeader.palette.add(paletteEntry);
         }
     }
 
-    private XpmHeader parseXpmHeader(final BasicCParser cParser)
+    private XpmHeader parseXpmHeader(final XpmTokenizer tokenizer)
             throws ImageReadException, IOException {
+        if (!"XPM".equals(tokenizer.readFirstComment().trim())) {
+            throw new ImageReadException("Parsing XPM file failed, "
+                    + "signature isn't '/* XPM */'");
+        }
         String name;
         String token;
-        token = cParser.nextToken();
+        token = tokenizer.nextToken();
         if (!"static".equals(token)) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no 'static' token");
         }
-        token = cParser.nextToken();
+        token = tokenizer.nextToken();
         if (!"char".equals(token)) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no 'char' token");
         }
-        token = cParser.nextToken();
+        token = tokenizer.nextToken();
         if (!"*".equals(token)) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no '*' token");
         }
-        name = cParser.nextToken();
+        name = tokenizer.nextToken();
         if (name == null) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no variable name");
@@ -481,114 +471,115 @@ public class XpmImageParser extends ImageParser {
                                 + "contains non-letter non-digit non-underscore");
             }
         }
-        token = cParser.nextToken();
+        token = tokenizer.nextToken();
         if (!"[".equals(token)) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no '[' token");
         }
-        token = cParser.nextToken();
+        token = tokenizer.nextToken();
         if (!"]".equals(token)) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no ']' token");
         }
-        token = cParser.nextToken();
+        token = tokenizer.nextToken();
         if (!"=".equals(token)) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no '=' token");
         }
-        token = cParser.nextToken();
+        token = tokenizer.nextToken();
         if (!"{".equals(token)) {
             throw new ImageReadException(
                     "Parsing XPM file failed, no '{' token");
         }
 
-        final StringBuilder row = new StringBuilder();
-        final boolean hasMore = parseNextString(cParser, row);
+        final boolean hasMore = tokenizer.nextString();
         if (!hasMore) {
             throw new ImageReadException("Parsing XPM file failed, "
                     + "file too short");
         }
-        final XpmHeader xpmHeader = parseXpmValuesSection(row.toString());
-        parsePaletteEntries(xpmHeader, cParser);
+        final XpmHeader xpmHeader = parseXpmValuesSection(tokenizer.getStringAsString());
+        parsePaletteEntries(xpmHeader, tokenizer);
         return xpmHeader;
     }
 
-    private BufferedImage readXpmImage(final XpmHeader xpmHeader, final BasicCParser cParser)
+    private BufferedImage readXpmImage(final XpmHeader xpmHeader, final XpmTokenizer tokenizer)
             throws ImageReadException, IOException {
+        final int width = xpmHeader.width;
+        final int height = xpmHeader.height;
+        final int numCharsPerPixel = xpmHeader.numCharsPerPixel;
+        final int[] palette = new int[xpmHeader.numColors];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = xpmHeader.palette.get(i).getBestARGB();
+        }
+
         ColorModel colorModel;
         WritableRaster raster;
-        int bpp;
-        if (xpmHeader.palette.size() <= (1 << 8)) {
-            final int[] palette = new int[xpmHeader.palette.size()];
-            for (final Entry<Object, PaletteEntry> entry : xpmHeader.palette
-                    .entrySet()) {
-            final PaletteEntry paletteEntry = entry.getValue();
-            palette[paletteEntry.index] = paletteEntry.getBestARGB();
-         }
-            colorModel = new IndexColorModel(8, xpmHeader.palette.size(),
+        if (palette.length <= (1 << 8)) {
+            colorModel = new IndexColorModel(8, palette.length,
                     palette, 0, true, -1, DataBuffer.TYPE_BYTE);
             raster = Raster.createInterleavedRaster(
-                    DataBuffer.TYPE_BYTE, xpmHeader.width, xpmHeader.height, 1,
-                    null);
-            bpp = 8;
-        } else if (xpmHeader.palette.size() <= (1 << 16)) {
-            final int[] palette = new int[xpmHeader.palette.size()];
-            for (final Entry<Object, PaletteEntry> entry : xpmHeader.palette
-                    .entrySet()) {
-            final PaletteEntry paletteEntry = entry.getValue();
-            palette[paletteEntry.index] = paletteEntry.getBestARGB();
-         }
-            colorModel = new IndexColorModel(16, xpmHeader.palette.size(),
+                    DataBuffer.TYPE_BYTE, width, height, 1, null);
+        } else if (palette.length <= (1 << 16)) {
+            colorModel = new IndexColorModel(16, palette.length,
                     palette, 0, true, -1, DataBuffer.TYPE_USHORT);
             raster = Raster.createInterleavedRaster(
-                    DataBuffer.TYPE_USHORT, xpmHeader.width, xpmHeader.height,
-                    1, null);
-            bpp = 16;
+                    DataBuffer.TYPE_USHORT, width, height, 1, null);
         } else {
             colorModel = new DirectColorModel(32, 0x00ff0000, 0x0000ff00,
                     0x000000ff, 0xff000000);
             raster = Raster.createPackedRaster(DataBuffer.TYPE_INT,
-                    xpmHeader.width, xpmHeader.height, new int[] { 0x00ff0000,
+                    width, height, new int[] { 0x00ff0000,
                             0x0000ff00, 0x000000ff, 0xff000000 }, null);
-            bpp = 32;
         }
 
         final BufferedImage image = new BufferedImage(colorModel, raster,
                 colorModel.isAlphaPremultiplied(), new Properties());
         final DataBuffer dataBuffer = raster.getDataBuffer();
-        final StringBuilder row = new StringBuilder();
+        byte[] bytes = null;
+        short[] shorts = null;
+        int[] ints = null;
+        if (dataBuffer instanceof DataBufferByte) {
+            bytes = ((DataBufferByte) dataBuffer).getData();
+        } else if (dataBuffer instanceof DataBufferUShort) {
+            shorts = ((DataBufferUShort) dataBuffer).getData();
+        } else {
+            ints = ((DataBufferInt) dataBuffer).getData();
+        }
+        final XpmPaletteTable paletteTable = xpmHeader.paletteTable;
         boolean hasMore = true;
-        for (int y = 0; y < xpmHeader.height; y++) {
-            row.setLength(0);
-            hasMore = parseNextString(cParser, row);
-            if (y < (xpmHeader.height - 1) && !hasMore) {
+        for (int y = 0; y < height; y++) {
+            hasMore = tokenizer.nextString();
+            if (y < (height - 1) && !hasMore) {
                 throw new ImageReadException("Parsing XPM file failed, "
                         + "insufficient image rows in file");
             }
-            final int rowOffset = y * xpmHeader.width;
-            for (int x = 0; x < xpmHeader.width; x++) {
-                final String index = row.substring(x * xpmHeader.numCharsPerPixel,
-                        (x + 1) * xpmHeader.numCharsPerPixel);
-                final PaletteEntry paletteEntry = xpmHeader.palette.get(index);
-                if (paletteEntry == null) {
-                    throw new ImageReadException(
-                            "No palette entry was defined " + "for " + index);
+            if (tokenizer.getStringLength() < width * numCharsPerPixel) {
+                throw new ImageReadException("Parsing XPM file failed, "
+                        + "image row is too short");
+            }
+            final byte[] row = tokenizer.getString();
+            final int rowOffset = y * width;
+            for (int x = 0, offset = 0; x < width; x++, offset += numCharsPerPixel) {
+                final int index = paletteTable.get(row, offset);
+                if (index < 0) {
+                    throw new ImageReadException("No palette entry was defined for "
+                            + new String(row, offset, numCharsPerPixel, "ISO-8859-1"));
                 }
-                if (bpp <= 16) {
-                    dataBuffer.setElem(rowOffset + x, paletteEntry.index);
+                if (bytes != null) {
+                    bytes[rowOffset + x] = (byte) index;
+                } else if (shorts != null) {
+                    shorts[rowOffset + x] = (short) index;
                 } else {
-                    dataBuffer.setElem(rowOffset + x,
-                            paletteEntry.getBestARGB());
+                    ints[rowOffset + x] = palette[index];
                 }
             }
         }
 
         while (hasMore) {
-            row.setLength(0);
-            hasMore = parseNextString(cParser, row);
+            hasMore = tokenizer.nextString();
         }
 
-        final String token = cParser.nextToken();
+        final String token = tokenizer.nextToken();
         if (!";".equals(token)) {
             throw new ImageReadException("Last token wasn't ';'");
         }
@@ -606,8 +597,18 @@ public class XpmImageParser extends ImageParser {
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource,
             final Map<String, Object> params) throws ImageReadException, IOException {
-        final XpmParseResult result = parseXpmHeader(byteSource);
-        return readXpmImage(result.xpmHeader, result.cParser);
+        InputStream is = null;
+        boolean canThrow = false;
+        try {
+            is = byteSource.getInputStream();
+            final XpmTokenizer tokenizer = new XpmTokenizer(is);
+            final XpmHeader xpmHeader = parseXpmHeader(tokenizer);
+            final BufferedImage ret = readXpmImage(xpmHeader, tokenizer);
+            canThrow = true;
+            return ret;
+        } finally {
+            IoUtils.closeQuietly(canThrow, is);
+        }
     }
 
     private String randomName() {
@@ -708,13 +709,16 @@ public class XpmImageParser extends ImageParser {
         }
 
         String separator = "";
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[src.getWidth()];
         for (int y = 0; y < src.getHeight(); y++) {
+            pixels.getRow(y, row);
             os.write(separator.getBytes("US-ASCII"));
             separator = ",\n";
             line = "\"";
             os.write(line.getBytes("US-ASCII"));
             for (int x = 0; x < src.getWidth(); x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 if ((argb & 0xff000000) == 0) {
                     line = pixelsForIndex(palette.length(), charsPerPixel);
                 } else {
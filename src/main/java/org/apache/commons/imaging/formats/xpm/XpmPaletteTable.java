@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.xpm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the characters that name a color of an XPM palette to the index of
+ * that color. Names of up to 4 characters are packed into an int key, which
+ * indexes a table directly for names of 1 or 2 characters, and an open
+ * addressing hash table for names of 3 or 4 characters, which grows as colors
+ * are added. Longer names, which are very rare, fall back to a HashMap.
+ */
+class XpmPaletteTable {
+    private static final int MAX_PACKED_CHARS = 4;
+    private static final int MAX_DIRECT_CHARS = 2;
+    private final int numCharsPerPixel;
+    private int[] keys;
+    private int[] indices;
+    private int mask;
+    private int size;
+    private final Map<String, Integer> longNames;
+
+    public XpmPaletteTable(final int numCharsPerPixel) {
+        this.numCharsPerPixel = numCharsPerPixel;
+        if (numCharsPerPixel <= MAX_DIRECT_CHARS) {
+            keys = null;
+            indices = new int[1 << (8 * numCharsPerPixel)];
+            mask = 0;
+            longNames = null;
+        } else if (numCharsPerPixel <= MAX_PACKED_CHARS) {
+            keys = new int[16];
+            indices = new int[16];
+            mask = 15;
+            longNames = null;
+        } else {
+            keys = null;
+            indices = null;
+            mask = 0;
+            longNames = new HashMap<String, Integer>();
+            return;
+        }
+        Arrays.fill(indices, -1);
+    }
+
+    private int packKey(final byte[] chars, final int offset) {
+        int key = 0;
+        for (int i = 0; i < numCharsPerPixel; i++) {
+            key = (key << 8) | (0xff & chars[offset + i]);
+        }
+        return key;
+    }
+
+    private String toName(final byte[] chars, final int offset) {
+        final StringBuilder name = new StringBuilder(numCharsPerPixel);
+        for (int i = 0; i < numCharsPerPixel; i++) {
+            name.append((char) (0xff & chars[offset + i]));
+        }
+        return name.toString();
+    }
+
+    private int slot(final int key) {
+        int hash = key * 0x9e3779b9;
+        hash ^= hash >>> 16;
+        int slot = hash & mask;
+        while (indices[slot] >= 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Adds the color with the given index, named by the
+     * numCharsPerPixel bytes of chars at offset. A later color with the same
+     * name replaces an earlier one.
+     */
+    public void put(final byte[] chars, final int offset, final int index) {
+        if (longNames != null) {
+            longNames.put(toName(chars, offset), index);
+        } else if (keys == null) {
+            indices[packKey(chars, offset)] = index;
+        } else {
+            final int key = packKey(chars, offset);
+            final int slot = slot(key);
+            if (indices[slot] < 0) {
+                size++;
+            }
+            keys[slot] = key;
+            indices[slot] = index;
+            // keep the table at most half full
+            if (2 * size > indices.length) {
+                rehash();
+            }
+        }
+    }
+
+    private void rehash() {
+        final int[] oldKeys = keys;
+        final int[] oldIndices = indices;
+        keys = new int[2 * oldKeys.length];
+        indices = new int[2 * oldIndices.length];
+        mask = indices.length - 1;
+        Arrays.fill(indices, -1);
+        for (int i = 0; i < oldIndices.length; i++) {
+            if (oldIndices[i] >= 0) {
+                final int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                indices[slot] = oldIndices[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the color named by the numCharsPerPixel bytes of
+     * chars at offset, or -1 if there is no such color.
+     */
+    public int get(final byte[] chars, final int offset) {
+        if (longNames != null) {
+            final Integer index = longNames.get(toName(chars, offset));
+            return index == null ? -1 : index.intValue();
+        } else if (keys == null) {
+            return indices[packKey(chars, offset)];
+        } else {
+            return indices[slot(packKey(chars, offset))];
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.xpm;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.imaging.ImageReadException;
+
+/**
+ * Splits an XPM file into the tokens of the C declaration it consists of,
+ * straight from the bytes of the file. The strings, which hold the header,
+ * palette and pixels, are unescaped into a reusable buffer, so reading the
+ * pixels doesn't create any objects per row or per pixel. Reading stops
+ * wherever the caller stops asking for tokens, so the header can be read
+ * without reading the pixels.
+ */
+class XpmTokenizer {
+    private final InputStream is;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+    private int pushedBack = -1;
+    private byte[] string = new byte[256];
+    private int stringLength;
+
+    public XpmTokenizer(final InputStream is) {
+        this.is = is;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack >= 0) {
+            final int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (position >= limit) {
+            limit = is.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return 0xff & buffer[position++];
+    }
+
+    private void unread(final int c) {
+        pushedBack = c;
+    }
+
+    private static boolean isWhiteSpace(final int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isIdentifierChar(final int c) {
+        return Character.isLetterOrDigit((char) c) || c == '_';
+    }
+
+    /**
+     * Reads the comment that starts the file, which only white space may
+     * precede, and returns its text, or an empty string if the file
+     * doesn't start with a comment.
+     */
+    public String readFirstComment() throws IOException, ImageReadException {
+        int c = read();
+        while (isWhiteSpace(c)) {
+            c = read();
+        }
+        if (c != '/') {
+            unread(c);
+            return "";
+        }
+        c = read();
+        if (c != '*') {
+            throw new ImageReadException("Unhandled/invalid character '/' found in XPM file");
+        }
+        final StringBuilder comment = new StringBuilder();
+        readComment(comment);
+        return comment.toString();
+    }
+
+    private void readComment(final StringBuilder comment) throws IOException,
+            ImageReadException {
+        boolean hadStar = false;
+        for (int c = read();; c = read()) {
+            if (c < 0) {
+                throw new ImageReadException("Unterminated comment at the end of file");
+            } else if (c == '/' && hadStar) {
+                return;
+            } else if (hadStar && comment != null) {
+                comment.append('*');
+            }
+            hadStar = c == '*';
+            if (!hadStar && comment != null) {
+                comment.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Returns the first character of the next token, after any white space
+     * and comments, or -1 at the end of the file.
+     */
+    private int nextTokenStart() throws IOException, ImageReadException {
+        for (int c = read();; c = read()) {
+            if (c == '/') {
+                c = read();
+                if (c != '*') {
+                    throw new ImageReadException(
+                            "Unhandled/invalid character '/' found in XPM file");
+                }
+                readComment(null);
+            } else if (c == '#') {
+                throw new ImageReadException("Unexpected preprocessor directive");
+            } else if (!isWhiteSpace(c)) {
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Returns the next identifier or punctuation token, or null at the end
+     * of the file. A string is returned as the single token "\"", after
+     * which its unescaped bytes are in the string buffer.
+     */
+    public String nextToken() throws IOException, ImageReadException {
+        final int c = nextTokenStart();
+        if (c < 0) {
+            return null;
+        } else if (c == '"') {
+            stringLength = 0;
+            readString();
+            return "\"";
+        } else if (isIdentifierChar(c)) {
+            final StringBuilder token = new StringBuilder();
+            int next = c;
+            while (next >= 0 && isIdentifierChar(next)) {
+                token.append((char) next);
+                next = read();
+            }
+            unread(next);
+            return token.toString();
+        } else if (c == '{' || c == '}' || c == '[' || c == ']'
+                || c == '*' || c == ';' || c == '=' || c == ',') {
+            return Character.toString((char) c);
+        } else {
+            throw new ImageReadException("Unhandled/invalid character '"
+                    + ((char) c) + "' found in XPM file");
+        }
+    }
+
+    /**
+     * Reads the next element of the array of strings, which may be split
+     * into several adjacent string literals, into the string buffer.
+     *
+     * @return true if more elements follow, false if this was the last
+     */
+    public boolean nextString() throws IOException, ImageReadException {
+        int c = nextTokenStart();
+        if (c != '"') {
+            throw new ImageReadException("Parsing XPM file failed, "
+                    + "no string found where expected");
+        }
+        stringLength = 0;
+        while (c == '"') {
+            readString();
+            c = nextTokenStart();
+        }
+        if (c == ',') {
+            return true;
+        } else if (c == '}') {
+            return false;
+        } else {
+            throw new ImageReadException("Parsing XPM file failed, "
+                    + "no ',' or '}' found where expected");
+        }
+    }
+
+    /**
+     * Returns the string buffer, whose first {@link #getStringLength()}
+     * bytes are the string read last.
+     */
+    public byte[] getString() {
+        return string;
+    }
+
+    public int getStringLength() {
+        return stringLength;
+    }
+
+    /**
+     * Returns the string read last as a String, one char per byte.
+     */
+    public String getStringAsString() {
+        final char[] chars = new char[stringLength];
+        for (int i = 0; i < stringLength; i++) {
+            chars[i] = (char) (0xff & string[i]);
+        }
+        return new String(chars);
+    }
+
+    private void append(final int b) {
+        if (stringLength == string.length) {
+            final byte[] larger = new byte[string.length * 2];
+            System.arraycopy(string, 0, larger, 0, stringLength);
+            string = larger;
+        }
+        string[stringLength++] = (byte) b;
+    }
+
+    private static int hexValue(final int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the rest of a string literal, whose opening quote has been
+     * read, to the string buffer.
+     */
+    private void readString() throws IOException, ImageReadException {
+        for (int c = read();; c = read()) {
+            if (c < 0) {
+                throw new ImageReadException("Unterminated string ends XPM file");
+            } else if (c == '\r' || c == '\n') {
+                throw new ImageReadException("Unterminated string in XPM file");
+            } else if (c == '"') {
+                return;
+            } else if (c != '\\') {
+                append(c);
+                continue;
+            }
+
+            c = read();
+            if (c == '\\' || c == '"' || c == '\'') {
+                append(c);
+            } else if (c == 'x') {
+                final int hex1 = hexValue(read());
+                final int hex2 = hexValue(read());
+                if (hex1 < 0 || hex2 < 0) {
+                    throw new ImageReadException("Parsing XPM file failed, "
+                            + "hex constant invalid");
+                }
+                append((hex1 << 4) | hex2);
+            } else if (c >= '0' && c <= '7') {
+                int constant = c - '0';
+                for (int i = 0; i < 2; i++) {
+                    c = read();
+                    if (c < '0' || c > '7') {
+                        unread(c);
+                        break;
+                    }
+                    constant = constant * 8 + (c - '0');
+                }
+                append(constant);
+            } else if (c == 'a') {
+                append(0x07);
+            } else if (c == 'b') {
+                append(0x08);
+            } else if (c == 'f') {
+                append(0x0c);
+            } else if (c == 'n') {
+                append(0x0a);
+            } else if (c == 'r') {
+                append(0x0d);
+            } else if (c == 't') {
+                append(0x09);
+            } else if (c == 'v') {
+                append(0x0b);
+            } else if (c < 0) {
+                throw new ImageReadException("Parsing XPM file failed, "
+                        + "unterminated escape sequence found in string");
+            } else {
+                throw new ImageReadException("Parsing XPM file failed, "
+                        + "invalid escape sequence");
+            }
+        }
+    }
+}
@@ -33,7 +33,7 @@ import static org.apache.commons.imaging.common.BinaryFunctions.*;
 
 public class IccProfileParser extends BinaryFileParser {
     public IccProfileParser() {
-        this.setByteOrder(ByteOrder.BIG_ENDIAN);
+        super(ByteOrder.BIG_ENDIAN);
     }
 
     public IccProfileInfo getICCProfileInfo(final ICC_Profile iccProfile) {
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PixelReader;
 import org.apache.commons.imaging.util.Debug;
 
 public class MedianCutQuantizer {
@@ -39,9 +40,10 @@ public class MedianCutQuantizer {
         final int width = image.getWidth();
         final int height = image.getHeight();
 
+        final PixelReader pixels = new PixelReader(image);
         final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
-            image.getRGB(0, y, width, 1, row, 0, width);
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
                 int argb = row[x];
 
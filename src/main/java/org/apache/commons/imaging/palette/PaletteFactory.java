@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.PixelReader;
 
 /**
  * Factory for creating palettes.
@@ -50,9 +51,12 @@ public class PaletteFactory {
         final int width = src.getWidth();
         final int height = src.getHeight();
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int rggbb = 0x1fffff & argb;
                 final int highred = 0x7 & (argb >> 21);
                 final int mask = 1 << highred;
@@ -340,9 +344,12 @@ public class PaletteFactory {
         }
 
         // step 1: count frequency of colors
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
 
                 final int index = pixelToQuantizationTableIndex(argb, precision);
 
@@ -407,9 +414,12 @@ public class PaletteFactory {
         final int width = src.getWidth();
         final int height = src.getHeight();
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int rgb = 0xffffff & argb;
 
                 if (rgbs.add(rgb) && rgbs.size() > max) {
@@ -437,9 +447,12 @@ public class PaletteFactory {
             return true;
         }
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
 
                 final int red = 0xff & (argb >> 16);
                 final int green = 0xff & (argb >> 8);
@@ -465,9 +478,12 @@ public class PaletteFactory {
             return false;
         }
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
+                final int argb = row[x];
                 final int alpha = 0xff & (argb >> 24);
                 if (alpha < threshold) {
                     return true;
@@ -508,9 +524,12 @@ public class PaletteFactory {
 
         int first = -1;
 
+        final PixelReader pixels = new PixelReader(src);
+        final int[] row = new int[width];
         for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
             for (int x = 0; x < width; x++) {
-                final int rgb = src.getRGB(x, y);
+                final int rgb = row[x];
                 final int alpha = 0xff & (rgb >> 24);
                 if (alpha < 0xff) {
                     if (first < 0) {
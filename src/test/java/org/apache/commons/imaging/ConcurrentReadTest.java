@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.junit.Test;
+
+/**
+ * Reads the test images from many threads at once through one shared parser
+ * per format, and checks that every read gives what it gives on its own.
+ */
+public class ConcurrentReadTest extends ImagingTest {
+    private static final int THREADS = 4;
+    private static final int PASSES = 2;
+    // the few larger images would only make the test slower
+    private static final long MAX_IMAGE_LENGTH = 256 * 1024;
+
+    private final ImageParser[] parsers = ImageParser.getAllImageParsers();
+
+    @Test
+    public void testSharedParsers() throws Exception {
+        final List<File> images = getTestImages(new ImageFilter() {
+            public boolean accept(final File file) {
+                return file.length() <= MAX_IMAGE_LENGTH;
+            }
+        });
+        final Map<File, String> expected = new HashMap<File, String>();
+        for (final File image : images) {
+            expected.put(image, read(image));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Map<File, String>>> futures = new ArrayList<Future<Map<File, String>>>();
+            for (int i = 0; i < THREADS; i++) {
+                final List<File> order = new ArrayList<File>(images);
+                Collections.shuffle(order, new Random(i));
+                futures.add(executor.submit(new Callable<Map<File, String>>() {
+                    public Map<File, String> call() throws Exception {
+                        start.await();
+                        final Map<File, String> results = new HashMap<File, String>();
+                        for (int pass = 0; pass < PASSES; pass++) {
+                            for (final File image : order) {
+                                final String result = read(image);
+                                final String previous = results.put(image, result);
+                                if (previous != null && !previous.equals(result)) {
+                                    results.put(image, "differs between passes: "
+                                            + previous + " / " + result);
+                                }
+                            }
+                        }
+                        return results;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (final Future<Map<File, String>> future : futures) {
+                final Map<File, String> results = future.get();
+                for (final File image : images) {
+                    assertEquals(image.getPath(), expected.get(image), results.get(image));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Describes the information, metadata and pixels read from an image, or
+     * the kind of failure if it can't be read.
+     */
+    private String read(final File image) {
+        try {
+            final ImageParser parser = getParser(Imaging.guessFormat(image));
+            if (parser == null) {
+                return "no parser";
+            }
+            final Map<String, Object> params = new HashMap<String, Object>();
+            final StringBuilder result = new StringBuilder();
+
+            final ImageInfo info = parser.getImageInfo(image, params);
+            result.append(info.getFormat().getName()).append(' ')
+                    .append(info.getWidth()).append('x').append(info.getHeight())
+                    .append(' ').append(info.getBitsPerPixel()).append('\n');
+
+            final ImageMetadata metadata = parser.getMetadata(image, params);
+            if (metadata != null) {
+                result.append(metadata.toString()).append('\n');
+            }
+
+            final BufferedImage bufferedImage = parser.getBufferedImage(image, params);
+            final int width = bufferedImage.getWidth();
+            final int height = bufferedImage.getHeight();
+            final int[] row = new int[width];
+            int hash = 0;
+            for (int y = 0; y < height; y++) {
+                bufferedImage.getRGB(0, y, width, 1, row, 0, width);
+                for (final int argb : row) {
+                    hash = 31 * hash + argb;
+                }
+            }
+            result.append(width).append('x').append(height).append(' ')
+                    .append(Integer.toHexString(hash));
+            return result.toString();
+        } catch (final Exception e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private ImageParser getParser(final ImageFormat format) {
+        for (final ImageParser parser : parsers) {
+            if (parser.canAcceptType(format)) {
+                return parser;
+            }
+        }
+        return null;
+    }
+}
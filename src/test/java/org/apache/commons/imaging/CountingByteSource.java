@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+
+/**
+ * A ByteSource over an array that counts the bytes read through it, but not
+ * those skipped. It can be read from several threads at once.
+ */
+public class CountingByteSource extends ByteSource {
+    private final byte[] bytes;
+    private long bytesRead;
+
+    public CountingByteSource(final String filename, final byte[] bytes) {
+        super(filename);
+        this.bytes = bytes;
+    }
+
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Tells whether all of the image, rather than only its header, has been
+     * read.
+     */
+    public synchronized boolean isFullyRead() {
+        return bytesRead >= bytes.length;
+    }
+
+    private synchronized void count(final int length) {
+        bytesRead += length;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new FilterInputStream(new ByteSourceArray(bytes).getInputStream()) {
+            @Override
+            public int read() throws IOException {
+                final int b = super.read();
+                if (b >= 0) {
+                    count(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len)
+                    throws IOException {
+                final int read = super.read(b, off, len);
+                if (read > 0) {
+                    count(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    @Override
+    public byte[] getBlock(final long start, final int length) throws IOException {
+        final byte[] block = new ByteSourceArray(bytes).getBlock(start, length);
+        count(block.length);
+        return block;
+    }
+
+    @Override
+    public byte[] getAll() throws IOException {
+        count(bytes.length);
+        return bytes;
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return bytes.length;
+    }
+
+    @Override
+    public String getDescription() {
+        return filename;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Checks that reading the information and size of an image only reads its
+ * headers, whatever the size of the image data. Formats that can be written
+ * are checked on a large generated image, the others on a test image.
+ */
+@RunWith(Parameterized.class)
+public class ImageInfoReadBoundTest {
+    // what buffered readers read ahead, with room for the headers
+    private static final int MAX_BYTES_READ = 16384;
+
+    private final ImageFormat format;
+    private final String testImage;
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+                { ImageFormats.BMP, null }, { ImageFormats.DCX, null },
+                { ImageFormats.GIF, null }, { ImageFormats.ICNS, null },
+                { ImageFormats.ICO, null }, { ImageFormats.PAM, null },
+                { ImageFormats.PBM, null }, { ImageFormats.PCX, null },
+                { ImageFormats.PGM, null }, { ImageFormats.PNG, null },
+                { ImageFormats.PPM, null }, { ImageFormats.TIFF, null },
+                { ImageFormats.WBMP, null }, { ImageFormats.XBM, null },
+                { ImageFormats.XPM, null },
+                { ImageFormats.JPEG, "jpg/1/Oregon Scientific DS6639 - DSC_0307.JPG" },
+                { ImageFormats.PSD, "psd/1/Oregon Scientific DS6639 - DSC_0307 - small.psd" },
+                { ImageFormats.RGBE, "rgbe/1/body_wave_N_0001.hdr" } });
+    }
+
+    public ImageInfoReadBoundTest(final ImageFormat format, final String testImage) {
+        this.format = format;
+        this.testImage = testImage;
+    }
+
+    @Test
+    public void testHeaderOnly() throws Exception {
+        final byte[] bytes;
+        final Dimension expected;
+        if (testImage == null) {
+            int size = 1024;
+            if (format == ImageFormats.ICO) {
+                size = 256;
+            } else if (format == ImageFormats.ICNS) {
+                size = 128;
+            }
+            bytes = Imaging.writeImageToBytes(createImage(size),
+                    format, new HashMap<String, Object>());
+            assertTrue(bytes.length > 2 * MAX_BYTES_READ);
+            expected = new Dimension(size, size);
+        } else {
+            bytes = FileUtils.readFileToByteArray(new File(
+                    ImagingTestConstants.TEST_IMAGE_FOLDER, testImage));
+            // smaller than the generated images, but larger than the bound.
+            assertTrue(bytes.length > MAX_BYTES_READ);
+            final BufferedImage image = Imaging.getBufferedImage(bytes);
+            expected = new Dimension(image.getWidth(), image.getHeight());
+        }
+
+        final ImageParser parser = getParser();
+        final CountingByteSource infoSource = new CountingByteSource("test", bytes);
+        final ImageInfo info = parser.getImageInfo(infoSource, null);
+        assertEquals(expected.width, info.getWidth());
+        assertEquals(expected.height, info.getHeight());
+        assertEquals(format, info.getFormat());
+        assertTrue(format.getName() + " read " + infoSource.getBytesRead()
+                + " bytes for the image information",
+                infoSource.getBytesRead() < MAX_BYTES_READ);
+
+        final CountingByteSource sizeSource = new CountingByteSource("test", bytes);
+        final Dimension dimension = parser.getImageSize(sizeSource, null);
+        assertEquals(expected, dimension);
+        assertTrue(format.getName() + " read " + sizeSource.getBytesRead()
+                + " bytes for the image size",
+                sizeSource.getBytesRead() < MAX_BYTES_READ);
+    }
+
+    private ImageParser getParser() {
+        for (final ImageParser parser : ImageParser.getAllImageParsers()) {
+            if (parser.canAcceptType(format)) {
+                return parser;
+            }
+        }
+        throw new IllegalStateException("No parser for " + format);
+    }
+
+    private static BufferedImage createImage(final int size) {
+        final BufferedImage image = new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_RGB);
+        final Random random = new Random(size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                // a few colors, so the palette formats can write it too
+                image.setRGB(x, y, random.nextInt(8) * 0x204020);
+            }
+        }
+        return image;
+    }
+}
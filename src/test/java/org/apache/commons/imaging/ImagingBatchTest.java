@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.SimpleBufferedImageFactory;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.junit.Test;
+
+public class ImagingBatchTest extends ImagingTest {
+    private static final int SIZE = 256;
+    private static final long IMAGE_BYTES = 4L * SIZE * SIZE;
+
+    // runs the tasks in the thread that starts them, for a predictable order
+    private static final Executor DIRECT = new Executor() {
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void testTestImages() throws Exception {
+        final List<ByteSource> sources = new ArrayList<ByteSource>();
+        for (final File file : getTestImages(new ImageFilter() {
+            public boolean accept(final File file) {
+                return file.length() <= 256 * 1024;
+            }
+        })) {
+            sources.add(new ByteSourceFile(file));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final ImagingBatch batch = new ImagingBatch(executor, 6, 16 * 1024 * 1024);
+            final ImagingBatch.Results<BufferedImage> results = batch.getBufferedImages(
+                    sources, null);
+            final boolean[] seen = new boolean[sources.size()];
+            ImagingBatch.Result<BufferedImage> result;
+            while ((result = results.take()) != null) {
+                assertFalse(seen[result.getIndex()]);
+                seen[result.getIndex()] = true;
+                assertTrue(result.getByteSource() == sources.get(result.getIndex()));
+                assertTrue(result.isSuccess() == (result.getValue() != null));
+                assertTrue(result.isSuccess() == (result.getException() == null));
+            }
+            for (int i = 0; i < seen.length; i++) {
+                assertTrue(sources.get(i).getDescription(), seen[i]);
+            }
+            assertNull(results.take());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void testDecodedBytesBudget() throws Exception {
+        final List<CountingByteSource> sources = createSources(4);
+        // room for two and a half images
+        final ImagingBatch batch = new ImagingBatch(DIRECT, 10, IMAGE_BYTES * 5 / 2);
+        final ImagingBatch.Results<BufferedImage> results = batch.getBufferedImages(
+                sources, new HashMap<String, Object>());
+
+        final ImagingBatch.Result<BufferedImage> first = results.take();
+        assertTrue(first.isSuccess());
+        assertEquals(SIZE, first.getValue().getWidth());
+        assertEquals(2, countDecoded(sources));
+
+        // the first is only let go of when the next is asked for
+        int count = 1;
+        while (results.take() != null) {
+            count++;
+            assertTrue(countDecoded(sources) <= count + 1);
+        }
+        assertEquals(4, count);
+        assertEquals(4, countDecoded(sources));
+    }
+
+    @Test
+    public void testImageLargerThanBudget() throws Exception {
+        final List<CountingByteSource> sources = createSources(3);
+        final ImagingBatch batch = new ImagingBatch(DIRECT, 10, 1);
+        final ImagingBatch.Results<BufferedImage> results = batch.getBufferedImages(
+                sources, null);
+        for (int i = 1; i <= 3; i++) {
+            final ImagingBatch.Result<BufferedImage> result = results.take();
+            assertTrue(result.isSuccess());
+            assertEquals(i, countDecoded(sources));
+        }
+        assertNull(results.take());
+    }
+
+    @Test
+    public void testMaxTasks() throws Exception {
+        final List<CountingByteSource> sources = createSources(5);
+        final int[] taken = new int[1];
+        final Iterable<ByteSource> iterable = new Iterable<ByteSource>() {
+            public Iterator<ByteSource> iterator() {
+                return new Iterator<ByteSource>() {
+                    public boolean hasNext() {
+                        return taken[0] < sources.size();
+                    }
+
+                    public ByteSource next() {
+                        return sources.get(taken[0]++);
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+
+        final ImagingBatch batch = new ImagingBatch(DIRECT, 2, Long.MAX_VALUE);
+        final ImagingBatch.Results<ImageInfo> results = batch.getImageInfo(iterable, null);
+        assertEquals(0, taken[0]);
+        assertEquals(0, results.take().getIndex());
+        assertEquals(2, taken[0]);
+        assertEquals(1, results.take().getIndex());
+        assertEquals(3, taken[0]);
+        for (int i = 2; i < 5; i++) {
+            final ImagingBatch.Result<ImageInfo> result = results.take();
+            assertEquals(i, result.getIndex());
+            assertEquals(SIZE, result.getValue().getWidth());
+        }
+        assertNull(results.take());
+        assertEquals(0, countDecoded(sources));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final List<ByteSource> sources = new ArrayList<ByteSource>(createSources(2));
+        sources.add(1, new ByteSourceArray("bad", new byte[] { 1, 2, 3, 4 }));
+        final ImagingBatch batch = new ImagingBatch(DIRECT, 10, IMAGE_BYTES);
+
+        final ImagingBatch.Results<BufferedImage> results = batch.getBufferedImages(
+                sources, null);
+        int failures = 0;
+        ImagingBatch.Result<BufferedImage> result;
+        while ((result = results.take()) != null) {
+            if (result.getIndex() == 1) {
+                assertFalse(result.isSuccess());
+                assertNull(result.getValue());
+                assertTrue(result.getException() instanceof ImageReadException);
+                failures++;
+            } else {
+                assertTrue(result.isSuccess());
+            }
+        }
+        assertEquals(1, failures);
+
+        final ImagingBatch.Results<ImageMetadata> metadata = batch.getMetadata(
+                sources, null);
+        int count = 0;
+        ImagingBatch.Result<ImageMetadata> metadataResult;
+        while ((metadataResult = metadata.take()) != null) {
+            assertEquals(metadataResult.getIndex() != 1, metadataResult.isSuccess());
+            count++;
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testDecodeParams() throws Exception {
+        final BufferedImage image = new BufferedImage(SIZE, SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.BMP,
+                new HashMap<String, Object>());
+        final List<ByteSource> sources = new ArrayList<ByteSource>();
+        sources.add(new CountingByteSource("test.bmp", bytes));
+
+        // BMP rejects keys it doesn't know when reading the size alone
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.BUFFERED_IMAGE_FACTORY,
+                new SimpleBufferedImageFactory());
+        final ImagingBatch batch = new ImagingBatch(DIRECT, 10, IMAGE_BYTES);
+        final ImagingBatch.Result<BufferedImage> result = batch.getBufferedImages(
+                sources, params).take();
+        assertNull(result.getException());
+        assertEquals(SIZE, result.getValue().getWidth());
+    }
+
+    private static List<CountingByteSource> createSources(final int count)
+            throws ImageWriteException, IOException {
+        final List<CountingByteSource> sources = new ArrayList<CountingByteSource>();
+        final Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            final BufferedImage image = new BufferedImage(SIZE, SIZE,
+                    BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    image.setRGB(x, y, random.nextInt());
+                }
+            }
+            final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.PNG,
+                    new HashMap<String, Object>());
+            assertNotNull(bytes);
+            sources.add(new CountingByteSource("test.png", bytes));
+        }
+        return sources;
+    }
+
+    private static int countDecoded(final List<CountingByteSource> sources) {
+        int count = 0;
+        for (final CountingByteSource source : sources) {
+            if (source.isFullyRead()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.junit.Test;
+
+public class BinaryReaderTest {
+
+    @Test
+    public void testByteOrder() throws IOException {
+        final byte[] data = { 1, 2, 3, 4, 5, 6, 7, (byte) 0xf8, (byte) 0xf9,
+                (byte) 0xfa, (byte) 0xfb, (byte) 0xfc, (byte) 0xfd };
+
+        BinaryReader reader = new BinaryReader(new ByteArrayInputStream(data),
+                ByteOrder.BIG_ENDIAN);
+        assertEquals(0x0102, reader.getU16("u16"));
+        assertEquals(0x030405, reader.getU24("u24"));
+        assertEquals(0x0607f8f9, reader.getS32("s32"));
+        assertEquals(0xfafbfcfdL, reader.getU32("u32"));
+        assertEquals(data.length, reader.getPosition());
+
+        reader = new BinaryReader(new ByteArrayInputStream(data),
+                ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x0201, reader.getU16("u16"));
+        assertEquals(0x050403, reader.getU24("u24"));
+        assertEquals(0xf9f80706, reader.getS32("s32"));
+        assertEquals(0xfdfcfbfaL, reader.getU32("u32"));
+
+        reader = new BinaryReader(new ByteArrayInputStream(data),
+                ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x0201, reader.getU16("u16"));
+        reader.setByteOrder(ByteOrder.BIG_ENDIAN);
+        assertEquals(0x0304, reader.getU16("u16"));
+        assertEquals(11, reader.getU8("u8") + reader.getByte("byte"));
+    }
+
+    @Test
+    public void testBytes() throws IOException {
+        final byte[] data = createData(30000);
+        final BinaryReader reader = new BinaryReader(new TrickleInputStream(data),
+                ByteOrder.BIG_ENDIAN);
+
+        assertEquals(data[0], reader.getByte("first"));
+        // a small read, then one across the end of the buffer and a large
+        // one read straight into the array.
+        assertRead(data, reader, 1, 1000);
+        assertRead(data, reader, 1001, 8000);
+        assertRead(data, reader, 9001, 12000);
+        reader.skip(3, "small skip");
+        reader.skip(5000, "large skip");
+        assertEquals(26004, reader.getPosition());
+        assertRead(data, reader, 26004, 3996);
+        assertEquals(data.length, reader.getPosition());
+    }
+
+    @Test
+    public void testEndOfFile() throws IOException {
+        final BinaryReader reader = new BinaryReader(new ByteArrayInputStream(
+                createData(10)), ByteOrder.BIG_ENDIAN);
+        reader.skip(8, "skip");
+        try {
+            reader.getS32("Not a Valid File");
+            fail();
+        } catch (final IOException e) {
+            assertEquals("Not a Valid File (at offset 8)", e.getMessage());
+        }
+
+        final BinaryReader skipping = new BinaryReader(new ByteArrayInputStream(
+                createData(10)), ByteOrder.BIG_ENDIAN);
+        try {
+            skipping.skip(20000, "Skipped past the end");
+            fail();
+        } catch (final IOException e) {
+            assertTrue(e.getMessage().startsWith("Skipped past the end"));
+        }
+    }
+
+    @Test
+    public void testReadAheadAfterSkip() throws ImageReadException, IOException {
+        final byte[] data = createData(30000);
+        final ByteArrayInputStream is = new ByteArrayInputStream(data);
+        final BinaryReader reader = new BinaryReader(is, ByteOrder.BIG_ENDIAN);
+
+        // reading a header and skipping the data after it mustn't read the
+        // data into the buffer.
+        for (int i = 0; i < 10; i++) {
+            assertEquals(data[i * 2000], reader.getByte("header"));
+            assertEquals(data[i * 2000 + 1], (byte) reader.read());
+            reader.skip(1998, "data");
+            assertTrue(data.length - is.available() < (i + 1) * 2000 + 64);
+        }
+        reader.verifyBytes(new byte[] { data[20000], data[20001] }, "verify");
+        final byte[] rest = reader.getRemainingBytes();
+        assertEquals(9998, rest.length);
+        assertEquals(data[20002], rest[0]);
+        assertEquals(data.length, reader.getPosition());
+    }
+
+    private static void assertRead(final byte[] data, final BinaryReader reader,
+            final int offset, final int length) throws IOException {
+        assertEquals(offset, reader.getPosition());
+        final byte[] expected = new byte[length];
+        System.arraycopy(data, offset, expected, 0, length);
+        assertArrayEquals(expected, reader.getBytes(length, "bytes"));
+    }
+
+    private static byte[] createData(final int length) {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + (i >> 8));
+        }
+        return data;
+    }
+
+    /**
+     * Returns fewer bytes than asked for, like network streams do.
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        public TrickleInputStream(final byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, 1000));
+        }
+
+        @Override
+        public synchronized long skip(final long n) {
+            return super.skip(Math.min(n, 1000));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImagingConstants;
+import org.junit.Test;
+
+public class IconChooserTest {
+    private static final int[][] ICONS = {
+        { 16, 16, 4 }, { 16, 16, 32 }, { 32, 32, 8 }, { 32, 32, 32 },
+        { 48, 48, 32 }, { 128, 128, 32 },
+    };
+
+    @Test
+    public void testSize() {
+        assertEquals(1, choose(16, 0));
+        // larger icons are preferred, as they can be scaled down
+        assertEquals(3, choose(20, 0));
+        assertEquals(4, choose(33, 0));
+        assertEquals(5, choose(64, 0));
+        assertEquals(5, choose(512, 0));
+        assertEquals(1, choose(1, 0));
+    }
+
+    @Test
+    public void testBitsPerPixel() {
+        assertEquals(0, choose(16, 4));
+        assertEquals(1, choose(16, 8));
+        assertEquals(2, choose(32, 8));
+        assertEquals(3, choose(32, 24));
+        assertEquals(4, choose(48, 8));
+        assertEquals(1, choose(16, 32));
+    }
+
+    @Test
+    public void testNoIcons() {
+        assertEquals(-1, new IconChooser(16, 0).getChoice());
+    }
+
+    @Test
+    public void testParams() throws ImageReadException {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        assertNull(IconChooser.fromParams(null));
+        assertNull(IconChooser.fromParams(params));
+        params.put(ImagingConstants.PARAM_KEY_ICON_SIZE, 32);
+        params.put(ImagingConstants.PARAM_KEY_ICON_BITS_PER_PIXEL, 8);
+        final IconChooser chooser = IconChooser.fromParams(params);
+        add(chooser);
+        assertEquals(2, chooser.getChoice());
+    }
+
+    @Test(expected = ImageReadException.class)
+    public void testInvalidParam() throws ImageReadException {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.PARAM_KEY_ICON_SIZE, "32");
+        IconChooser.fromParams(params);
+    }
+
+    private static int choose(final int size, final int bitsPerPixel) {
+        final IconChooser chooser = new IconChooser(size, bitsPerPixel);
+        add(chooser);
+        return chooser.getChoice();
+    }
+
+    private static void add(final IconChooser chooser) {
+        for (int i = 0; i < ICONS.length; i++) {
+            chooser.add(i, ICONS[i][0], ICONS[i][1], ICONS[i][2]);
+        }
+    }
+}
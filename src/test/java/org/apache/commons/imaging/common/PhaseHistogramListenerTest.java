@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageFormat;
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.formats.png.PngImageParser;
+import org.junit.Test;
+
+public class PhaseHistogramListenerTest {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(0, PhaseHistogramListener.getBucket(0));
+        assertEquals(0, PhaseHistogramListener.getBucket(1));
+        assertEquals(1, PhaseHistogramListener.getBucket(2));
+        assertEquals(1, PhaseHistogramListener.getBucket(3));
+        assertEquals(10, PhaseHistogramListener.getBucket(1024));
+        assertEquals(PhaseHistogramListener.BUCKETS - 1,
+                PhaseHistogramListener.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testHistogram() {
+        final PhaseHistogramListener listener = new PhaseHistogramListener();
+        for (int i = 0; i < 99; i++) {
+            listener.phaseCompleted(ImageFormats.PNG, ParserPhase.HEADER, 100, 10, 0);
+        }
+        listener.phaseCompleted(ImageFormats.PNG, ParserPhase.HEADER, 5000, -1, 64);
+
+        final PhaseHistogramListener.Histogram histogram = listener.getHistogram(
+                ImageFormats.PNG, ParserPhase.HEADER);
+        assertEquals(100, histogram.getCount());
+        assertEquals(99 * 100 + 5000, histogram.getTotalNanos());
+        assertEquals(100, histogram.getMinNanos());
+        assertEquals(5000, histogram.getMaxNanos());
+        assertEquals(990, histogram.getBytesRead());
+        assertEquals(64, histogram.getBytesAllocated());
+        // 100 falls in [64, 127]
+        assertEquals(127, histogram.getPercentileNanos(0.5));
+        assertEquals(127, histogram.getPercentileNanos(0.99));
+        assertEquals(5000, histogram.getPercentileNanos(1));
+        assertEquals(0, histogram.getFailureCount());
+
+        listener.phaseFailed(ImageFormats.PNG, ParserPhase.HEADER, 300);
+        final PhaseHistogramListener.Histogram failed = listener.getHistogram(
+                ImageFormats.PNG, ParserPhase.HEADER);
+        assertEquals(100, failed.getCount());
+        assertEquals(99 * 100 + 5000, failed.getTotalNanos());
+        assertEquals(1, failed.getFailureCount());
+        assertEquals(300, failed.getFailedNanos());
+
+        assertEquals(0, listener.getHistogram(ImageFormats.PNG,
+                ParserPhase.ENCODE).getCount());
+        assertEquals(0, listener.getHistogram(ImageFormats.GIF,
+                ParserPhase.HEADER).getCount());
+
+        listener.reset();
+        assertEquals(0, listener.getHistogram(ImageFormats.PNG,
+                ParserPhase.HEADER).getCount());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final BufferedImage image = new BufferedImage(64, 48,
+                BufferedImage.TYPE_INT_ARGB);
+        final ImageFormat[] formats = { ImageFormats.BMP, ImageFormats.GIF,
+                ImageFormats.PNG, ImageFormats.TIFF };
+        for (final ImageFormat format : formats) {
+            final PhaseHistogramListener listener = new PhaseHistogramListener();
+            final Map<String, Object> params = new HashMap<String, Object>();
+            params.put(ImagingConstants.PARSER_LISTENER, listener);
+
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Imaging.writeImage(image, baos, format, params);
+            final byte[] bytes = baos.toByteArray();
+            final BufferedImage read = Imaging.getBufferedImage(bytes, params);
+            assertEquals(64, read.getWidth());
+
+            final PhaseHistogramListener.Histogram encode = listener.getHistogram(
+                    format, ParserPhase.ENCODE);
+            assertEquals(1, encode.getCount());
+            assertEquals(bytes.length, encode.getBytesRead());
+            assertEquals(1, listener.getHistogram(format, ParserPhase.HEADER).getCount());
+
+            long allocated = 0;
+            for (final ParserPhase phase : ParserPhase.values()) {
+                allocated += listener.getHistogram(format, phase).getBytesAllocated();
+            }
+            assertTrue(format.getName(),
+                    allocated >= PhaseRecorder.getRasterBytes(read));
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final BufferedImage image = new BufferedImage(64, 48,
+                BufferedImage.TYPE_INT_RGB);
+        final ImageFormat[] formats = { ImageFormats.BMP, ImageFormats.GIF,
+                ImageFormats.PNG, ImageFormats.TIFF };
+        for (final ImageFormat format : formats) {
+            final byte[] bytes = Imaging.writeImageToBytes(image, format, null);
+            // the headers are whole, the image data isn't.
+            final byte[] truncated = new byte[bytes.length / 2];
+            System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+            final PhaseHistogramListener listener = new PhaseHistogramListener();
+            final Map<String, Object> params = new HashMap<String, Object>();
+            params.put(ImagingConstants.PARSER_LISTENER, listener);
+            try {
+                Imaging.getBufferedImage(truncated, params);
+                fail(format.getName());
+            } catch (final ImageReadException e) {
+                // expected
+            } catch (final IOException e) {
+                // expected
+            }
+
+            long failures = 0;
+            for (final ParserPhase phase : ParserPhase.values()) {
+                failures += listener.getHistogram(format, phase).getFailureCount();
+            }
+            assertEquals(format.getName(), 1, failures);
+        }
+    }
+
+    @Test
+    public void testWithoutListener() throws Exception {
+        final BufferedImage image = new BufferedImage(16, 16,
+                BufferedImage.TYPE_INT_RGB);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.PNG,
+                null);
+
+        // a listener in one read's params isn't told about another read.
+        final PhaseHistogramListener listener = new PhaseHistogramListener();
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.PARSER_LISTENER, listener);
+        Imaging.getBufferedImage(bytes, new HashMap<String, Object>());
+        Imaging.getBufferedImage(bytes);
+        assertTrue(listener.getFormats().isEmpty());
+
+        Imaging.getBufferedImage(bytes, params);
+        assertEquals(1, listener.getHistogram(ImageFormats.PNG,
+                ParserPhase.DECOMPRESSION).getCount());
+
+        assertSame(PhaseRecorder.NONE, new RecorderParser().getPhaseRecorder(
+                new HashMap<String, Object>()));
+        assertSame(PhaseRecorder.NONE, new RecorderParser().getPhaseRecorder(null));
+        assertNotSame(PhaseRecorder.NONE, new RecorderParser().getPhaseRecorder(params));
+    }
+
+    // exposes the protected factory method
+    private static class RecorderParser extends PngImageParser {
+        PhaseRecorder getPhaseRecorder(final Map<String, Object> params) {
+            return getPhaseRecorder(ImageFormats.PNG, params);
+        }
+    }
+}
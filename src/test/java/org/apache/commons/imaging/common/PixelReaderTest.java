@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PixelReaderTest {
+    private static final int[] TYPES = {
+        BufferedImage.TYPE_INT_ARGB,
+        BufferedImage.TYPE_INT_RGB,
+        BufferedImage.TYPE_3BYTE_BGR,
+        BufferedImage.TYPE_4BYTE_ABGR,
+        BufferedImage.TYPE_BYTE_GRAY,
+        BufferedImage.TYPE_BYTE_INDEXED,
+        // read with getRGB()
+        BufferedImage.TYPE_INT_ARGB_PRE,
+        BufferedImage.TYPE_USHORT_GRAY,
+        BufferedImage.TYPE_BYTE_BINARY,
+    };
+
+    @Test
+    public void testSameAsGetRgb() {
+        for (final int type : TYPES) {
+            final BufferedImage image = createImage(type, 37, 23);
+            assertSameAsGetRgb(image);
+            assertSameAsGetRgb(image.getSubimage(5, 3, 17, 11));
+        }
+    }
+
+    @Test
+    public void testRgbIgnoresHighBits() {
+        final BufferedImage image = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        final int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        data[5] = 0x12345678;
+        final int[] row = new PixelReader(image).getRow(1, null);
+        assertEquals(0xff345678, row[1]);
+        assertEquals(image.getRGB(1, 1), row[1]);
+    }
+
+    @Test
+    public void testRows() {
+        final BufferedImage image = createImage(BufferedImage.TYPE_4BYTE_ABGR, 10, 8);
+        final PixelReader pixels = new PixelReader(image);
+        final int[] argb = new int[50];
+        assertSame(argb, pixels.getRows(3, 5, argb));
+        assertArrayEquals(image.getRGB(0, 3, 10, 5, null, 0, 10), argb);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testOutsideImage() {
+        final BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB, 10, 8);
+        // the subimage's rows are all inside the array, so the reader has to
+        // check them itself
+        new PixelReader(image.getSubimage(0, 0, 10, 4)).getRows(2, 3, null);
+    }
+
+    private static void assertSameAsGetRgb(final BufferedImage image) {
+        final int width = image.getWidth();
+        final PixelReader pixels = new PixelReader(image);
+        assertEquals(width, pixels.getWidth());
+        assertEquals(image.getHeight(), pixels.getHeight());
+        final int[] row = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            assertArrayEquals("type " + image.getType() + " row " + y,
+                    image.getRGB(0, y, width, 1, null, 0, width),
+                    pixels.getRow(y, row));
+        }
+    }
+
+    private static BufferedImage createImage(final int type, final int width,
+            final int height) {
+        final BufferedImage image = new BufferedImage(width, height, type);
+        final Random random = new Random(type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageParser;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.formats.bmp.BmpImageParser;
+import org.apache.commons.imaging.formats.dcx.DcxImageParser;
+import org.apache.commons.imaging.formats.pcx.PcxImageParser;
+import org.apache.commons.imaging.formats.png.PngImageParser;
+import org.junit.Test;
+
+public class PooledRasterBufferProviderTest {
+
+    @Test
+    public void testReuse() {
+        final PooledRasterBufferProvider provider = new PooledRasterBufferProvider();
+        final int[] ints = provider.getIntBuffer(100);
+        ints[5] = 42;
+        provider.release(ints);
+        provider.release(ints);
+        assertEquals(400, provider.getPooledBytes());
+
+        // reused, and cleared
+        final int[] reused = provider.getIntBuffer(100);
+        assertSame(ints, reused);
+        assertEquals(0, reused[5]);
+        // released twice, but handed out once
+        assertNotSame(ints, provider.getIntBuffer(100));
+        assertEquals(0, provider.getPooledBytes());
+
+        // buffers of other lengths and types are not mixed up
+        provider.release(reused);
+        assertEquals(99, provider.getIntBuffer(99).length);
+        assertEquals(100, provider.getByteBuffer(100).length);
+        assertEquals(100, provider.getFloatBuffer(100).length);
+        assertSame(reused, provider.getIntBuffer(100));
+    }
+
+    @Test
+    public void testBound() {
+        final PooledRasterBufferProvider provider = new PooledRasterBufferProvider(1000);
+        final byte[] first = provider.getByteBuffer(600);
+        final byte[] second = provider.getByteBuffer(600);
+        provider.release(first);
+        provider.release(second);
+        assertEquals(600, provider.getPooledBytes());
+        assertSame(first, provider.getByteBuffer(600));
+        assertNotSame(second, provider.getByteBuffer(600));
+
+        provider.release(first);
+        provider.clear();
+        assertEquals(0, provider.getPooledBytes());
+    }
+
+    @Test
+    public void testDecodedImages() throws Exception {
+        final BufferedImage image = new BufferedImage(37, 23, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x * 7) << 16 | (y * 11) << 8 | (x + y));
+            }
+        }
+        final PooledRasterBufferProvider provider = new PooledRasterBufferProvider();
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.RASTER_BUFFER_PROVIDER, provider);
+
+        final ImageParser[] parsers = { new BmpImageParser(), new DcxImageParser(),
+                new PcxImageParser(), new PngImageParser() };
+        for (final ImageParser parser : parsers) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            parser.writeImage(image, baos, new HashMap<String, Object>());
+            final byte[] bytes = baos.toByteArray();
+            final BufferedImage expected = parser.getBufferedImage(bytes,
+                    new HashMap<String, Object>());
+            // the second read decodes into the buffers of the first
+            for (int i = 0; i < 2; i++) {
+                final BufferedImage actual = parser.getBufferedImage(bytes, params);
+                assertSamePixels(expected, actual);
+                provider.release(actual);
+            }
+        }
+
+        final byte[] bmp = Imaging.writeImageToBytes(image, ImageFormats.BMP,
+                new HashMap<String, Object>());
+        final BufferedImage first = Imaging.getBufferedImage(bmp, params);
+        final int[] pixels = ((DataBufferInt) first.getRaster().getDataBuffer()).getData();
+        provider.release(first);
+        final BufferedImage second = Imaging.getBufferedImage(bmp, params);
+        assertSame(pixels, ((DataBufferInt) second.getRaster().getDataBuffer()).getData());
+    }
+
+    private static void assertSamePixels(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -18,18 +18,32 @@
 package org.apache.commons.imaging.common.bytesource;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.imaging.util.IoUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -38,6 +52,7 @@ import org.junit.runners.Parameterized;
 public class ByteSourceDataTest extends ByteSourceTest {
 
     private byte[] testByteArray;
+    private final List<RandomAccessFile> openFiles = new ArrayList<RandomAccessFile>();
 
     @Parameterized.Parameters
     public static Collection<byte[]> data() {
@@ -64,6 +79,12 @@ public class ByteSourceDataTest extends ByteSourceTest {
         }
     }
 
+    private class ByteSourceArrayFactory implements ByteSourceFactory {
+        public ByteSource getByteSource(final byte src[]) throws IOException {
+            return new ByteSourceArray(src);
+        }
+    }
+
     private class ByteSourceInputStreamFileFactory implements ByteSourceFactory {
         public ByteSource getByteSource(final byte src[]) throws IOException {
             final File file = createTempFile(src);
@@ -75,6 +96,17 @@ public class ByteSourceDataTest extends ByteSourceTest {
         }
     }
 
+    private class ByteSourceFileChannelFactory implements ByteSourceFactory {
+        public ByteSource getByteSource(final byte src[]) throws IOException {
+            final File file = createTempFile(src);
+
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            openFiles.add(raf);
+
+            return new ByteSourceFileChannel(raf.getChannel(), file.getName());
+        }
+    }
+
     private class ByteSourceInputStreamRawFactory implements ByteSourceFactory {
         public ByteSource getByteSource(final byte src[]) throws IOException {
             final ByteArrayInputStream is = new ByteArrayInputStream(src);
@@ -144,6 +176,73 @@ public class ByteSourceDataTest extends ByteSourceTest {
             }
         }
 
+        {
+            // test writeTo() into memory and, after some prefix, into a file.
+            final int start = src.length / 2;
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byteSource.writeTo(baos, start);
+            final byte dst[] = baos.toByteArray();
+            assertArrayEquals(Arrays.copyOfRange(src, start, src.length), dst);
+
+            final File file = createTempFile("write_", ".bin");
+            FileOutputStream fos = null;
+            boolean canThrow = false;
+            try {
+                fos = new FileOutputStream(file);
+                fos.write(0x55);
+                byteSource.writeTo(fos, start);
+                fos.write(0xaa);
+                canThrow = true;
+            } finally {
+                IoUtils.closeQuietly(canThrow, fos);
+            }
+            final byte written[] = FileUtils.readFileToByteArray(file);
+            assertEquals(dst.length + 2, written.length);
+            assertEquals(0x55, 0xff & written[0]);
+            assertArrayEquals(dst, Arrays.copyOfRange(written, 1, written.length - 1));
+            assertEquals(0xaa, 0xff & written[written.length - 1]);
+        }
+    }
+
+    /**
+     * Reads one byte source from several threads at once, by stream and by
+     * block.
+     */
+    protected void readConcurrently(final ByteSourceFactory byteSourceFactory,
+            final byte src[]) throws Exception {
+        final ByteSource byteSource = byteSourceFactory.getByteSource(src);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 8; i++) {
+                final int start = src.length * i / 8;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        final InputStream is = byteSource.getInputStream();
+                        try {
+                            assertArrayEquals(src, IOUtils.toByteArray(is));
+                        } finally {
+                            is.close();
+                        }
+                        assertArrayEquals(Arrays.copyOfRange(src, start, src.length),
+                                byteSource.getBlock(start, src.length - start));
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @After
+    public void closeFiles() throws IOException {
+        for (final RandomAccessFile raf : openFiles) {
+            raf.close();
+        }
     }
 
     @Test
@@ -151,6 +250,10 @@ public class ByteSourceDataTest extends ByteSourceTest {
         writeAndReadBytes(new ByteSourceFileFactory(), testByteArray);
     }
     @Test
+    public void testByteSourceArrayFactory() throws Exception {
+        writeAndReadBytes(new ByteSourceArrayFactory(), testByteArray);
+    }
+    @Test
     public void testByteSourceInputStreamFileFactory() throws Exception {
         writeAndReadBytes(new ByteSourceInputStreamFileFactory(), testByteArray);
     }
@@ -158,4 +261,53 @@ public class ByteSourceDataTest extends ByteSourceTest {
     public void testByteSourceInputStreamRawFactory() throws Exception {
         writeAndReadBytes(new ByteSourceInputStreamRawFactory(), testByteArray);
     }
+
+    @Test
+    public void testByteSourceFileChannelFactory() throws Exception {
+        writeAndReadBytes(new ByteSourceFileChannelFactory(), testByteArray);
+    }
+
+    @Test
+    public void testConcurrentByteSourceFileChannel() throws Exception {
+        readConcurrently(new ByteSourceFileChannelFactory(), testByteArray);
+    }
+
+    @Test
+    public void testConcurrentByteSourceInputStream() throws Exception {
+        readConcurrently(new ByteSourceInputStreamRawFactory(), testByteArray);
+    }
+
+    @Test
+    public void testByteSourceInputStreamBlock() throws Exception {
+        final int[] read = new int[1];
+        final InputStream is = new FilterInputStream(new ByteArrayInputStream(testByteArray)) {
+            @Override
+            public int read() throws IOException {
+                read[0]++;
+                return super.read();
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                final int count = super.read(b, off, len);
+                read[0] += Math.max(0, count);
+                return count;
+            }
+        };
+        final ByteSource byteSource = new ByteSourceInputStream(is, null);
+        final int blockLength = Math.min(16, testByteArray.length);
+        assertArrayEquals(Arrays.copyOfRange(testByteArray, 0, blockLength),
+                byteSource.getBlock(0, blockLength));
+        // the stream is read through a buffer, but not to its end.
+        if (testByteArray.length > 8192) {
+            assertTrue(read[0] < testByteArray.length);
+        }
+
+        try {
+            byteSource.getBlock(testByteArray.length, 1);
+            fail();
+        } catch (final IOException e) {
+            // expected
+        }
+    }
 }
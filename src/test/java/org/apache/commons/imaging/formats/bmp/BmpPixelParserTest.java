@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.bmp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.junit.Test;
+
+public class BmpPixelParserTest {
+
+    private static final int BI_RGB = 0;
+    private static final int BI_RLE8 = 1;
+    private static final int BI_RLE4 = 2;
+    private static final int[] PALETTE = { 0x000000, 0xff0000, 0x00ff00, 0x0000ff };
+
+    private static byte[] createBmp(final int width, final int height, final int bitsPerPixel,
+            final int compression, final int[] palette, final int[] imageData) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final BinaryOutputStream bos = new BinaryOutputStream(baos,
+                ByteOrder.LITTLE_ENDIAN);
+        final int dataOffset = 14 + 40 + 4 * palette.length;
+        bos.write('B');
+        bos.write('M');
+        bos.write4Bytes(dataOffset + imageData.length);
+        bos.write4Bytes(0);
+        bos.write4Bytes(dataOffset);
+
+        bos.write4Bytes(40);
+        bos.write4Bytes(width);
+        bos.write4Bytes(height);
+        bos.write2Bytes(1);
+        bos.write2Bytes(bitsPerPixel);
+        bos.write4Bytes(compression);
+        bos.write4Bytes(imageData.length);
+        bos.write4Bytes(0);
+        bos.write4Bytes(0);
+        bos.write4Bytes(palette.length);
+        bos.write4Bytes(0);
+
+        for (final int rgb : palette) {
+            bos.write(0xff & rgb);
+            bos.write(0xff & (rgb >> 8));
+            bos.write(0xff & (rgb >> 16));
+            bos.write(0);
+        }
+        for (final int b : imageData) {
+            bos.write(b);
+        }
+        bos.close();
+        return baos.toByteArray();
+    }
+
+    private static BufferedImage read(final byte[] bytes) throws Exception {
+        return new BmpImageParser().getBufferedImage(new ByteSourceArray(bytes), null);
+    }
+
+    private static void assertRow(final BufferedImage image, final int y, final int... indices) {
+        for (int x = 0; x < indices.length; x++) {
+            assertEquals("(" + x + "," + y + ")", 0xff000000 | PALETTE[indices[x]],
+                    image.getRGB(x, y));
+        }
+    }
+
+    @Test
+    public void testRle8() throws Exception {
+        final int[] data = {
+                // bottom row: a run, then 3 absolute samples padded to 4 bytes
+                2, 1, 0, 3, 2, 3, 0, 0, 0, 0,
+                // top row: a delta skipping a pixel, then a run
+                0, 2, 1, 0, 4, 2,
+                0, 1 };
+        final BufferedImage image = read(createBmp(5, 2, 8,
+                BI_RLE8, PALETTE, data));
+        assertEquals(BufferedImage.TYPE_BYTE_INDEXED, image.getType());
+        assertRow(image, 0, 0, 2, 2, 2, 2);
+        assertRow(image, 1, 1, 1, 2, 3, 0);
+    }
+
+    @Test
+    public void testRle4() throws Exception {
+        final int[] data = { 5, 0x12, 0, 3, 0x30, 0x10, 0, 1 };
+        final BufferedImage image = read(createBmp(8, 1, 4,
+                BI_RLE4, PALETTE, data));
+        assertEquals(BufferedImage.TYPE_BYTE_INDEXED, image.getType());
+        assertRow(image, 0, 1, 2, 1, 2, 1, 3, 0, 1);
+    }
+
+    @Test
+    public void testOneBitPerPixel() throws Exception {
+        final int[] data = {
+                0xaa, 0xc0, 0, 0,
+                0x0f, 0x40, 0, 0 };
+        final BufferedImage image = read(createBmp(10, 2, 1,
+                BI_RGB, new int[] { PALETTE[0], PALETTE[1] }, data));
+        assertEquals(BufferedImage.TYPE_BYTE_INDEXED, image.getType());
+        assertRow(image, 0, 0, 0, 0, 0, 1, 1, 1, 1, 0, 1);
+        assertRow(image, 1, 1, 0, 1, 0, 1, 0, 1, 0, 1, 1);
+    }
+
+    @Test
+    public void testFourBitsPerPixel() throws Exception {
+        final int[] data = { 0x01, 0x23, 0x30, 0 };
+        final BufferedImage image = read(createBmp(5, 1, 4,
+                BI_RGB, PALETTE, data));
+        assertRow(image, 0, 0, 1, 2, 3, 3);
+    }
+
+    @Test
+    public void testDirectColor() throws Exception {
+        // too many colors for a palette
+        final BufferedImage source = new BufferedImage(19, 17, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                source.setRGB(x, y, 0x10203 * (1 + x + 19 * y));
+            }
+        }
+        final byte[] bytes = Imaging.writeImageToBytes(source, ImageFormats.BMP, null);
+        final BufferedImage image = read(bytes);
+        assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                assertEquals(source.getRGB(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.gif;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.junit.Test;
+
+public class GifAnimationWriteTest {
+    private static final int SIZE = 32;
+
+    @Test
+    public void testRoundtrip() throws Exception {
+        final List<BufferedImage> frames = new ArrayList<BufferedImage>();
+        final BufferedImage background = createBackground();
+        frames.add(background);
+        // a square moving across the background
+        for (int i = 0; i < 4; i++) {
+            final BufferedImage frame = copy(background);
+            fill(frame, 4 * i, 8, 6, 6, 0xffff0000);
+            frames.add(frame);
+        }
+        // the same frame again
+        frames.add(copy(frames.get(frames.size() - 1)));
+        // a hole, which needs the previous frame cleared
+        final BufferedImage hole = copy(background);
+        fill(hole, 10, 10, 4, 4, 0);
+        frames.add(hole);
+        frames.add(copy(background));
+
+        final int[] delays = new int[frames.size()];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = 10 * i;
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new GifImageParser().writeImages(frames, delays, baos, null);
+        final byte[] gif = baos.toByteArray();
+
+        final GifFrameReader reader = new GifFrameReader(new ByteSourceArray(gif));
+        try {
+            for (int i = 0; i < frames.size(); i++) {
+                final BufferedImage frame = reader.readNextFrame();
+                assertEquals(delays[i], reader.getDelay());
+                assertSameImage(frames.get(i), frame);
+            }
+            assertEquals(null, reader.readNextFrame());
+        } finally {
+            reader.close();
+        }
+
+        // the unchanged background isn't written again.
+        final ByteArrayOutputStream single = new ByteArrayOutputStream();
+        new GifImageParser().writeImage(background, single,
+                new HashMap<String, Object>());
+        assertTrue(gif.length < 4 * single.size());
+    }
+
+    @Test
+    public void testQuantized() throws Exception {
+        final List<BufferedImage> frames = new ArrayList<BufferedImage>();
+        for (int i = 0; i < 3; i++) {
+            final BufferedImage frame = new BufferedImage(SIZE, SIZE,
+                    BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    frame.setRGB(x, y, (x * 8 << 16) | (y * 8 << 8) | (i * 64));
+                }
+            }
+            frames.add(frame);
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new GifImageParser().writeImages(frames, new int[3], baos, null);
+
+        final List<BufferedImage> read = new GifImageParser()
+                .getAllBufferedImages(new ByteSourceArray(baos.toByteArray()));
+        assertEquals(3, read.size());
+        assertEquals(SIZE, read.get(2).getWidth());
+    }
+
+    @Test
+    public void testOnExecutor() throws Exception {
+        final BufferedImage background = createBackground();
+        final List<BufferedImage> frames = new ArrayList<BufferedImage>();
+        for (int i = 0; i < 4; i++) {
+            final BufferedImage frame = copy(background);
+            fill(frame, i * 4, i * 4, 6, 6, 0xffff0000 | (i * 0x40));
+            frames.add(frame);
+        }
+
+        final ByteArrayOutputStream inline = new ByteArrayOutputStream();
+        new GifImageParser().writeImages(frames, new int[4], inline, null);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Map<String, Object> params = new HashMap<String, Object>();
+            params.put(ImagingConstants.EXECUTOR, executor);
+            final ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+            new GifImageParser().writeImages(frames, new int[4], parallel,
+                    params);
+            assertArrayEquals(inline.toByteArray(), parallel.toByteArray());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = ImageWriteException.class)
+    public void testDifferentSizes() throws Exception {
+        final List<BufferedImage> frames = new ArrayList<BufferedImage>();
+        frames.add(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB));
+        frames.add(new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB));
+        new GifImageParser().writeImages(frames, new int[2],
+                new ByteArrayOutputStream(), null);
+    }
+
+    private static BufferedImage createBackground() {
+        final BufferedImage image = new BufferedImage(SIZE, SIZE,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                image.setRGB(x, y, 0xff000000 | ((x / 4) * 0x202020) | (y / 4));
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage copy(final BufferedImage image) {
+        final BufferedImage result = new BufferedImage(image.getWidth(),
+                image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        result.setRGB(0, 0, image.getWidth(), image.getHeight(),
+                image.getRGB(0, 0, image.getWidth(), image.getHeight(), null,
+                        0, image.getWidth()), 0, image.getWidth());
+        return result;
+    }
+
+    private static void fill(final BufferedImage image, final int x0,
+            final int y0, final int width, final int height, final int argb) {
+        for (int y = y0; y < y0 + height; y++) {
+            for (int x = x0; x < x0 + width; x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+    }
+
+    private static void assertSameImage(final BufferedImage expected,
+            final BufferedImage actual) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                final int e = expected.getRGB(x, y);
+                final int a = actual.getRGB(x, y);
+                if ((e >>> 24) == 0xff) {
+                    assertEquals(e, a);
+                } else {
+                    assertEquals(0, a >>> 24);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.gif;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.junit.Test;
+
+public class GifFrameReaderTest {
+    private static final int RED = 0xffff0000;
+    private static final int GREEN = 0xff00ff00;
+    private static final int BLUE = 0xff0000ff;
+
+    @Test
+    public void testRestoreToPrevious() throws Exception {
+        final byte[] gif = createAnimation(3);
+
+        final List<BufferedImage> frames = new GifImageParser()
+                .getAllBufferedImages(new ByteSourceArray(gif));
+        assertEquals(3, frames.size());
+
+        assertArea(frames.get(0), 0, 0, 4, 4, RED);
+
+        final BufferedImage second = frames.get(1);
+        assertEquals(BLUE, second.getRGB(1, 1));
+        assertEquals(BLUE, second.getRGB(2, 1));
+        assertEquals(BLUE, second.getRGB(1, 2));
+        // transparent, so the first frame shows through.
+        assertEquals(RED, second.getRGB(2, 2));
+        assertEquals(RED, second.getRGB(3, 3));
+
+        // the second frame is gone again.
+        final BufferedImage third = frames.get(2);
+        assertEquals(GREEN, third.getRGB(0, 0));
+        assertArea(third, 1, 1, 3, 3, RED);
+    }
+
+    @Test
+    public void testRestoreToBackground() throws Exception {
+        final byte[] gif = createAnimation(2);
+
+        final List<BufferedImage> frames = new GifImageParser()
+                .getAllBufferedImages(new ByteSourceArray(gif));
+        final BufferedImage third = frames.get(2);
+        assertEquals(GREEN, third.getRGB(0, 0));
+        assertArea(third, 1, 1, 3, 3, 0);
+        assertEquals(RED, third.getRGB(3, 3));
+    }
+
+    @Test
+    public void testStopEarly() throws Exception {
+        final byte[] gif = createAnimation(1);
+
+        final GifFrameReader reader = new GifFrameReader(new ByteSourceArray(gif));
+        try {
+            assertEquals(4, reader.getLogicalScreenWidth());
+            assertEquals(4, reader.getLogicalScreenHeight());
+
+            final BufferedImage frame = reader.readNextFrame();
+            assertEquals(10, reader.getDelay());
+            assertArea(frame, 0, 0, 4, 4, RED);
+
+            reader.readNextFrame();
+            assertEquals(20, reader.getDelay());
+        } finally {
+            reader.close();
+        }
+
+        // the first frame, as a plain image.
+        final BufferedImage image = new GifImageParser().getBufferedImage(
+                new ByteSourceArray(gif), null);
+        assertArea(image, 0, 0, 4, 4, RED);
+    }
+
+    @Test
+    public void testEnd() throws Exception {
+        final byte[] gif = createAnimation(1);
+
+        final GifFrameReader reader = new GifFrameReader(new ByteSourceArray(gif));
+        try {
+            int count = 0;
+            while (reader.readNextFrame() != null) {
+                count++;
+            }
+            assertEquals(3, count);
+            assertNull(reader.readNextFrame());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertArea(final BufferedImage image, final int x0,
+            final int y0, final int x1, final int y1, final int argb) {
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                assertEquals(argb, image.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * A 4x4 red frame, then a 2x2 blue frame with one transparent pixel at
+     * (1, 1) using the given disposal method, then a 1x1 green frame.
+     */
+    private static byte[] createAnimation(final int dispose) throws Exception {
+        final BufferedImage red = createImage(4, 4, RED);
+        final BufferedImage blue = createImage(2, 2, BLUE);
+        blue.setRGB(1, 1, 0);
+        final BufferedImage green = createImage(1, 1, GREEN);
+
+        final byte[] first = writeGif(red);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // header and logical screen descriptor of the first image
+        baos.write(first, 0, 13);
+        writeFrame(baos, first, 0, 0, 0, 10);
+        writeFrame(baos, writeGif(blue), 1, 1, dispose, 20);
+        writeFrame(baos, writeGif(green), 0, 0, 0, 30);
+        baos.write(0x3b);
+        return baos.toByteArray();
+    }
+
+    private static BufferedImage createImage(final int width, final int height,
+            final int argb) {
+        final BufferedImage image = new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] writeGif(final BufferedImage image) throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new GifImageParser().writeImage(image, baos,
+                new HashMap<String, Object>());
+        return baos.toByteArray();
+    }
+
+    /**
+     * Copies the graphic control extension and image of a single image GIF
+     * written by GifImageParser, patching its position, disposal and delay.
+     */
+    private static void writeFrame(final ByteArrayOutputStream baos,
+            final byte[] gif, final int left, final int top, final int dispose,
+            final int delay) {
+        final byte[] frame = new byte[gif.length - 14];
+        System.arraycopy(gif, 13, frame, 0, frame.length);
+        frame[3] |= dispose << 2;
+        frame[4] = (byte) delay;
+        frame[9] = (byte) left;
+        frame[11] = (byte) top;
+        baos.write(frame, 0, frame.length);
+    }
+}
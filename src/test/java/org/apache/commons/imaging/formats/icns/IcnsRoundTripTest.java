@@ -17,6 +17,7 @@
 
 package org.apache.commons.imaging.formats.icns;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -25,9 +26,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.common.BinaryOutputStream;
 import org.apache.commons.imaging.util.Debug;
 import org.apache.commons.io.FileUtils;
@@ -423,6 +427,51 @@ public class IcnsRoundTripTest extends IcnsBaseTest {
         bos.close();
     }
 
+    @Test
+    public void testIconSize() throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final BinaryOutputStream bos = new BinaryOutputStream(baos,
+                ByteOrder.BIG_ENDIAN);
+        bos.write4Bytes(IcnsImageParser.ICNS_MAGIC);
+        bos.write4Bytes(4 + 4 + 4 + 4 + 16 * 16 + 4 + 4 + 4 * 32 * 32 + 4 + 4 + 32 * 32);
+        // 8 BPP 16x16 image - white
+        bos.write4Bytes(IcnsType.ICNS_16x16_8BIT_IMAGE.getType());
+        bos.write4Bytes(4 + 4 + 16 * 16);
+        bos.write(new byte[16 * 16]);
+        // 32 BPP 32x32 image and its 8 BPP mask
+        bos.write4Bytes(IcnsType.ICNS_32x32_32BIT_IMAGE.getType());
+        bos.write4Bytes(4 + 4 + 4 * 32 * 32);
+        for (int i = 0; i < 32 * 32; i++) {
+            bos.write4Bytes(0x405060);
+        }
+        bos.write4Bytes(IcnsType.ICNS_32x32_8BIT_MASK.getType());
+        bos.write4Bytes(4 + 4 + 32 * 32);
+        for (int i = 0; i < 32 * 32; i++) {
+            bos.write(0x80);
+        }
+        bos.close();
+        final byte[] bytes = baos.toByteArray();
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        BufferedImage image = Imaging.getBufferedImage(bytes, params);
+        assertEquals(16, image.getWidth());
+        assertEquals(0xffffffff, image.getRGB(0, 0));
+
+        params.put(ImagingConstants.PARAM_KEY_ICON_SIZE, 20);
+        image = Imaging.getBufferedImage(bytes, params);
+        assertEquals(32, image.getWidth());
+        assertEquals(0x80405060, image.getRGB(0, 0));
+
+        params.put(ImagingConstants.PARAM_KEY_ICON_SIZE, 16);
+        params.put(ImagingConstants.PARAM_KEY_ICON_BITS_PER_PIXEL, 32);
+        image = Imaging.getBufferedImage(bytes, params);
+        assertEquals(16, image.getWidth());
+
+        params.put(ImagingConstants.PARAM_KEY_ICON_SIZE, 128);
+        image = Imaging.getBufferedImage(bytes, params);
+        assertEquals(32, image.getWidth());
+    }
+
     private void writeAndReadImageData(final String description, final byte[] rawData,
             final int foreground, final int background) throws IOException,
             ImageReadException {
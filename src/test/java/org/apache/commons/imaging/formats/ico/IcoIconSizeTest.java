@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.ico;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.junit.Test;
+
+public class IcoIconSizeTest {
+    private static final int BROKEN = 0xff00ff00;
+
+    @Test
+    public void testIconSize() throws Exception {
+        final byte[] ico = createIcon();
+        final IcoImageParser parser = new IcoImageParser();
+
+        // the first icon by default
+        assertIcon(16, 0xff102030,
+                parser.getBufferedImage(new ByteSourceArray(ico), null));
+        assertIcon(32, 0xff405060, readIcon(parser, ico, 20));
+        assertIcon(32, 0xff405060, readIcon(parser, ico, 32));
+        // a PNG icon, whose directory entry has no size or bit count
+        assertIcon(256, 0xff708090, readIcon(parser, ico, 100));
+        assertIcon(256, 0xff708090, readIcon(parser, ico, 1000));
+    }
+
+    @Test(expected = ImageReadException.class)
+    public void testBrokenIcon() throws Exception {
+        // the broken icon is only decoded when it is chosen
+        readIcon(new IcoImageParser(), createIcon(), 48);
+    }
+
+    private static BufferedImage readIcon(final IcoImageParser parser,
+            final byte[] ico, final int size) throws Exception {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.PARAM_KEY_ICON_SIZE, size);
+        return parser.getBufferedImage(new ByteSourceArray(ico), params);
+    }
+
+    private static void assertIcon(final int size, final int argb,
+            final BufferedImage image) {
+        assertEquals(size, image.getWidth());
+        assertEquals(size, image.getHeight());
+        assertEquals(argb, image.getRGB(size / 2, size / 2));
+    }
+
+    /**
+     * Returns an ICO file with a 16x16, a 32x32, a broken 48x48 and a 256x256
+     * PNG icon.
+     */
+    private static byte[] createIcon() throws Exception {
+        final List<byte[]> entries = new ArrayList<byte[]>();
+        final List<byte[]> images = new ArrayList<byte[]>();
+        addIcon(entries, images, createImage(16, 0xff102030));
+        addIcon(entries, images, createImage(32, 0xff405060));
+        addIcon(entries, images, createImage(48, BROKEN));
+        final byte[] png = Imaging.writeImageToBytes(createImage(256, 0xff708090),
+                ImageFormats.PNG, new HashMap<String, Object>());
+        entries.add(new byte[] { 0, 0, 0, 0, 1, 0, 0, 0 });
+        images.add(png);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final BinaryOutputStream bos = new BinaryOutputStream(baos,
+                ByteOrder.LITTLE_ENDIAN);
+        bos.write2Bytes(0);
+        bos.write2Bytes(1);
+        bos.write2Bytes(entries.size());
+        int offset = 6 + 16 * entries.size();
+        for (int i = 0; i < entries.size(); i++) {
+            bos.write(entries.get(i));
+            bos.write4Bytes(images.get(i).length);
+            bos.write4Bytes(offset);
+            offset += images.get(i).length;
+        }
+        for (final byte[] image : images) {
+            bos.write(image);
+        }
+        bos.close();
+        return baos.toByteArray();
+    }
+
+    private static void addIcon(final List<byte[]> entries, final List<byte[]> images,
+            final BufferedImage image) throws Exception {
+        final byte[] ico = Imaging.writeImageToBytes(image, ImageFormats.ICO,
+                new HashMap<String, Object>());
+        final byte[] entry = new byte[8];
+        System.arraycopy(ico, 6, entry, 0, entry.length);
+        final byte[] data = new byte[ico.length - 22];
+        System.arraycopy(ico, 22, data, 0, data.length);
+        if (image.getRGB(0, 0) == BROKEN) {
+            // no planes
+            data[12] = 0;
+        }
+        entries.add(entry);
+        images.add(data);
+    }
+
+    private static BufferedImage createImage(final int size, final int argb) {
+        final BufferedImage image = new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.util.Debug;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class JpegSegmentIndexTest extends JpegBaseTest {
+
+    @Test
+    public void testMatchesTraversal() throws Exception {
+        final List<File> images = getJpegImages();
+        for (final File imageFile : images) {
+            Debug.debug("imageFile", imageFile);
+
+            final ByteSource byteSource = new ByteSourceFile(imageFile);
+            final List<Integer> markers = new ArrayList<Integer>();
+            final List<byte[]> data = new ArrayList<byte[]>();
+            final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
+                public boolean beginSOS() {
+                    return false;
+                }
+
+                public void visitSOS(final int marker, final byte[] markerBytes, final byte[] imageData) {
+                }
+
+                public boolean visitSegment(final int marker, final byte[] markerBytes,
+                        final int segmentLength, final byte[] segmentLengthBytes,
+                        final byte[] segmentData) {
+                    markers.add(marker);
+                    data.add(segmentData);
+                    return true;
+                }
+            };
+
+            final long imageDataOffset;
+            try {
+                imageDataOffset = new JpegUtils().traverseJFIFHeaders(byteSource, visitor);
+            } catch (final ImageReadException e) {
+                // broken files are covered by JpegReadTest.
+                continue;
+            }
+
+            final JpegSegmentIndex index = JpegSegmentIndex.getInstance(byteSource);
+            assertSame(index, JpegSegmentIndex.getInstance(byteSource));
+            // each Imaging call opens the file with its own byte source.
+            assertSame(index, JpegSegmentIndex.getInstance(new ByteSourceFile(imageFile)));
+            assertEquals(imageDataOffset, index.getImageDataOffset());
+
+            final List<JpegSegmentIndex.Entry> entries = index.getEntries();
+            assertEquals(markers.size(), entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                final JpegSegmentIndex.Entry entry = entries.get(i);
+                assertEquals(markers.get(i).intValue(), entry.marker);
+                assertArrayEquals(data.get(i), entry.getData(byteSource));
+            }
+        }
+    }
+
+    @Test
+    public void testChangedFile() throws Exception {
+        final File imageFile = getJpegImages().get(0);
+        final File tempFile = createTempFile("index", ".jpg");
+        FileUtils.copyFile(imageFile, tempFile);
+        final JpegSegmentIndex index = JpegSegmentIndex.getInstance(new ByteSourceFile(tempFile));
+
+        // a different file's index mustn't be returned for the same path.
+        final byte[] bytes = FileUtils.readFileToByteArray(tempFile);
+        final byte[] changed = new byte[bytes.length + 6];
+        System.arraycopy(bytes, 0, changed, 0, 2);
+        // an empty comment segment after SOI.
+        changed[2] = (byte) 0xff;
+        changed[3] = (byte) 0xfe;
+        changed[4] = 0;
+        changed[5] = 4;
+        System.arraycopy(bytes, 2, changed, 8, bytes.length - 2);
+        FileUtils.writeByteArrayToFile(tempFile, changed);
+
+        final JpegSegmentIndex changedIndex = JpegSegmentIndex.getInstance(new ByteSourceFile(tempFile));
+        assertNotSame(index, changedIndex);
+        assertEquals(index.getEntries().size() + 1, changedIndex.getEntries().size());
+        assertEquals(JpegConstants.COM_MARKER, changedIndex.getEntries().get(0).marker);
+    }
+}
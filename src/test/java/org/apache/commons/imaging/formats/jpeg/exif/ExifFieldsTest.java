@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.exif;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.common.ImageMetadata.ImageMetadataItem;
+import org.apache.commons.imaging.common.bytesource.ByteSource;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.formats.jpeg.JpegImageParser;
+import org.apache.commons.imaging.formats.tiff.TiffField;
+import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
+import org.apache.commons.imaging.formats.tiff.TiffReader;
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.GpsTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class ExifFieldsTest extends ExifBaseTest {
+    private static final List<TagInfo> TAGS = Arrays.<TagInfo> asList(
+            ExifTagConstants.EXIF_TAG_DATE_TIME_ORIGINAL,
+            TiffTagConstants.TIFF_TAG_ORIENTATION,
+            TiffTagConstants.TIFF_TAG_MAKE,
+            GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF,
+            GpsTagConstants.GPS_TAG_GPS_LATITUDE);
+
+    private File imageFile;
+
+    @Parameterized.Parameters
+    public static Collection<File> data() throws Exception {
+        return getImagesWithExifData();
+    }
+
+    public ExifFieldsTest(final File imageFile) {
+        this.imageFile = imageFile;
+    }
+
+    @Test
+    public void testSameAsMetadata() throws Exception {
+        if (imageFile.getParentFile().getName().toLowerCase()
+                .equals("@broken")) {
+            return;
+        }
+
+        final JpegImageParser parser = new JpegImageParser();
+        final ByteSource byteSource = new ByteSourceFile(imageFile);
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ImagingConstants.PARAM_KEY_READ_THUMBNAILS, Boolean.FALSE);
+        final TiffImageMetadata metadata = parser.getExifMetadata(byteSource, params);
+
+        final Map<TagInfo, TiffField> fields = parser.getExifFields(byteSource,
+                TAGS, null);
+        for (final TagInfo tagInfo : TAGS) {
+            assertSameField(metadata.findField(tagInfo, true), fields.get(tagInfo));
+        }
+
+        // the thumbnail offset, which is only in the second directory
+        final TagInfo thumbnailTag = TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT;
+        final Map<TagInfo, TiffField> thumbnailFields = new TiffReader(false).readFields(
+                new ByteSourceArray(parser.getExifRawData(byteSource)),
+                Arrays.asList(thumbnailTag),
+                new int[] { TiffDirectoryConstants.DIRECTORY_TYPE_DIR_1 });
+        TiffField expected = null;
+        for (final ImageMetadataItem item : metadata.getDirectories()) {
+            final TiffImageMetadata.Directory directory = (TiffImageMetadata.Directory) item;
+            if (directory.type == TiffDirectoryConstants.DIRECTORY_TYPE_DIR_1) {
+                expected = directory.findField(thumbnailTag);
+            }
+        }
+        assertSameField(expected, thumbnailFields.get(thumbnailTag));
+    }
+
+    private static void assertSameField(final TiffField expected, final TiffField actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(expected.getDirectoryType(), actual.getDirectoryType());
+        assertEquals(expected.getFieldType(), actual.getFieldType());
+        assertArrayEquals(expected.getByteArrayValue(), actual.getByteArrayValue());
+    }
+}
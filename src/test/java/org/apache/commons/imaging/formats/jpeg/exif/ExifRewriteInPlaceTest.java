@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.exif;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
+import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.apache.commons.imaging.util.Debug;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class ExifRewriteInPlaceTest extends ExifBaseTest {
+
+    private static final int PADDING = 1024;
+
+    @Test
+    public void testInPlace() throws Exception {
+        final List<File> images = getImagesWithExifData();
+        int tested = 0;
+        for (final File imageFile : images) {
+            if (isPhilHarveyTestImage(imageFile)) {
+                continue;
+            }
+            Debug.debug("imageFile", imageFile);
+
+            final File tempFile = createTempFile("padded", ".jpg");
+            final ExifRewriter rewriter = new ExifRewriter();
+            rewriter.setPadding(PADDING);
+            final OutputStream os = new FileOutputStream(tempFile);
+            try {
+                rewriter.updateExifMetadataLossless(imageFile, os,
+                        getOutputSet(imageFile, "first"));
+            } catch (final ExifRewriter.ExifOverflowException e) {
+                // the image's EXIF segment has no room left to grow.
+                continue;
+            }
+            final byte[] padded = FileUtils.readFileToByteArray(tempFile);
+            assertEquals("first", getDescription(tempFile));
+
+            // fits into the padding, which is found whatever the padding of
+            // the rewriter making the edit.
+            final String description = repeat('x', PADDING / 2);
+            assertTrue(new ExifRewriter().updateExifMetadataInPlace(tempFile,
+                    getOutputSet(tempFile, description)));
+            assertEquals(padded.length, tempFile.length());
+            assertEquals(description, getDescription(tempFile));
+
+            // and what is left of it is found again by the next edit.
+            final String shorter = repeat('z', PADDING / 4);
+            assertTrue(new ExifRewriter().updateExifMetadataInPlace(tempFile,
+                    getOutputSet(tempFile, shorter)));
+            assertEquals(shorter, getDescription(tempFile));
+            assertTrue(rewriter.updateExifMetadataInPlace(tempFile,
+                    getOutputSet(tempFile, description)));
+            final byte[] updated = FileUtils.readFileToByteArray(tempFile);
+            assertEquals(padded.length, updated.length);
+            assertEquals(description, getDescription(tempFile));
+            assertImageDataEquals(padded, updated);
+
+            // doesn't fit; the file must be left alone.
+            assertFalse(rewriter.updateExifMetadataInPlace(tempFile,
+                    getOutputSet(tempFile, repeat('y', 0x10000 - PADDING))));
+            assertArrayEquals(updated, FileUtils.readFileToByteArray(tempFile));
+            tested++;
+        }
+        assertTrue(tested > 0);
+    }
+
+    @Test
+    public void testNoExif() throws Exception {
+        final File imageFile = getImageWithExifData();
+        final File tempFile = createTempFile("removed", ".jpg");
+        new ExifRewriter().removeExifMetadata(imageFile, new FileOutputStream(tempFile));
+        final byte[] removed = FileUtils.readFileToByteArray(tempFile);
+
+        assertFalse(new ExifRewriter().updateExifMetadataInPlace(tempFile,
+                new TiffOutputSet()));
+        assertArrayEquals(removed, FileUtils.readFileToByteArray(tempFile));
+    }
+
+    private static TiffOutputSet getOutputSet(final File file,
+            final String description) throws Exception {
+        final JpegImageMetadata metadata = (JpegImageMetadata) Imaging.getMetadata(file);
+        final TiffImageMetadata exif = metadata.getExif();
+        final TiffOutputSet outputSet = exif.getOutputSet();
+        final TiffOutputDirectory root = outputSet.getOrCreateRootDirectory();
+        root.removeField(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION);
+        root.add(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION, description);
+        return outputSet;
+    }
+
+    private static String getDescription(final File file) throws Exception {
+        final JpegImageMetadata metadata = (JpegImageMetadata) Imaging.getMetadata(file);
+        return metadata.findEXIFValue(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION)
+                .getStringValue();
+    }
+
+    private static String repeat(final char c, final int count) {
+        final char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static void assertImageDataEquals(final byte[] a, final byte[] b) {
+        // everything from the first SOS marker on.
+        final int start = indexOfSos(a);
+        assertEquals(start, indexOfSos(b));
+        assertArrayEquals(Arrays.copyOfRange(a, start, a.length),
+                Arrays.copyOfRange(b, start, b.length));
+    }
+
+    private static int indexOfSos(final byte[] bytes) {
+        int i = 2;
+        while ((bytes[i + 1] & 0xff) != 0xda) {
+            i += 2 + (((bytes[i + 2] & 0xff) << 8) | (bytes[i + 3] & 0xff));
+        }
+        return i;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.pnm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.imaging.ImageFormat;
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingTest;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.util.IoUtils;
+import org.junit.Test;
+
+public class PnmReadTest extends ImagingTest {
+
+    private static BufferedImage createImage(final int width, final int height,
+            final boolean hasAlpha) {
+        final Random random = new Random(width * 31 + height);
+        final BufferedImage image = new BufferedImage(width, height,
+                hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static int toGray(final int argb) {
+        return 0xff & argb;
+    }
+
+    private static void assertPixels(final BufferedImage expected, final BufferedImage actual,
+            final ImageFormat format) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                final int e = expected.getRGB(x, y);
+                final int a = actual.getRGB(x, y);
+                if (format == ImageFormats.PBM) {
+                    assertEquals(a == 0xffffffff, a != 0xff000000);
+                } else if (format == ImageFormats.PGM) {
+                    assertEquals(toGray(a), (a >> 8) & 0xff);
+                    assertEquals(toGray(a), (a >> 16) & 0xff);
+                } else if (format == ImageFormats.PAM) {
+                    assertEquals(e, a);
+                } else {
+                    assertEquals(0xff000000 | e, a);
+                }
+            }
+        }
+    }
+
+    private static BufferedImage roundtrip(final BufferedImage image, final ImageFormat format,
+            final boolean rawbits) throws Exception {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(PnmImageParser.PARAM_KEY_PNM_RAWBITS, rawbits
+                ? PnmImageParser.PARAM_VALUE_PNM_RAWBITS_YES
+                : PnmImageParser.PARAM_VALUE_PNM_RAWBITS_NO);
+        final byte[] bytes = Imaging.writeImageToBytes(image, format, params);
+        return new PnmImageParser().getBufferedImage(new ByteSourceArray(bytes), null);
+    }
+
+    @Test
+    public void testRoundtrip() throws Exception {
+        final BufferedImage image = createImage(37, 11, false);
+        final ImageFormat[] formats = { ImageFormats.PBM, ImageFormats.PGM, ImageFormats.PPM };
+        for (final ImageFormat format : formats) {
+            final BufferedImage raw = roundtrip(image, format, true);
+            final BufferedImage plain = roundtrip(image, format, false);
+            assertPixels(image, raw, format);
+            assertPixels(raw, plain, ImageFormats.PAM);
+        }
+    }
+
+    @Test
+    public void testPamRoundtrip() throws Exception {
+        final BufferedImage image = createImage(29, 13, true);
+        assertPixels(image, roundtrip(image, ImageFormats.PAM, true), ImageFormats.PAM);
+    }
+
+    @Test
+    public void testPlainPbmBits() throws Exception {
+        // the bits of a plain PBM file needn't be separated, and 1 is black
+        final byte[] bytes = "P1\n# comment\n3 2\n101\n0 1 0\n".getBytes("US-ASCII");
+        final BufferedImage image = new PnmImageParser().getBufferedImage(
+                new ByteSourceArray(bytes), null);
+        assertEquals(0xff000000, image.getRGB(0, 0));
+        assertEquals(0xffffffff, image.getRGB(1, 0));
+        assertEquals(0xff000000, image.getRGB(2, 0));
+        assertEquals(0xffffffff, image.getRGB(0, 1));
+        assertEquals(0xff000000, image.getRGB(1, 1));
+        assertEquals(0xffffffff, image.getRGB(2, 1));
+    }
+
+    @Test
+    public void testSixteenBitSamples() throws Exception {
+        final byte[] header = "P5 3 1 65535\n".getBytes("US-ASCII");
+        final byte[] bytes = new byte[header.length + 6];
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        final int[] samples = { 0, 0x8080, 0xffff };
+        for (int i = 0; i < samples.length; i++) {
+            bytes[header.length + 2 * i] = (byte) (samples[i] >> 8);
+            bytes[header.length + 2 * i + 1] = (byte) samples[i];
+        }
+        final BufferedImage image = new PnmImageParser().getBufferedImage(
+                new ByteSourceArray(bytes), null);
+        assertEquals(0xff000000, image.getRGB(0, 0));
+        assertEquals(0xff808080, image.getRGB(1, 0));
+        assertEquals(0xffffffff, image.getRGB(2, 0));
+
+        final byte[] text = "P2 3 1 65535\n0 32896 65535\n".getBytes("US-ASCII");
+        final BufferedImage plain = new PnmImageParser().getBufferedImage(
+                new ByteSourceArray(text), null);
+        assertPixels(image, plain, ImageFormats.PAM);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws Exception {
+        final byte[] bytes = "P6 4 4 255\n0123456789".getBytes("US-ASCII");
+        new PnmImageParser().getBufferedImage(new ByteSourceArray(bytes), null);
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        // large enough to be read through a memory mapping
+        final BufferedImage image = createImage(700, 600, false);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.PPM, null);
+        final File file = createTempFile("mapped", ".ppm");
+        OutputStream os = null;
+        boolean canThrow = false;
+        try {
+            os = new FileOutputStream(file);
+            os.write(bytes);
+            canThrow = true;
+        } finally {
+            IoUtils.closeQuietly(canThrow, os);
+        }
+        final BufferedImage mapped = new PnmImageParser().getBufferedImage(
+                new ByteSourceFile(file), null);
+        assertPixels(image, mapped, ImageFormats.PPM);
+    }
+}
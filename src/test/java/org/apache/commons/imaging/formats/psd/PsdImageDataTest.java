@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.psd;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.commons.imaging.color.ColorConversions;
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.PackBits;
+import org.junit.Test;
+
+/**
+ * Decodes synthetic PSD files of each compression and sample depth, and
+ * checks every pixel.
+ */
+public class PsdImageDataTest {
+    private static final int WIDTH = 21;
+    private static final int HEIGHT = 5;
+    private static final int MODE_BITMAP = 0;
+    private static final int MODE_GRAYSCALE = 1;
+    private static final int MODE_RGB = 3;
+    private static final int MODE_CMYK = 4;
+
+    @Test
+    public void testRgb() throws Exception {
+        for (final boolean compressed : new boolean[] { false, true }) {
+            final BufferedImage image = read(MODE_RGB, 8, 3, compressed);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    final int rgb = 0xff000000 | (sample(0, x, y) << 16)
+                            | (sample(1, x, y) << 8) | sample(2, x, y);
+                    assertEquals(rgb, image.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCmyk() throws Exception {
+        final BufferedImage image = read(MODE_CMYK, 8, 4, true);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final int rgb = ColorConversions.convertCMYKtoRGB(
+                        255 - sample(0, x, y), 255 - sample(1, x, y),
+                        255 - sample(2, x, y), 255 - sample(3, x, y));
+                assertEquals(rgb | 0xff000000, image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testGrayscale16() throws Exception {
+        for (final boolean compressed : new boolean[] { false, true }) {
+            final BufferedImage image = read(MODE_GRAYSCALE, 16, 1, compressed);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    // the most significant byte of each sample
+                    final int gray = sample(0, x, y);
+                    assertEquals(0xff000000 | gray << 16 | gray << 8 | gray,
+                            image.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBitmap() throws Exception {
+        for (final boolean compressed : new boolean[] { false, true }) {
+            final BufferedImage image = read(MODE_BITMAP, 1, 1, compressed);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    // 1 is black
+                    final int rgb = (sample(0, x, y) & 0x80) != 0 ? 0xff000000 : 0xffffffff;
+                    assertEquals(rgb, image.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the 8 bit sample of a channel, with runs for PackBits and
+     * some variation.
+     */
+    private static int sample(final int channel, final int x, final int y) {
+        if (x < 8) {
+            return (channel * 40 + y * 7) & 0xff;
+        }
+        return (x * 11 + y * 29 + channel * 53) & 0xff;
+    }
+
+    private static BufferedImage read(final int mode, final int depth,
+            final int channels, final boolean compressed) throws Exception {
+        final byte[] bytes = write(mode, depth, channels, compressed);
+        return new PsdImageParser().getBufferedImage(bytes, new HashMap<String, Object>());
+    }
+
+    private static byte[] write(final int mode, final int depth, final int channels,
+            final boolean compressed) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final BinaryOutputStream bos = new BinaryOutputStream(baos);
+        bos.write(new byte[] { '8', 'B', 'P', 'S' });
+        bos.write2Bytes(1);
+        bos.write(new byte[6]);
+        bos.write2Bytes(channels);
+        bos.write4Bytes(HEIGHT);
+        bos.write4Bytes(WIDTH);
+        bos.write2Bytes(depth);
+        bos.write2Bytes(mode);
+        bos.write4Bytes(0); // color mode data
+        bos.write4Bytes(0); // image resources
+        bos.write4Bytes(0); // layer and mask information
+        bos.write2Bytes(compressed ? 1 : 0);
+
+        final List<byte[]> rows = new ArrayList<byte[]>();
+        final int rowLength = (WIDTH * depth + 7) / 8;
+        for (int channel = 0; channel < channels; channel++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                final byte[] row = new byte[rowLength];
+                for (int x = 0; x < WIDTH; x++) {
+                    final int sample = sample(channel, x, y);
+                    if (depth == 1) {
+                        row[x / 8] |= (sample >> 7) << (7 - x % 8);
+                    } else if (depth == 16) {
+                        row[2 * x] = (byte) sample;
+                        row[2 * x + 1] = (byte) x;
+                    } else {
+                        row[x] = (byte) sample;
+                    }
+                }
+                rows.add(compressed ? new PackBits().compress(row) : row);
+            }
+        }
+        if (compressed) {
+            for (final byte[] row : rows) {
+                bos.write2Bytes(row.length);
+            }
+        }
+        for (final byte[] row : rows) {
+            bos.write(row);
+        }
+        bos.close();
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.rgbe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImagingConstants;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.junit.Test;
+
+public class RgbePixelDataTest {
+    // large enough for the pixels to be converted in several parts
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    @Test
+    public void testFloats() throws Exception {
+        checkFloats(new HashMap<String, Object>());
+    }
+
+    @Test
+    public void testFloatsOnExecutor() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            final Map<String, Object> params = new HashMap<String, Object>();
+            params.put(ImagingConstants.EXECUTOR, new Executor() {
+                public void execute(final Runnable command) {
+                    executed.incrementAndGet();
+                    executorService.execute(command);
+                }
+            });
+            checkFloats(params);
+            assertTrue(executed.get() > 1);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadOnOwnExecutor() throws Exception {
+        // the read holds the executor's only thread while it converts.
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Map<String, Object> params = new HashMap<String, Object>();
+            params.put(ImagingConstants.EXECUTOR, executorService);
+            executorService.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    checkFloats(params);
+                    return null;
+                }
+            }).get(60, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static void checkFloats(final Map<String, Object> params) throws Exception {
+        final BufferedImage image = new RgbeImageParser().getBufferedImage(
+                new ByteSourceArray(createImage(WIDTH, HEIGHT)), params);
+        final Raster raster = image.getRaster();
+        final float[] pixel = new float[3];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.getPixel(x, y, pixel);
+                assertEquals(getRed(x, y), pixel[0], 0);
+                assertEquals(getGreen(x, y), pixel[1], 0);
+                assertEquals(getBlue(x, y), pixel[2], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testToneMapped() throws Exception {
+        final float exposure = 0.75f;
+        final ToneMapper toneMapper = new ExposureToneMapper(exposure);
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(RgbeConstants.PARAM_KEY_TONE_MAPPER, toneMapper);
+        final BufferedImage image = new RgbeImageParser().getBufferedImage(
+                new ByteSourceArray(createImage(WIDTH, HEIGHT)), params);
+        assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(toneMapper.toRgb(getRed(x, y), getGreen(x, y), getBlue(x, y)),
+                        image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testToneMappers() {
+        assertEquals(0xff000000, new ExposureToneMapper().toRgb(0, -1, Float.NaN));
+        assertEquals(0xffffffff, new ExposureToneMapper().toRgb(1, 2, 1000));
+        // 18% grey
+        assertEquals(0xff767676, new ExposureToneMapper().toRgb(0.18f, 0.18f, 0.18f));
+        assertEquals(0xffbcbcbc, new ExposureToneMapper(4).toRgb(0.125f, 0.125f, 0.125f));
+
+        final ToneMapper reinhard = new ReinhardToneMapper();
+        // 1 / (1 + 1) = 0.5
+        assertEquals(0xffbcbcbc, reinhard.toRgb(1, 1, 1));
+        // highlights are compressed, not clipped
+        final int bright = reinhard.toRgb(100, 100, 100) & 0xff;
+        if (bright == 0xff || bright < (reinhard.toRgb(10, 10, 10) & 0xff)) {
+            fail("highlight not compressed: " + bright);
+        }
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        final byte[] bytes = createImage(16, 16);
+        final byte[] truncated = new byte[bytes.length - 10];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        try {
+            new RgbeImageParser().getBufferedImage(new ByteSourceArray(truncated),
+                    new HashMap<String, Object>());
+            fail("truncated image read");
+        } catch (final IOException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = ImageReadException.class)
+    public void testInvalidToneMapper() throws Exception {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put(RgbeConstants.PARAM_KEY_TONE_MAPPER, "bright");
+        new RgbeImageParser().getBufferedImage(
+                new ByteSourceArray(createImage(16, 16)), params);
+    }
+
+    private static int getMantissa(final int x, final int y) {
+        return 128 + (x + 3 * y) % 128;
+    }
+
+    private static int getExponent(final int x) {
+        return 120 + x % 16;
+    }
+
+    private static float getValue(final int mantissa, final int exponent) {
+        return (mantissa + 0.5f) * (float) Math.pow(2, exponent - 136);
+    }
+
+    private static float getRed(final int x, final int y) {
+        return getValue(getMantissa(x, y), getExponent(x));
+    }
+
+    private static float getGreen(final int x, final int y) {
+        return getValue(255 - getMantissa(x, y), getExponent(x));
+    }
+
+    private static float getBlue(final int x, final int y) {
+        return getValue(y % 16 == 0 ? 0 : 200, getExponent(x));
+    }
+
+    /**
+     * Writes an image whose red and green components are literal runs and
+     * whose blue components are repeated runs.
+     */
+    private static byte[] createImage(final int width, final int height)
+            throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(("#?RADIANCE\nFORMAT=32-bit_rle_rgbe\n\n-Y " + height
+                + " +X " + width + "\n").getBytes("US-ASCII"));
+        for (int y = 0; y < height; y++) {
+            baos.write(2);
+            baos.write(2);
+            baos.write(width >> 8);
+            baos.write(width);
+            for (int component = 0; component < 4; component++) {
+                for (int x = 0; x < width; x += 127) {
+                    final int count = Math.min(127, width - x);
+                    if (component == 2) {
+                        baos.write(128 | count);
+                        baos.write(y % 16 == 0 ? 0 : 200);
+                        continue;
+                    }
+                    baos.write(count);
+                    for (int i = x; i < x + count; i++) {
+                        if (component == 0) {
+                            baos.write(getMantissa(i, y));
+                        } else if (component == 1) {
+                            baos.write(255 - getMantissa(i, y));
+                        } else {
+                            baos.write(getExponent(i));
+                        }
+                    }
+                }
+            }
+        }
+        return baos.toByteArray();
+    }
+}
@@ -297,6 +297,82 @@ public class TiffCcittTest extends TiffBaseTest {
         } while (nextCombination(combinations, 1));
     }
 
+    @Test
+    public void testDecompressIntoRows() throws Exception {
+        final int width = 37;
+        final int height = 9;
+        final int bytesPerRow = (width + 7) / 8;
+        final byte[] uncompressed = new byte[height * bytesPerRow];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (((x * x + y * 7) / 5) % 3 == 0) {
+                    uncompressed[y * bytesPerRow + x / 8] |= 0x80 >> (x & 7);
+                }
+            }
+        }
+
+        final int offset = 3;
+        final byte[] rows = new byte[offset + uncompressed.length];
+        T4AndT6Compression.decompressModifiedHuffman(
+                T4AndT6Compression.compressModifiedHuffman(uncompressed, width, height),
+                width, height, rows, offset);
+        assertRows(uncompressed, rows, offset);
+
+        T4AndT6Compression.decompressT4_1D(
+                T4AndT6Compression.compressT4_1D(uncompressed, width, height, true),
+                width, height, true, rows, offset);
+        assertRows(uncompressed, rows, offset);
+
+        T4AndT6Compression.decompressT4_2D(
+                T4AndT6Compression.compressT4_2D(uncompressed, width, height, false, 3),
+                width, height, false, rows, offset);
+        assertRows(uncompressed, rows, offset);
+
+        T4AndT6Compression.decompressT6(
+                T4AndT6Compression.compressT6(uncompressed, width, height),
+                width, height, rows, offset);
+        assertRows(uncompressed, rows, offset);
+    }
+
+    @Test
+    public void testReadAsBinary() throws Exception {
+        final BufferedImage image = new BufferedImage(67, 13,
+                BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, ((x / 3 + y) & 1) == 0 ? 0xFFFFFF : 0);
+            }
+        }
+
+        final int[][] compressions = {
+                { TiffConstants.TIFF_COMPRESSION_CCITT_1D, 0 },
+                { TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3, 0 },
+                { TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3, 5 },
+                { TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_4, 0 } };
+        for (final int[] compression : compressions) {
+            final HashMap<String, Object> params = new HashMap<String, Object>();
+            params.put(ImagingConstants.PARAM_KEY_COMPRESSION, compression[0]);
+            if (compression[0] == TiffConstants.TIFF_COMPRESSION_CCITT_GROUP_3) {
+                params.put(TiffConstants.PARAM_KEY_T4_OPTIONS, compression[1]);
+            }
+            final byte[] bytes = Imaging.writeImageToBytes(image,
+                    ImageFormats.TIFF, params);
+
+            final HashMap<String, Object> readParams = new HashMap<String, Object>();
+            readParams.put(TiffConstants.PARAM_KEY_READ_BILEVEL_AS_BINARY, Boolean.TRUE);
+            final BufferedImage result = Imaging.getBufferedImage(bytes, readParams);
+            assertEquals(BufferedImage.TYPE_BYTE_BINARY, result.getType());
+            compareImages(image, result);
+        }
+    }
+
+    private static void assertRows(final byte[] expected, final byte[] rows,
+            final int offset) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], rows[offset + i]);
+        }
+    }
+
     /**
      * Generates the next combination of elements in the sequence array, with
      * each element having a maximum value of max. Initially, the sequence
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.GpsTagConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.FieldType;
+import org.junit.Test;
+
+public class TiffFindFieldTest {
+    private static final ByteOrder BYTE_ORDER = ByteOrder.BIG_ENDIAN;
+
+    @Test
+    public void testDirectory() throws Exception {
+        final TiffField orientation = createField(TiffTagConstants.TIFF_TAG_ORIENTATION.tag,
+                TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, 1);
+        final TiffField duplicate = createField(TiffTagConstants.TIFF_TAG_ORIENTATION.tag,
+                TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, 2);
+        final TiffField width = createField(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH.tag,
+                TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, 3);
+        final List<TiffField> fields = new ArrayList<TiffField>();
+        fields.add(orientation);
+        fields.add(duplicate);
+        fields.add(width);
+        final TiffDirectory directory = new TiffDirectory(
+                TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, fields, 8, 0);
+
+        // the first of several fields with the same tag.
+        assertSame(orientation, directory.findField(TiffTagConstants.TIFF_TAG_ORIENTATION));
+        assertSame(width, directory.findField(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH));
+        assertNull(directory.findField(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH));
+
+        directory.removeEntry(orientation);
+        assertSame(duplicate, directory.findField(TiffTagConstants.TIFF_TAG_ORIENTATION));
+        assertEquals(2, directory.entries.size());
+    }
+
+    @Test
+    public void testMetadata() throws Exception {
+        final TiffImageMetadata metadata = new TiffImageMetadata(null);
+        final TiffField orientation = createField(TiffTagConstants.TIFF_TAG_ORIENTATION.tag,
+                TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, 1);
+        addDirectory(metadata, TiffDirectoryConstants.DIRECTORY_TYPE_ROOT, orientation);
+        final TiffField iso = createField(ExifTagConstants.EXIF_TAG_ISO.tag,
+                TiffDirectoryConstants.DIRECTORY_TYPE_EXIF, 100);
+        addDirectory(metadata, TiffDirectoryConstants.DIRECTORY_TYPE_EXIF, iso);
+        // GPSLatitudeRef has the same tag as InteropIndex
+        final TiffField interopIndex = createField(GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF.tag,
+                TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY, 1);
+        addDirectory(metadata, TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY,
+                interopIndex);
+
+        assertSame(orientation, metadata.findField(TiffTagConstants.TIFF_TAG_ORIENTATION));
+        assertSame(orientation, metadata.findField(TiffTagConstants.TIFF_TAG_ORIENTATION, true));
+        assertSame(iso, metadata.findField(ExifTagConstants.EXIF_TAG_ISO, true));
+        assertNull(metadata.findField(GpsTagConstants.GPS_TAG_GPS_LATITUDE_REF));
+        assertNull(metadata.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_GPS));
+        assertEquals(TiffDirectoryConstants.DIRECTORY_TYPE_EXIF,
+                metadata.findDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_EXIF).type);
+        assertEquals(3, metadata.getAllFields().size());
+    }
+
+    private static void addDirectory(final TiffImageMetadata metadata, final int type,
+            final TiffField field) {
+        final List<TiffField> fields = new ArrayList<TiffField>();
+        fields.add(field);
+        final TiffImageMetadata.Directory directory = new TiffImageMetadata.Directory(
+                BYTE_ORDER, new TiffDirectory(type, fields, 8, 0));
+        directory.add(field);
+        metadata.add(directory);
+    }
+
+    private static TiffField createField(final int tag, final int directoryType,
+            final int value) {
+        final byte[] bytes = { (byte) (value >> 8), (byte) value, 0, 0 };
+        return new TiffField(tag, directoryType, FieldType.SHORT, 1, 0, bytes,
+                BYTE_ORDER, 0);
+    }
+}
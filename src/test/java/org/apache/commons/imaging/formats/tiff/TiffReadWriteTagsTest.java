@@ -17,15 +17,19 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.Map;
 import java.util.TreeMap;
 
 import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.common.RationalNumber;
 import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
 import org.apache.commons.imaging.formats.tiff.constants.GeoTiffTagConstants;
@@ -84,4 +88,37 @@ public class TiffReadWriteTagsTest extends TiffBaseTest {
         assertEquals(widthRes, rootDir.getSingleFieldValue(MicrosoftHdPhotoTagConstants.EXIF_TAG_WIDTH_RESOLUTION), 0.0);
         assertEquals(geoDoubleParams, rootDir.getSingleFieldValue(GeoTiffTagConstants.EXIF_TAG_GEO_DOUBLE_PARAMS_TAG), 0.0);
     }
+
+    @Test
+    public void testComplianceOfIgnoredField() throws ImageWriteException, ImageReadException, IOException {
+        TiffOutputSet set = new TiffOutputSet();
+        TiffOutputDirectory dir = set.getOrCreateRootDirectory();
+        dir.add(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION, "A pretty picture");
+        dir.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, 10);
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        new TiffImageWriterLossy().write(tiff, set);
+
+        // point the description's value past the end of the file
+        byte[] bytes = tiff.toByteArray();
+        ByteOrder byteOrder = bytes[0] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        int directoryOffset = ByteConversions.toInt(bytes, 4, byteOrder);
+        int entryCount = ByteConversions.toUInt16(bytes, directoryOffset, byteOrder);
+        for (int i = 0; i < entryCount; i++) {
+            int entryOffset = directoryOffset + 2 + 12 * i;
+            if (ByteConversions.toUInt16(bytes, entryOffset, byteOrder)
+                    == TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION.tag) {
+                byte[] offset = ByteConversions.toBytes(bytes.length, byteOrder);
+                System.arraycopy(offset, 0, bytes, entryOffset + 8, 4);
+            }
+        }
+
+        FormatCompliance formatCompliance = new FormatCompliance("");
+        TiffContents contents = new TiffReader(false).readFirstDirectory(
+                new ByteSourceArray(bytes), null, true, formatCompliance);
+        TiffDirectory rootDir = contents.directories.get(0);
+        assertNull(rootDir.findField(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION));
+        assertEquals(10, rootDir.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH));
+        assertTrue(formatCompliance.toString(),
+                formatCompliance.toString().contains("outside the file"));
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.ImageWriteException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterLossy;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.junit.Test;
+
+public class TiffYCbCrTest {
+
+    private static byte[] writeYCbCr(final int width, final int height,
+            final int subSamplingHorizontal, final int subSamplingVertical,
+            final int positioning, final byte[] data) throws ImageWriteException, IOException {
+        final TiffOutputSet set = new TiffOutputSet();
+        final TiffOutputDirectory dir = set.getOrCreateRootDirectory();
+        dir.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, width);
+        dir.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, height);
+        dir.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) 8, (short) 8, (short) 8);
+        dir.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL, (short) 3);
+        dir.add(TiffTagConstants.TIFF_TAG_COMPRESSION,
+                (short) TiffTagConstants.COMPRESSION_VALUE_UNCOMPRESSED);
+        dir.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION,
+                (short) TiffTagConstants.PHOTOMETRIC_INTERPRETATION_VALUE_YCB_CR);
+        dir.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP, height);
+        dir.add(TiffTagConstants.TIFF_TAG_YCBCR_SUB_SAMPLING,
+                (short) subSamplingHorizontal, (short) subSamplingVertical);
+        dir.add(TiffTagConstants.TIFF_TAG_YCBCR_POSITIONING, (short) positioning);
+        final TiffElement.DataElement[] strips = {
+                new TiffImageData.Data(0, data.length, data) };
+        dir.setTiffImageData(new TiffImageData.Strips(strips, height));
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new TiffImageWriterLossy().write(baos, set);
+        return baos.toByteArray();
+    }
+
+    private static void assertSameImage(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel (" + x + "," + y + ")",
+                        expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testUniformChroma() throws ImageWriteException, ImageReadException, IOException {
+        // a 5x4 image padded to 3x2 data units of 2x2 luma samples
+        final int width = 5;
+        final int height = 4;
+        final byte[] subsampled = new byte[3 * 2 * 6];
+        final byte[] full = new byte[width * height * 3];
+        int k = 0;
+        for (int unitRow = 0; unitRow < 2; unitRow++) {
+            for (int unit = 0; unit < 3; unit++) {
+                for (int j = 0; j < 2; j++) {
+                    for (int i = 0; i < 2; i++) {
+                        final int x = unit * 2 + i;
+                        final int y = unitRow * 2 + j;
+                        final int luma = 20 + 10 * x + 40 * y;
+                        subsampled[k++] = (byte) luma;
+                        if (x < width) {
+                            full[(y * width + x) * 3] = (byte) luma;
+                        }
+                    }
+                }
+                subsampled[k++] = (byte) 90;
+                subsampled[k++] = (byte) 170;
+            }
+        }
+        for (int i = 0; i < full.length; i += 3) {
+            full[i + 1] = (byte) 90;
+            full[i + 2] = (byte) 170;
+        }
+
+        final BufferedImage expected = Imaging.getBufferedImage(writeYCbCr(width, height, 1, 1,
+                TiffTagConstants.YCB_CR_POSITIONING_VALUE_CENTERED, full));
+        final BufferedImage actual = Imaging.getBufferedImage(writeYCbCr(width, height, 2, 2,
+                TiffTagConstants.YCB_CR_POSITIONING_VALUE_CENTERED, subsampled));
+        assertSameImage(expected, actual);
+    }
+
+    @Test
+    public void testCoSitedInterpolation() throws ImageWriteException, ImageReadException, IOException {
+        // two 2x1 data units with different Cb values; the co-sited
+        // samples fall on even columns and are interpolated in between
+        final byte[] subsampled = {
+                (byte) 128, (byte) 128, (byte) 100, (byte) 128,
+                (byte) 128, (byte) 128, (byte) 200, (byte) 128 };
+        final int[] expectedCb = { 100, 150, 200, 200 };
+        final byte[] full = new byte[4 * 3];
+        for (int x = 0; x < 4; x++) {
+            full[x * 3] = (byte) 128;
+            full[x * 3 + 1] = (byte) expectedCb[x];
+            full[x * 3 + 2] = (byte) 128;
+        }
+
+        final BufferedImage expected = Imaging.getBufferedImage(writeYCbCr(4, 1, 1, 1,
+                TiffTagConstants.YCB_CR_POSITIONING_VALUE_CO_SITED, full));
+        final BufferedImage actual = Imaging.getBufferedImage(writeYCbCr(4, 1, 2, 1,
+                TiffTagConstants.YCB_CR_POSITIONING_VALUE_CO_SITED, subsampled));
+        assertSameImage(expected, actual);
+    }
+
+    @Test
+    public void testCenteredInterpolation() throws ImageWriteException, ImageReadException, IOException {
+        // centered samples sit between columns 0/1 and 2/3, giving
+        // weights of 3/4 and 1/4 to the nearest and next nearest sample
+        final byte[] subsampled = {
+                (byte) 128, (byte) 128, (byte) 100, (byte) 128,
+                (byte) 128, (byte) 128, (byte) 200, (byte) 128 };
+        final int[] expectedCb = { 100, 125, 175, 200 };
+        final byte[] full = new byte[4 * 3];
+        for (int x = 0; x < 4; x++) {
+            full[x * 3] = (byte) 128;
+            full[x * 3 + 1] = (byte) expectedCb[x];
+            full[x * 3 + 2] = (byte) 128;
+        }
+
+        final BufferedImage expected = Imaging.getBufferedImage(writeYCbCr(4, 1, 1, 1,
+                TiffTagConstants.YCB_CR_POSITIONING_VALUE_CENTERED, full));
+        final BufferedImage actual = Imaging.getBufferedImage(writeYCbCr(4, 1, 2, 1,
+                TiffTagConstants.YCB_CR_POSITIONING_VALUE_CENTERED, subsampled));
+        assertSameImage(expected, actual);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.xpm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.common.bytesource.ByteSourceArray;
+import org.junit.Test;
+
+public class XpmParserTest {
+
+    private static BufferedImage read(final String xpm) throws Exception {
+        return new XpmImageParser().getBufferedImage(
+                new ByteSourceArray(xpm.getBytes("ISO-8859-1")), null);
+    }
+
+    private static String paletteEntry(final String name, final String color) {
+        return "\"" + name + " c " + color + "\",\n";
+    }
+
+    @Test
+    public void testSyntax() throws Exception {
+        final BufferedImage image = read("/* XPM */\n"
+                + "static char * test_xpm[] = {\n"
+                + "/* values */ \"3 2 3 1\",\n"
+                + "\"a c #ff0000\", \"\\x62 c #00ff00\",\n"
+                + "\"\\\" c None\",\n"
+                // adjacent literals form one row, escapes are unescaped
+                + "\"a\" \"b\\042\",\n"
+                + "\"\\141\\142a\"};\n");
+        assertEquals(0xffff0000, image.getRGB(0, 0));
+        assertEquals(0xff00ff00, image.getRGB(1, 0));
+        assertEquals(0x00000000, image.getRGB(2, 0));
+        assertEquals(0xffff0000, image.getRGB(0, 1));
+        assertEquals(0xff00ff00, image.getRGB(1, 1));
+        assertEquals(0xffff0000, image.getRGB(2, 1));
+    }
+
+    private static void testCharsPerPixel(final int charsPerPixel, final int numColors)
+            throws Exception {
+        final int width = 20;
+        final int height = (numColors + width - 1) / width;
+        final String[] names = new String[numColors];
+        final StringBuilder xpm = new StringBuilder("/* XPM */\nstatic char *t[] = {\n");
+        xpm.append("\"" + width + " " + height + " " + numColors + " " + charsPerPixel + "\",\n");
+        for (int i = 0; i < numColors; i++) {
+            final StringBuilder name = new StringBuilder();
+            for (int c = 0, n = i; c < charsPerPixel; c++, n /= 90) {
+                name.append((char) ('#' + n % 90));
+            }
+            names[i] = name.toString().replace("\\", "\\\\");
+            xpm.append(paletteEntry(names[i], String.format("#%06x", i * 7)));
+        }
+        for (int y = 0; y < height; y++) {
+            xpm.append('"');
+            for (int x = 0; x < width; x++) {
+                xpm.append(names[(y * width + x) % numColors]);
+            }
+            xpm.append(y < height - 1 ? "\",\n" : "\"\n");
+        }
+        xpm.append("};\n");
+
+        final BufferedImage image = read(xpm.toString());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int index = (y * width + x) % numColors;
+                assertEquals(0xff000000 | (index * 7), image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testCharsPerPixel() throws Exception {
+        testCharsPerPixel(1, 60);
+        testCharsPerPixel(2, 300);
+        testCharsPerPixel(3, 500);
+        testCharsPerPixel(4, 70);
+        testCharsPerPixel(5, 40);
+    }
+
+    @Test(expected = ImageReadException.class)
+    public void testUndefinedColor() throws Exception {
+        read("/* XPM */\nstatic char *t[] = {\n\"2 1 1 1\",\n\"a c #ffffff\",\n\"ab\"};\n");
+    }
+
+    @Test(expected = ImageReadException.class)
+    public void testMissingSignature() throws Exception {
+        read("static char *t[] = {\n\"1 1 1 1\",\n\"a c #ffffff\",\n\"a\"};\n");
+    }
+
+    @Test(expected = ImageReadException.class)
+    public void testMoreColorsThanNames() throws Exception {
+        read("/* XPM */\nstatic char *t[] = {\n\"1 1 300000000 3\",\n\"aaa c #ffffff\",\n\"aaa\"};\n");
+    }
+
+    @Test
+    public void testMoreColorsThanFileHolds() throws Exception {
+        try {
+            read("/* XPM */\nstatic char *t[] = {\n\"1 1 300000000 4\",\n\"aaaa c #ffffff\",\n\"aaaa\"};\n");
+            fail();
+        } catch (final ImageReadException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("palette"));
+        }
+    }
+}